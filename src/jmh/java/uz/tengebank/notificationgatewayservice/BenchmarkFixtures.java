@@ -0,0 +1,136 @@
+package uz.tengebank.notificationgatewayservice;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import uz.tengebank.notificationcontracts.dto.NotificationRequest;
+import uz.tengebank.notificationgatewayservice.config.props.ApplicationProperties;
+import uz.tengebank.notificationgatewayservice.dto.ApiResponse;
+import uz.tengebank.notificationgatewayservice.dto.notification.Lane;
+import uz.tengebank.notificationgatewayservice.dto.notification.PushProvider;
+import uz.tengebank.notificationgatewayservice.dto.notification.PushToken;
+import uz.tengebank.notificationgatewayservice.dto.template.NotificationTemplateResponseDto;
+import uz.tengebank.notificationgatewayservice.dto.template.batch.BatchRenderRequest;
+import uz.tengebank.notificationgatewayservice.dto.template.batch.RenderResult;
+import uz.tengebank.notificationgatewayservice.service.TemplateServiceClient;
+import uz.tengebank.notificationgatewayservice.service.render.ChunkedBatchRenderer;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Requests, properties and stubbed remote results shared by the benchmarks. Everything is derived from a
+ * fixed seed so runs compare against the stored baseline.
+ */
+public final class BenchmarkFixtures {
+
+  public static final String TEMPLATE_CODE = "benchmark-template";
+
+  private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+  private BenchmarkFixtures() {
+  }
+
+  /**
+   * Properties with only what the benchmarked components read; rate limits and quiet hours are off.
+   */
+  public static ApplicationProperties properties(int chunkSize) {
+    var stage = new ApplicationProperties.Pipeline.Stage(16, 1, 1);
+    return new ApplicationProperties(
+        null,
+        null,
+        null,
+        null,
+        new ApplicationProperties.Render(chunkSize, ApplicationProperties.Render.Mode.REMOTE, 0),
+        null,
+        null,
+        new ApplicationProperties.Push(500, 1000, true),
+        null,
+        new ApplicationProperties.Pipeline(stage, stage, stage, stage, stage),
+        new ApplicationProperties.FanOut(1, chunkSize),
+        null,
+        new ApplicationProperties.Priority(Lane.BULK, null, null, Map.of(Lane.TRANSACTIONAL, 4, Lane.BULK, 1),
+            Map.of(Lane.TRANSACTIONAL, 9, Lane.BULK, 1), false, 10),
+        new ApplicationProperties.RateLimits(null, null),
+        new ApplicationProperties.Schedule(null, null, null, Duration.ZERO, 1, Duration.ZERO),
+        new ApplicationProperties.Progress(1000, Duration.ofHours(1), Duration.ofSeconds(1), Duration.ofMinutes(1),
+            Duration.ofSeconds(5)),
+        new ApplicationProperties.Fallback(Duration.ofSeconds(30)),
+        new ApplicationProperties.Bulk(chunkSize)
+    );
+  }
+
+  public static NotificationRequest request(int recipients, String strategy, List<String> channels) {
+    var destinations = new ArrayList<Map<String, Object>>(recipients);
+    for (int i = 0; i < recipients; i++) {
+      destinations.add(Map.of(
+          "id", new UUID(0, i).toString(),
+          "phone", phone(i),
+          "lang", i % 3 == 0 ? "ru" : "uz",
+          "variables", Map.of("name", "Client " + i, "amount", 1000 + i % 997)
+      ));
+    }
+
+    var request = new LinkedHashMap<String, Object>();
+    request.put("requestId", new UUID(1, recipients).toString());
+    request.put("templateCode", TEMPLATE_CODE);
+    request.put("destinations", destinations);
+    request.put("channels", channels);
+    request.put("deliveryStrategy", strategy);
+    return OBJECT_MAPPER.convertValue(request, NotificationRequest.class);
+  }
+
+  /**
+   * What the template service would return for every destination and channel of the request rendered as one
+   * chunk; recipient ids are the renderer's result slots.
+   */
+  public static List<RenderResult> renderResults(NotificationRequest request) {
+    int channelCount = NotificationRequest.Channel.values().length;
+    var results = new ArrayList<RenderResult>(request.destinations().size() * request.channels().size());
+    for (int i = 0; i < request.destinations().size(); i++) {
+      var destination = request.destinations().get(i);
+      for (var channel : request.channels()) {
+        results.add(RenderResult.success(
+            Integer.toString(i * channelCount + channel.ordinal()),
+            new RenderResult.RenderedTemplate("Payment received", "Dear " + destination.variables().get("name")
+                + ", your card was credited with " + destination.variables().get("amount") + " UZS.", null)));
+      }
+    }
+    return results;
+  }
+
+  /**
+   * Renderer whose template service answers every batch instantly with {@code results}.
+   */
+  public static ChunkedBatchRenderer renderer(List<RenderResult> results, int chunkSize) {
+    var response = ApiResponse.success(results);
+    var client = new TemplateServiceClient() {
+      @Override
+      public ApiResponse<NotificationTemplateResponseDto> getTemplateByName(String templateName) {
+        throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public ApiResponse<List<RenderResult>> renderBatch(BatchRenderRequest request) {
+        return response;
+      }
+    };
+    return new ChunkedBatchRenderer(client, null, null, properties(chunkSize));
+  }
+
+  public static Map<String, List<PushToken>> tokensByPhone(NotificationRequest request) {
+    var tokens = new HashMap<String, List<PushToken>>(request.destinations().size() * 2);
+    for (var destination : request.destinations()) {
+      tokens.put(destination.phone(), List.of(
+          new PushToken("fcm-" + destination.id(), PushProvider.FCM, "ANDROID", "uz.tengebank.mobile")));
+    }
+    return tokens;
+  }
+
+  private static String phone(int i) {
+    return "99890" + String.format("%07d", i);
+  }
+}
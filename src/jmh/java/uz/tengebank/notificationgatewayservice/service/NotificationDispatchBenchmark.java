@@ -0,0 +1,121 @@
+package uz.tengebank.notificationgatewayservice.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+import uz.tengebank.notificationcontracts.dto.NotificationRequest;
+import uz.tengebank.notificationgatewayservice.BenchmarkFixtures;
+import uz.tengebank.notificationgatewayservice.config.props.ApplicationProperties;
+import uz.tengebank.notificationgatewayservice.dto.notification.DeliveryOptions;
+import uz.tengebank.notificationgatewayservice.dto.notification.Lane;
+import uz.tengebank.notificationgatewayservice.dto.notification.PushPayload;
+import uz.tengebank.notificationgatewayservice.dto.notification.PushToken;
+import uz.tengebank.notificationgatewayservice.dto.notification.SmsPayload;
+import uz.tengebank.notificationgatewayservice.dto.outbox.DeliveryOutcome;
+import uz.tengebank.notificationgatewayservice.service.dispatch.NotificationDispatcher;
+import uz.tengebank.notificationgatewayservice.service.dispatch.PushMulticastBatcher;
+import uz.tengebank.notificationgatewayservice.service.metrics.DispatchMetrics;
+import uz.tengebank.notificationgatewayservice.service.priority.RateShaper;
+import uz.tengebank.notificationgatewayservice.service.progress.ProgressRegistry;
+import uz.tengebank.notificationgatewayservice.service.render.RenderResults;
+import uz.tengebank.notificationgatewayservice.service.schedule.DeliveryScheduler;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The per-destination dispatch loops of both delivery strategies over rendered results and resolved tokens,
+ * with a dispatcher that hands every message to a {@link Blackhole} instead of the broker.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class NotificationDispatchBenchmark {
+
+  @Param({"1000", "100000", "1000000"})
+  public int recipients;
+
+  @Param({"PARALLEL", "FALLBACK"})
+  public String strategy;
+
+  private NotificationService notificationService;
+  private ApplicationProperties.Push pushProps;
+  private NotificationRequest request;
+  private DeliveryOptions delivery;
+  private RenderResults renderResults;
+  private Map<String, List<PushToken>> tokensByPhone;
+  private BlackholeDispatcher dispatcher;
+
+  @Setup(Level.Trial)
+  public void setUp(Blackhole blackhole) {
+    var props = BenchmarkFixtures.properties(recipients);
+    pushProps = props.push();
+    dispatcher = new BlackholeDispatcher(blackhole);
+    notificationService = new NotificationService(
+        null,
+        null,
+        dispatcher,
+        null,
+        null,
+        null,
+        props,
+        new RateShaper(props),
+        new DeliveryScheduler(props),
+        new DispatchMetrics(new SimpleMeterRegistry()),
+        ObservationRegistry.NOOP,
+        new ProgressRegistry(props, new SimpleMeterRegistry()),
+        new SimpleMeterRegistry()
+    );
+
+    request = BenchmarkFixtures.request(recipients, strategy, List.of("PUSH", "SMS"));
+    delivery = new DeliveryOptions(Lane.BULK, null);
+    renderResults = BenchmarkFixtures.renderer(BenchmarkFixtures.renderResults(request), recipients)
+        .renderChunk(request, request.destinations());
+    tokensByPhone = BenchmarkFixtures.tokensByPhone(request);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws InterruptedException {
+    notificationService.shutdown();
+  }
+
+  @Benchmark
+  public void dispatch() {
+    var pushBatcher = new PushMulticastBatcher(request.requestId(), delivery.lane(), pushProps, dispatcher);
+    if ("FALLBACK".equals(strategy)) {
+      notificationService.processWithFallback(request, delivery, request.destinations(), renderResults, tokensByPhone, pushBatcher);
+    } else {
+      notificationService.processInParallel(request, delivery, request.destinations(), renderResults, tokensByPhone, pushBatcher);
+    }
+    pushBatcher.flush();
+  }
+
+  private record BlackholeDispatcher(Blackhole blackhole) implements NotificationDispatcher {
+
+    private static final CompletableFuture<DeliveryOutcome> CONFIRMED = CompletableFuture.completedFuture(DeliveryOutcome.CONFIRMED);
+
+    @Override
+    public CompletableFuture<DeliveryOutcome> dispatchSms(SmsPayload message, Lane lane, long delayMillis, boolean failFast) {
+      blackhole.consume(message);
+      return CONFIRMED;
+    }
+
+    @Override
+    public CompletableFuture<DeliveryOutcome> dispatchPush(PushPayload message, Lane lane, long delayMillis, boolean failFast) {
+      blackhole.consume(message);
+      return CONFIRMED;
+    }
+  }
+}
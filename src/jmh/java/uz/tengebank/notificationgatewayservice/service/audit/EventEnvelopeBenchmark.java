@@ -0,0 +1,40 @@
+package uz.tengebank.notificationgatewayservice.service.audit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import uz.tengebank.notificationcontracts.dto.enums.IndividualNotificationStatus;
+import uz.tengebank.notificationcontracts.events.EventEnvelope;
+import uz.tengebank.notificationcontracts.events.EventFactory;
+import uz.tengebank.notificationcontracts.events.EventType;
+import uz.tengebank.notificationcontracts.payload.NotificationDestinationPayload;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building the audit envelope of an attempt failure, the event published once per failed destination.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class EventEnvelopeBenchmark {
+
+  private final UUID requestId = UUID.randomUUID();
+  private final UUID destinationId = UUID.randomUUID();
+
+  @Benchmark
+  public EventEnvelope attemptFailed() {
+    var payload = new NotificationDestinationPayload(
+        requestId,
+        destinationId,
+        IndividualNotificationStatus.INTERNAL_FAILURE,
+        "Rendering failed",
+        "RENDER_RESULT_FAILED"
+    );
+    return EventFactory.create(payload, EventType.INDIVIDUAL_NOTIFICATION_INTERNAL_FAILURE_V1, "notification-gateway-service");
+  }
+}
@@ -0,0 +1,73 @@
+package uz.tengebank.notificationgatewayservice.service.dispatch;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.amqp.support.converter.MessageConverter;
+import uz.tengebank.notificationgatewayservice.config.amqp.SmileMessageConverter;
+import uz.tengebank.notificationgatewayservice.dto.notification.PushPayload;
+import uz.tengebank.notificationgatewayservice.dto.notification.PushProvider;
+import uz.tengebank.notificationgatewayservice.dto.notification.SmsPayload;
+
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialization of the dispatch payloads into AMQP messages in both wire formats.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MessageConverterBenchmark {
+
+  @Param({"JSON", "SMILE"})
+  public String format;
+
+  @Param({"1", "500"})
+  public int pushTargets;
+
+  private MessageConverter converter;
+  private SmsPayload sms;
+  private PushPayload push;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    converter = "SMILE".equals(format)
+        ? new SmileMessageConverter(new ObjectMapper())
+        : new Jackson2JsonMessageConverter();
+
+    var requestId = UUID.randomUUID();
+    sms = new SmsPayload(requestId, UUID.randomUUID(), "998901234567",
+        "Dear Client, your card was credited with 1000 UZS.", Map.of("sender", "TENGE"));
+
+    var targets = new ArrayList<PushPayload.Target>(pushTargets);
+    for (int i = 0; i < pushTargets; i++) {
+      targets.add(new PushPayload.Target(UUID.randomUUID(), "fcm-token-" + i + "-" + UUID.randomUUID(), "uz.tengebank.mobile"));
+    }
+    push = new PushPayload(requestId, PushProvider.FCM, targets,
+        new PushPayload.PushContent("Payment received", "Your card was credited with 1000 UZS.", null, Map.of()),
+        Map.of("ttl", 3600));
+  }
+
+  @Benchmark
+  public Message sms() {
+    return converter.toMessage(sms, new MessageProperties());
+  }
+
+  @Benchmark
+  public Message push() {
+    return converter.toMessage(push, new MessageProperties());
+  }
+}
@@ -0,0 +1,46 @@
+package uz.tengebank.notificationgatewayservice.service.render;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import uz.tengebank.notificationcontracts.dto.NotificationRequest;
+import uz.tengebank.notificationgatewayservice.BenchmarkFixtures;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Render task building and result indexing of one chunk, with the template service answering instantly from
+ * prepared results.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ChunkedBatchRendererBenchmark {
+
+  @Param({"1000", "100000", "1000000"})
+  public int recipients;
+
+  @Param({"SMS", "PUSH,SMS"})
+  public String channels;
+
+  private NotificationRequest request;
+  private ChunkedBatchRenderer renderer;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    request = BenchmarkFixtures.request(recipients, "PARALLEL", List.of(channels.split(",")));
+    renderer = BenchmarkFixtures.renderer(BenchmarkFixtures.renderResults(request), recipients);
+  }
+
+  @Benchmark
+  public Object renderChunk() {
+    return renderer.renderChunk(request, request.destinations());
+  }
+}
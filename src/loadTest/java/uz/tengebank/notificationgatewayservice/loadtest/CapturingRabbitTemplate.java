@@ -0,0 +1,42 @@
+package uz.tengebank.notificationgatewayservice.loadtest;
+
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+
+/**
+ * In-process broker stand-in: every published message goes to the {@link PublishSink} and is acked right away
+ * through the confirm callback, without opening a connection.
+ */
+class CapturingRabbitTemplate extends RabbitTemplate {
+
+  private final PublishSink sink;
+  private volatile ConfirmCallback confirmCallback;
+
+  CapturingRabbitTemplate(ConnectionFactory connectionFactory, PublishSink sink) {
+    super(connectionFactory);
+    this.sink = sink;
+  }
+
+  @Override
+  public void setConfirmCallback(ConfirmCallback confirmCallback) {
+    super.setConfirmCallback(confirmCallback);
+    this.confirmCallback = confirmCallback;
+  }
+
+  @Override
+  public <T> T invoke(OperationsCallback<T> action, com.rabbitmq.client.ConfirmCallback acks,
+      com.rabbitmq.client.ConfirmCallback nacks) {
+    return action.doInRabbit(this);
+  }
+
+  @Override
+  public void send(String exchange, String routingKey, Message message, CorrelationData correlationData) {
+    sink.capture(exchange, routingKey, message);
+    ConfirmCallback callback = confirmCallback;
+    if (callback != null && correlationData != null) {
+      callback.confirm(correlationData, true, null);
+    }
+  }
+}
@@ -0,0 +1,38 @@
+package uz.tengebank.notificationgatewayservice.loadtest;
+
+import java.util.Arrays;
+
+/**
+ * Collects latency samples and reports percentiles over all of them.
+ */
+class Latencies {
+
+  private long[] samples = new long[1024];
+  private int size;
+
+  synchronized void record(long nanos) {
+    if (size == samples.length) {
+      samples = Arrays.copyOf(samples, size * 2);
+    }
+    samples[size++] = nanos;
+  }
+
+  synchronized String summary() {
+    if (size == 0) {
+      return "no samples";
+    }
+    long[] sorted = Arrays.copyOf(samples, size);
+    Arrays.sort(sorted);
+    return String.format("n=%d p50=%s p95=%s p99=%s p99.9=%s max=%s",
+        size, millis(sorted, 0.50), millis(sorted, 0.95), millis(sorted, 0.99), millis(sorted, 0.999),
+        format(sorted[size - 1]));
+  }
+
+  private static String millis(long[] sorted, double percentile) {
+    return format(sorted[(int) Math.min(sorted.length - 1, Math.ceil(percentile * sorted.length) - 1)]);
+  }
+
+  private static String format(long nanos) {
+    return String.format("%.2fms", nanos / 1_000_000.0);
+  }
+}
@@ -0,0 +1,131 @@
+package uz.tengebank.notificationgatewayservice.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fires the configured request mix at {@code /api/v1/notifications/send} with at most {@code concurrency}
+ * requests in flight.
+ */
+@Slf4j
+class LoadDriver {
+
+  private static final String TEMPLATE_CODE = "loadtest-template";
+
+  private final LoadTestConfig config;
+  private final PublishSink sink;
+  private final URI sendUri;
+  private final ObjectMapper objectMapper = new ObjectMapper();
+  private final HttpClient httpClient = HttpClient.newBuilder()
+      .executor(Executors.newVirtualThreadPerTaskExecutor())
+      .build();
+
+  private final Latencies acceptLatencies = new Latencies();
+  private final Map<Integer, AtomicLong> responsesByStatus = new ConcurrentHashMap<>();
+  private final AtomicLong destinations = new AtomicLong();
+
+  LoadDriver(LoadTestConfig config, PublishSink sink, String gatewayUrl) {
+    this.config = config;
+    this.sink = sink;
+    this.sendUri = URI.create(gatewayUrl + "/api/v1/notifications/send");
+  }
+
+  void run() throws InterruptedException {
+    var inFlight = new Semaphore(config.concurrency());
+    try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      for (int i = 0; i < config.requests(); i++) {
+        inFlight.acquire();
+        executor.submit(() -> {
+          try {
+            send();
+          } finally {
+            inFlight.release();
+          }
+        });
+      }
+    }
+  }
+
+  Latencies acceptLatencies() {
+    return acceptLatencies;
+  }
+
+  Map<Integer, AtomicLong> responsesByStatus() {
+    return responsesByStatus;
+  }
+
+  long destinations() {
+    return destinations.get();
+  }
+
+  private void send() {
+    var requestId = UUID.randomUUID();
+    int recipients = config.recipients().next();
+    byte[] body;
+    try {
+      body = objectMapper.writeValueAsBytes(request(requestId, recipients));
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+
+    long submitted = System.nanoTime();
+    sink.expect(requestId, submitted);
+    int status;
+    try {
+      var response = httpClient.send(HttpRequest.newBuilder(sendUri)
+          .header("Content-Type", "application/json")
+          .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+          .build(), HttpResponse.BodyHandlers.discarding());
+      status = response.statusCode();
+    } catch (IOException e) {
+      log.warn("Load driver: request {} failed: {}", requestId, e.getMessage());
+      status = -1;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return;
+    }
+
+    acceptLatencies.record(System.nanoTime() - submitted);
+    responsesByStatus.computeIfAbsent(status, s -> new AtomicLong()).incrementAndGet();
+    if (status == 202) {
+      destinations.addAndGet(recipients);
+    } else {
+      sink.timings().remove(requestId);
+    }
+  }
+
+  private Map<String, Object> request(UUID requestId, int recipients) {
+    var destinations = new ArrayList<Map<String, Object>>(recipients);
+    for (int i = 0; i < recipients; i++) {
+      destinations.add(Map.of(
+          "id", UUID.randomUUID().toString(),
+          "phone", "99890" + String.format("%07d", i),
+          "lang", i % 3 == 0 ? "ru" : "uz",
+          "variables", Map.of("name", "Client " + i, "amount", 1000 + i)
+      ));
+    }
+
+    var request = new LinkedHashMap<String, Object>();
+    request.put("requestId", requestId.toString());
+    request.put("templateCode", TEMPLATE_CODE);
+    request.put("destinations", destinations);
+    request.put("channels", List.copyOf(config.channels().next()));
+    request.put("deliveryStrategy", config.strategies().next());
+    return request;
+  }
+}
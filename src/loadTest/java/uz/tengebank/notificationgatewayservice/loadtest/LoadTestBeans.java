@@ -0,0 +1,34 @@
+package uz.tengebank.notificationgatewayservice.loadtest;
+
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import uz.tengebank.notificationgatewayservice.service.outbox.PublishOutbox;
+
+/**
+ * Replaces the broker-backed {@link RabbitTemplate} of the gateway with the capturing one. Registered as an
+ * explicit source after the application class, so its definition overrides the one in {@code RabbitMQConfig};
+ * deliberately not a {@code @Configuration} so component scanning never picks it up.
+ */
+class LoadTestBeans {
+
+  @Bean
+  PublishSink publishSink() {
+    return new PublishSink();
+  }
+
+  @Bean
+  RabbitTemplate rabbitTemplate(
+      ConnectionFactory connectionFactory,
+      Jackson2JsonMessageConverter converter,
+      ObjectProvider<PublishOutbox> publishOutbox,
+      PublishSink publishSink
+  ) {
+    var rabbitTemplate = new CapturingRabbitTemplate(connectionFactory, publishSink);
+    rabbitTemplate.setMessageConverter(converter);
+    rabbitTemplate.setConfirmCallback((correlationData, ack, cause) -> publishOutbox.getObject().onConfirm(correlationData, ack, cause));
+    return rabbitTemplate;
+  }
+}
@@ -0,0 +1,85 @@
+package uz.tengebank.notificationgatewayservice.loadtest;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+
+/**
+ * Settings of a load test run, read from {@code key=value} arguments. Mixes are comma separated
+ * {@code value:weight} pairs, e.g. {@code recipients=1:70,100:25,10000:5}.
+ */
+record LoadTestConfig(
+    int requests,
+    int concurrency,
+    Mix<Integer> recipients,
+    Mix<List<String>> channels,
+    Mix<String> strategies,
+    Duration templateLatency,
+    Duration templateJitter,
+    double templateErrorRate,
+    double renderErrorRate,
+    Duration drainTimeout
+) {
+
+  static LoadTestConfig parse(String[] args) {
+    Map<String, String> values = new HashMap<>();
+    for (String arg : args) {
+      int separator = arg.indexOf('=');
+      if (separator < 0) {
+        throw new IllegalArgumentException("Expected key=value, got '" + arg + "'");
+      }
+      values.put(arg.substring(0, separator).replaceFirst("^--", ""), arg.substring(separator + 1));
+    }
+
+    return new LoadTestConfig(
+        Integer.parseInt(values.getOrDefault("requests", "1000")),
+        Integer.parseInt(values.getOrDefault("concurrency", "16")),
+        Mix.parse(values.getOrDefault("recipients", "1:70,100:25,10000:5"), Integer::valueOf),
+        Mix.parse(values.getOrDefault("channels", "SMS:50,PUSH:20,PUSH+SMS:30"), v -> List.of(v.split("\\+"))),
+        Mix.parse(values.getOrDefault("strategies", "FALLBACK:50,PARALLEL:50"), Function.identity()),
+        Duration.ofMillis(Long.parseLong(values.getOrDefault("template-latency-ms", "5"))),
+        Duration.ofMillis(Long.parseLong(values.getOrDefault("template-jitter-ms", "10"))),
+        Double.parseDouble(values.getOrDefault("template-error-rate", "0")),
+        Double.parseDouble(values.getOrDefault("render-error-rate", "0.01")),
+        Duration.ofSeconds(Long.parseLong(values.getOrDefault("drain-timeout-s", "60")))
+    );
+  }
+
+  /**
+   * Weighted choice between values.
+   */
+  record Mix<T>(List<T> values, int[] cumulativeWeights) {
+
+    static <T> Mix<T> parse(String spec, Function<String, T> parser) {
+      var values = new ArrayList<T>();
+      var weights = new ArrayList<Integer>();
+      for (String entry : spec.split(",")) {
+        String[] parts = entry.trim().split(":");
+        values.add(parser.apply(parts[0]));
+        weights.add(parts.length > 1 ? Integer.parseInt(parts[1]) : 1);
+      }
+
+      int[] cumulative = new int[weights.size()];
+      int total = 0;
+      for (int i = 0; i < cumulative.length; i++) {
+        total += weights.get(i);
+        cumulative[i] = total;
+      }
+      return new Mix<>(List.copyOf(values), cumulative);
+    }
+
+    T next() {
+      int pick = ThreadLocalRandom.current().nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+      for (int i = 0; i < cumulativeWeights.length; i++) {
+        if (pick < cumulativeWeights[i]) {
+          return values.get(i);
+        }
+      }
+      throw new IllegalStateException();
+    }
+  }
+}
@@ -0,0 +1,155 @@
+package uz.tengebank.notificationgatewayservice.loadtest;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import uz.tengebank.notificationgatewayservice.NotificationGatewayServiceApplication;
+
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Capacity-planning harness: runs the gateway in-process against a stubbed template service and a capturing
+ * broker stand-in, drives it with a configurable request mix and prints throughput, latency percentiles and
+ * heap/GC figures. Run with {@code ./gradlew loadTest -PloadTestArgs="requests=5000 concurrency=64"}; see
+ * {@link LoadTestConfig} for all settings.
+ */
+public final class LoadTestHarness {
+
+  private static final long IDLE_NANOS = TimeUnit.SECONDS.toNanos(2);
+
+  private LoadTestHarness() {
+  }
+
+  public static void main(String[] args) throws Exception {
+    var config = LoadTestConfig.parse(args);
+    Path dataDirectory = Files.createTempDirectory("gateway-loadtest");
+
+    try (var templateService = new TemplateServiceStub(config);
+         var context = new SpringApplicationBuilder(NotificationGatewayServiceApplication.class, LoadTestBeans.class)
+             .properties(gatewayProperties(templateService.baseUrl(), dataDirectory))
+             .run()) {
+      var sink = context.getBean(PublishSink.class);
+      int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+      var driver = new LoadDriver(config, sink, "http://localhost:" + port);
+
+      var gcBefore = gcSnapshot();
+      heapPools().forEach(MemoryPoolMXBean::resetPeakUsage);
+      long start = System.nanoTime();
+      driver.run();
+      long sent = System.nanoTime();
+      awaitDrain(sink, config);
+      long drained = Math.max(sink.lastPublishNanos(), sent);
+
+      report(config, driver, sink, start, sent, drained, gcBefore);
+    } finally {
+      deleteRecursively(dataDirectory);
+    }
+  }
+
+  private static Map<String, Object> gatewayProperties(String templateServiceUrl, Path dataDirectory) {
+    return Map.of(
+        "server.port", 0,
+        "spring.main.allow-bean-definition-overriding", true,
+        "app.services.notification-template-service.url", templateServiceUrl,
+        "app.intake.journal.directory", dataDirectory.resolve("intake-journal").toString(),
+        "app.rabbitmq.outbox.spill-directory", dataDirectory.resolve("outbox").toString(),
+        "app.idempotency.directory", dataDirectory.resolve("idempotency").toString(),
+        "management.tracing.sampling.probability", 0.0,
+        "logging.level.root", "WARN"
+    );
+  }
+
+  /**
+   * Waits until every accepted request has published something and the sink has been idle for a moment, or
+   * until the drain timeout.
+   */
+  private static void awaitDrain(PublishSink sink, LoadTestConfig config) throws InterruptedException {
+    long deadline = System.nanoTime() + config.drainTimeout().toNanos();
+    while (System.nanoTime() < deadline) {
+      boolean allPublished = sink.timings().values().stream().allMatch(PublishSink.RequestTiming::published);
+      if (allPublished && System.nanoTime() - sink.lastPublishNanos() > IDLE_NANOS) {
+        return;
+      }
+      TimeUnit.MILLISECONDS.sleep(100);
+    }
+  }
+
+  private static void report(
+      LoadTestConfig config,
+      LoadDriver driver,
+      PublishSink sink,
+      long start,
+      long sent,
+      long drained,
+      Map<String, long[]> gcBefore
+  ) {
+    var firstPublish = new Latencies();
+    var lastPublish = new Latencies();
+    long unpublished = 0;
+    for (var timing : sink.timings().values()) {
+      if (timing.published()) {
+        firstPublish.record(timing.firstPublishLatencyNanos());
+        lastPublish.record(timing.lastPublishLatencyNanos());
+      } else {
+        unpublished++;
+      }
+    }
+
+    double sendSeconds = (sent - start) / 1e9;
+    double totalSeconds = (drained - start) / 1e9;
+    var out = System.out;
+    out.println();
+    out.println("=== Gateway load test ===");
+    out.printf("config            %s%n", config);
+    out.printf("responses         %s%n", driver.responsesByStatus());
+    out.printf("send phase        %.2fs, %.1f requests/s, %.1f destinations/s%n",
+        sendSeconds, config.requests() / sendSeconds, driver.destinations() / sendSeconds);
+    out.printf("until drained     %.2fs, %.1f messages/s, %.1f targets/s%n",
+        totalSeconds, sink.deliveryMessages() / totalSeconds, sink.deliveryTargets() / totalSeconds);
+    out.printf("published         %d delivery messages, %d targets, %d audit/other messages, %d request(s) without any%n",
+        sink.deliveryMessages(), sink.deliveryTargets(), sink.otherMessages(), unpublished);
+    out.printf("http accept       %s%n", driver.acceptLatencies().summary());
+    out.printf("submit->first pub %s%n", firstPublish.summary());
+    out.printf("submit->last pub  %s%n", lastPublish.summary());
+
+    long peakHeap = heapPools().stream().mapToLong(pool -> pool.getPeakUsage().getUsed()).sum();
+    out.printf("heap peak         %.1f MB of %.1f MB max%n", peakHeap / 1048576.0,
+        ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getMax() / 1048576.0);
+    gcSnapshot().forEach((name, after) -> {
+      long[] before = gcBefore.getOrDefault(name, new long[2]);
+      out.printf("gc %-14s %d collections, %d ms%n", name, after[0] - before[0], after[1] - before[1]);
+    });
+  }
+
+  private static List<MemoryPoolMXBean> heapPools() {
+    return ManagementFactory.getMemoryPoolMXBeans().stream()
+        .filter(pool -> pool.getType() == MemoryType.HEAP)
+        .toList();
+  }
+
+  private static Map<String, long[]> gcSnapshot() {
+    var snapshot = new HashMap<String, long[]>();
+    for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+      snapshot.put(gc.getName(), new long[]{gc.getCollectionCount(), gc.getCollectionTime()});
+    }
+    return snapshot;
+  }
+
+  private static void deleteRecursively(Path directory) throws IOException {
+    try (var paths = Files.walk(directory)) {
+      for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+        Files.deleteIfExists(path);
+      }
+    }
+  }
+}
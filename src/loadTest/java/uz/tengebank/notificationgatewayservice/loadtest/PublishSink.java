@@ -0,0 +1,126 @@
+package uz.tengebank.notificationgatewayservice.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.Message;
+import uz.tengebank.notificationgatewayservice.config.amqp.WireFormat;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Receives what the gateway publishes and attributes delivery messages to the requests the driver sent, so
+ * accept-to-publish latencies can be reported per request.
+ */
+@Slf4j
+class PublishSink {
+
+  private static final String DELIVERY_ROUTING_KEY_PREFIX = "notification.";
+
+  private final ObjectMapper jsonMapper = new ObjectMapper();
+  private final ObjectMapper smileMapper = new ObjectMapper(new SmileFactory());
+  private final Map<UUID, RequestTiming> timings = new ConcurrentHashMap<>();
+  private final AtomicLong deliveryMessages = new AtomicLong();
+  private final AtomicLong deliveryTargets = new AtomicLong();
+  private final AtomicLong otherMessages = new AtomicLong();
+  private volatile long lastPublishNanos = System.nanoTime();
+
+  void expect(UUID requestId, long submittedNanos) {
+    timings.put(requestId, new RequestTiming(submittedNanos));
+  }
+
+  void capture(String exchange, String routingKey, Message message) {
+    long now = System.nanoTime();
+    lastPublishNanos = now;
+    if (!routingKey.startsWith(DELIVERY_ROUTING_KEY_PREFIX)) {
+      otherMessages.incrementAndGet();
+      return;
+    }
+
+    try {
+      JsonNode payload = read(message);
+      JsonNode targets = payload.path("targets");
+      int count = targets.isArray() ? targets.size() : 1;
+      deliveryMessages.incrementAndGet();
+      deliveryTargets.addAndGet(count);
+
+      RequestTiming timing = timings.get(UUID.fromString(payload.path("requestId").asText()));
+      if (timing != null) {
+        timing.published(now, count);
+      }
+    } catch (IOException | IllegalArgumentException e) {
+      log.warn("Publish sink: could not decode message to '{}': {}", routingKey, e.getMessage());
+    }
+  }
+
+  Map<UUID, RequestTiming> timings() {
+    return timings;
+  }
+
+  long deliveryMessages() {
+    return deliveryMessages.get();
+  }
+
+  long deliveryTargets() {
+    return deliveryTargets.get();
+  }
+
+  long otherMessages() {
+    return otherMessages.get();
+  }
+
+  long lastPublishNanos() {
+    return lastPublishNanos;
+  }
+
+  private JsonNode read(Message message) throws IOException {
+    var properties = message.getMessageProperties();
+    InputStream body = new ByteArrayInputStream(message.getBody());
+    if (properties.getContentEncoding() != null && properties.getContentEncoding().startsWith("gzip")) {
+      body = new GZIPInputStream(body);
+    }
+    ObjectMapper mapper = WireFormat.SMILE.contentType().equals(properties.getContentType()) ? smileMapper : jsonMapper;
+    try (body) {
+      return mapper.readTree(body);
+    }
+  }
+
+  static final class RequestTiming {
+    private final long submittedNanos;
+    private volatile long firstPublishNanos;
+    private volatile long lastPublishNanos;
+    private final AtomicLong targets = new AtomicLong();
+
+    private RequestTiming(long submittedNanos) {
+      this.submittedNanos = submittedNanos;
+    }
+
+    private synchronized void published(long now, int count) {
+      if (firstPublishNanos == 0) {
+        firstPublishNanos = now;
+      }
+      lastPublishNanos = Math.max(lastPublishNanos, now);
+      targets.addAndGet(count);
+    }
+
+    boolean published() {
+      return firstPublishNanos != 0;
+    }
+
+    long firstPublishLatencyNanos() {
+      return firstPublishNanos - submittedNanos;
+    }
+
+    long lastPublishLatencyNanos() {
+      return lastPublishNanos - submittedNanos;
+    }
+  }
+}
@@ -0,0 +1,121 @@
+package uz.tengebank.notificationgatewayservice.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import lombok.extern.slf4j.Slf4j;
+import uz.tengebank.notificationgatewayservice.dto.ApiError;
+import uz.tengebank.notificationgatewayservice.dto.ApiResponse;
+import uz.tengebank.notificationgatewayservice.dto.template.NotificationTemplateResponseDto;
+import uz.tengebank.notificationgatewayservice.dto.template.batch.BatchRenderRequest;
+import uz.tengebank.notificationgatewayservice.dto.template.batch.RenderResult;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stand-in for the template service's {@code /v1/api/templates} API. Every call waits a base latency plus an
+ * exponentially distributed jitter; a share of calls fails with 503 and a share of render tasks fails.
+ */
+@Slf4j
+class TemplateServiceStub implements AutoCloseable {
+
+  private static final String BASE_PATH = "/v1/api/templates";
+  private static final String RENDER_PATH = BASE_PATH + "/render/batch";
+
+  private final LoadTestConfig config;
+  private final ObjectMapper objectMapper = JsonMapper.builder().addModule(new JavaTimeModule()).build();
+  private final HttpServer server;
+
+  TemplateServiceStub(LoadTestConfig config) throws IOException {
+    this.config = config;
+    this.server = HttpServer.create(new InetSocketAddress("localhost", 0), 512);
+    server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+    server.createContext(BASE_PATH, this::handle);
+    server.start();
+  }
+
+  String baseUrl() {
+    return "http://localhost:" + server.getAddress().getPort();
+  }
+
+  @Override
+  public void close() {
+    server.stop(0);
+  }
+
+  private void handle(HttpExchange exchange) throws IOException {
+    try (exchange) {
+      simulateLatency();
+      if (ThreadLocalRandom.current().nextDouble() < config.templateErrorRate()) {
+        exchange.sendResponseHeaders(503, -1);
+        return;
+      }
+
+      String path = exchange.getRequestURI().getPath();
+      Object response = RENDER_PATH.equals(path) && "POST".equals(exchange.getRequestMethod())
+          ? renderBatch(objectMapper.readValue(exchange.getRequestBody(), BatchRenderRequest.class))
+          : template(path.substring(path.lastIndexOf('/') + 1));
+
+      byte[] body = objectMapper.writeValueAsBytes(response);
+      exchange.getResponseHeaders().set("Content-Type", "application/json");
+      exchange.sendResponseHeaders(200, body.length);
+      try (OutputStream out = exchange.getResponseBody()) {
+        out.write(body);
+      }
+    } catch (RuntimeException e) {
+      log.error("Template stub: failed to handle {}", exchange.getRequestURI(), e);
+    }
+  }
+
+  private ApiResponse<NotificationTemplateResponseDto> template(String name) {
+    var now = LocalDateTime.now();
+    return ApiResponse.success(new NotificationTemplateResponseDto(
+        1L,
+        name,
+        new NotificationTemplateResponseDto.SmsTemplateDto(Map.of("uz", "Hurmatli {{name}}, kartangizga {{amount}} so'm tushdi.",
+            "ru", "Уважаемый {{name}}, на вашу карту зачислено {{amount}} сум.")),
+        new NotificationTemplateResponseDto.PushTemplateDto(Map.of("uz", "To'lov", "ru", "Платёж"),
+            Map.of("uz", "Kartangizga {{amount}} so'm tushdi.", "ru", "На карту зачислено {{amount}} сум."), null),
+        now,
+        now,
+        "loadtest",
+        "loadtest",
+        1L
+    ));
+  }
+
+  private ApiResponse<List<RenderResult>> renderBatch(BatchRenderRequest request) {
+    var results = new ArrayList<RenderResult>(request.tasks().size());
+    for (var task : request.tasks()) {
+      if (ThreadLocalRandom.current().nextDouble() < config.renderErrorRate()) {
+        results.add(RenderResult.error(task.recipientId(), new ApiError("RENDER_FAILED", "Stubbed render failure")));
+      } else {
+        results.add(RenderResult.success(task.recipientId(), new RenderResult.RenderedTemplate(
+            "Payment", "Your card was credited with " + task.variables().get("amount") + " UZS.", null)));
+      }
+    }
+    return ApiResponse.success(results);
+  }
+
+  private void simulateLatency() {
+    long base = config.templateLatency().toNanos();
+    long jitterMean = config.templateJitter().toNanos();
+    long jitter = jitterMean > 0 ? (long) (-jitterMean * Math.log(1 - ThreadLocalRandom.current().nextDouble())) : 0;
+    try {
+      TimeUnit.NANOSECONDS.sleep(base + jitter);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
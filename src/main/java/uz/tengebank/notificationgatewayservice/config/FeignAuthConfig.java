@@ -17,10 +17,9 @@ public class FeignAuthConfig {
 
   @Bean
   public RequestInterceptor basicAuthRequestInterceptor() {
-    return requestTemplate -> {
-      String auth = props.services().notificationTemplateService().basicAuth().username() + ":" + props.services().notificationTemplateService().basicAuth().password();
-      String encodedAuth = Base64.getEncoder().encodeToString(auth.getBytes(StandardCharsets.UTF_8));
-      requestTemplate.header("Authorization", "Basic " + encodedAuth);
-    };
+    var basicAuth = props.services().notificationTemplateService().basicAuth();
+    String auth = basicAuth.username() + ":" + basicAuth.password();
+    final String authorization = "Basic " + Base64.getEncoder().encodeToString(auth.getBytes(StandardCharsets.UTF_8));
+    return requestTemplate -> requestTemplate.header("Authorization", authorization);
   }
 }
@@ -5,10 +5,15 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.amqp.core.*;
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.rabbit.listener.SimpleMessageListenerContainer;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import uz.tengebank.notificationgatewayservice.config.props.ApplicationProperties;
+import uz.tengebank.notificationgatewayservice.service.intake.AmqpIntake;
+import uz.tengebank.notificationgatewayservice.service.outbox.PublishOutbox;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -25,24 +30,31 @@ public class RabbitMQConfig {
     }
 
     @Bean
-    public RabbitTemplate rabbitTemplate(ConnectionFactory connectionFactory, Jackson2JsonMessageConverter converter) {
+    public RabbitTemplate rabbitTemplate(
+            ConnectionFactory connectionFactory,
+            Jackson2JsonMessageConverter converter,
+            ObjectProvider<PublishOutbox> publishOutbox
+    ) {
         RabbitTemplate rabbitTemplate = new RabbitTemplate(connectionFactory);
         rabbitTemplate.setMessageConverter(converter);
         rabbitTemplate.setMandatory(true);
 
+        // The outbox depends on this template, so it is resolved lazily when the first callback fires.
         rabbitTemplate.setConfirmCallback((correlationData, ack, cause) -> {
             if (ack) {
                 log.debug("✅ Message confirmed: ID={}", correlationData != null ? correlationData.getId() : "null");
             } else {
-                log.error("❌ Message NACK: Cause={} | ID={}", cause, correlationData != null ? correlationData.getId() : "null");
+                log.warn("❌ Message NACK: Cause={} | ID={}", cause, correlationData != null ? correlationData.getId() : "null");
             }
+            publishOutbox.getObject().onConfirm(correlationData, ack, cause);
         });
 
-        rabbitTemplate.setReturnsCallback(returned ->
-                log.error("🔁 Returned: exchange={}, routingKey={}, replyCode={}, text={}",
-                        returned.getExchange(), returned.getRoutingKey(),
-                        returned.getReplyCode(), returned.getReplyText())
-        );
+        rabbitTemplate.setReturnsCallback(returned -> {
+            log.warn("🔁 Returned: exchange={}, routingKey={}, replyCode={}, text={}",
+                    returned.getExchange(), returned.getRoutingKey(),
+                    returned.getReplyCode(), returned.getReplyText());
+            publishOutbox.getObject().onReturned(returned);
+        });
 
         return rabbitTemplate;
     }
@@ -54,9 +66,38 @@ public class RabbitMQConfig {
         return new DirectExchange(props.rabbitmq().exchanges().internal(), true, false);
     }
 
-    @Bean public Queue smsQueue() { return new Queue(props.rabbitmq().queues().sms(), true); }
-    @Bean public Queue fcmQueue() { return new Queue(props.rabbitmq().queues().fcm(), true); }
-    @Bean public Queue hcmQueue() { return new Queue(props.rabbitmq().queues().hcm(), true); }
+    // Priority queues let transactional messages overtake queued bulk traffic. The broker rejects a declaration
+    // whose x-max-priority differs from the existing queue (PRECONDITION_FAILED), so priority-queues stays off
+    // until the queues have been migrated: stop the consumers, drain and delete the queue, then start the
+    // gateway with priority-queues enabled so it re-creates the queue with x-max-priority.
+    @Bean public Queue smsQueue() { return deliveryQueue(props.rabbitmq().queues().sms()); }
+    @Bean public Queue fcmQueue() { return deliveryQueue(props.rabbitmq().queues().fcm()); }
+    @Bean public Queue hcmQueue() { return deliveryQueue(props.rabbitmq().queues().hcm()); }
+
+    private Queue deliveryQueue(String name) {
+        if (!props.priority().priorityQueues()) {
+            return new Queue(name, true);
+        }
+        return priorityQueue(name);
+    }
+
+    private Queue priorityQueue(String name) {
+        return QueueBuilder.durable(name).maxPriority(props.priority().queueMaxPriority()).build();
+    }
+
+    /**
+     * Same routing as the internal exchange, but holds each message for its {@code x-delay} header first.
+     */
+    @Bean
+    public CustomExchange delayedExchange() {
+        return new CustomExchange(
+                props.rabbitmq().exchanges().delayed(),
+                "x-delayed-message",
+                true,
+                false,
+                Map.of("x-delayed-type", "direct")
+        );
+    }
 
     @Bean
     public Binding smsBinding(Queue smsQueue, DirectExchange internalExchange) {
@@ -73,6 +114,51 @@ public class RabbitMQConfig {
         return BindingBuilder.bind(hcmQueue).to(internalExchange).with("notification.hcm");
     }
 
+    @Bean
+    public Binding delayedSmsBinding(Queue smsQueue, CustomExchange delayedExchange) {
+        return BindingBuilder.bind(smsQueue).to(delayedExchange).with("notification.sms").noargs();
+    }
+
+    @Bean
+    public Binding delayedFcmBinding(Queue fcmQueue, CustomExchange delayedExchange) {
+        return BindingBuilder.bind(fcmQueue).to(delayedExchange).with("notification.fcm").noargs();
+    }
+
+    @Bean
+    public Binding delayedHcmBinding(Queue hcmQueue, CustomExchange delayedExchange) {
+        return BindingBuilder.bind(hcmQueue).to(delayedExchange).with("notification.hcm").noargs();
+    }
+
+    // --- Intake work queue, shared by all gateway replicas ---
+
+    @Bean
+    @ConditionalOnProperty(prefix = "app.intake.amqp", name = "enabled", havingValue = "true")
+    public Queue intakeQueue() {
+        // A new queue, so it can carry priorities from the start.
+        return priorityQueue(props.intake().amqp().queue());
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "app.intake.amqp", name = "enabled", havingValue = "true")
+    public Binding intakeBinding(Queue intakeQueue, DirectExchange internalExchange) {
+        return BindingBuilder.bind(intakeQueue).to(internalExchange).with(props.intake().amqp().routingKey());
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "app.intake.amqp", name = "enabled", havingValue = "true")
+    public SimpleMessageListenerContainer intakeListenerContainer(ConnectionFactory connectionFactory, AmqpIntake amqpIntake) {
+        var amqp = props.intake().amqp();
+        SimpleMessageListenerContainer container = new SimpleMessageListenerContainer(connectionFactory);
+        container.setQueueNames(amqp.queue());
+        // Chunks are acked by AmqpIntake once fully dispatched, so prefetch caps the chunks each consumer holds.
+        container.setAcknowledgeMode(AcknowledgeMode.MANUAL);
+        container.setPrefetchCount(amqp.prefetch());
+        container.setConcurrentConsumers(amqp.concurrentConsumers());
+        container.setMaxConcurrentConsumers(amqp.maxConcurrentConsumers());
+        container.setMessageListener(amqpIntake);
+        return container;
+    }
+
     // --- 2. Audit Service Exchange (Custom/Delayed) ---
     @Bean
     public CustomExchange auditExchange() {
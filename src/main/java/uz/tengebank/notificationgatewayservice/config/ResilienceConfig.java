@@ -0,0 +1,48 @@
+package uz.tengebank.notificationgatewayservice.config;
+
+import feign.FeignException;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.timelimiter.TimeLimiterConfig;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cloud.circuitbreaker.resilience4j.Resilience4JCircuitBreakerFactory;
+import org.springframework.cloud.circuitbreaker.resilience4j.Resilience4JConfigBuilder;
+import org.springframework.cloud.client.circuitbreaker.Customizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import uz.tengebank.notificationgatewayservice.config.props.ApplicationProperties;
+
+/**
+ * Circuit breaker applied to every {@code TemplateServiceClient} method. Client errors (4xx) do not count as
+ * failures, so unknown templates never open the circuit.
+ */
+@Configuration
+@RequiredArgsConstructor
+public class ResilienceConfig {
+
+  private final ApplicationProperties props;
+
+  @Bean
+  public Customizer<Resilience4JCircuitBreakerFactory> templateServiceCircuitBreakerCustomizer() {
+    var settings = props.services().notificationTemplateService().circuitBreaker();
+
+    var circuitBreakerConfig = CircuitBreakerConfig.custom()
+        .slidingWindowType(CircuitBreakerConfig.SlidingWindowType.COUNT_BASED)
+        .slidingWindowSize(settings.slidingWindowSize())
+        .minimumNumberOfCalls(settings.minimumNumberOfCalls())
+        .failureRateThreshold(settings.failureRateThreshold())
+        .slowCallDurationThreshold(settings.slowCallDuration())
+        .slowCallRateThreshold(settings.slowCallRateThreshold())
+        .waitDurationInOpenState(settings.waitInOpenState())
+        .ignoreExceptions(FeignException.FeignClientException.class)
+        .build();
+
+    var timeLimiterConfig = TimeLimiterConfig.custom()
+        .timeoutDuration(settings.callTimeout())
+        .build();
+
+    return factory -> factory.configureDefault(id -> new Resilience4JConfigBuilder(id)
+        .circuitBreakerConfig(circuitBreakerConfig)
+        .timeLimiterConfig(timeLimiterConfig)
+        .build());
+  }
+}
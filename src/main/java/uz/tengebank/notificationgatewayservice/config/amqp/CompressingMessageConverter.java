@@ -0,0 +1,74 @@
+package uz.tengebank.notificationgatewayservice.config.amqp;
+
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.MessageConversionException;
+import org.springframework.amqp.support.converter.MessageConverter;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Gzips bodies larger than {@code threshold} bytes produced by the delegate; smaller bodies are left as they are.
+ * Like Spring AMQP's {@code GZipPostProcessor}, the content encoding becomes {@code gzip:<original encoding>},
+ * so consumers can use the stock decompressing post processors. Compressed bodies are inflated again before the
+ * delegate reads them.
+ */
+public class CompressingMessageConverter implements MessageConverter {
+
+    private static final String GZIP = "gzip";
+    private static final String ENCODING_SEPARATOR = ":";
+
+    private final MessageConverter delegate;
+    private final int threshold;
+
+    public CompressingMessageConverter(MessageConverter delegate, int threshold) {
+        this.delegate = delegate;
+        this.threshold = threshold;
+    }
+
+    @Override
+    public Message toMessage(Object object, MessageProperties messageProperties) {
+        Message message = delegate.toMessage(object, messageProperties);
+        byte[] body = message.getBody();
+        String encoding = message.getMessageProperties().getContentEncoding();
+        if (body.length <= threshold || isCompressed(encoding)) {
+            return message;
+        }
+
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(body.length / 2);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(body);
+        } catch (IOException e) {
+            throw new MessageConversionException("Failed to compress message body", e);
+        }
+        MessageProperties properties = message.getMessageProperties();
+        properties.setContentEncoding(encoding != null ? GZIP + ENCODING_SEPARATOR + encoding : GZIP);
+        properties.setContentLength(compressed.size());
+        return new Message(compressed.toByteArray(), properties);
+    }
+
+    @Override
+    public Object fromMessage(Message message) {
+        MessageProperties properties = message.getMessageProperties();
+        String encoding = properties.getContentEncoding();
+        if (!isCompressed(encoding)) {
+            return delegate.fromMessage(message);
+        }
+
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(message.getBody()))) {
+            int separator = encoding.indexOf(ENCODING_SEPARATOR);
+            properties.setContentEncoding(separator < 0 ? null : encoding.substring(separator + 1));
+            return delegate.fromMessage(new Message(gzip.readAllBytes(), properties));
+        } catch (IOException e) {
+            throw new MessageConversionException("Failed to decompress message body", e);
+        }
+    }
+
+    private static boolean isCompressed(String encoding) {
+        return encoding != null && (encoding.equals(GZIP) || encoding.startsWith(GZIP + ENCODING_SEPARATOR));
+    }
+}
@@ -0,0 +1,23 @@
+package uz.tengebank.notificationgatewayservice.config.amqp;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import org.springframework.amqp.support.converter.AbstractJackson2MessageConverter;
+import org.springframework.util.MimeTypeUtils;
+
+/**
+ * Jackson converter that writes Smile, Jackson's binary JSON encoding. Property names and short repeated values
+ * are back-referenced instead of repeated, and numbers are written in binary, so payloads are smaller and cheaper
+ * to encode than JSON while staying readable by any Jackson based consumer.
+ */
+public class SmileMessageConverter extends AbstractJackson2MessageConverter {
+
+    public SmileMessageConverter(ObjectMapper objectMapper) {
+        super(objectMapper.copyWith(SmileFactory.builder()
+                        .enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES)
+                        .build()),
+                MimeTypeUtils.parseMimeType(WireFormat.SMILE.contentType()),
+                "*");
+    }
+}
@@ -0,0 +1,19 @@
+package uz.tengebank.notificationgatewayservice.config.amqp;
+
+/**
+ * Body encodings published on the internal exchanges, announced to consumers through the content type.
+ */
+public enum WireFormat {
+    JSON("application/json"),
+    SMILE("application/x-jackson-smile");
+
+    private final String contentType;
+
+    WireFormat(String contentType) {
+        this.contentType = contentType;
+    }
+
+    public String contentType() {
+        return contentType;
+    }
+}
@@ -2,11 +2,37 @@ package uz.tengebank.notificationgatewayservice.config.props;
 
 import jakarta.validation.constraints.NotBlank;
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+import uz.tengebank.notificationcontracts.dto.NotificationRequest;
+import uz.tengebank.notificationgatewayservice.config.amqp.WireFormat;
+import uz.tengebank.notificationgatewayservice.dto.notification.Lane;
+
+import java.time.Duration;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.Map;
+import java.util.Set;
 
 @ConfigurationProperties(prefix = "app")
 public record ApplicationProperties(
         Services services,
-        RabbitMQ rabbitmq
+        RabbitMQ rabbitmq,
+        Intake intake,
+        Admission admission,
+        Render render,
+        TemplateCache templateCache,
+        PushTokenCache pushTokenCache,
+        Push push,
+        Audit audit,
+        Pipeline pipeline,
+        FanOut fanOut,
+        Idempotency idempotency,
+        Priority priority,
+        RateLimits rateLimits,
+        Schedule schedule,
+        Progress progress,
+        Fallback fallback,
+        Bulk bulk
 ) {
 
   public record Services(
@@ -15,21 +41,37 @@ public record ApplicationProperties(
 
   public record RabbitMQ(
           Exchanges exchanges,
-          Queues queues
+          Queues queues,
+          Publisher publisher,
+          Outbox outbox,
+          WireFormats wireFormat
   ) {}
 
   public record NotificationTemplateService(
           @NotBlank String url,
-          BasicAuth basicAuth
+          BasicAuth basicAuth,
+          Duration hedgeDelay,
+          CircuitBreaker circuitBreaker
   ) {
     public record BasicAuth(
         @NotBlank String username,
         @NotBlank String password
     ) {}
+
+    public record CircuitBreaker(
+        float failureRateThreshold,
+        Duration slowCallDuration,
+        float slowCallRateThreshold,
+        int slidingWindowSize,
+        int minimumNumberOfCalls,
+        Duration waitInOpenState,
+        Duration callTimeout
+    ) {}
   }
 
   public record Exchanges(
       @NotBlank String internal,
+      @NotBlank String delayed,
       @NotBlank String audit
   ) {}
 
@@ -39,4 +81,188 @@ public record ApplicationProperties(
           @NotBlank String hcm
   ) {}
 
+  public record WireFormats(
+          Map<String, Route> routingKeys,
+          DataSize compressionThreshold
+  ) {
+    public WireFormats {
+      routingKeys = routingKeys != null ? routingKeys : Map.of();
+    }
+
+    public record Route(
+            WireFormat format,
+            boolean compress
+    ) {
+      public Route {
+        format = format != null ? format : WireFormat.JSON;
+      }
+    }
+  }
+
+  public record Publisher(
+          int batchSize,
+          Duration linger,
+          int maxPendingBatches,
+          int threads
+  ) {}
+
+  public record Outbox(
+          Duration initialBackoff,
+          Duration maxBackoff,
+          int spillAfterAttempts,
+          @NotBlank String spillDirectory,
+          Duration drainInterval,
+          int correlationShards,
+          Duration shutdownConfirmTimeout
+  ) {}
+
+  public record Intake(
+          Journal journal,
+          Amqp amqp
+  ) {
+    public record Journal(
+            boolean enabled,
+            @NotBlank String directory,
+            DataSize segmentSize,
+            Duration groupCommitDelay
+    ) {}
+
+    public record Amqp(
+            boolean enabled,
+            @NotBlank String queue,
+            @NotBlank String routingKey,
+            int splitThreshold,
+            int chunkSize,
+            int prefetch,
+            int concurrentConsumers,
+            int maxConcurrentConsumers
+    ) {}
+  }
+
+  public record Admission(
+          int maxInFlightRequests,
+          long maxPendingDestinations,
+          int maxConcurrentPerTemplate,
+          Duration retryAfter
+  ) {}
+
+  public record Render(
+          int chunkSize,
+          Mode mode,
+          long compiledCacheSize
+  ) {
+    public enum Mode {
+      REMOTE, LOCAL
+    }
+  }
+
+  public record TemplateCache(
+          long maxSize,
+          Duration ttl,
+          Duration negativeTtl,
+          Duration refreshAfter
+  ) {}
+
+  public record PushTokenCache(
+          long maxSize,
+          Duration ttl
+  ) {}
+
+  public record Push(
+          int fcmMulticastLimit,
+          int hcmMulticastLimit,
+          boolean multicast
+  ) {}
+
+  public record Audit(
+          int bufferCapacity,
+          int batchSize,
+          Duration flushInterval,
+          boolean summarizeAttemptFailures,
+          int summaryMaxDestinationIds,
+          boolean arrayBatches
+  ) {}
+
+  public record Pipeline(
+          Stage validate,
+          Stage render,
+          Stage resolveTokens,
+          Stage dispatch,
+          Stage audit
+  ) {
+    public record Stage(
+            int queueCapacity,
+            int concurrency,
+            int maxBatch
+    ) {}
+  }
+
+  public record FanOut(
+          int maxParallelismPerRequest,
+          int minPartitionSize
+  ) {}
+
+  public record Idempotency(
+          boolean enabled,
+          long maxSize,
+          Duration window,
+          boolean persistent,
+          String directory
+  ) {}
+
+  public record Priority(
+          Lane defaultLane,
+          Set<String> transactionalTemplates,
+          Set<String> bulkTemplates,
+          Map<Lane, Integer> weights,
+          Map<Lane, Integer> messagePriorities,
+          boolean priorityQueues,
+          int queueMaxPriority
+  ) {
+    public Priority {
+      transactionalTemplates = transactionalTemplates != null ? transactionalTemplates : Set.of();
+      bulkTemplates = bulkTemplates != null ? bulkTemplates : Set.of();
+    }
+  }
+
+  public record RateLimits(
+          Map<NotificationRequest.Channel, Limit> channels,
+          Map<String, Limit> templates
+  ) {
+    public RateLimits {
+      channels = channels != null ? channels : Map.of();
+      templates = templates != null ? templates : Map.of();
+    }
+
+    public record Limit(
+            double permitsPerSecond,
+            int burst
+    ) {}
+  }
+
+  public record Schedule(
+          LocalTime quietHoursStart,
+          LocalTime quietHoursEnd,
+          ZoneId defaultZone,
+          Duration releaseSpread,
+          int releaseSlots,
+          Duration minDelay
+  ) {}
+
+  public record Progress(
+          long maxRequests,
+          Duration retention,
+          Duration streamInterval,
+          Duration streamTimeout,
+          Duration streamSendTimeout
+  ) {}
+
+  public record Fallback(
+          Duration confirmTimeout
+  ) {}
+
+  public record Bulk(
+          int chunkSize
+  ) {}
+
 }
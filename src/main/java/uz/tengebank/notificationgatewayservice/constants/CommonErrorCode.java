@@ -8,7 +8,12 @@ import uz.tengebank.notificationgatewayservice.exception.ErrorCodeGroup;
 @AllArgsConstructor
 public enum CommonErrorCode implements ErrorCode {
   TEMPLATE_SERVICE_EXCEPTION(2000, "TEMPLATE_SERVICE_EXCEPTION", "Template not found.", HttpStatus.NOT_FOUND),
-  INTERNAL_SERVER_ERROR(1500, "INTERNAL_SERVER_ERROR", "An unexpected internal server error occurred.", HttpStatus.INTERNAL_SERVER_ERROR)
+  INVALID_BULK_REQUEST(1400, "INVALID_BULK_REQUEST", "Bulk upload could not be parsed.", HttpStatus.BAD_REQUEST),
+  REQUEST_NOT_FOUND(1404, "REQUEST_NOT_FOUND", "Notification request is unknown or no longer tracked.", HttpStatus.NOT_FOUND),
+  INVALID_SCHEDULE(1422, "INVALID_SCHEDULE", "Send-at time cannot be scheduled.", HttpStatus.BAD_REQUEST),
+  TOO_MANY_REQUESTS(1429, "TOO_MANY_REQUESTS", "Gateway is saturated, retry later.", HttpStatus.TOO_MANY_REQUESTS),
+  INTERNAL_SERVER_ERROR(1500, "INTERNAL_SERVER_ERROR", "An unexpected internal server error occurred.", HttpStatus.INTERNAL_SERVER_ERROR),
+  INTAKE_JOURNAL_UNAVAILABLE(1503, "INTAKE_JOURNAL_UNAVAILABLE", "Notification request could not be persisted.", HttpStatus.SERVICE_UNAVAILABLE)
   ;
 
   private final int code;
@@ -1,26 +1,171 @@
 package uz.tengebank.notificationgatewayservice.controller;
 
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RequestPart;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import uz.tengebank.notificationcontracts.dto.NotificationRequest;
+import uz.tengebank.notificationgatewayservice.constants.CommonErrorCode;
+import uz.tengebank.notificationgatewayservice.dto.ApiResponse;
+import uz.tengebank.notificationgatewayservice.dto.bulk.BulkIngestionResult;
+import uz.tengebank.notificationgatewayservice.dto.notification.DeliveryOptions;
+import uz.tengebank.notificationgatewayservice.dto.notification.NotificationAcceptance;
+import uz.tengebank.notificationgatewayservice.dto.progress.NotificationProgress;
+import uz.tengebank.notificationgatewayservice.exception.ApiException;
 import uz.tengebank.notificationgatewayservice.service.NotificationService;
+import uz.tengebank.notificationgatewayservice.service.admission.Admission;
+import uz.tengebank.notificationgatewayservice.service.admission.AdmissionControl;
+import uz.tengebank.notificationgatewayservice.service.bulk.BulkIngestionService;
+import uz.tengebank.notificationgatewayservice.service.idempotency.IdempotencyStore;
+import uz.tengebank.notificationgatewayservice.service.intake.AmqpIntake;
+import uz.tengebank.notificationgatewayservice.service.intake.IntakeJournal;
+import uz.tengebank.notificationgatewayservice.service.priority.LaneResolver;
+import uz.tengebank.notificationgatewayservice.service.progress.ProgressRegistry;
+import uz.tengebank.notificationgatewayservice.service.progress.ProgressStreams;
+import uz.tengebank.notificationgatewayservice.service.schedule.DeliveryScheduler;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
+import java.util.UUID;
 
 @RestController
 @RequestMapping("/api/v1/notifications")
 @RequiredArgsConstructor
 public class NotificationController {
 
+  /**
+   * Optional ISO-8601 instant before which the request's messages are not delivered.
+   */
+  public static final String SEND_AT_HEADER = "X-Send-At";
+
   private final NotificationService notificationService;
+  private final IntakeJournal intakeJournal;
+  private final AdmissionControl admissionControl;
+  private final BulkIngestionService bulkIngestionService;
+  private final IdempotencyStore idempotencyStore;
+  private final LaneResolver laneResolver;
+  private final DeliveryScheduler deliveryScheduler;
+  private final AmqpIntake amqpIntake;
+  private final ProgressRegistry progressRegistry;
+  private final ProgressStreams progressStreams;
 
   @PostMapping("/send")
-  public ResponseEntity<Void> sendNotification(@Valid @RequestBody NotificationRequest payload) {
-    notificationService.processNotification(payload);
-    return ResponseEntity.accepted().build();
+  public ResponseEntity<ApiResponse<NotificationAcceptance>> sendNotification(
+      @Valid @RequestBody NotificationRequest payload,
+      @RequestHeader(value = SEND_AT_HEADER, required = false) Instant sendAt
+  ) {
+    deliveryScheduler.validate(sendAt);
+    var acceptance = new NotificationAcceptance(payload.requestId(), Instant.now());
+    var original = idempotencyStore.claim(acceptance);
+    if (original.isPresent()) {
+      return ResponseEntity.accepted()
+          .header(IdempotencyStore.REPLAYED_HEADER, "true")
+          .body(ApiResponse.success(original.get()));
+    }
+
+    var delivery = new DeliveryOptions(laneResolver.resolve(payload), sendAt);
+    if (amqpIntake.shouldSplit(payload)) {
+      Admission admission = null;
+      boolean journaled = false;
+      try {
+        admission = admissionControl.tryAdmit(payload);
+        admission.started();
+        intakeJournal.append(payload, delivery);
+        journaled = true;
+        idempotencyStore.confirm(acceptance);
+        // Held until the chunks are with the broker, so splitting counts against this instance's limits and
+        // the request shows as processing until then.
+        progressRegistry.opened(payload.requestId());
+        var handedOff = admission;
+        amqpIntake.submit(payload, delivery).whenComplete((ignored, e) -> {
+          handedOff.close();
+          progressRegistry.completed(payload.requestId(), e != null);
+        });
+      } catch (RuntimeException e) {
+        // submit only throws while no chunk is out yet.
+        if (journaled) {
+          intakeJournal.markCompleted(payload.requestId());
+        }
+        progressRegistry.completed(payload.requestId(), true);
+        if (admission != null) {
+          admission.close();
+        }
+        idempotencyStore.release(payload.requestId());
+        throw e;
+      }
+      return ResponseEntity.accepted().body(ApiResponse.success(acceptance));
+    }
+
+    Admission admission = null;
+    boolean journaled = false;
+    try {
+      admission = admissionControl.tryAdmit(payload);
+      intakeJournal.append(payload, delivery);
+      journaled = true;
+      idempotencyStore.confirm(acceptance);
+      notificationService.processNotification(payload, admission, delivery);
+    } catch (RuntimeException e) {
+      if (journaled) {
+        // The caller is told the request failed, so it must not be replayed after a restart.
+        intakeJournal.markCompleted(payload.requestId());
+      }
+      if (admission != null) {
+        admission.close();
+      }
+      idempotencyStore.release(payload.requestId());
+      throw e;
+    }
+    return ResponseEntity.accepted().body(ApiResponse.success(acceptance));
+  }
+
+  /**
+   * Accepts a campaign whose destinations are streamed from an NDJSON or CSV file (optionally gzip-compressed)
+   * instead of being part of the request body. {@code request} is the notification request without destinations.
+   */
+  @PostMapping(value = "/bulk", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+  public ResponseEntity<ApiResponse<BulkIngestionResult>> sendBulk(
+      @RequestPart("request") ObjectNode request,
+      @RequestPart("destinations") MultipartFile destinations,
+      @RequestParam(defaultValue = "NDJSON") BulkIngestionService.Format format,
+      @RequestParam(required = false) Instant sendAt
+  ) throws IOException {
+    deliveryScheduler.validate(sendAt);
+    try (InputStream input = destinations.getInputStream()) {
+      return ResponseEntity.accepted().body(ApiResponse.success(bulkIngestionService.ingest(request, format, input, sendAt)));
+    }
+  }
+
+  /**
+   * Progress of a request processed by this instance. Requests split onto the AMQP intake queue and bulk campaigns
+   * are tracked under their chunk ids ({@link AmqpIntake#chunkRequestId}, {@link BulkIngestionService#chunkRequestId})
+   * and add up under the request or campaign id; the totals cover the chunks consumed by this instance.
+   */
+  @GetMapping("/{requestId}")
+  public ApiResponse<NotificationProgress> getProgress(@PathVariable UUID requestId) {
+    return progressRegistry.get(requestId)
+        .map(ApiResponse::success)
+        .orElseThrow(() -> new ApiException(CommonErrorCode.REQUEST_NOT_FOUND, "Request " + requestId + " is not tracked by this instance."));
+  }
+
+  /**
+   * Server-sent {@code progress} events for the request until it finishes.
+   */
+  @GetMapping(value = "/{requestId}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public SseEmitter streamProgress(@PathVariable UUID requestId) {
+    return progressStreams.subscribe(requestId);
   }
 
 }
@@ -0,0 +1,32 @@
+package uz.tengebank.notificationgatewayservice.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import uz.tengebank.notificationgatewayservice.dto.ApiResponse;
+import uz.tengebank.notificationgatewayservice.dto.outbox.OutboxDrainResult;
+import uz.tengebank.notificationgatewayservice.dto.outbox.OutboxStats;
+import uz.tengebank.notificationgatewayservice.service.outbox.PublishOutbox;
+
+@RestController
+@RequestMapping("/api/v1/outbox")
+@RequiredArgsConstructor
+public class OutboxController {
+
+  private final PublishOutbox publishOutbox;
+
+  @GetMapping
+  public ResponseEntity<ApiResponse<OutboxStats>> getStats() {
+    return ResponseEntity.ok(ApiResponse.success(publishOutbox.stats()));
+  }
+
+  @PostMapping("/drain")
+  public ResponseEntity<ApiResponse<OutboxDrainResult>> drain() {
+    int resent = publishOutbox.drain();
+    return ResponseEntity.ok(ApiResponse.success(new OutboxDrainResult(resent, publishOutbox.stats())));
+  }
+
+}
@@ -0,0 +1,35 @@
+package uz.tengebank.notificationgatewayservice.dto.audit;
+
+import uz.tengebank.notificationcontracts.payload.Payload;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Replaces the per-attempt failure events of one request: how many destinations had at least one failed attempt,
+ * failed attempts by error code with a sample error message each, and the ids of those destinations. Only the first
+ * {@code summary-max-destination-ids} ids are listed; {@code destinationsWithFailures} always counts all of them.
+ * For a chunk of a larger request, {@code requestId} is the parent's id and {@code chunkRequestId} the chunk's.
+ * <p>
+ * Published as {@code notification.request.attempt-failure-summary.v1}. It belongs in notification-contracts next
+ * to {@code NotificationDestinationPayload} and lives here until the contracts release that adds it.
+ */
+public record AttemptFailureSummaryPayload(
+        UUID requestId,
+        UUID chunkRequestId,
+        int totalDestinations,
+        int destinationsWithFailures,
+        Map<String, ErrorCodeFailures> failuresByErrorCode,
+        List<UUID> destinationIds
+) implements Payload {
+
+    /**
+     * Failed attempts with one error code and the error message of the first of them.
+     */
+    public record ErrorCodeFailures(
+            long count,
+            String sampleMessage
+    ) {
+    }
+}
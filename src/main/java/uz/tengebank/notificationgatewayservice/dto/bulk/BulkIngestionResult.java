@@ -0,0 +1,24 @@
+package uz.tengebank.notificationgatewayservice.dto.bulk;
+
+import java.util.UUID;
+
+/**
+ * Outcome of a bulk upload. Chunk {@code i} was accepted as its own notification request with id
+ * {@code UUID.nameUUIDFromBytes(campaignId + "#" + i)}.
+ * <p>
+ * A {@code PARTIALLY_ACCEPTED} upload stopped at a malformed or invalid destination: the first {@code chunks}
+ * chunks ({@code destinations} destinations) were accepted and nothing after them. {@code error} says what was
+ * wrong. Uploading the corrected file again skips the chunks already accepted.
+ */
+public record BulkIngestionResult(
+        UUID campaignId,
+        Status status,
+        int chunks,
+        long destinations,
+        String error
+) {
+
+    public enum Status {
+        ACCEPTED, PARTIALLY_ACCEPTED
+    }
+}
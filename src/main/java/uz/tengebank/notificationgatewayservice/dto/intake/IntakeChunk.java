@@ -0,0 +1,22 @@
+package uz.tengebank.notificationgatewayservice.dto.intake;
+
+import uz.tengebank.notificationcontracts.dto.NotificationRequest;
+import uz.tengebank.notificationgatewayservice.dto.notification.Lane;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * One part of a request split for the AMQP intake queue. {@code request} carries only the chunk's destinations
+ * under a request id of its own, so each chunk is processed as a request; {@code parentRequestId} is the id of
+ * the request that was split, under which the chunk is audited.
+ */
+public record IntakeChunk(
+        NotificationRequest request,
+        UUID parentRequestId,
+        int index,
+        int count,
+        Lane lane,
+        Instant sendAt
+) {
+}
@@ -0,0 +1,13 @@
+package uz.tengebank.notificationgatewayservice.dto.intake;
+
+import uz.tengebank.notificationcontracts.dto.NotificationRequest;
+import uz.tengebank.notificationgatewayservice.dto.notification.DeliveryOptions;
+
+/**
+ * An accepted request as persisted in the intake journal, with the delivery options it was accepted with.
+ */
+public record JournaledRequest(
+        NotificationRequest request,
+        DeliveryOptions delivery
+) {
+}
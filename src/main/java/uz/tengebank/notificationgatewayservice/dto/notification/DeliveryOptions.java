@@ -0,0 +1,20 @@
+package uz.tengebank.notificationgatewayservice.dto.notification;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * How a request is delivered: its lane and, for scheduled requests, the earliest time to send.
+ * {@code parentRequestId} is set when the request is one chunk of a larger one, such as a bulk campaign; its
+ * audit events carry that id instead of the chunk's own.
+ */
+public record DeliveryOptions(
+        Lane lane,
+        Instant sendAt,
+        UUID parentRequestId
+) {
+
+    public DeliveryOptions(Lane lane, Instant sendAt) {
+        this(lane, sendAt, null);
+    }
+}
@@ -0,0 +1,8 @@
+package uz.tengebank.notificationgatewayservice.dto.notification;
+
+/**
+ * Priority class of a request. Transactional traffic (OTPs, account alerts) is scheduled ahead of bulk campaigns.
+ */
+public enum Lane {
+    TRANSACTIONAL, BULK
+}
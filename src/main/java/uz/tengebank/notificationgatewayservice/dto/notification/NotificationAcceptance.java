@@ -0,0 +1,10 @@
+package uz.tengebank.notificationgatewayservice.dto.notification;
+
+import java.time.Instant;
+import java.util.UUID;
+
+public record NotificationAcceptance(
+        UUID requestId,
+        Instant acceptedAt
+) {
+}
@@ -1,16 +1,28 @@
 package uz.tengebank.notificationgatewayservice.dto.notification;
 
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
+/**
+ * One push message for a single provider, addressed to every target token that shares the same content,
+ * so provider senders can use their multicast APIs.
+ */
 public record PushPayload(
         UUID requestId,
-        UUID destinationId,
-        String token,
+        PushProvider provider,
+        List<Target> targets,
         PushContent content,
         Map<String, Object> config
 ) {
 
+    public record Target(
+            UUID destinationId,
+            String token,
+            String appId
+    ) {
+    }
+
     public record PushContent(
             String title,
             String body,
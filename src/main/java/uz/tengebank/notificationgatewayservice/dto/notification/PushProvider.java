@@ -0,0 +1,5 @@
+package uz.tengebank.notificationgatewayservice.dto.notification;
+
+public enum PushProvider {
+    FCM, HCM
+}
@@ -0,0 +1,9 @@
+package uz.tengebank.notificationgatewayservice.dto.notification;
+
+public record PushToken(
+        String token,
+        PushProvider provider,
+        String platform,
+        String appId
+) {
+}
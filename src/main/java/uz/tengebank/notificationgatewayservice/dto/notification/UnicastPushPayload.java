@@ -0,0 +1,17 @@
+package uz.tengebank.notificationgatewayservice.dto.notification;
+
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * One push message per token, the shape push senders read before {@link PushPayload} became multicast.
+ * Sent while {@code app.push.multicast} is off.
+ */
+public record UnicastPushPayload(
+        UUID requestId,
+        UUID destinationId,
+        String token,
+        PushPayload.PushContent content,
+        Map<String, Object> config
+) {
+}
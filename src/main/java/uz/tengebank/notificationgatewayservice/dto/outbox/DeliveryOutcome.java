@@ -0,0 +1,26 @@
+package uz.tengebank.notificationgatewayservice.dto.outbox;
+
+/**
+ * What became of a published message, as reported by the publish outbox.
+ */
+public enum DeliveryOutcome {
+    /** Acked by the broker and routed to a queue. */
+    CONFIRMED,
+    /** Nacked by the broker or never sent, and not retried because the caller asked to fail fast. */
+    NACKED,
+    /** Returned unroutable, and not retried because the caller asked to fail fast. */
+    RETURNED,
+    /** Retries exhausted; the message was written to the spill file and will be re-sent from there. */
+    SPILLED;
+
+    public boolean isConfirmed() {
+        return this == CONFIRMED;
+    }
+
+    /**
+     * Whether the broker refused the message, so it will not be delivered over this route.
+     */
+    public boolean isRejected() {
+        return this == NACKED || this == RETURNED;
+    }
+}
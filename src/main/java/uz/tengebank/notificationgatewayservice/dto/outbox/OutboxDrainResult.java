@@ -0,0 +1,7 @@
+package uz.tengebank.notificationgatewayservice.dto.outbox;
+
+public record OutboxDrainResult(
+        int resent,
+        OutboxStats stats
+) {
+}
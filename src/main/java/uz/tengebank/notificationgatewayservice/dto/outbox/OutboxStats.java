@@ -0,0 +1,8 @@
+package uz.tengebank.notificationgatewayservice.dto.outbox;
+
+public record OutboxStats(
+        int unconfirmed,
+        int awaitingRetry,
+        long spilled
+) {
+}
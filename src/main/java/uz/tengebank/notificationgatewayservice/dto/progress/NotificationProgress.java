@@ -0,0 +1,34 @@
+package uz.tengebank.notificationgatewayservice.dto.progress;
+
+import uz.tengebank.notificationcontracts.dto.NotificationRequest;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Snapshot of a request's progress on this gateway instance. Channel counts are messages; for push one
+ * message per device token.
+ */
+public record NotificationProgress(
+        UUID requestId,
+        Status status,
+        long destinations,
+        long failedDestinations,
+        Map<NotificationRequest.Channel, ChannelProgress> channels,
+        Instant acceptedAt,
+        Instant completedAt
+) {
+
+    public enum Status {
+        PROCESSING, COMPLETED, FAILED
+    }
+
+    public record ChannelProgress(
+            long rendered,
+            long dispatched,
+            long confirmed,
+            long failed
+    ) {
+    }
+}
@@ -0,0 +1,31 @@
+package uz.tengebank.notificationgatewayservice.exception;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import uz.tengebank.notificationgatewayservice.dto.ApiResponse;
+import uz.tengebank.notificationgatewayservice.service.admission.AdmissionRejectedException;
+
+@Slf4j
+@RestControllerAdvice
+public class GlobalExceptionHandler {
+
+  @ExceptionHandler(AdmissionRejectedException.class)
+  public ResponseEntity<ApiResponse<Void>> handleAdmissionRejected(AdmissionRejectedException e) {
+    long retryAfterSeconds = Math.max(1, e.getRetryAfter().toSeconds());
+    return ResponseEntity.status(e.getErrorCode().getHttpStatus())
+        .header(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds))
+        .body(ApiResponse.error(e.getErrorCode(), e.getMessage(), null));
+  }
+
+  @ExceptionHandler(ApiException.class)
+  public ResponseEntity<ApiResponse<Void>> handleApiException(ApiException e) {
+    if (e.getErrorCode().isServerError()) {
+      log.error("Request failed with {}: {}", e.getErrorCode().getStringCode(), e.getMessage(), e);
+    }
+    return ResponseEntity.status(e.getErrorCode().getHttpStatus())
+        .body(ApiResponse.error(e.getErrorCode(), e.getMessage(), null));
+  }
+}
@@ -0,0 +1,70 @@
+package uz.tengebank.notificationgatewayservice.repository;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Repository;
+import uz.tengebank.notificationgatewayservice.config.props.ApplicationProperties;
+import uz.tengebank.notificationgatewayservice.dto.notification.PushToken;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Size-bounded, TTL-expiring cache in front of {@link PushTokenRepositoryImpl}. Bulk lookups load only the
+ * phones that are not cached, in a single call. Phones without tokens are cached as well.
+ */
+@Slf4j
+@Primary
+@Repository
+public class CachingPushTokenRepository implements PushTokenRepository {
+
+  private final PushTokenRepositoryImpl delegate;
+  private final Cache<String, List<PushToken>> cache;
+
+  public CachingPushTokenRepository(PushTokenRepositoryImpl delegate, ApplicationProperties props, MeterRegistry meterRegistry) {
+    this.delegate = delegate;
+    this.cache = Caffeine.newBuilder()
+        .maximumSize(props.pushTokenCache().maxSize())
+        .expireAfterWrite(props.pushTokenCache().ttl())
+        .recordStats()
+        .build();
+
+    CaffeineCacheMetrics.monitor(meterRegistry, cache, "push-tokens");
+  }
+
+  @Override
+  public List<PushToken> findTokensByPhone(String phone) {
+    return cache.get(phone, delegate::findTokensByPhone);
+  }
+
+  @Override
+  public Map<String, List<PushToken>> findTokensByPhones(Collection<String> phones) {
+    return cache.getAll(phones, this::loadAll);
+  }
+
+  public void invalidate(String phone) {
+    cache.invalidate(phone);
+  }
+
+  @EventListener
+  public void onPushTokenChanged(PushTokenChangedEvent event) {
+    log.debug("Push tokens of {} {}, evicting cached lookup", event.phone(), event.change());
+    invalidate(event.phone());
+  }
+
+  private Map<String, List<PushToken>> loadAll(Set<? extends String> phones) {
+    Map<String, List<PushToken>> loaded = new HashMap<>(delegate.findTokensByPhones(List.copyOf(phones)));
+    for (String phone : phones) {
+      loaded.putIfAbsent(phone, List.of());
+    }
+    return loaded;
+  }
+}
@@ -0,0 +1,14 @@
+package uz.tengebank.notificationgatewayservice.repository;
+
+/**
+ * Signals that the tokens registered for a phone changed and cached lookups for it are stale.
+ */
+public record PushTokenChangedEvent(
+        String phone,
+        Change change
+) {
+
+  public enum Change {
+    REGISTERED, UNREGISTERED
+  }
+}
@@ -1,8 +1,10 @@
 package uz.tengebank.notificationgatewayservice.repository;
 
-import org.springframework.stereotype.Repository;
+import uz.tengebank.notificationgatewayservice.dto.notification.PushToken;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Later this repository will be separated from notification-gateway-service
@@ -10,5 +12,11 @@ import java.util.List;
  */
 
 public interface PushTokenRepository {
-  List<String> findTokensByPhone(String phone);
+  List<PushToken> findTokensByPhone(String phone);
+
+  /**
+   * Resolves tokens of all given phones in one call. Every requested phone is present in the result,
+   * phones without tokens map to an empty list.
+   */
+  Map<String, List<PushToken>> findTokensByPhones(Collection<String> phones);
 }
@@ -1,17 +1,31 @@
 package uz.tengebank.notificationgatewayservice.repository;
 
 import org.springframework.stereotype.Repository;
+import uz.tengebank.notificationgatewayservice.dto.notification.PushProvider;
+import uz.tengebank.notificationgatewayservice.dto.notification.PushToken;
 
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @Repository
 public class PushTokenRepositoryImpl implements PushTokenRepository {
 
   @Override
-  public List<String> findTokensByPhone(String phone) {
+  public List<PushToken> findTokensByPhone(String phone) {
     return List.of(
-        "qazwsxedcrfvtgbyhndasfdsfdsfgdsgdsgsdfgdfsgdfsgdfgersdsdasfsdgdfhgdh",
-        "aewrsrtdsfgdfgdsgdfhgdfhgfghfghdfgdftdfthyfthdfthyfthfthytjdssredzsf"
+        new PushToken("qazwsxedcrfvtgbyhndasfdsfdsfgdsgdsgsdfgdfsgdfsgdfgersdsdasfsdgdfhgdh", PushProvider.FCM, "ANDROID", "uz.tengebank.mobile"),
+        new PushToken("aewrsrtdsfgdfgdsgdfhgdfhgfghfghdfgdftdfthyfthdfthyfthfthytjdssredzsf", PushProvider.HCM, "HARMONY", "uz.tengebank.mobile")
     );
   }
+
+  @Override
+  public Map<String, List<PushToken>> findTokensByPhones(Collection<String> phones) {
+    Map<String, List<PushToken>> tokens = new HashMap<>(phones.size() * 2);
+    for (String phone : phones) {
+      tokens.put(phone, findTokensByPhone(phone));
+    }
+    return tokens;
+  }
 }
@@ -1,237 +1,750 @@
 package uz.tengebank.notificationgatewayservice.service;
 
 import feign.FeignException;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.cloud.client.circuitbreaker.NoFallbackAvailableException;
 import org.springframework.stereotype.Service;
 import uz.tengebank.notificationcontracts.dto.NotificationRequest;
+import uz.tengebank.notificationgatewayservice.config.props.ApplicationProperties;
 import uz.tengebank.notificationgatewayservice.constants.CommonErrorCode;
-import uz.tengebank.notificationgatewayservice.dto.ApiResponse;
+import uz.tengebank.notificationgatewayservice.dto.notification.DeliveryOptions;
+import uz.tengebank.notificationgatewayservice.dto.notification.Lane;
 import uz.tengebank.notificationgatewayservice.dto.notification.PushPayload;
+import uz.tengebank.notificationgatewayservice.dto.notification.PushToken;
 import uz.tengebank.notificationgatewayservice.dto.notification.SmsPayload;
-import uz.tengebank.notificationgatewayservice.dto.template.TemplateType;
-import uz.tengebank.notificationgatewayservice.dto.template.batch.BatchRenderRequest;
+import uz.tengebank.notificationgatewayservice.dto.outbox.DeliveryOutcome;
 import uz.tengebank.notificationgatewayservice.dto.template.batch.RenderResult;
 import uz.tengebank.notificationgatewayservice.exception.ApiException;
 import uz.tengebank.notificationgatewayservice.repository.PushTokenRepository;
+import uz.tengebank.notificationgatewayservice.service.admission.Admission;
 import uz.tengebank.notificationgatewayservice.service.audit.EventPublisher;
 import uz.tengebank.notificationgatewayservice.service.dispatch.NotificationDispatcher;
-
-import java.util.Arrays;
+import uz.tengebank.notificationgatewayservice.service.dispatch.PushMulticastBatcher;
+import uz.tengebank.notificationgatewayservice.service.intake.IntakeJournal;
+import uz.tengebank.notificationgatewayservice.service.metrics.DispatchMetrics;
+import uz.tengebank.notificationgatewayservice.service.pipeline.PipelineStage;
+import uz.tengebank.notificationgatewayservice.service.progress.ProgressRegistry;
+import uz.tengebank.notificationgatewayservice.service.priority.RateShaper;
+import uz.tengebank.notificationgatewayservice.service.render.ChunkedBatchRenderer;
+import uz.tengebank.notificationgatewayservice.service.render.RenderResults;
+import uz.tengebank.notificationgatewayservice.service.schedule.DeliveryScheduler;
+import uz.tengebank.notificationgatewayservice.service.template.TemplateCache;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.function.Function;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
 
+/**
+ * Runs notification requests through a staged pipeline: validate, render, resolve tokens, dispatch and audit.
+ * <p>
+ * Each stage is a {@link PipelineStage} with its own bounded queue and workers, so a slow stage backs up only the
+ * stages in front of it and shows up in its own queue depth and latency meters. A request fans out into chunks
+ * after validation; the chunks meet again in the audit stage, which publishes the outcome, marks the request
+ * completed in the intake journal and releases its admission. The first failure of a request stops its
+ * remaining chunks.
+ * <p>
+ * Every request runs under a {@code gateway.notification} observation, started on the submitting thread and
+ * reopened by each stage worker, so template calls and published messages join the caller's trace and the
+ * observation's timer covers the request end to end.
+ * <p>
+ * With the {@code FALLBACK} strategy every channel but a destination's last is published fail-fast: if the broker
+ * nacks or returns the message, the destination fails over to its next channel. A chunk reaches the audit stage
+ * once all of its destinations are settled this way, or after {@code app.fallback.confirm-timeout}.
+ */
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class NotificationService {
 
   private final PushTokenRepository pushTokenRepository;
-  private final TemplateServiceClient templateServiceClient;
+  private final TemplateCache templateCache;
   private final NotificationDispatcher notificationDispatcher;
   private final EventPublisher eventPublisher;
+  private final IntakeJournal intakeJournal;
+  private final ChunkedBatchRenderer chunkedBatchRenderer;
+  private final ApplicationProperties props;
+  private final RateShaper rateShaper;
+  private final DeliveryScheduler deliveryScheduler;
+  private final DispatchMetrics dispatchMetrics;
+  private final ObservationRegistry observationRegistry;
+  private final ProgressRegistry progressRegistry;
+
+  private final PipelineStage<RequestContext> validateStage;
+  private final PipelineStage<ChunkWork> renderStage;
+  private final PipelineStage<ChunkWork> resolveTokensStage;
+  private final PipelineStage<ChunkWork> dispatchStage;
+  private final PipelineStage<RequestContext> auditStage;
+  private final ExecutorService failoverExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+  public NotificationService(
+      PushTokenRepository pushTokenRepository,
+      TemplateCache templateCache,
+      NotificationDispatcher notificationDispatcher,
+      EventPublisher eventPublisher,
+      IntakeJournal intakeJournal,
+      ChunkedBatchRenderer chunkedBatchRenderer,
+      ApplicationProperties props,
+      RateShaper rateShaper,
+      DeliveryScheduler deliveryScheduler,
+      DispatchMetrics dispatchMetrics,
+      ObservationRegistry observationRegistry,
+      ProgressRegistry progressRegistry,
+      MeterRegistry meterRegistry
+  ) {
+    this.pushTokenRepository = pushTokenRepository;
+    this.templateCache = templateCache;
+    this.notificationDispatcher = notificationDispatcher;
+    this.eventPublisher = eventPublisher;
+    this.intakeJournal = intakeJournal;
+    this.chunkedBatchRenderer = chunkedBatchRenderer;
+    this.props = props;
+    this.rateShaper = rateShaper;
+    this.deliveryScheduler = deliveryScheduler;
+    this.dispatchMetrics = dispatchMetrics;
+    this.observationRegistry = observationRegistry;
+    this.progressRegistry = progressRegistry;
+
+    var stages = props.pipeline();
+    var weights = props.priority().weights();
+    this.validateStage = PipelineStage.perItem("validate", stages.validate(), weights, RequestContext::lane, this::validate, meterRegistry);
+    this.renderStage = PipelineStage.perItem("render", stages.render(), weights, ChunkWork::lane, this::renderChunk, meterRegistry);
+    this.resolveTokensStage = new PipelineStage<>("resolve-tokens", stages.resolveTokens(), weights, ChunkWork::lane, this::resolveTokens, meterRegistry);
+    this.dispatchStage = PipelineStage.perItem("dispatch", stages.dispatch(), weights, ChunkWork::lane, this::dispatchChunk, meterRegistry);
+    this.auditStage = PipelineStage.perItem("audit", stages.audit(), weights, RequestContext::lane, this::complete, meterRegistry);
+  }
+
+  /**
+   * Hands the request to the pipeline for delivery with the given lane and send-at time. Blocks while the
+   * validate stage is full.
+   */
+  public void processNotification(NotificationRequest request, Admission admission, DeliveryOptions delivery) {
+    processNotification(request, admission, delivery, null);
+  }
 
-  private final String KEY_SEPARATOR = "::";
+  /**
+   * @param onCompleted run once the request has been fully dispatched and audited, {@code null} for none
+   */
+  public void processNotification(NotificationRequest request, Admission admission, DeliveryOptions delivery, Runnable onCompleted) {
+    var observation = Observation.createNotStarted("gateway.notification", observationRegistry)
+        .contextualName("process-notification")
+        .lowCardinalityKeyValue("lane", delivery.lane().name())
+        .lowCardinalityKeyValue("strategy", request.deliveryStrategy().name())
+        .highCardinalityKeyValue("request.id", String.valueOf(request.requestId()))
+        .start();
+    progressRegistry.started(request, delivery.parentRequestId());
+    try {
+      validateStage.submit(new RequestContext(request, admission, delivery, props.fanOut().maxParallelismPerRequest(), observation, onCompleted));
+    } catch (RuntimeException e) {
+      observation.error(e);
+      observation.stop();
+      progressRegistry.completed(request.requestId(), true);
+      throw e;
+    }
+  }
+
+  @PreDestroy
+  void shutdown() throws InterruptedException {
+    // Upstream first, so every stage drains into one that is still running.
+    validateStage.close();
+    renderStage.close();
+    resolveTokensStage.close();
+    dispatchStage.close();
+    failoverExecutor.close();
+    auditStage.close();
+  }
 
-  @Async("virtualThreadExecutor")
-  public void processNotification(NotificationRequest request) {
+  private void validate(RequestContext context) {
+    try (var scope = context.observation.openScope()) {
+      validateInScope(context);
+    }
+  }
+
+  private void validateInScope(RequestContext context) {
+    var request = context.request;
+    context.admission.started();
     log.info("Gateway: Started processing notification request: {}", request.requestId());
+    if (context.delivery.parentRequestId() != null) {
+      eventPublisher.chunkOf(request, context.delivery.parentRequestId());
+    }
     eventPublisher.publishRequestAcceptedEvent(request);
 
+    List<List<NotificationRequest.Destination>> chunks;
     try {
       validateTemplate(request.templateCode());
+      chunks = chunkedBatchRenderer.chunks(distinctDestinations(request));
+    } catch (RuntimeException e) {
+      context.fail(e);
+      auditStage.submit(context);
+      return;
+    }
+
+    if (chunks.isEmpty()) {
+      auditStage.submit(context);
+      return;
+    }
+    context.pendingChunks.set(chunks.size());
+    chunks.forEach(chunk -> renderStage.submit(new ChunkWork(context, chunk)));
+  }
+
+  /**
+   * Drops destinations whose phone number was already addressed by an earlier destination of the request, so a
+   * phone listed twice is never sent to twice. Dropped destinations are reported as failed attempts.
+   */
+  private List<NotificationRequest.Destination> distinctDestinations(NotificationRequest request) {
+    var destinations = request.destinations();
+    var seenPhones = new HashSet<String>(destinations.size() * 2);
+    List<NotificationRequest.Destination> distinct = null;
+
+    for (int i = 0; i < destinations.size(); i++) {
+      var destination = destinations.get(i);
+      if (destination.phone() == null || seenPhones.add(phoneKey(destination.phone()))) {
+        if (distinct != null) {
+          distinct.add(destination);
+        }
+        continue;
+      }
+      if (distinct == null) {
+        distinct = new ArrayList<>(destinations.subList(0, i));
+      }
+      log.debug("Skipping destination {} of request {}: phone {} is listed more than once",
+          destination.id(), request.requestId(), destination.phone());
+      attemptFailed(
+          request,
+          destination.id(),
+          null,
+          "DUPLICATE_DESTINATION",
+          "Phone " + destination.phone() + " is already addressed by another destination of this request"
+      );
+    }
+    return distinct != null ? distinct : destinations;
+  }
 
-      Map<String, RenderResult> resultMap = performBatchRendering(request);
+  private static String phoneKey(String phone) {
+    var digits = new StringBuilder(phone.length());
+    for (int i = 0; i < phone.length(); i++) {
+      char c = phone.charAt(i);
+      if (Character.isDigit(c)) {
+        digits.append(c);
+      }
+    }
+    return digits.toString();
+  }
+
+  private void renderChunk(ChunkWork work) {
+    if (work.context.failed()) {
+      chunkDone(work.context);
+      return;
+    }
+    try (var scope = work.context.observation.openScope()) {
+      work.renderResults = chunkedBatchRenderer.renderChunk(work.context.request, work.destinations);
+      for (var channel : work.context.request.channels()) {
+        progressRegistry.rendered(work.context.request.requestId(), channel, work.renderResults.successes(channel));
+      }
+    } catch (RuntimeException e) {
+      work.context.fail(e);
+      chunkDone(work.context);
+      return;
+    }
+    resolveTokensStage.submit(work);
+  }
+
+  /**
+   * Looks up the push tokens of all chunks taken in one batch with a single repository call.
+   */
+  private void resolveTokens(List<ChunkWork> works) {
+    var phones = works.stream()
+        .filter(work -> work.context.request.channels().contains(NotificationRequest.Channel.PUSH))
+        .flatMap(work -> work.destinations.stream())
+        .map(NotificationRequest.Destination::phone)
+        // Destinations without a phone have no tokens; the token cache rejects null keys.
+        .filter(phone -> phone != null && !phone.isBlank())
+        .collect(Collectors.toSet());
+
+    Map<String, List<PushToken>> tokensByPhone;
+    try {
+      tokensByPhone = phones.isEmpty()
+          ? Map.of()
+          : dispatchMetrics.tokenLookup().record(() -> pushTokenRepository.findTokensByPhones(phones));
+    } catch (RuntimeException e) {
+      works.forEach(work -> {
+        work.context.fail(e);
+        chunkDone(work.context);
+      });
+      return;
+    }
+
+    for (var work : works) {
+      work.tokensByPhone = tokensByPhone;
+      dispatchStage.submit(work);
+    }
+  }
 
-      if (resultMap == null) {
-        log.error("Rendering templates failed.");
-        eventPublisher.publishRequestFailedEvent(payload, "RENDER_RESULT_NULL", "Batch render operation returned null.");
+  /**
+   * Splits the chunk into destination partitions and dispatches them on virtual threads. A request runs at most
+   * {@code max-parallelism-per-request} partitions at once across all of its chunks; per-destination failures
+   * end up in the request's attempt failure summary.
+   */
+  private void dispatchChunk(ChunkWork work) {
+    var failovers = new ArrayList<PendingFallback>();
+    try {
+      if (work.context.failed()) {
+        return;
+      }
+      int size = partitionSize(work.destinations.size());
+      if (size >= work.destinations.size()) {
+        failovers.addAll(dispatchPartition(work, 0, work.destinations.size()));
         return;
       }
 
-      switch (payload.deliveryStrategy()) {
-        case FALLBACK -> processWithFallback(payload, resultMap);
-        case PARALLEL -> processInParallel(payload, resultMap);
+      try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+        var futures = new ArrayList<Future<List<PendingFallback>>>();
+        for (int from = 0; from < work.destinations.size(); from += size) {
+          int start = from;
+          int end = Math.min(from + size, work.destinations.size());
+          futures.add(executor.submit(() -> dispatchPartition(work, start, end)));
+        }
+        for (var future : futures) {
+          failovers.addAll(awaitPartition(work.context, future));
+        }
       }
-    } catch (FeignException e) {
-      eventPublisher.publishRequestFailedEvent(payload, e.getMessage(), e.contentUTF8());
-    } catch (Exception e) {
-      log.error("A critical error occurred while processing request {}: {}", payload.requestId(), e.getMessage(), e);
-      eventPublisher.publishRequestFailedEvent(payload, e.getMessage(), e.getCause().getMessage());
+    } catch (RuntimeException e) {
+      work.context.fail(e);
+    } finally {
+      chunkDoneAfter(work.context, failovers);
     }
   }
 
-  private void processInParallel(NotificationPayload payload, Map<String, RenderResult> resultMap) {
-    log.info("Processing request {} with PARALLEL strategy", payload.requestId());
+  /**
+   * Returns the fallback destinations of the partition that are still waiting for a broker confirm.
+   */
+  private List<PendingFallback> dispatchPartition(ChunkWork work, int from, int to) {
+    var context = work.context;
+    var destinations = work.destinations.subList(from, to);
+    var renderResults = work.renderResults.from(from);
+    context.fanOutPermits.acquireUninterruptibly();
+    try (var scope = context.observation.openScope()) {
+      if (context.failed()) {
+        return List.of();
+      }
+      var request = context.request;
+      var pushBatcher = new PushMulticastBatcher(request.requestId(), context.delivery.lane(), props.push(), notificationDispatcher);
+      List<PendingFallback> failovers = switch (request.deliveryStrategy()) {
+        case FALLBACK -> processWithFallback(request, context.delivery, destinations, renderResults, work.tokensByPhone, pushBatcher);
+        case PARALLEL -> {
+          processInParallel(request, context.delivery, destinations, renderResults, work.tokensByPhone, pushBatcher);
+          yield List.of();
+        }
+      };
+      pushBatcher.flush();
+      return failovers;
+    } finally {
+      context.fanOutPermits.release();
+    }
+  }
 
-    payload.recipients().forEach(recipient -> {
-      if(payload.channels().contains(NotificationPayload.Channel.PUSH)) {
-        final String taskKey = recipient.id() + KEY_SEPARATOR + NotificationPayload.Channel.PUSH.name();
-        RenderResult pushResult = resultMap.get(taskKey);
+  private List<PendingFallback> awaitPartition(RequestContext context, Future<List<PendingFallback>> future) {
+    try {
+      return future.get();
+    } catch (ExecutionException e) {
+      context.fail(e.getCause() instanceof RuntimeException runtimeException
+          ? runtimeException
+          : new IllegalStateException(e.getCause()));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      context.fail(new IllegalStateException("Interrupted while dispatching request " + context.request.requestId(), e));
+    }
+    return List.of();
+  }
+
+  private int partitionSize(int destinations) {
+    var fanOut = props.fanOut();
+    int count = Math.clamp(destinations / Math.max(1, fanOut.minPartitionSize()), 1, fanOut.maxParallelismPerRequest());
+    return Math.max(1, (destinations + count - 1) / count);
+  }
+
+  /**
+   * Counts the chunk done once its fallback destinations have settled. Destinations still unconfirmed after
+   * {@code confirm-timeout} are given up on and reported as failed before the chunk is counted, so nothing is
+   * reported for them once the request has been audited. Never runs the audit stage hand-off on the broker's
+   * confirm thread.
+   */
+  private void chunkDoneAfter(RequestContext context, List<PendingFallback> failovers) {
+    if (failovers.isEmpty()) {
+      chunkDone(context);
+      return;
+    }
+    var confirmTimeout = props.fallback().confirmTimeout();
+    CompletableFuture.allOf(failovers.stream().map(failover -> failover.settled).toArray(CompletableFuture[]::new))
+        .orTimeout(confirmTimeout.toMillis(), TimeUnit.MILLISECONDS)
+        .whenCompleteAsync((ignored, e) -> {
+          var cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+          if (cause instanceof TimeoutException) {
+            abandonUnconfirmed(context, failovers, confirmTimeout);
+          } else if (cause != null) {
+            context.fail(cause instanceof RuntimeException runtimeException
+                ? runtimeException
+                : new IllegalStateException(cause));
+          }
+          chunkDone(context);
+        }, failoverExecutor);
+  }
+
+  private void abandonUnconfirmed(RequestContext context, List<PendingFallback> failovers, Duration confirmTimeout) {
+    var request = context.request;
+    int abandoned = 0;
+    for (var failover : failovers) {
+      if (failover.abandon()) {
+        abandoned++;
+        attemptFailed(
+            request,
+            failover.destinationId,
+            null,
+            "CONFIRM_TIMEOUT",
+            "No broker confirm for recipient [" + failover.destinationId + "] within " + confirmTimeout
+        );
+      }
+    }
+    if (abandoned > 0) {
+      log.warn("Request {}: gave up on {} fallback destination(s) still unconfirmed after {}",
+          request.requestId(), abandoned, confirmTimeout);
+    }
+  }
+
+  private void chunkDone(RequestContext context) {
+    if (context.pendingChunks.decrementAndGet() == 0) {
+      auditStage.submit(context);
+    }
+  }
+
+  private void complete(RequestContext context) {
+    var request = context.request;
+    try {
+      var failure = context.failure.get();
+      if (failure != null) {
+        publishFailure(request, failure);
+      }
+      eventPublisher.publishAttemptFailureSummary(request);
+    } finally {
+      intakeJournal.markCompleted(request.requestId());
+      context.admission.close();
+      dispatchMetrics.requestCompleted(context.lane(), context.failed());
+      progressRegistry.completed(request.requestId(), context.failed());
+      if (context.failed()) {
+        context.observation.error(context.failure.get());
+      }
+      context.observation.stop();
+      if (context.onCompleted != null) {
+        context.onCompleted.run();
+      }
+    }
+  }
+
+  private void publishFailure(NotificationRequest request, RuntimeException failure) {
+    switch (failure) {
+      case FeignException e -> eventPublisher.publishRequestFailedEvent(request, e.getMessage(), e.contentUTF8());
+      case NoFallbackAvailableException e when e.getCause() instanceof FeignException feignException ->
+          eventPublisher.publishRequestFailedEvent(request, feignException.getMessage(), feignException.contentUTF8());
+      case NoFallbackAvailableException e -> {
+        log.error("Template service call failed for request {}: {}", request.requestId(), e.getCause().getMessage());
+        eventPublisher.publishRequestFailedEvent(request, "TEMPLATE_SERVICE_UNAVAILABLE", e.getCause().getMessage());
+      }
+      default -> {
+        log.error("A critical error occurred while processing request {}: {}", request.requestId(), failure.getMessage(), failure);
+        eventPublisher.publishRequestFailedEvent(request, failure.getMessage(), failure.getCause() != null ? failure.getCause().getMessage() : null);
+      }
+    }
+  }
+
+  void processInParallel(
+      NotificationRequest request,
+      DeliveryOptions delivery,
+      List<NotificationRequest.Destination> destinations,
+      RenderResults renderResults,
+      Map<String, List<PushToken>> tokensByPhone,
+      PushMulticastBatcher pushBatcher
+  ) {
+    log.debug("Processing {} destination(s) of request {} with PARALLEL strategy", destinations.size(), request.requestId());
+
+    for (int i = 0; i < destinations.size(); i++) {
+      var recipient = destinations.get(i);
+      if(request.channels().contains(NotificationRequest.Channel.PUSH)) {
+        RenderResult pushResult = renderResults.get(i, NotificationRequest.Channel.PUSH);
 
         if(isRenderResultInvalid(pushResult, recipient)) {
-          eventPublisher.publishNotificationAttemptFailedEvent(
-              payload,
+          attemptFailed(
+              request,
               recipient.id(),
-              NotificationPayload.Channel.PUSH.name(),
+              NotificationRequest.Channel.PUSH,
               pushResult != null ? pushResult.error().errorCode() : "RENDER_RESULT_FAILED",
               pushResult != null ? pushResult.error().message() : "Unknown render result"
           );
-          return;
+          continue;
         }
 
-        var pushConfig = Optional.ofNullable(payload.channelConfig())
-            .map(NotificationPayload.ChannelConfig::push)
+        var pushConfig = Optional.ofNullable(request.channelConfig())
+            .map(NotificationRequest.ChannelConfig::push)
             .orElse(null);
 
-        dispatchPushNotification(recipient, pushConfig, pushResult.data());
+        dispatchPushNotification(request, delivery, recipient, tokensByPhone, pushBatcher, pushConfig, pushResult.data(), false);
       }
 
-      if(payload.channels().contains(NotificationPayload.Channel.SMS)) {
-        final String taskKey = recipient.id() + KEY_SEPARATOR + NotificationPayload.Channel.SMS.name();
-        RenderResult smsResult = resultMap.get(taskKey);
+      if(request.channels().contains(NotificationRequest.Channel.SMS)) {
+        RenderResult smsResult = renderResults.get(i, NotificationRequest.Channel.SMS);
 
         if (isRenderResultInvalid(smsResult, recipient)) {
-          eventPublisher.publishNotificationAttemptFailedEvent(
-              payload,
+          attemptFailed(
+              request,
               recipient.id(),
-              NotificationPayload.Channel.PUSH.name(),
+              NotificationRequest.Channel.SMS,
               smsResult != null ? smsResult.error().errorCode() : "RENDER_RESULT_FAILED",
               smsResult != null ? smsResult.error().message() : "Unknown render result"
           );
-          return;
+          continue;
         }
 
-        var smsConfig = Optional.ofNullable(payload.channelConfig())
-            .map(NotificationPayload.ChannelConfig::sms)
+        var smsConfig = Optional.ofNullable(request.channelConfig())
+            .map(NotificationRequest.ChannelConfig::sms)
             .orElse(null);
 
-        dispatchSmsNotification(recipient, smsConfig, smsResult.data().body());
+        dispatchSmsNotification(request, delivery, recipient, smsConfig, smsResult.data().body(), false);
       }
-    });
+    }
 
   }
 
-  private void processWithFallback(NotificationPayload payload, Map<String, RenderResult> resultMap) {
-    log.info("Processing request {} with FALLBACK strategy", payload.requestId());
-
-    for (var recipient : payload.recipients()) {
-      boolean dispatched = false;
-      for (var channel : payload.channels()) {
-        final String taskKey = recipient.id() + KEY_SEPARATOR + channel.name();
-        RenderResult result = resultMap.get(taskKey);
+  /**
+   * Returns the destinations still waiting for a broker confirm that may fail them over to another channel.
+   */
+  List<PendingFallback> processWithFallback(
+      NotificationRequest request,
+      DeliveryOptions delivery,
+      List<NotificationRequest.Destination> destinations,
+      RenderResults renderResults,
+      Map<String, List<PushToken>> tokensByPhone,
+      PushMulticastBatcher pushBatcher
+  ) {
+    log.debug("Processing {} destination(s) of request {} with FALLBACK strategy", destinations.size(), request.requestId());
+
+    var failovers = new ArrayList<PendingFallback>();
+    for (int i = 0; i < destinations.size(); i++) {
+      var recipient = destinations.get(i);
+      var pending = new PendingFallback(recipient.id());
+      dispatchWithFallback(request, delivery, recipient, renderResults, i, 0, tokensByPhone, pushBatcher, pending);
+      if (!pending.settled.isDone()) {
+        failovers.add(pending);
+      }
+    }
+    return failovers;
+  }
 
-        if (isRenderResultInvalid(result, recipient)) {
-          log.warn("Render failed for recipient {} on channel {}, trying next fallback channel.", recipient.phone(), channel);
-          eventPublisher.publishNotificationAttemptFailedEvent(
-              payload,
-              recipient.id(),
-              channel.name(),
-              result != null ? result.error().errorCode() : "RENDER_RESULT_FAILED",
-              result != null ? result.error().message() : "Unknown render result"
-          );
-          continue; // Move to the next channel.
-        }
+  /**
+   * Dispatches the destination on the first of its channels, starting at {@code firstChannel}, that rendered and
+   * can be sent to. Every channel but the last is published fail-fast; {@code pending} settles once the broker has
+   * confirmed it, or once a rejection has been failed over to the remaining channels and those have settled.
+   */
+  private void dispatchWithFallback(
+      NotificationRequest request,
+      DeliveryOptions delivery,
+      NotificationRequest.Destination recipient,
+      RenderResults renderResults,
+      int index,
+      int firstChannel,
+      Map<String, List<PushToken>> tokensByPhone,
+      PushMulticastBatcher pushBatcher,
+      PendingFallback pending
+  ) {
+    var channels = request.channels();
+    for (int c = firstChannel; c < channels.size(); c++) {
+      var channel = channels.get(c);
+      RenderResult result = renderResults.get(index, channel);
+
+      if (isRenderResultInvalid(result, recipient)) {
+        log.warn("Render failed for recipient {} on channel {}, trying next fallback channel.", recipient.phone(), channel);
+        attemptFailed(
+            request,
+            recipient.id(),
+            channel,
+            result != null ? result.error().errorCode() : "RENDER_RESULT_FAILED",
+            result != null ? result.error().message() : "Unknown render result"
+        );
+        continue; // Move to the next channel.
+      }
 
-        boolean dispatchSuccess = false;
+      boolean failFast = c < channels.size() - 1;
+      CompletableFuture<DeliveryOutcome> outcome = null;
 
-        if (channel == NotificationPayload.Channel.PUSH) {
-          var pushConfig = Optional.ofNullable(payload.channelConfig())
-              .map(NotificationPayload.ChannelConfig::push)
-              .orElse(null);
+      if (channel == NotificationRequest.Channel.PUSH) {
+        var pushConfig = Optional.ofNullable(request.channelConfig())
+            .map(NotificationRequest.ChannelConfig::push)
+            .orElse(null);
 
-          dispatchSuccess = dispatchPushNotification(recipient, pushConfig, result.data());
-        } else if (channel == NotificationPayload.Channel.SMS) {
-          var smsConfig = Optional.ofNullable(payload.channelConfig())
-              .map(NotificationPayload.ChannelConfig::sms)
-              .orElse(null);
+        outcome = dispatchPushNotification(request, delivery, recipient, tokensByPhone, pushBatcher, pushConfig, result.data(), failFast);
+      } else if (channel == NotificationRequest.Channel.SMS) {
+        var smsConfig = Optional.ofNullable(request.channelConfig())
+            .map(NotificationRequest.ChannelConfig::sms)
+            .orElse(null);
 
-          dispatchSmsNotification(recipient, smsConfig, result.data().body());
-          dispatchSuccess = true;
-        }
+        outcome = dispatchSmsNotification(request, delivery, recipient, smsConfig, result.data().body(), failFast);
+      }
 
-        if (dispatchSuccess) {
-          log.info("Dispatched to {} via fallback channel {}", recipient.phone(), channel);
-          dispatched = true;
-          break;
-        }
+      if (outcome == null) {
+        continue;
+      }
+      log.debug("Dispatched to {} via fallback channel {}", recipient.phone(), channel);
+      if (!failFast) {
+        pending.settled.complete(null);
+        return;
       }
 
-      if (!dispatched) {
-        log.error("All fallback channels failed for recipient {}", recipient.phone());
-        eventPublisher.publishNotificationAttemptFailedEvent(
-            payload,
+      int nextChannel = c + 1;
+      outcome.whenCompleteAsync((deliveryOutcome, e) -> pending.resume(e, () -> {
+        if (!deliveryOutcome.isRejected()) {
+          pending.settled.complete(null);
+          return;
+        }
+        log.warn("Broker {} the {} message for recipient {}, failing over to the next channel.", deliveryOutcome, channel, recipient.phone());
+        attemptFailed(
+            request,
             recipient.id(),
-            Arrays.toString(NotificationPayload.Channel.values()),
-            "ALL_CHANNELS_FAILED",
-            "Notification could not be dispatched for recipient [" + recipient.id() + "]: " + recipient.phone()
+            channel,
+            "BROKER_" + deliveryOutcome.name(),
+            "Message to recipient [" + recipient.id() + "] was " + deliveryOutcome.name().toLowerCase() + " by the broker"
         );
-      }
+        var failoverBatcher = new PushMulticastBatcher(request.requestId(), delivery.lane(), props.push(), notificationDispatcher);
+        dispatchWithFallback(request, delivery, recipient, renderResults, index, nextChannel, tokensByPhone, failoverBatcher, pending);
+        failoverBatcher.flush();
+      }), failoverExecutor);
+      return;
     }
-  }
 
-
-  private void validateTemplate(final String templateName) {
-    var templateResponse = templateServiceClient.getTemplateByName(templateName);
-    if (templateResponse.status() == ApiResponse.Status.ERROR) {
-      throw new ApiException(CommonErrorCode.TEMPLATE_SERVICE_EXCEPTION, templateResponse.error().message());
-    }
-    log.info("Template '{}' validated successfully.", templateName);
+    log.error("All fallback channels failed for recipient {}", recipient.phone());
+    attemptFailed(
+        request,
+        recipient.id(),
+        null,
+        "ALL_CHANNELS_FAILED",
+        "Notification could not be dispatched via " + channels + " for recipient [" + recipient.id() + "]: " + recipient.phone()
+    );
+    pending.settled.complete(null);
   }
 
-  private Map<String, RenderResult> performBatchRendering(NotificationRequest request) throws ApiException {
-    var renderTasks = request.destinations().stream()
-        .flatMap(r -> payload.channels().stream().map(c ->
-            new BatchRenderRequest.RenderTask(
-                r.id() + KEY_SEPARATOR + c.name(),
-                r.lang(),
-                TemplateType.valueOf(c.name()),
-                r.variables()
-            )))
-        .distinct()
-        .toList();
-
-    BatchRenderRequest batchRequest = new BatchRenderRequest(request.templateCode(), renderTasks);
-    ApiResponse<List<RenderResult>> renderApiResponse = templateServiceClient.renderBatch(batchRequest);
+  /**
+   * Reports a failed attempt on {@code channel}, or a destination that could not be served at all if
+   * {@code channel} is {@code null}.
+   */
+  private void attemptFailed(NotificationRequest request, UUID destinationId, NotificationRequest.Channel channel, String errorCode, String errorMessage) {
+    progressRegistry.failed(request.requestId(), channel);
+    eventPublisher.publishNotificationAttemptFailedEvent(request, destinationId, errorCode, errorMessage);
+  }
 
-    if (renderApiResponse.status() == ApiResponse.Status.ERROR) {
-      throw new ApiException(CommonErrorCode.TEMPLATE_SERVICE_EXCEPTION, renderApiResponse.error().message());
+  private void validateTemplate(final String templateName) {
+    var lookup = templateCache.get(templateName);
+    if (!lookup.isFound()) {
+      throw new ApiException(CommonErrorCode.TEMPLATE_SERVICE_EXCEPTION, lookup.errorMessage());
     }
-
-    return renderApiResponse.data().stream()
-        .collect(Collectors.toMap(RenderResult::recipientId, Function.identity()));
+    log.debug("Template '{}' (version {}) validated successfully.", templateName, lookup.version());
   }
 
-  private boolean dispatchPushNotification(
-      NotificationPayload.Recipient recipient,
+  /**
+   * Returns the outcome of the recipient's push messages, confirmed if any of them was, or {@code null} if the
+   * recipient has no push tokens.
+   * <p>
+   * Push messages carry only the rendered title, body and image. The data map is always empty: neither the template
+   * service nor the request defines push data yet.
+   */
+  private CompletableFuture<DeliveryOutcome> dispatchPushNotification(
+      NotificationRequest request,
+      DeliveryOptions delivery,
+      NotificationRequest.Destination recipient,
+      Map<String, List<PushToken>> tokensByPhone,
+      PushMulticastBatcher pushBatcher,
       Map<String, Object> pushConfig,
-      RenderResult.RenderedTemplate renderedTemplate
+      RenderResult.RenderedTemplate renderedTemplate,
+      boolean failFast
   ) {
-    // todo: pass as parameter
-    List<String> tokens = pushTokenRepository.findTokensByPhone(recipient.phone());
+    List<PushToken> tokens = recipient.phone() != null ? tokensByPhone.getOrDefault(recipient.phone(), List.of()) : List.of();
     if (tokens.isEmpty()) {
       log.error("No push tokens found for phone {}. Push attempt failed.", recipient.phone());
-      return false;
+      progressRegistry.failed(request.requestId(), NotificationRequest.Channel.PUSH);
+      return null;
     }
-    // TODO: Implement Push Data retrieval from template/variables
     var pushContent = new PushPayload.PushContent(renderedTemplate.title(), renderedTemplate.body(), renderedTemplate.imageUrl(), Map.of());
-    for (String token : tokens) {
-      var message = new PushPayload(token, pushContent, pushConfig);
-      notificationDispatcher.dispatchPush(message);
+    long delayMillis = deliveryScheduler.delayMillis(delivery, recipient);
+    if (delayMillis == 0) {
+      rateShaper.acquire(delivery.lane(), NotificationRequest.Channel.PUSH, request.templateCode(), tokens.size());
+    }
+    var outcomes = new ArrayList<CompletableFuture<DeliveryOutcome>>(tokens.size());
+    for (PushToken token : tokens) {
+      outcomes.add(countConfirmed(request, NotificationRequest.Channel.PUSH,
+          pushBatcher.add(recipient.id(), token, pushContent, pushConfig, delayMillis, failFast)));
     }
-    return true;
+    dispatchMetrics.dispatched(NotificationRequest.Channel.PUSH, delivery.lane(), tokens.size());
+    progressRegistry.dispatched(request.requestId(), NotificationRequest.Channel.PUSH, tokens.size());
+    if (outcomes.size() == 1) {
+      return outcomes.getFirst();
+    }
+    return CompletableFuture.allOf(outcomes.toArray(CompletableFuture[]::new))
+        .thenApply(ignored -> outcomes.stream()
+            .map(CompletableFuture::join)
+            .filter(DeliveryOutcome::isConfirmed)
+            .findAny()
+            .orElseGet(() -> outcomes.getFirst().join()));
   }
 
-  private void dispatchSmsNotification(NotificationPayload.Recipient recipient, Map<String, Object> smsConfig, String renderedBody) {
-    var message = new SmsPayload(recipient.phone(), renderedBody, smsConfig);
-    notificationDispatcher.dispatchSms(message);
+  private CompletableFuture<DeliveryOutcome> dispatchSmsNotification(
+      NotificationRequest request,
+      DeliveryOptions delivery,
+      NotificationRequest.Destination recipient,
+      Map<String, Object> smsConfig,
+      String renderedBody,
+      boolean failFast
+  ) {
+    // Held messages are paced by their spread-out release instead.
+    long delayMillis = deliveryScheduler.delayMillis(delivery, recipient);
+    if (delayMillis == 0) {
+      rateShaper.acquire(delivery.lane(), NotificationRequest.Channel.SMS, request.templateCode(), 1);
+    }
+    var message = new SmsPayload(request.requestId(), recipient.id(), recipient.phone(), renderedBody, smsConfig);
+    var outcome = notificationDispatcher.dispatchSms(message, delivery.lane(), delayMillis, failFast);
+    dispatchMetrics.dispatched(NotificationRequest.Channel.SMS, delivery.lane(), 1);
+    progressRegistry.dispatched(request.requestId(), NotificationRequest.Channel.SMS, 1);
+    return countConfirmed(request, NotificationRequest.Channel.SMS, outcome);
   }
 
-  private boolean isRenderResultInvalid(RenderResult result, NotificationPayload.Recipient recipient) {
+  private CompletableFuture<DeliveryOutcome> countConfirmed(
+      NotificationRequest request,
+      NotificationRequest.Channel channel,
+      CompletableFuture<DeliveryOutcome> outcome
+  ) {
+    outcome.thenAccept(deliveryOutcome -> {
+      if (deliveryOutcome.isConfirmed()) {
+        progressRegistry.confirmed(request.requestId(), channel, 1);
+      }
+    });
+    return outcome;
+  }
+
+  private boolean isRenderResultInvalid(RenderResult result, NotificationRequest.Destination recipient) {
     if (result == null || !result.success()) {
       log.error("Skipping recipient {}: Rendering failed. Reason: {}",
           recipient.phone(), result != null ? result.error() : "Unknown render result");
@@ -240,16 +753,113 @@ public class NotificationService {
     return false;
   }
 
-  private void handleBatchFailure(NotificationPayload payload, String reason, String errorJson) {
-    log.error("Aborting request {}. Reason: {}. Details: {}", payload.requestId(), reason, errorJson);
+  private static final class RequestContext {
+    private final NotificationRequest request;
+    private final Admission admission;
+    private final AtomicInteger pendingChunks = new AtomicInteger();
+    private final AtomicReference<RuntimeException> failure = new AtomicReference<>();
+    private final DeliveryOptions delivery;
+    private final Semaphore fanOutPermits;
+    private final Observation observation;
+    private final Runnable onCompleted;
+
+    private RequestContext(
+        NotificationRequest request,
+        Admission admission,
+        DeliveryOptions delivery,
+        int maxParallelism,
+        Observation observation,
+        Runnable onCompleted
+    ) {
+      this.request = request;
+      this.admission = admission;
+      this.delivery = delivery;
+      this.fanOutPermits = new Semaphore(maxParallelism);
+      this.observation = observation;
+      this.onCompleted = onCompleted;
+    }
 
-    Map<String, Object> auditPayload = Map.of(
-        "requestId", payload.requestId(),
-        "failureReason", reason,
-        "errorDetails", errorJson
-    );
+    private void fail(RuntimeException e) {
+      failure.compareAndSet(null, e);
+    }
+
+    private boolean failed() {
+      return failure.get() != null;
+    }
+
+    private Lane lane() {
+      return delivery.lane();
+    }
+  }
 
-    // TODO: Emit a single batch failure event to the audit queue with the reason and details.
+  /**
+   * A FALLBACK destination waiting for the broker to confirm one of its fail-fast channels. Its chunk gives up on
+   * it after {@code confirm-timeout}; an outcome arriving after that is ignored instead of failing the destination
+   * over, so nothing is reported for a request whose attempt failure summary has already gone out.
+   */
+  private static final class PendingFallback {
+    private final UUID destinationId;
+    private final CompletableFuture<Void> settled = new CompletableFuture<>();
+    // Held while an outcome is handled, so giving up waits for a fail-over that is already under way.
+    private final ReentrantLock lock = new ReentrantLock();
+    private boolean abandoned;
+
+    private PendingFallback(UUID destinationId) {
+      this.destinationId = destinationId;
+    }
+
+    /**
+     * Handles the outcome of the channel the destination was waiting for, unless it has been given up on.
+     */
+    private void resume(Throwable failure, Runnable onOutcome) {
+      lock.lock();
+      try {
+        if (abandoned) {
+          return;
+        }
+        if (failure != null) {
+          settled.completeExceptionally(failure);
+          return;
+        }
+        onOutcome.run();
+      } catch (RuntimeException e) {
+        settled.completeExceptionally(e);
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    /**
+     * Gives up on the destination; {@code false} if it has settled meanwhile.
+     */
+    private boolean abandon() {
+      lock.lock();
+      try {
+        if (settled.isDone()) {
+          return false;
+        }
+        abandoned = true;
+        return true;
+      } finally {
+        lock.unlock();
+      }
+    }
+  }
+
+  private static final class ChunkWork {
+    private final RequestContext context;
+    private final List<NotificationRequest.Destination> destinations;
+    private RenderResults renderResults;
+    private Map<String, List<PushToken>> tokensByPhone;
+
+    private ChunkWork(RequestContext context, List<NotificationRequest.Destination> destinations) {
+      this.context = context;
+      this.destinations = destinations;
+    }
+
+    private Lane lane() {
+      return context.lane();
+    }
   }
 
 }
@@ -0,0 +1,41 @@
+package uz.tengebank.notificationgatewayservice.service.admission;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Capacity held by one admitted request. Closing it is idempotent.
+ */
+public final class Admission implements AutoCloseable {
+
+  private static final int QUEUED = 0;
+  private static final int RUNNING = 1;
+  private static final int CLOSED = 2;
+
+  private final AdmissionControl owner;
+  private final String templateCode;
+  private final int destinations;
+  private final AtomicInteger state = new AtomicInteger(QUEUED);
+
+  Admission(AdmissionControl owner, String templateCode, int destinations) {
+    this.owner = owner;
+    this.templateCode = templateCode;
+    this.destinations = destinations;
+  }
+
+  /**
+   * Marks the request as picked up by an executor thread.
+   */
+  public void started() {
+    if (state.compareAndSet(QUEUED, RUNNING)) {
+      owner.started();
+    }
+  }
+
+  @Override
+  public void close() {
+    int previous = state.getAndSet(CLOSED);
+    if (previous != CLOSED) {
+      owner.release(templateCode, destinations, previous == QUEUED);
+    }
+  }
+}
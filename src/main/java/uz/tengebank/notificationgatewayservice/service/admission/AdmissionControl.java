@@ -0,0 +1,142 @@
+package uz.tengebank.notificationgatewayservice.service.admission;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import uz.tengebank.notificationcontracts.dto.NotificationRequest;
+import uz.tengebank.notificationgatewayservice.config.props.ApplicationProperties;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounds the work accepted by the gateway: requests in flight (queued or running), destinations waiting to be
+ * dispatched and concurrent requests per template. Saturation is reported to the caller immediately instead of
+ * letting virtual threads pile up behind the template service and the broker.
+ */
+@Slf4j
+@Component
+public class AdmissionControl {
+
+  private final ApplicationProperties.Admission props;
+
+  private final AtomicInteger inFlight = new AtomicInteger();
+  private final AtomicInteger queued = new AtomicInteger();
+  private final AtomicLong pendingDestinations = new AtomicLong();
+  private final Map<String, AtomicInteger> perTemplate = new ConcurrentHashMap<>();
+  private final Counter rejected;
+
+  public AdmissionControl(ApplicationProperties props, MeterRegistry meterRegistry) {
+    this.props = props.admission();
+
+    Gauge.builder("gateway.admission.in_flight", inFlight, AtomicInteger::get)
+        .description("Requests admitted and not yet finished")
+        .register(meterRegistry);
+    Gauge.builder("gateway.admission.queued", queued, AtomicInteger::get)
+        .description("Admitted requests waiting for an executor thread")
+        .register(meterRegistry);
+    Gauge.builder("gateway.admission.pending_destinations", pendingDestinations, AtomicLong::get)
+        .description("Destinations of admitted requests not yet dispatched")
+        .register(meterRegistry);
+    this.rejected = Counter.builder("gateway.admission.rejected")
+        .description("Requests rejected because the gateway was saturated")
+        .register(meterRegistry);
+  }
+
+  /**
+   * Admits the request or throws {@link AdmissionRejectedException} when any limit is reached.
+   */
+  public Admission tryAdmit(NotificationRequest request) {
+    final int destinations = request.destinations().size();
+
+    if (!tryIncrement(inFlight, props.maxInFlightRequests())) {
+      throw reject(request, "too many requests in flight");
+    }
+    if (!tryReserveDestinations(destinations)) {
+      inFlight.decrementAndGet();
+      throw reject(request, "too many pending destinations");
+    }
+    if (!tryAcquireTemplate(request.templateCode())) {
+      inFlight.decrementAndGet();
+      pendingDestinations.addAndGet(-destinations);
+      throw reject(request, "too many concurrent requests for template '" + request.templateCode() + "'");
+    }
+
+    queued.incrementAndGet();
+    return new Admission(this, request.templateCode(), destinations);
+  }
+
+  /**
+   * Admits the request regardless of limits. Used for work the gateway has already acknowledged, such as
+   * requests replayed from the intake journal.
+   */
+  public Admission admit(NotificationRequest request) {
+    final int destinations = request.destinations().size();
+    inFlight.incrementAndGet();
+    pendingDestinations.addAndGet(destinations);
+    perTemplate.computeIfAbsent(request.templateCode(), k -> new AtomicInteger()).incrementAndGet();
+    queued.incrementAndGet();
+    return new Admission(this, request.templateCode(), destinations);
+  }
+
+  void started() {
+    queued.decrementAndGet();
+  }
+
+  void release(String templateCode, int destinations, boolean wasQueued) {
+    if (wasQueued) {
+      queued.decrementAndGet();
+    }
+    pendingDestinations.addAndGet(-destinations);
+    inFlight.decrementAndGet();
+    perTemplate.computeIfPresent(templateCode, (k, counter) -> counter.decrementAndGet() <= 0 ? null : counter);
+  }
+
+  private boolean tryReserveDestinations(int destinations) {
+    while (true) {
+      long current = pendingDestinations.get();
+      // A single oversized request is still admitted when nothing else is pending, otherwise it could never run.
+      if (current > 0 && current + destinations > props.maxPendingDestinations()) {
+        return false;
+      }
+      if (pendingDestinations.compareAndSet(current, current + destinations)) {
+        return true;
+      }
+    }
+  }
+
+  private boolean tryAcquireTemplate(String templateCode) {
+    var acquired = new boolean[1];
+    perTemplate.compute(templateCode, (k, counter) -> {
+      var value = counter != null ? counter : new AtomicInteger();
+      if (value.get() < props.maxConcurrentPerTemplate()) {
+        value.incrementAndGet();
+        acquired[0] = true;
+      }
+      return value.get() == 0 ? null : value;
+    });
+    return acquired[0];
+  }
+
+  private AdmissionRejectedException reject(NotificationRequest request, String reason) {
+    rejected.increment();
+    log.warn("Admission: rejected request {} ({})", request.requestId(), reason);
+    return new AdmissionRejectedException("Gateway is saturated: " + reason + ".", props.retryAfter());
+  }
+
+  private static boolean tryIncrement(AtomicInteger counter, int limit) {
+    while (true) {
+      int current = counter.get();
+      if (current >= limit) {
+        return false;
+      }
+      if (counter.compareAndSet(current, current + 1)) {
+        return true;
+      }
+    }
+  }
+}
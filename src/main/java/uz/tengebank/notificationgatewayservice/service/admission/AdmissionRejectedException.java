@@ -0,0 +1,18 @@
+package uz.tengebank.notificationgatewayservice.service.admission;
+
+import lombok.Getter;
+import uz.tengebank.notificationgatewayservice.constants.CommonErrorCode;
+import uz.tengebank.notificationgatewayservice.exception.ApiException;
+
+import java.time.Duration;
+
+@Getter
+public class AdmissionRejectedException extends ApiException {
+
+  private final Duration retryAfter;
+
+  public AdmissionRejectedException(String message, Duration retryAfter) {
+    super(CommonErrorCode.TOO_MANY_REQUESTS, message);
+    this.retryAfter = retryAfter;
+  }
+}
@@ -0,0 +1,122 @@
+package uz.tengebank.notificationgatewayservice.service.audit;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.stereotype.Component;
+import uz.tengebank.notificationcontracts.events.EventEnvelope;
+import uz.tengebank.notificationgatewayservice.config.props.ApplicationProperties;
+import uz.tengebank.notificationgatewayservice.service.outbox.PublishOutbox;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Buffers audit envelopes in a bounded ring and publishes them off the caller's thread, flushed when
+ * {@code batch-size} envelopes are buffered or every {@code flush-interval}. By default every envelope is its own
+ * message, as audit consumers expect. With {@code array-batches} a flushed batch is sent as one JSON array with
+ * the {@value #BATCH_SIZE_HEADER} header instead; only enable it once every consumer reads that format. When the
+ * ring is full the caller flushes inline, so audit events are delayed but never dropped.
+ */
+@Slf4j
+@Component
+public class AuditBatcher {
+
+    public static final String BATCH_SIZE_HEADER = "x-batch-size";
+    private static final String ROUTING_KEY = "notification.event";
+
+    private final RabbitTemplate rabbitTemplate;
+    private final PublishOutbox publishOutbox;
+    private final String auditExchangeName;
+    private final ApplicationProperties.Audit props;
+
+    private final BlockingQueue<EventEnvelope> ring;
+    private final ScheduledExecutorService flusher;
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+    public AuditBatcher(RabbitTemplate rabbitTemplate, PublishOutbox publishOutbox, ApplicationProperties props, MeterRegistry meterRegistry) {
+        this.rabbitTemplate = rabbitTemplate;
+        this.publishOutbox = publishOutbox;
+        this.auditExchangeName = props.rabbitmq().exchanges().audit();
+        this.props = props.audit();
+        this.ring = new ArrayBlockingQueue<>(this.props.bufferCapacity());
+
+        this.flusher = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("audit-flusher").daemon().factory());
+        long intervalMillis = Math.max(1, this.props.flushInterval().toMillis());
+        flusher.scheduleAtFixedRate(this::flushQuietly, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+
+        Gauge.builder("gateway.audit.buffered", ring, BlockingQueue::size)
+            .description("Audit events waiting to be published")
+            .register(meterRegistry);
+    }
+
+    public void add(EventEnvelope envelope) {
+        while (!ring.offer(envelope)) {
+            flush();
+        }
+        if (ring.size() >= props.batchSize() && flushScheduled.compareAndSet(false, true)) {
+            flusher.execute(() -> {
+                flushScheduled.set(false);
+                flushQuietly();
+            });
+        }
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        flusher.shutdown();
+        flusher.awaitTermination(5, TimeUnit.SECONDS);
+        flushQuietly();
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.error("Audit: flush failed", e);
+        }
+    }
+
+    private void flush() {
+        List<EventEnvelope> batch = new ArrayList<>(props.batchSize());
+        while (ring.drainTo(batch, props.batchSize()) > 0) {
+            if (props.arrayBatches()) {
+                send(batch);
+            } else {
+                batch.forEach(envelope -> send(List.of(envelope)));
+            }
+            batch = new ArrayList<>(props.batchSize());
+        }
+    }
+
+    private void send(List<EventEnvelope> batch) {
+        try {
+            Message message;
+            if (batch.size() == 1) {
+                message = rabbitTemplate.getMessageConverter().toMessage(batch.getFirst(), new MessageProperties());
+            } else {
+                MessageProperties properties = new MessageProperties();
+                properties.setHeader(BATCH_SIZE_HEADER, batch.size());
+                message = rabbitTemplate.getMessageConverter().toMessage(batch, properties);
+            }
+
+            log.debug("Publishing {} audit event(s) to exchange '{}'", batch.size(), auditExchangeName);
+            // Broker failures are retried by the outbox; only conversion errors end up here.
+            publishOutbox.send(auditExchangeName, ROUTING_KEY, message);
+        } catch (AmqpException e) {
+            log.error("Failed to publish batch of {} audit event(s)", batch.size(), e);
+        }
+    }
+}
@@ -1,9 +1,6 @@
 package uz.tengebank.notificationgatewayservice.service.audit;
 
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.amqp.AmqpException;
-import org.springframework.amqp.rabbit.connection.CorrelationData;
-import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import uz.tengebank.notificationcontracts.dto.NotificationRequest;
@@ -16,31 +13,65 @@ import uz.tengebank.notificationcontracts.payload.NotificationDestinationPayload
 import uz.tengebank.notificationcontracts.payload.NotificationRequestPayload;
 import uz.tengebank.notificationcontracts.payload.Payload;
 import uz.tengebank.notificationgatewayservice.config.props.ApplicationProperties;
+import uz.tengebank.notificationgatewayservice.dto.audit.AttemptFailureSummaryPayload;
+import uz.tengebank.notificationgatewayservice.service.metrics.DispatchMetrics;
 
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
-
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Publishes request lifecycle events through the {@link AuditBatcher}. With {@code summarize-attempt-failures}
+ * the per-attempt failures of a request are aggregated and published as one summary event when the request
+ * completes. The summary event type is not part of notification-contracts yet, so the option stays off until the
+ * audit consumers understand {@value #ATTEMPT_FAILURE_SUMMARY_V1}.
+ * <p>
+ * Events of a request registered with {@link #chunkOf} carry the parent's request id, so a campaign or split
+ * request is audited under the id its client knows; the chunk's own id stays in the embedded request.
+ */
 @Slf4j
 @Service
 public class EventPublisher {
 
-    private final String auditExchangeName;
+    public static final String ATTEMPT_FAILURE_SUMMARY_V1 = "notification.request.attempt-failure-summary.v1";
+
     private final String applicationName;
-    private final RabbitTemplate rabbitTemplate;
+    private final AuditBatcher auditBatcher;
+    private final boolean summarizeAttemptFailures;
+    private final int summaryMaxDestinationIds;
+    private final DispatchMetrics dispatchMetrics;
+
+    private final Map<UUID, AttemptFailures> attemptFailures = new ConcurrentHashMap<>();
+    private final Map<UUID, UUID> parentRequestIds = new ConcurrentHashMap<>();
 
     public EventPublisher(
             ApplicationProperties props,
             @Value("${spring.application.name}")
             String applicationName,
-            RabbitTemplate rabbitTemplate
+            AuditBatcher auditBatcher,
+            DispatchMetrics dispatchMetrics
     ) {
-        this.auditExchangeName = props.rabbitmq().exchanges().audit();
         this.applicationName = applicationName;
-        this.rabbitTemplate = rabbitTemplate;
+        this.auditBatcher = auditBatcher;
+        this.summarizeAttemptFailures = props.audit().summarizeAttemptFailures();
+        this.summaryMaxDestinationIds = props.audit().summaryMaxDestinationIds();
+        this.dispatchMetrics = dispatchMetrics;
+    }
+
+    /**
+     * Audits the events of {@code request}, one chunk of the request {@code parentRequestId}, under the parent's
+     * id until {@link #publishAttemptFailureSummary} is called for it.
+     */
+    public void chunkOf(NotificationRequest request, UUID parentRequestId) {
+        parentRequestIds.put(request.requestId(), parentRequestId);
     }
 
     public void publishRequestAcceptedEvent(NotificationRequest request) {
         var eventPayload = new NotificationRequestPayload(
-                request.requestId(),
+                auditRequestId(request),
                 NotificationRequestStatus.ACCEPTED,
                 "Request accepted by Gateway",
                 null,
@@ -52,7 +83,7 @@ public class EventPublisher {
 
     public void publishRequestFailedEvent(NotificationRequest request, String reason, String details) {
         var eventPayload = new NotificationRequestPayload(
-                request.requestId(),
+                auditRequestId(request),
                 NotificationRequestStatus.FAILED,
                 reason,
                 details,
@@ -63,8 +94,13 @@ public class EventPublisher {
     }
 
     public void publishNotificationAttemptFailedEvent(NotificationRequest request, UUID destinationId, String errorCode, String errorMessage) {
+        dispatchMetrics.attemptFailed(errorCode);
+        if (summarizeAttemptFailures) {
+            attemptFailures.computeIfAbsent(request.requestId(), id -> new AttemptFailures()).record(destinationId, errorCode, errorMessage);
+            return;
+        }
         var eventPayload = new NotificationDestinationPayload(
-                request.requestId(),
+                auditRequestId(request),
                 destinationId,
                 IndividualNotificationStatus.INTERNAL_FAILURE,
                 errorMessage,
@@ -73,19 +109,59 @@ public class EventPublisher {
         publish(EventType.INDIVIDUAL_NOTIFICATION_INTERNAL_FAILURE_V1, eventPayload);
     }
 
+    /**
+     * Publishes the aggregated attempt failures of a finished request, if any were recorded. Called once per
+     * request, after its last event.
+     */
+    public void publishAttemptFailureSummary(NotificationRequest request) {
+        UUID parentRequestId = parentRequestIds.remove(request.requestId());
+        AttemptFailures failures = attemptFailures.remove(request.requestId());
+        if (failures == null) {
+            return;
+        }
+        var eventPayload = new AttemptFailureSummaryPayload(
+                parentRequestId != null ? parentRequestId : request.requestId(),
+                parentRequestId != null ? request.requestId() : null,
+                request.destinations().size(),
+                failures.destinationIds.size(),
+                failures.byErrorCode.entrySet().stream()
+                        .collect(Collectors.toMap(Map.Entry::getKey, e -> e.getValue().summary())),
+                failures.destinationIds.stream().limit(summaryMaxDestinationIds).toList()
+        );
+        publish(ATTEMPT_FAILURE_SUMMARY_V1, eventPayload);
+    }
+
+    private UUID auditRequestId(NotificationRequest request) {
+        return parentRequestIds.getOrDefault(request.requestId(), request.requestId());
+    }
+
     private void publish(String eventType, Payload payload) {
-        try {
-            final String routingKey = "notification.event";
-            final EventEnvelope envelope = EventFactory.create(payload, eventType, applicationName);
+        log.debug("Buffering event '{}' for request audit", eventType);
+        final EventEnvelope envelope = EventFactory.create(payload, eventType, applicationName);
+        auditBatcher.add(envelope);
+    }
 
-            CorrelationData correlationData = new CorrelationData(UUID.randomUUID().toString());
+    private static final class AttemptFailures {
+        private final Set<UUID> destinationIds = ConcurrentHashMap.newKeySet();
+        private final Map<String, ErrorCodeFailures> byErrorCode = new ConcurrentHashMap<>();
 
-            log.info("Publishing event '{}' to exchange '{}' with CorrelationData '{}'", eventType, auditExchangeName, correlationData);
+        private void record(UUID destinationId, String errorCode, String errorMessage) {
+            destinationIds.add(destinationId);
+            // The first message of each code is kept as the sample, so the summary still says what went wrong.
+            byErrorCode.computeIfAbsent(errorCode, code -> new ErrorCodeFailures(errorMessage)).count.increment();
+        }
+    }
 
-            rabbitTemplate.convertAndSend(auditExchangeName, routingKey, envelope, correlationData);
+    private static final class ErrorCodeFailures {
+        private final LongAdder count = new LongAdder();
+        private final String sampleMessage;
+
+        private ErrorCodeFailures(String sampleMessage) {
+            this.sampleMessage = sampleMessage;
+        }
 
-        } catch (AmqpException e) {
-            log.error("Failed to publish event '{}'. Payload: {}", eventType, payload, e);
+        private AttemptFailureSummaryPayload.ErrorCodeFailures summary() {
+            return new AttemptFailureSummaryPayload.ErrorCodeFailures(count.sum(), sampleMessage);
         }
     }
 
@@ -0,0 +1,313 @@
+package uz.tengebank.notificationgatewayservice.service.bulk;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.RuntimeJsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import uz.tengebank.notificationcontracts.dto.NotificationRequest;
+import uz.tengebank.notificationgatewayservice.config.props.ApplicationProperties;
+import uz.tengebank.notificationgatewayservice.constants.CommonErrorCode;
+import uz.tengebank.notificationgatewayservice.dto.bulk.BulkIngestionResult;
+import uz.tengebank.notificationgatewayservice.dto.notification.DeliveryOptions;
+import uz.tengebank.notificationgatewayservice.dto.notification.Lane;
+import uz.tengebank.notificationgatewayservice.dto.notification.NotificationAcceptance;
+import uz.tengebank.notificationgatewayservice.exception.ApiException;
+import uz.tengebank.notificationgatewayservice.service.NotificationService;
+import uz.tengebank.notificationgatewayservice.service.admission.AdmissionControl;
+import uz.tengebank.notificationgatewayservice.service.idempotency.IdempotencyStore;
+import uz.tengebank.notificationgatewayservice.service.intake.IntakeJournal;
+import uz.tengebank.notificationgatewayservice.service.progress.ProgressRegistry;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Streams the destinations of a campaign from NDJSON or CSV, optionally gzip-compressed, and submits every
+ * {@code bulk.chunk-size} destinations as a notification request of its own in the bulk lane. Only one chunk is held in
+ * memory at a time; once the pipeline is full, submitting blocks and with it reading the upload. Chunks are
+ * audited under the campaign id, and their progress adds up under it.
+ * <p>
+ * NDJSON lines are destination objects. CSV files need a header row; the {@code id}, {@code phone} and
+ * {@code lang} columns map to the destination, {@code timezone} must be a zone id and is kept only as the
+ * destination's delivery time zone, and every other non-blank cell becomes a template variable. Destinations
+ * without an id get one derived from the campaign id and their position.
+ * <p>
+ * A malformed or invalid destination stops the upload. If chunks were accepted before it, they stay accepted and
+ * the result is {@link BulkIngestionResult.Status#PARTIALLY_ACCEPTED}; otherwise the upload is rejected.
+ */
+@Slf4j
+@Service
+public class BulkIngestionService {
+
+  public enum Format {
+    NDJSON, CSV
+  }
+
+  private static final Set<String> CSV_DESTINATION_COLUMNS = Set.of("id", "phone", "lang");
+  // Read by DeliveryScheduler from the destination's variables, where the request contract carries it.
+  private static final String CSV_TIMEZONE_COLUMN = "timezone";
+
+  private final ObjectMapper objectMapper;
+  private final CsvMapper csvMapper = new CsvMapper();
+  private final Validator validator;
+  private final NotificationService notificationService;
+  private final IntakeJournal intakeJournal;
+  private final AdmissionControl admissionControl;
+  private final IdempotencyStore idempotencyStore;
+  private final ProgressRegistry progressRegistry;
+  private final int chunkSize;
+
+  public BulkIngestionService(
+      ObjectMapper objectMapper,
+      Validator validator,
+      NotificationService notificationService,
+      IntakeJournal intakeJournal,
+      AdmissionControl admissionControl,
+      IdempotencyStore idempotencyStore,
+      ProgressRegistry progressRegistry,
+      ApplicationProperties props
+  ) {
+    this.objectMapper = objectMapper;
+    this.validator = validator;
+    this.notificationService = notificationService;
+    this.intakeJournal = intakeJournal;
+    this.admissionControl = admissionControl;
+    this.idempotencyStore = idempotencyStore;
+    this.progressRegistry = progressRegistry;
+    this.chunkSize = props.bulk().chunkSize();
+  }
+
+  public static UUID chunkRequestId(UUID campaignId, int chunkIndex) {
+    return UUID.nameUUIDFromBytes((campaignId + "#" + chunkIndex).getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * @param header     the campaign as a notification request without destinations; its {@code requestId} is the
+   *                   campaign id
+   * @param format     format of {@code destinations}
+   * @param destinations the destination stream, gzip is detected by its magic bytes
+   * @param sendAt     earliest delivery time, {@code null} to deliver right away
+   */
+  public BulkIngestionResult ingest(ObjectNode header, Format format, InputStream destinations, Instant sendAt) throws IOException {
+    var campaignId = campaignId(header);
+    header.remove("destinations");
+
+    // The campaign shows as processing until the whole upload is read, not just until its first chunks finish.
+    progressRegistry.opened(campaignId);
+    boolean failed = true;
+    try {
+      var result = ingestChunks(header, campaignId, format, destinations, sendAt);
+      failed = result.status() != BulkIngestionResult.Status.ACCEPTED;
+      return result;
+    } finally {
+      progressRegistry.completed(campaignId, failed);
+    }
+  }
+
+  private BulkIngestionResult ingestChunks(ObjectNode header, UUID campaignId, Format format, InputStream destinations,
+                                           Instant sendAt) throws IOException {
+    int chunkIndex = 0;
+    long total = 0;
+    long accepted = 0;
+    try (var input = decompressIfGzipped(destinations);
+         var rows = openRows(format, input)) {
+      var chunk = objectMapper.createArrayNode();
+
+      while (rows.hasNext()) {
+        var destination = rows.next();
+        if (!destination.hasNonNull("id")) {
+          destination.put("id", UUID.nameUUIDFromBytes((campaignId + "@" + total).getBytes(StandardCharsets.UTF_8)).toString());
+        }
+        chunk.add(destination);
+        total++;
+
+        if (chunk.size() == chunkSize) {
+          submitChunk(header, campaignId, chunkIndex, chunk, sendAt);
+          chunkIndex++;
+          accepted = total;
+          chunk = objectMapper.createArrayNode();
+        }
+      }
+      if (!chunk.isEmpty()) {
+        submitChunk(header, campaignId, chunkIndex, chunk, sendAt);
+        chunkIndex++;
+        accepted = total;
+      }
+
+    } catch (RuntimeJsonMappingException | JsonProcessingException | InvalidDestinationException e) {
+      String error = e instanceof InvalidDestinationException
+          ? e.getMessage()
+          : "Malformed destination after " + total + " destination(s): " + e.getMessage();
+      return rejected(campaignId, chunkIndex, accepted, error);
+    }
+
+    log.info("Bulk: campaign {} accepted, {} destination(s) in {} chunk(s)", campaignId, total, chunkIndex);
+    return new BulkIngestionResult(campaignId, BulkIngestionResult.Status.ACCEPTED, chunkIndex, total, null);
+  }
+
+  private BulkIngestionResult rejected(UUID campaignId, int acceptedChunks, long acceptedDestinations, String error) {
+    if (acceptedChunks == 0) {
+      throw new ApiException(CommonErrorCode.INVALID_BULK_REQUEST, "Campaign " + campaignId + ": " + error);
+    }
+    log.warn("Bulk: campaign {} stopped after {} accepted chunk(s): {}", campaignId, acceptedChunks, error);
+    return new BulkIngestionResult(campaignId, BulkIngestionResult.Status.PARTIALLY_ACCEPTED, acceptedChunks,
+        acceptedDestinations, error);
+  }
+
+  private void submitChunk(ObjectNode header, UUID campaignId, int chunkIndex, ArrayNode destinations, Instant sendAt) throws JsonProcessingException {
+    var node = header.deepCopy();
+    node.put("requestId", chunkRequestId(campaignId, chunkIndex).toString());
+    node.set("destinations", destinations);
+
+    var request = objectMapper.treeToValue(node, NotificationRequest.class);
+    var violations = validator.validate(request);
+    if (!violations.isEmpty()) {
+      throw new InvalidDestinationException("Chunk " + chunkIndex + " is invalid: "
+          + violations.stream().map(v -> v.getPropertyPath() + " " + v.getMessage()).collect(Collectors.joining(", ")));
+    }
+
+    // Chunk ids are derived from the campaign id, so re-uploading a campaign skips the chunks already accepted.
+    var acceptance = new NotificationAcceptance(request.requestId(), Instant.now());
+    if (idempotencyStore.claim(acceptance).isPresent()) {
+      return;
+    }
+
+    // Chunks already taken from the upload are acknowledged, so they bypass admission limits like replayed
+    // requests; the bounded pipeline queues throttle the upload instead.
+    var delivery = new DeliveryOptions(Lane.BULK, sendAt, campaignId);
+    var admission = admissionControl.admit(request);
+    boolean journaled = false;
+    try {
+      intakeJournal.append(request, delivery);
+      journaled = true;
+      idempotencyStore.confirm(acceptance);
+      notificationService.processNotification(request, admission, delivery);
+    } catch (RuntimeException e) {
+      if (journaled) {
+        intakeJournal.markCompleted(request.requestId());
+      }
+      admission.close();
+      idempotencyStore.release(request.requestId());
+      throw e;
+    }
+    log.debug("Bulk: campaign {} chunk {} submitted as request {} ({} destination(s))",
+        campaignId, chunkIndex, request.requestId(), destinations.size());
+  }
+
+  private RowIterator openRows(Format format, InputStream input) throws IOException {
+    return switch (format) {
+      case NDJSON -> {
+        MappingIterator<ObjectNode> lines = objectMapper.readerFor(ObjectNode.class).readValues(input);
+        yield new RowIterator(lines, lines);
+      }
+      case CSV -> {
+        MappingIterator<Map<String, String>> csvRows = csvMapper.readerForMapOf(String.class)
+            .with(CsvSchema.emptySchema().withHeader())
+            .readValues(input);
+        yield new RowIterator(new Iterator<>() {
+          @Override
+          public boolean hasNext() {
+            return csvRows.hasNext();
+          }
+
+          @Override
+          public ObjectNode next() {
+            return toDestination(csvRows.next());
+          }
+        }, csvRows);
+      }
+    };
+  }
+
+  private ObjectNode toDestination(Map<String, String> row) {
+    var destination = objectMapper.createObjectNode();
+    var variables = destination.putObject("variables");
+    row.forEach((column, value) -> {
+      if (value == null || value.isBlank()) {
+        return;
+      }
+      if (CSV_DESTINATION_COLUMNS.contains(column)) {
+        destination.put(column, value);
+      } else if (CSV_TIMEZONE_COLUMN.equals(column)) {
+        variables.put(column, zoneId(value));
+      } else {
+        variables.put(column, value);
+      }
+    });
+    return destination;
+  }
+
+  private static String zoneId(String value) {
+    try {
+      return ZoneId.of(value.strip()).getId();
+    } catch (DateTimeException e) {
+      throw new InvalidDestinationException("Unknown time zone '" + value + "'");
+    }
+  }
+
+  private static InputStream decompressIfGzipped(InputStream input) throws IOException {
+    var buffered = new BufferedInputStream(input);
+    buffered.mark(2);
+    int first = buffered.read();
+    int second = buffered.read();
+    buffered.reset();
+    boolean gzipped = first == (GZIPInputStream.GZIP_MAGIC & 0xff) && second == (GZIPInputStream.GZIP_MAGIC >>> 8);
+    return gzipped ? new GZIPInputStream(buffered, 64 * 1024) : buffered;
+  }
+
+  private static UUID campaignId(JsonNode header) {
+    var value = header.path("requestId").asText();
+    try {
+      return UUID.fromString(value);
+    } catch (IllegalArgumentException e) {
+      throw new ApiException(CommonErrorCode.INVALID_BULK_REQUEST, "Campaign header needs a UUID 'requestId'.");
+    }
+  }
+
+  /**
+   * A destination that parsed but cannot be submitted; stops the upload like a malformed row.
+   */
+  private static final class InvalidDestinationException extends RuntimeException {
+    private InvalidDestinationException(String message) {
+      super(message);
+    }
+  }
+
+  private record RowIterator(Iterator<ObjectNode> rows, Closeable source) implements Iterator<ObjectNode>, Closeable {
+
+    @Override
+    public boolean hasNext() {
+      return rows.hasNext();
+    }
+
+    @Override
+    public ObjectNode next() {
+      return rows.next();
+    }
+
+    @Override
+    public void close() throws IOException {
+      source.close();
+    }
+  }
+}
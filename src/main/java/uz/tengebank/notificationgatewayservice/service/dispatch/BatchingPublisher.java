@@ -0,0 +1,267 @@
+package uz.tengebank.notificationgatewayservice.service.dispatch;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+import io.micrometer.tracing.propagation.Propagator;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import uz.tengebank.notificationgatewayservice.config.props.ApplicationProperties;
+import uz.tengebank.notificationgatewayservice.dto.outbox.DeliveryOutcome;
+import uz.tengebank.notificationgatewayservice.service.outbox.PublishOutbox;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Groups outgoing messages per routing key and publishes each group in one {@code RabbitTemplate#invoke}
+ * call, so a whole batch is pipelined down a single channel without waiting for confirms in between.
+ * <p>
+ * Messages are grouped per routing key and AMQP priority; batches waiting for a publisher thread are taken
+ * highest priority first, so transactional traffic does not queue behind pending bulk batches.
+ * <p>
+ * Messages with a delay go to the delayed exchange with an {@code x-delay} header instead of the internal exchange.
+ * <p>
+ * A group is flushed when it reaches {@code batch-size} or when {@code linger} elapses. Every message is
+ * registered with the {@link PublishOutbox} before it is sent; confirms arrive asynchronously (the publisher
+ * callback channel maps them by delivery tag) and only nacked or returned messages are retried by the outbox.
+ * Each publish returns a future of the message's {@link DeliveryOutcome}, completed by the outbox.
+ * <p>
+ * The trace context of the publishing thread is written into the message headers when the message is queued,
+ * since the publisher threads that send it carry no context of their own.
+ */
+@Slf4j
+@Component
+public class BatchingPublisher {
+
+    private final RabbitTemplate rabbitTemplate;
+    private final PublishOutbox publishOutbox;
+    private final WireFormatEncoder wireFormatEncoder;
+    private final String exchangeName;
+    private final String delayedExchangeName;
+    private final ApplicationProperties.Publisher props;
+    private final Tracer tracer;
+    private final Propagator propagator;
+
+    private final Map<BufferKey, Buffer> buffers = new ConcurrentHashMap<>();
+    private final PriorityBlockingQueue<Batch> batches = new PriorityBlockingQueue<>(16,
+        Comparator.comparingInt(Batch::priority).reversed().thenComparingLong(Batch::sequence));
+    private final Semaphore batchSlots;
+    private final AtomicLong batchSequence = new AtomicLong();
+    private final ScheduledExecutorService lingerScheduler;
+    private final List<Thread> publisherThreads = new ArrayList<>();
+    private volatile boolean running = true;
+
+    public BatchingPublisher(
+            RabbitTemplate rabbitTemplate,
+            PublishOutbox publishOutbox,
+            WireFormatEncoder wireFormatEncoder,
+            ApplicationProperties props,
+            ObjectProvider<Tracer> tracer,
+            ObjectProvider<Propagator> propagator,
+            MeterRegistry meterRegistry
+    ) {
+        this.rabbitTemplate = rabbitTemplate;
+        this.publishOutbox = publishOutbox;
+        this.wireFormatEncoder = wireFormatEncoder;
+        this.exchangeName = props.rabbitmq().exchanges().internal();
+        this.delayedExchangeName = props.rabbitmq().exchanges().delayed();
+        this.props = props.rabbitmq().publisher();
+        this.batchSlots = new Semaphore(this.props.maxPendingBatches());
+        this.tracer = tracer.getIfAvailable(() -> Tracer.NOOP);
+        this.propagator = propagator.getIfAvailable(() -> Propagator.NOOP);
+
+        Gauge.builder("gateway.publisher.pending_batches", batches, PriorityBlockingQueue::size)
+            .description("Batches waiting for a publisher thread")
+            .register(meterRegistry);
+        Gauge.builder("gateway.publisher.buffers", buffers, Map::size)
+            .description("Open per routing key and priority buffers")
+            .register(meterRegistry);
+
+        this.lingerScheduler = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("publisher-linger").daemon().factory());
+        long lingerMillis = Math.max(1, this.props.linger().toMillis());
+        lingerScheduler.scheduleAtFixedRate(this::flushLingering, lingerMillis, lingerMillis, TimeUnit.MILLISECONDS);
+
+        for (int i = 0; i < this.props.threads(); i++) {
+            publisherThreads.add(Thread.ofPlatform().name("publisher-", i).daemon().start(this::runPublishLoop));
+        }
+    }
+
+    /**
+     * Queues a message for publishing with the given AMQP priority and headers, held back by the broker for
+     * {@code delayMillis} if positive. Blocks when too many batches are waiting for a channel.
+     *
+     * @param failFast report a nack, return or failed send in the returned future instead of retrying the message
+     */
+    public CompletableFuture<DeliveryOutcome> publish(String routingKey, Object payload, int priority, long delayMillis,
+                                                      Map<String, Object> headers, boolean failFast) {
+        MessageProperties properties = new MessageProperties();
+        properties.setPriority(priority);
+        headers.forEach(properties::setHeader);
+        String exchange = exchangeName;
+        if (delayMillis > 0) {
+            properties.setDelayLong(delayMillis);
+            exchange = delayedExchangeName;
+        }
+        Span span = tracer.currentSpan();
+        if (span != null) {
+            propagator.inject(span.context(), properties, MessageProperties::setHeader);
+        }
+        Message message = wireFormatEncoder.toMessage(routingKey, payload, properties);
+        var outcome = new CompletableFuture<DeliveryOutcome>();
+        enqueue(new PendingMessage(exchange, routingKey, message, outcome, failFast), new BufferKey(exchange, routingKey, priority));
+        return outcome;
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        lingerScheduler.shutdown();
+        buffers.values().forEach(this::flush);
+        running = false;
+        for (Thread thread : publisherThreads) {
+            thread.join(TimeUnit.SECONDS.toMillis(10));
+        }
+    }
+
+    private void enqueue(PendingMessage message, BufferKey key) {
+        Buffer buffer = buffers.computeIfAbsent(key, k -> new Buffer(k.priority()));
+        List<PendingMessage> full = null;
+
+        buffer.lock.lock();
+        try {
+            buffer.messages.add(message);
+            if (buffer.messages.size() >= props.batchSize()) {
+                full = buffer.drain();
+            }
+        } finally {
+            buffer.lock.unlock();
+        }
+
+        if (full != null) {
+            submit(full, key.priority());
+        }
+    }
+
+    private void flushLingering() {
+        try {
+            buffers.values().forEach(this::flush);
+        } catch (RuntimeException e) {
+            log.error("Publisher: linger flush failed", e);
+        }
+    }
+
+    private void flush(Buffer buffer) {
+        List<PendingMessage> batch;
+        buffer.lock.lock();
+        try {
+            if (buffer.messages.isEmpty()) {
+                return;
+            }
+            batch = buffer.drain();
+        } finally {
+            buffer.lock.unlock();
+        }
+        submit(batch, buffer.priority);
+    }
+
+    private void submit(List<PendingMessage> batch, int priority) {
+        try {
+            batchSlots.acquire();
+            batches.put(new Batch(batch, priority, batchSequence.getAndIncrement()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AmqpException("Interrupted while waiting for a publisher channel", e);
+        }
+    }
+
+    private void runPublishLoop() {
+        while (running || !batches.isEmpty()) {
+            Batch batch;
+            try {
+                batch = batches.poll(100, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (batch != null) {
+                batchSlots.release();
+                publishBatch(batch.messages());
+            }
+        }
+    }
+
+    private void publishBatch(List<PendingMessage> batch) {
+        List<CorrelationData> correlations = new ArrayList<>(batch.size());
+        for (PendingMessage message : batch) {
+            correlations.add(publishOutbox.track(message.exchange(), message.routingKey(), message.message(),
+                message.outcome(), message.failFast()));
+        }
+
+        int[] sent = new int[1];
+        try {
+            rabbitTemplate.invoke(operations -> {
+                for (; sent[0] < batch.size(); sent[0]++) {
+                    PendingMessage message = batch.get(sent[0]);
+                    operations.send(message.exchange(), message.routingKey(), message.message(), correlations.get(sent[0]));
+                }
+                return null;
+            });
+            log.debug("Publisher: sent batch of {} message(s) to '{}'", batch.size(), batch.getFirst().routingKey());
+        } catch (AmqpException e) {
+            log.error("Publisher: batch of {} message(s) to '{}' failed after {} sent: {}",
+                batch.size(), batch.getFirst().routingKey(), sent[0], e.getMessage());
+            // Messages that reached the channel are nacked when it closes; the rest never left this process.
+            for (int i = sent[0]; i < batch.size(); i++) {
+                publishOutbox.failed(correlations.get(i).getId(), e.getMessage());
+            }
+        }
+    }
+
+    private record PendingMessage(
+        String exchange,
+        String routingKey,
+        Message message,
+        CompletableFuture<DeliveryOutcome> outcome,
+        boolean failFast
+    ) {}
+
+    private record BufferKey(String exchange, String routingKey, int priority) {}
+
+    private record Batch(List<PendingMessage> messages, int priority, long sequence) {}
+
+    private final class Buffer {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final int priority;
+        private List<PendingMessage> messages = new ArrayList<>(props.batchSize());
+
+        private Buffer(int priority) {
+            this.priority = priority;
+        }
+
+        private List<PendingMessage> drain() {
+            List<PendingMessage> drained = messages;
+            messages = new ArrayList<>(props.batchSize());
+            return drained;
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package uz.tengebank.notificationgatewayservice.service.dispatch;
+
+/**
+ * AMQP headers set on every dispatched message, so downstream consumers and spilled messages can be attributed without
+ * decoding the body.
+ */
+public final class DispatchHeaders {
+
+    public static final String REQUEST_ID = "x-request-id";
+    public static final String CHANNEL = "x-channel";
+    /**
+     * Recipients addressed by the message: 1 for SMS, the number of device tokens for a push multicast.
+     */
+    public static final String MESSAGE_COUNT = "x-message-count";
+
+    private DispatchHeaders() {
+    }
+}
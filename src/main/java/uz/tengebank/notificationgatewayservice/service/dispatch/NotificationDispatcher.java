@@ -1,9 +1,17 @@
 package uz.tengebank.notificationgatewayservice.service.dispatch;
 
+import uz.tengebank.notificationgatewayservice.dto.notification.Lane;
 import uz.tengebank.notificationgatewayservice.dto.notification.PushPayload;
 import uz.tengebank.notificationgatewayservice.dto.notification.SmsPayload;
+import uz.tengebank.notificationgatewayservice.dto.outbox.DeliveryOutcome;
 
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Hands rendered messages to the broker. The returned future completes with the message's {@link DeliveryOutcome};
+ * with {@code failFast} a broker nack or return completes it instead of being retried.
+ */
 public interface NotificationDispatcher {
-    void dispatchSms(SmsPayload message);
-    void dispatchPush(PushPayload message);
+    CompletableFuture<DeliveryOutcome> dispatchSms(SmsPayload message, Lane lane, long delayMillis, boolean failFast);
+    CompletableFuture<DeliveryOutcome> dispatchPush(PushPayload message, Lane lane, long delayMillis, boolean failFast);
 }
@@ -0,0 +1,101 @@
+package uz.tengebank.notificationgatewayservice.service.dispatch;
+
+import uz.tengebank.notificationgatewayservice.config.props.ApplicationProperties;
+import uz.tengebank.notificationgatewayservice.dto.notification.Lane;
+import uz.tengebank.notificationgatewayservice.dto.notification.PushPayload;
+import uz.tengebank.notificationgatewayservice.dto.notification.PushProvider;
+import uz.tengebank.notificationgatewayservice.dto.notification.PushToken;
+import uz.tengebank.notificationgatewayservice.dto.outbox.DeliveryOutcome;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Collects the push sends of one chunk and groups targets that share provider, content, config and delay into
+ * a single multicast {@link PushPayload}. A group is dispatched once it reaches the provider's multicast
+ * limit; the rest goes out on {@link #flush()}. Not thread-safe, one instance per chunk.
+ * <p>
+ * Unless {@code app.push.multicast} is on, every target is dispatched on its own as soon as it is added, so the
+ * dispatcher can send it in the original one-token shape.
+ * <p>
+ * {@link #add} returns the future outcome of the multicast message the target ends up in; it completes only after
+ * that message has been dispatched, so callers chaining on it must make sure {@link #flush()} is called.
+ */
+public class PushMulticastBatcher {
+
+    private final UUID requestId;
+    private final Lane lane;
+    private final ApplicationProperties.Push props;
+    private final NotificationDispatcher notificationDispatcher;
+    private final Map<GroupKey, Group> groups = new LinkedHashMap<>();
+
+    public PushMulticastBatcher(UUID requestId, Lane lane, ApplicationProperties.Push props, NotificationDispatcher notificationDispatcher) {
+        this.requestId = requestId;
+        this.lane = lane;
+        this.props = props;
+        this.notificationDispatcher = notificationDispatcher;
+    }
+
+    public CompletableFuture<DeliveryOutcome> add(
+            UUID destinationId,
+            PushToken token,
+            PushPayload.PushContent content,
+            Map<String, Object> config,
+            long delayMillis,
+            boolean failFast
+    ) {
+        var key = new GroupKey(token.provider(), content, config, delayMillis, failFast);
+        var group = groups.computeIfAbsent(key, k -> new Group());
+        group.targets.add(new PushPayload.Target(destinationId, token.token(), token.appId()));
+
+        if (group.targets.size() >= limit(token.provider())) {
+            groups.remove(key);
+            dispatch(key, group);
+        }
+        return group.outcome;
+    }
+
+    public void flush() {
+        groups.forEach(this::dispatch);
+        groups.clear();
+    }
+
+    private void dispatch(GroupKey key, Group group) {
+        var message = new PushPayload(requestId, key.provider(), group.targets, key.content(), key.config());
+        CompletableFuture<DeliveryOutcome> dispatched;
+        try {
+            dispatched = notificationDispatcher.dispatchPush(message, lane, key.delayMillis(), key.failFast());
+        } catch (RuntimeException e) {
+            group.outcome.completeExceptionally(e);
+            throw e;
+        }
+        dispatched.whenComplete((outcome, e) -> {
+            if (e != null) {
+                group.outcome.completeExceptionally(e);
+            } else {
+                group.outcome.complete(outcome);
+            }
+        });
+    }
+
+    private int limit(PushProvider provider) {
+        if (!props.multicast()) {
+            return 1;
+        }
+        return switch (provider) {
+            case FCM -> props.fcmMulticastLimit();
+            case HCM -> props.hcmMulticastLimit();
+        };
+    }
+
+    private record GroupKey(PushProvider provider, PushPayload.PushContent content, Map<String, Object> config, long delayMillis, boolean failFast) {}
+
+    private static final class Group {
+        private final List<PushPayload.Target> targets = new ArrayList<>();
+        private final CompletableFuture<DeliveryOutcome> outcome = new CompletableFuture<>();
+    }
+}
@@ -2,50 +2,72 @@ package uz.tengebank.notificationgatewayservice.service.dispatch;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.amqp.rabbit.connection.CorrelationData;
-import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.stereotype.Component;
+import uz.tengebank.notificationcontracts.dto.NotificationRequest;
 import uz.tengebank.notificationgatewayservice.config.props.ApplicationProperties;
+import uz.tengebank.notificationgatewayservice.dto.notification.Lane;
 import uz.tengebank.notificationgatewayservice.dto.notification.PushPayload;
 import uz.tengebank.notificationgatewayservice.dto.notification.SmsPayload;
+import uz.tengebank.notificationgatewayservice.dto.notification.UnicastPushPayload;
+import uz.tengebank.notificationgatewayservice.dto.outbox.DeliveryOutcome;
+import uz.tengebank.notificationgatewayservice.service.priority.LaneResolver;
 
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class RabbitMQNotificationDispatcher implements NotificationDispatcher {
 
-    private final RabbitTemplate rabbitTemplate;
-    private final ApplicationProperties props;
+    private static final String SMS_ROUTING_KEY = "notification.sms";
+    private static final String FCM_ROUTING_KEY = "notification.fcm";
+    private static final String HCM_ROUTING_KEY = "notification.hcm";
 
+    private final BatchingPublisher batchingPublisher;
+    private final LaneResolver laneResolver;
+    private final ApplicationProperties props;
 
     @Override
-    public void dispatchSms(SmsPayload message) {
-        final String exchangeName = props.rabbitmq().exchanges().internal();
-        final String routingKey = "notification.sms";
-
-        log.info("Dispatching SMS to exchange '{}' with routing key '{}' for target {}",
-            exchangeName, routingKey, message.phone());
-
-        CorrelationData correlationData = new CorrelationData(UUID.randomUUID().toString());
-
-        rabbitTemplate.convertAndSend(exchangeName, routingKey, message, correlationData);
-        log.info("SMS message sent with correlation ID: {}", correlationData.getId());
+    public CompletableFuture<DeliveryOutcome> dispatchSms(SmsPayload message, Lane lane, long delayMillis, boolean failFast) {
+        log.debug("Queueing {} SMS with routing key '{}' for destination {} (delay {} ms)",
+                lane, SMS_ROUTING_KEY, message.destinationId(), delayMillis);
+        return batchingPublisher.publish(SMS_ROUTING_KEY, message, laneResolver.messagePriority(lane), delayMillis,
+                headers(message.requestId(), NotificationRequest.Channel.SMS, 1), failFast);
     }
 
     @Override
-    public void dispatchPush(PushPayload message) {
-        final String exchangeName = props.rabbitmq().exchanges().internal();
-        final String routingKey = "notification.fcm";
-
-        log.info("Dispatching Push to exchange '{}' with routing key '{}' for target {}",
-            exchangeName, routingKey, message.token());
-
-        CorrelationData correlationData = new CorrelationData(UUID.randomUUID().toString());
+    public CompletableFuture<DeliveryOutcome> dispatchPush(PushPayload message, Lane lane, long delayMillis, boolean failFast) {
+        String routingKey = switch (message.provider()) {
+            case FCM -> FCM_ROUTING_KEY;
+            case HCM -> HCM_ROUTING_KEY;
+        };
+        log.debug("Queueing {} Push with routing key '{}' for {} target(s) (delay {} ms)",
+                lane, routingKey, message.targets().size(), delayMillis);
+        Object payload = props.push().multicast() ? message : unicast(message);
+        return batchingPublisher.publish(routingKey, payload, laneResolver.messagePriority(lane), delayMillis,
+                headers(message.requestId(), NotificationRequest.Channel.PUSH, message.targets().size()), failFast);
+    }
 
-        rabbitTemplate.convertAndSend(exchangeName, routingKey, message, correlationData);
-        log.info("Push message sent with correlation ID: {}", correlationData.getId());
+    /**
+     * The original one-token message, for push senders that do not read multicast messages yet.
+     */
+    private static UnicastPushPayload unicast(PushPayload message) {
+        if (message.targets().size() != 1) {
+            throw new IllegalArgumentException(
+                    "Multicast is disabled, but a push message has " + message.targets().size() + " targets");
+        }
+        var target = message.targets().getFirst();
+        return new UnicastPushPayload(message.requestId(), target.destinationId(), target.token(),
+                message.content(), message.config());
+    }
 
+    private static Map<String, Object> headers(UUID requestId, NotificationRequest.Channel channel, int messages) {
+        return Map.of(
+                DispatchHeaders.REQUEST_ID, requestId.toString(),
+                DispatchHeaders.CHANNEL, channel.name(),
+                DispatchHeaders.MESSAGE_COUNT, messages
+        );
     }
 }
@@ -0,0 +1,49 @@
+package uz.tengebank.notificationgatewayservice.service.dispatch;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.ContentTypeDelegatingMessageConverter;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.stereotype.Component;
+import uz.tengebank.notificationgatewayservice.config.amqp.CompressingMessageConverter;
+import uz.tengebank.notificationgatewayservice.config.amqp.SmileMessageConverter;
+import uz.tengebank.notificationgatewayservice.config.amqp.WireFormat;
+import uz.tengebank.notificationgatewayservice.config.props.ApplicationProperties;
+
+import java.util.Map;
+
+/**
+ * Encodes dispatch payloads in the wire format configured for their routing key (JSON unless configured
+ * otherwise), so consumers of one queue can move to a new format without the others. The format is chosen
+ * through the content type. Routing keys that opt in with {@code compress} also get bodies above
+ * {@code compression-threshold} gzipped; every other routing key is sent uncompressed.
+ */
+@Component
+public class WireFormatEncoder {
+
+    private static final ApplicationProperties.WireFormats.Route DEFAULT_ROUTE =
+        new ApplicationProperties.WireFormats.Route(WireFormat.JSON, false);
+
+    private final MessageConverter converter;
+    private final MessageConverter compressingConverter;
+    private final Map<String, ApplicationProperties.WireFormats.Route> routes;
+
+    public WireFormatEncoder(Jackson2JsonMessageConverter jsonConverter, ObjectMapper objectMapper, ApplicationProperties props) {
+        var wireFormat = props.rabbitmq().wireFormat();
+        var delegating = new ContentTypeDelegatingMessageConverter(jsonConverter);
+        delegating.addDelegate(WireFormat.JSON.contentType(), jsonConverter);
+        delegating.addDelegate(WireFormat.SMILE.contentType(), new SmileMessageConverter(objectMapper));
+
+        this.converter = delegating;
+        this.compressingConverter = new CompressingMessageConverter(delegating, (int) wireFormat.compressionThreshold().toBytes());
+        this.routes = wireFormat.routingKeys();
+    }
+
+    public Message toMessage(String routingKey, Object payload, MessageProperties properties) {
+        var route = routes.getOrDefault(routingKey, DEFAULT_ROUTE);
+        properties.setContentType(route.format().contentType());
+        return (route.compress() ? compressingConverter : converter).toMessage(payload, properties);
+    }
+}
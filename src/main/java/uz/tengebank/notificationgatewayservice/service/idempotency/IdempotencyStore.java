@@ -0,0 +1,212 @@
+package uz.tengebank.notificationgatewayservice.service.idempotency;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import uz.tengebank.notificationgatewayservice.config.props.ApplicationProperties;
+import uz.tengebank.notificationgatewayservice.dto.notification.NotificationAcceptance;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Remembers accepted request ids for {@code window} so that a retried request is answered with its original
+ * acceptance instead of being processed again.
+ * <p>
+ * Ids are held in a size-bounded cache that expires each entry {@code window} after its acceptance. With
+ * {@code persistent} enabled, confirmed acceptances are also appended to generation files that are reloaded on
+ * startup. A new generation is started every {@code window} and a generation is deleted once none of its
+ * entries can still be inside the window.
+ */
+@Slf4j
+@Component
+public class IdempotencyStore {
+
+  public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+  private static final String GENERATION_PREFIX = "idempotency-";
+  private static final String GENERATION_SUFFIX = ".log";
+
+  private final ApplicationProperties.Idempotency props;
+  private final Cache<UUID, NotificationAcceptance> acceptances;
+  private final Counter replayed;
+
+  private final ReentrantLock writeLock = new ReentrantLock();
+  private BufferedWriter writer;
+  private Instant generationStartedAt;
+
+  public IdempotencyStore(ApplicationProperties props, MeterRegistry meterRegistry) {
+    this.props = props.idempotency();
+    this.acceptances = Caffeine.newBuilder()
+        .maximumSize(this.props.maxSize())
+        .expireAfter(Expiry.creating((UUID requestId, NotificationAcceptance acceptance) -> remainingWindow(acceptance)))
+        .recordStats()
+        .build();
+
+    CaffeineCacheMetrics.monitor(meterRegistry, acceptances, "idempotency");
+    this.replayed = Counter.builder("gateway.idempotency.replayed")
+        .description("Requests answered with an earlier acceptance of the same request id")
+        .register(meterRegistry);
+  }
+
+  @PostConstruct
+  void open() throws IOException {
+    if (!props.enabled() || !props.persistent()) {
+      return;
+    }
+
+    Path directory = Path.of(props.directory());
+    Files.createDirectories(directory);
+    int loaded = 0;
+    for (Path generation : listGenerations(directory)) {
+      try (Stream<String> lines = Files.lines(generation, StandardCharsets.UTF_8)) {
+        for (String line : (Iterable<String>) lines::iterator) {
+          var acceptance = parse(line);
+          if (acceptance != null && !remainingWindow(acceptance).isNegative()) {
+            acceptances.asMap().putIfAbsent(acceptance.requestId(), acceptance);
+            loaded++;
+          }
+        }
+      }
+    }
+
+    writeLock.lock();
+    try {
+      startGeneration(Instant.now());
+    } finally {
+      writeLock.unlock();
+    }
+    log.info("Idempotency store opened at '{}' with {} request id(s) inside the window.", directory, loaded);
+  }
+
+  /**
+   * Claims the request id. Returns the earlier acceptance if the id was already claimed inside the window,
+   * in which case the request must not be processed again.
+   */
+  public Optional<NotificationAcceptance> claim(NotificationAcceptance acceptance) {
+    if (!props.enabled()) {
+      return Optional.empty();
+    }
+    var original = acceptances.asMap().putIfAbsent(acceptance.requestId(), acceptance);
+    if (original != null) {
+      replayed.increment();
+      log.info("Request {} was already accepted at {}, not processing it again.", original.requestId(), original.acceptedAt());
+    }
+    return Optional.ofNullable(original);
+  }
+
+  /**
+   * Makes a claimed acceptance survive restarts. Called once the request itself is durable.
+   */
+  public void confirm(NotificationAcceptance acceptance) {
+    if (!props.enabled() || !props.persistent()) {
+      return;
+    }
+    writeLock.lock();
+    try {
+      if (writer == null) {
+        return;
+      }
+      if (Duration.between(generationStartedAt, acceptance.acceptedAt()).compareTo(props.window()) >= 0) {
+        writer.close();
+        startGeneration(acceptance.acceptedAt());
+      }
+      writer.write(acceptance.requestId() + "," + acceptance.acceptedAt().toEpochMilli());
+      writer.newLine();
+      writer.flush();
+    } catch (IOException e) {
+      // The in-memory entry still deduplicates until restart.
+      log.error("Idempotency store: failed to persist request {}", acceptance.requestId(), e);
+    } finally {
+      writeLock.unlock();
+    }
+  }
+
+  /**
+   * Forgets a claim whose request was not accepted after all, so a retry is processed.
+   */
+  public void release(UUID requestId) {
+    acceptances.invalidate(requestId);
+  }
+
+  @PreDestroy
+  void close() throws IOException {
+    writeLock.lock();
+    try {
+      if (writer != null) {
+        writer.close();
+        writer = null;
+      }
+    } finally {
+      writeLock.unlock();
+    }
+  }
+
+  private void startGeneration(Instant startedAt) throws IOException {
+    Path directory = Path.of(props.directory());
+    for (Path generation : listGenerations(directory)) {
+      // A generation receives entries for one window and they expire one window later.
+      if (generationStart(generation).plus(props.window().multipliedBy(2)).isBefore(startedAt)) {
+        Files.deleteIfExists(generation);
+      }
+    }
+
+    generationStartedAt = startedAt;
+    writer = Files.newBufferedWriter(
+        directory.resolve(GENERATION_PREFIX + startedAt.toEpochMilli() + GENERATION_SUFFIX),
+        StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+  }
+
+  private Duration remainingWindow(NotificationAcceptance acceptance) {
+    return Duration.between(Instant.now(), acceptance.acceptedAt().plus(props.window()));
+  }
+
+  private static NotificationAcceptance parse(String line) {
+    int separator = line.indexOf(',');
+    try {
+      return new NotificationAcceptance(
+          UUID.fromString(line.substring(0, separator)),
+          Instant.ofEpochMilli(Long.parseLong(line.substring(separator + 1))));
+    } catch (RuntimeException e) {
+      // Torn last line of a generation written during a crash.
+      return null;
+    }
+  }
+
+  private static Instant generationStart(Path generation) {
+    String name = generation.getFileName().toString();
+    return Instant.ofEpochMilli(Long.parseLong(
+        name.substring(GENERATION_PREFIX.length(), name.length() - GENERATION_SUFFIX.length())));
+  }
+
+  private static List<Path> listGenerations(Path directory) throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      return new ArrayList<>(files
+          .filter(path -> {
+            String name = path.getFileName().toString();
+            return name.startsWith(GENERATION_PREFIX) && name.endsWith(GENERATION_SUFFIX);
+          })
+          .sorted()
+          .toList());
+    }
+  }
+}
@@ -0,0 +1,198 @@
+package uz.tengebank.notificationgatewayservice.service.intake;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.rabbitmq.client.Channel;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageDeliveryMode;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.listener.api.ChannelAwareMessageListener;
+import org.springframework.stereotype.Component;
+import uz.tengebank.notificationcontracts.dto.NotificationRequest;
+import uz.tengebank.notificationgatewayservice.config.props.ApplicationProperties;
+import uz.tengebank.notificationgatewayservice.constants.CommonErrorCode;
+import uz.tengebank.notificationgatewayservice.dto.intake.IntakeChunk;
+import uz.tengebank.notificationgatewayservice.dto.notification.DeliveryOptions;
+import uz.tengebank.notificationgatewayservice.dto.outbox.DeliveryOutcome;
+import uz.tengebank.notificationgatewayservice.exception.ApiException;
+import uz.tengebank.notificationgatewayservice.service.NotificationService;
+import uz.tengebank.notificationgatewayservice.service.admission.AdmissionControl;
+import uz.tengebank.notificationgatewayservice.service.outbox.PublishOutbox;
+import uz.tengebank.notificationgatewayservice.service.priority.LaneResolver;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Intake through a RabbitMQ work queue, so the work of a large request spreads over every gateway replica
+ * instead of staying on the pod that received the HTTP call.
+ * <p>
+ * {@link #submit} splits a journaled request into {@link IntakeChunk} messages published through the outbox, and
+ * marks the request completed in the {@link IntakeJournal} once the broker has confirmed every chunk or the
+ * outbox has spilled it to disk; until then a restart replays the request. Each chunk is a request of its own
+ * with an id derived from the original one (see {@link #chunkRequestId}), processed on the replica that consumes
+ * it and audited under the original request id. Every replica consumes chunks with a bounded prefetch. A chunk is
+ * acknowledged only after it has been dispatched and audited, so chunks of a replica that dies are redelivered to
+ * another one, and the prefetch bounds how many chunks a consumer holds at once. A chunk that was in flight when its channel
+ * closed, or published again by a replay, may be dispatched twice.
+ */
+@Slf4j
+@Component
+public class AmqpIntake implements ChannelAwareMessageListener {
+
+  private final NotificationService notificationService;
+  private final AdmissionControl admissionControl;
+  private final PublishOutbox publishOutbox;
+  private final IntakeJournal intakeJournal;
+  private final LaneResolver laneResolver;
+  private final ObjectMapper objectMapper;
+  private final ApplicationProperties.Intake.Amqp props;
+  private final String exchange;
+
+  public AmqpIntake(
+      NotificationService notificationService,
+      AdmissionControl admissionControl,
+      PublishOutbox publishOutbox,
+      IntakeJournal intakeJournal,
+      LaneResolver laneResolver,
+      ObjectMapper objectMapper,
+      ApplicationProperties props
+  ) {
+    this.notificationService = notificationService;
+    this.admissionControl = admissionControl;
+    this.publishOutbox = publishOutbox;
+    this.intakeJournal = intakeJournal;
+    this.laneResolver = laneResolver;
+    this.objectMapper = objectMapper;
+    this.props = props.intake().amqp();
+    this.exchange = props.rabbitmq().exchanges().internal();
+  }
+
+  /**
+   * Whether the request should be split onto the intake queue instead of being processed on this replica.
+   */
+  public boolean shouldSplit(NotificationRequest request) {
+    return props.enabled() && request.destinations().size() > props.splitThreshold();
+  }
+
+  /**
+   * Id of chunk {@code index} of a split request. Derived from the request id, so a replayed split publishes its
+   * chunks under the same ids.
+   */
+  public static UUID chunkRequestId(UUID requestId, int index) {
+    return UUID.nameUUIDFromBytes((requestId + "/" + index).getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Publishes the request as chunk messages of at most {@code chunk-size} destinations. The request must have
+   * been appended to the intake journal; it is marked completed there once every chunk is confirmed or spilled.
+   * <p>
+   * Throws if not even the first chunk could be handed to the outbox. Once a chunk is out the request counts as
+   * accepted: if a later chunk cannot be handed over, the request stays unfinished in the journal, so a restart
+   * publishes its chunks again under the same ids.
+   *
+   * @return completes once every chunk handed to the outbox is confirmed or spilled
+   */
+  public CompletableFuture<Void> submit(NotificationRequest request, DeliveryOptions delivery) {
+    var destinations = request.destinations();
+    int count = (destinations.size() + props.chunkSize() - 1) / props.chunkSize();
+    int priority = laneResolver.messagePriority(delivery.lane());
+    var outcomes = new CompletableFuture<?>[count];
+
+    ObjectNode header = objectMapper.valueToTree(request);
+    header.remove("destinations");
+    for (int index = 0; index < count; index++) {
+      var chunkRequest = header.deepCopy();
+      chunkRequest.put("requestId", chunkRequestId(request.requestId(), index).toString());
+      chunkRequest.set("destinations", objectMapper.valueToTree(
+          destinations.subList(index * props.chunkSize(), Math.min((index + 1) * props.chunkSize(), destinations.size()))));
+
+      var chunk = objectMapper.createObjectNode();
+      chunk.set("request", chunkRequest);
+      chunk.put("parentRequestId", request.requestId().toString());
+      chunk.put("index", index);
+      chunk.put("count", count);
+      chunk.put("lane", delivery.lane().name());
+      chunk.set("sendAt", objectMapper.valueToTree(delivery.sendAt()));
+
+      var outcome = new CompletableFuture<DeliveryOutcome>();
+      try {
+        publishOutbox.send(exchange, props.routingKey(), toMessage(chunk, priority), outcome);
+      } catch (RuntimeException e) {
+        if (index == 0) {
+          throw e;
+        }
+        log.error("AMQP intake: chunk {}/{} of request {} could not be published, leaving the request to the next replay: {}",
+            index + 1, count, request.requestId(), e.getMessage());
+        return CompletableFuture.allOf(Arrays.copyOf(outcomes, index));
+      }
+      outcomes[index] = outcome;
+    }
+
+    // The outbox retries until a chunk is confirmed or spilled to disk, and re-sends spilled chunks itself.
+    var handedOff = CompletableFuture.allOf(outcomes).thenRun(() -> {
+      intakeJournal.markCompleted(request.requestId());
+      log.debug("AMQP intake: all {} chunk(s) of request {} are with the broker or spilled", count, request.requestId());
+    });
+    log.info("AMQP intake: request {} split into {} chunk(s) of up to {} destination(s)",
+        request.requestId(), count, props.chunkSize());
+    return handedOff;
+  }
+
+  @Override
+  public void onMessage(Message message, Channel channel) throws IOException {
+    long deliveryTag = message.getMessageProperties().getDeliveryTag();
+    IntakeChunk chunk;
+    try {
+      chunk = objectMapper.readValue(message.getBody(), IntakeChunk.class);
+    } catch (IOException e) {
+      log.error("AMQP intake: dropping malformed chunk message: {}", e.getMessage());
+      channel.basicReject(deliveryTag, false);
+      return;
+    }
+
+    var request = chunk.request();
+    var lane = chunk.lane() != null ? chunk.lane() : laneResolver.resolve(request);
+    // Prefetch already bounds the chunks a consumer holds, so consumed chunks bypass admission limits.
+    var admission = admissionControl.admit(request);
+    try {
+      notificationService.processNotification(request, admission,
+          new DeliveryOptions(lane, chunk.sendAt(), chunk.parentRequestId()),
+          () -> acknowledge(channel, deliveryTag));
+    } catch (RuntimeException e) {
+      admission.close();
+      log.error("AMQP intake: chunk {}/{} of request {} could not be submitted, requeueing: {}",
+          chunk.index() + 1, chunk.count(), chunk.parentRequestId(), e.getMessage());
+      channel.basicNack(deliveryTag, false, true);
+      return;
+    }
+    log.debug("AMQP intake: consumed chunk {}/{} of request {} as request {} ({} destination(s))",
+        chunk.index() + 1, chunk.count(), chunk.parentRequestId(), request.requestId(), request.destinations().size());
+  }
+
+  private Message toMessage(ObjectNode chunk, int priority) {
+    var properties = new MessageProperties();
+    properties.setContentType(MessageProperties.CONTENT_TYPE_JSON);
+    properties.setDeliveryMode(MessageDeliveryMode.PERSISTENT);
+    properties.setPriority(priority);
+    try {
+      return new Message(objectMapper.writeValueAsBytes(chunk), properties);
+    } catch (JsonProcessingException e) {
+      throw new ApiException(CommonErrorCode.INTAKE_JOURNAL_UNAVAILABLE, "Intake chunk could not be serialized: " + e.getMessage());
+    }
+  }
+
+  private static void acknowledge(Channel channel, long deliveryTag) {
+    try {
+      channel.basicAck(deliveryTag, false);
+    } catch (IOException | RuntimeException e) {
+      // The channel is gone; the broker redelivers the chunk.
+      log.warn("AMQP intake: could not acknowledge chunk {}: {}", deliveryTag, e.getMessage());
+    }
+  }
+}
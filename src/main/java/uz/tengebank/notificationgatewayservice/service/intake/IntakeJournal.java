@@ -0,0 +1,466 @@
+package uz.tengebank.notificationgatewayservice.service.intake;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import uz.tengebank.notificationcontracts.dto.NotificationRequest;
+import uz.tengebank.notificationgatewayservice.config.props.ApplicationProperties;
+import uz.tengebank.notificationgatewayservice.constants.CommonErrorCode;
+import uz.tengebank.notificationgatewayservice.dto.intake.JournaledRequest;
+import uz.tengebank.notificationgatewayservice.dto.notification.DeliveryOptions;
+import uz.tengebank.notificationgatewayservice.exception.ApiException;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only, memory-mapped journal of accepted notification requests.
+ * <p>
+ * Every accepted request is written as an {@code ACCEPTED} record and the caller is released only after
+ * the record has been forced to disk. Forcing is done by a single committer thread, so concurrent writers
+ * share one fsync (group commit). Finished requests get a {@code COMPLETED} record; segments are deleted
+ * oldest-first once nothing in them is pending. On startup, requests without a completion record are
+ * compacted into a fresh segment and handed to {@link IntakeJournalReplayer}.
+ * <p>
+ * Record layout: {@code int length | byte type | long msb | long lsb | int crc32c | body}.
+ * A zero length marks the end of written data in a segment. The body of an {@code ACCEPTED} record is the
+ * {@link JournaledRequest} as JSON.
+ */
+@Slf4j
+@Component
+public class IntakeJournal {
+
+  private static final String SEGMENT_PREFIX = "intake-";
+  private static final String SEGMENT_SUFFIX = ".journal";
+  private static final int HEADER_SIZE = Integer.BYTES + Byte.BYTES + 2 * Long.BYTES + Integer.BYTES;
+  private static final int END_MARKER_SIZE = Integer.BYTES;
+  private static final byte ACCEPTED = 1;
+  private static final byte COMPLETED = 2;
+  private static final byte[] EMPTY_BODY = new byte[0];
+  private static final long MAX_COMMIT_BACKOFF_MILLIS = 1000;
+
+  private final ObjectMapper objectMapper;
+  private final ApplicationProperties.Intake.Journal props;
+
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition pendingCommit = lock.newCondition();
+  private final Condition durableAdvanced = lock.newCondition();
+
+  private final NavigableMap<Long, Segment> segments = new TreeMap<>();
+  private final Map<UUID, Segment> pendingRequests = new ConcurrentHashMap<>();
+  private final List<byte[]> recovered = new ArrayList<>();
+
+  private Segment active;
+  private long appendedPosition;
+  private long durablePosition;
+  private IOException commitFailure;
+  private volatile boolean closed;
+  private Thread committer;
+
+  public IntakeJournal(ObjectMapper objectMapper, ApplicationProperties props) {
+    this.objectMapper = objectMapper;
+    this.props = props.intake().journal();
+  }
+
+  @PostConstruct
+  void open() throws IOException {
+    if (!props.enabled()) {
+      log.info("Intake journal is disabled; accepted requests are held in memory only.");
+      return;
+    }
+
+    Path directory = Path.of(props.directory());
+    Files.createDirectories(directory);
+
+    List<Path> existing = listSegments(directory);
+    Map<UUID, byte[]> unfinished = new LinkedHashMap<>();
+    for (Path path : existing) {
+      scan(path, unfinished);
+    }
+
+    long nextSequence = existing.isEmpty() ? 0 : sequenceOf(existing.getLast()) + 1;
+    lock.lock();
+    try {
+      active = createSegment(directory, nextSequence, segmentCapacity(0));
+      unfinished.forEach((requestId, body) -> trackAccepted(requestId, write(ACCEPTED, requestId, body)));
+      active.buffer.force();
+      durablePosition = appendedPosition;
+    } finally {
+      lock.unlock();
+    }
+
+    for (Path path : existing) {
+      Files.deleteIfExists(path);
+    }
+    recovered.addAll(unfinished.values());
+
+    committer = Thread.ofPlatform().name("intake-journal-committer").daemon().start(this::runCommitLoop);
+    log.info("Intake journal opened at '{}' with {} unfinished request(s) to replay.", directory, unfinished.size());
+  }
+
+  /**
+   * Persists the request with its delivery options and blocks until the record is durable on disk.
+   */
+  public void append(NotificationRequest request, DeliveryOptions delivery) {
+    if (!props.enabled()) {
+      return;
+    }
+
+    final byte[] body;
+    try {
+      body = objectMapper.writeValueAsBytes(new JournaledRequest(request, delivery));
+    } catch (IOException e) {
+      throw new ApiException(CommonErrorCode.INTAKE_JOURNAL_UNAVAILABLE, "Request could not be serialized: " + e.getMessage());
+    }
+
+    long position;
+    lock.lock();
+    try {
+      ensureOpen();
+      trackAccepted(request.requestId(), write(ACCEPTED, request.requestId(), body));
+      position = appendedPosition;
+      pendingCommit.signal();
+    } catch (UncheckedIOException e) {
+      throw new ApiException(CommonErrorCode.INTAKE_JOURNAL_UNAVAILABLE, e.getMessage());
+    } finally {
+      lock.unlock();
+    }
+
+    try {
+      awaitDurable(position);
+    } catch (ApiException e) {
+      // The caller is told the request was not accepted, so it must not be replayed either.
+      markCompleted(request.requestId());
+      throw e;
+    }
+  }
+
+  /**
+   * Records that the request no longer needs to be replayed. Durability of this record is not awaited:
+   * losing it only means the request is replayed once more after a crash.
+   */
+  public void markCompleted(UUID requestId) {
+    if (!props.enabled()) {
+      return;
+    }
+
+    Segment segment = pendingRequests.remove(requestId);
+    if (segment == null) {
+      return;
+    }
+
+    lock.lock();
+    try {
+      if (closed) {
+        return;
+      }
+      write(COMPLETED, requestId, EMPTY_BODY);
+      segment.pending--;
+      releaseCompletedSegments();
+      pendingCommit.signal();
+    } catch (UncheckedIOException e) {
+      log.error("Intake journal: failed to record completion of request {}", requestId, e);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Returns the requests that were accepted but not completed before the last shutdown. Each call after the
+   * first returns an empty list.
+   */
+  public List<JournaledRequest> drainRecovered() {
+    List<JournaledRequest> requests = new ArrayList<>(recovered.size());
+    synchronized (recovered) {
+      for (byte[] body : recovered) {
+        try {
+          requests.add(objectMapper.readValue(body, JournaledRequest.class));
+        } catch (IOException e) {
+          log.error("Intake journal: dropping unreadable journal record ({} bytes)", body.length, e);
+        }
+      }
+      recovered.clear();
+    }
+    return requests;
+  }
+
+  @PreDestroy
+  void close() throws InterruptedException {
+    if (!props.enabled() || closed) {
+      return;
+    }
+
+    lock.lock();
+    try {
+      closed = true;
+      active.buffer.force();
+      durablePosition = appendedPosition;
+      pendingCommit.signalAll();
+      durableAdvanced.signalAll();
+    } finally {
+      lock.unlock();
+    }
+    committer.join();
+  }
+
+  private void trackAccepted(UUID requestId, Segment segment) {
+    if (pendingRequests.putIfAbsent(requestId, segment) == null) {
+      segment.pending++;
+    }
+  }
+
+  private void awaitDurable(long position) {
+    lock.lock();
+    try {
+      while (durablePosition < position) {
+        if (commitFailure != null) {
+          throw new ApiException(CommonErrorCode.INTAKE_JOURNAL_UNAVAILABLE, commitFailure.getMessage());
+        }
+        ensureOpen();
+        durableAdvanced.awaitUninterruptibly();
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Forces appended records to disk in batches. While forcing fails, retries back off up to
+   * {@value #MAX_COMMIT_BACKOFF_MILLIS} ms and the failure is logged once, not on every retry.
+   */
+  private void runCommitLoop() {
+    long backoffMillis = 0;
+    while (!closed) {
+      Segment segment;
+      int from;
+      int to;
+      long position;
+
+      lock.lock();
+      try {
+        while (!closed && appendedPosition == durablePosition) {
+          pendingCommit.awaitUninterruptibly();
+        }
+        if (closed) {
+          return;
+        }
+      } finally {
+        lock.unlock();
+      }
+
+      // Give concurrent writers a moment to join this commit.
+      if (!props.groupCommitDelay().isZero()) {
+        try {
+          Thread.sleep(props.groupCommitDelay());
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          return;
+        }
+      }
+
+      lock.lock();
+      try {
+        segment = active;
+        from = segment.durableOffset;
+        to = segment.buffer.position();
+        position = appendedPosition;
+      } finally {
+        lock.unlock();
+      }
+
+      IOException failure = null;
+      try {
+        segment.buffer.force(from, to - from);
+      } catch (UncheckedIOException e) {
+        failure = e.getCause();
+        if (backoffMillis == 0) {
+          log.error("Intake journal: group commit failed, retrying until the disk recovers", e);
+        }
+      }
+
+      lock.lock();
+      try {
+        if (failure == null) {
+          durablePosition = Math.max(durablePosition, position);
+          segment.durableOffset = Math.max(segment.durableOffset, to);
+        }
+        commitFailure = failure;
+        durableAdvanced.signalAll();
+      } finally {
+        lock.unlock();
+      }
+
+      if (failure == null) {
+        if (backoffMillis > 0) {
+          log.info("Intake journal: group commit recovered");
+          backoffMillis = 0;
+        }
+        continue;
+      }
+      backoffMillis = Math.min(MAX_COMMIT_BACKOFF_MILLIS,
+          Math.max(backoffMillis * 2, Math.max(10, props.groupCommitDelay().toMillis())));
+      try {
+        Thread.sleep(backoffMillis);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+    }
+  }
+
+  private Segment write(byte type, UUID requestId, byte[] body) {
+    int recordSize = HEADER_SIZE + body.length;
+    if (active.buffer.remaining() < recordSize + END_MARKER_SIZE) {
+      roll(recordSize + END_MARKER_SIZE);
+    }
+
+    MappedByteBuffer buffer = active.buffer;
+    int start = buffer.position();
+    buffer.putInt(recordSize);
+    buffer.put(type);
+    buffer.putLong(requestId.getMostSignificantBits());
+    buffer.putLong(requestId.getLeastSignificantBits());
+    int crcOffset = buffer.position();
+    buffer.putInt(0);
+    buffer.put(body);
+    buffer.putInt(crcOffset, checksum(buffer, start, crcOffset, body));
+
+    appendedPosition += recordSize;
+    return active;
+  }
+
+  private void roll(int minCapacity) {
+    try {
+      active.buffer.force();
+      durablePosition = appendedPosition;
+      durableAdvanced.signalAll();
+
+      Segment next = createSegment(active.path.getParent(), active.sequence + 1, segmentCapacity(minCapacity));
+      active = next;
+      releaseCompletedSegments();
+    } catch (IOException e) {
+      throw new UncheckedIOException("Could not roll intake journal segment", e);
+    }
+  }
+
+  private void releaseCompletedSegments() {
+    var iterator = segments.values().iterator();
+    while (iterator.hasNext()) {
+      Segment oldest = iterator.next();
+      if (oldest == active || oldest.pending > 0) {
+        return;
+      }
+      try {
+        Files.deleteIfExists(oldest.path);
+      } catch (IOException e) {
+        log.warn("Intake journal: could not delete completed segment '{}'", oldest.path, e);
+      }
+      iterator.remove();
+    }
+  }
+
+  private Segment createSegment(Path directory, long sequence, int capacity) throws IOException {
+    Path path = directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, sequence, SEGMENT_SUFFIX));
+    try (FileChannel channel = FileChannel.open(path,
+        StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+      Segment segment = new Segment(sequence, path, channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity));
+      segments.put(sequence, segment);
+      return segment;
+    }
+  }
+
+  private int segmentCapacity(int minCapacity) {
+    return (int) Math.min(Integer.MAX_VALUE, Math.max(props.segmentSize().toBytes(), minCapacity));
+  }
+
+  private void scan(Path path, Map<UUID, byte[]> unfinished) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      while (buffer.remaining() >= HEADER_SIZE) {
+        int start = buffer.position();
+        int recordSize = buffer.getInt();
+        if (recordSize < HEADER_SIZE || recordSize - Integer.BYTES > buffer.remaining()) {
+          break;
+        }
+        byte type = buffer.get();
+        UUID requestId = new UUID(buffer.getLong(), buffer.getLong());
+        int crcOffset = buffer.position();
+        int crc = buffer.getInt();
+        byte[] body = new byte[recordSize - HEADER_SIZE];
+        buffer.get(body);
+
+        if (crc != checksum(buffer, start, crcOffset, body)) {
+          log.warn("Intake journal: torn record at offset {} in '{}', ignoring the rest of the segment", start, path);
+          break;
+        }
+        if (type == ACCEPTED) {
+          unfinished.putIfAbsent(requestId, body);
+        } else if (type == COMPLETED) {
+          unfinished.remove(requestId);
+        }
+      }
+    }
+  }
+
+  private void ensureOpen() {
+    if (closed) {
+      throw new ApiException(CommonErrorCode.INTAKE_JOURNAL_UNAVAILABLE, "Intake journal is closed.");
+    }
+  }
+
+  private static int checksum(ByteBuffer buffer, int recordStart, int crcOffset, byte[] body) {
+    CRC32C crc = new CRC32C();
+    crc.update(buffer.duplicate().limit(crcOffset).position(recordStart + Integer.BYTES));
+    crc.update(body);
+    return (int) crc.getValue();
+  }
+
+  private static List<Path> listSegments(Path directory) throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      return files
+          .filter(p -> p.getFileName().toString().startsWith(SEGMENT_PREFIX))
+          .filter(p -> p.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+          .sorted()
+          .toList();
+    }
+  }
+
+  private static long sequenceOf(Path segment) {
+    String name = segment.getFileName().toString();
+    return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+  }
+
+  private static final class Segment {
+    private final long sequence;
+    private final Path path;
+    private final MappedByteBuffer buffer;
+    private int durableOffset;
+    private int pending;
+
+    private Segment(long sequence, Path path, MappedByteBuffer buffer) {
+      this.sequence = sequence;
+      this.path = path;
+      this.buffer = buffer;
+    }
+  }
+}
@@ -0,0 +1,52 @@
+package uz.tengebank.notificationgatewayservice.service.intake;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import uz.tengebank.notificationgatewayservice.dto.notification.NotificationAcceptance;
+import uz.tengebank.notificationgatewayservice.service.NotificationService;
+import uz.tengebank.notificationgatewayservice.service.admission.AdmissionControl;
+import uz.tengebank.notificationgatewayservice.service.idempotency.IdempotencyStore;
+
+import java.time.Instant;
+
+/**
+ * Resumes requests that were accepted by a previous instance but never finished.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class IntakeJournalReplayer {
+
+  private final IntakeJournal intakeJournal;
+  private final NotificationService notificationService;
+  private final AmqpIntake amqpIntake;
+  private final AdmissionControl admissionControl;
+  private final IdempotencyStore idempotencyStore;
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void replayUnfinishedRequests() {
+    var unfinished = intakeJournal.drainRecovered();
+    if (unfinished.isEmpty()) {
+      return;
+    }
+
+    log.warn("Intake journal: resuming {} unfinished notification request(s).", unfinished.size());
+    // Already acknowledged to the caller, so replayed work bypasses admission limits. Claiming the ids makes
+    // client retries of these requests idempotent even if the store was not persistent.
+    var now = Instant.now();
+    unfinished.forEach(journaled -> {
+      var request = journaled.request();
+      var delivery = journaled.delivery();
+      idempotencyStore.claim(new NotificationAcceptance(request.requestId(), now));
+      if (amqpIntake.shouldSplit(request)) {
+        // Split requests are journaled until every chunk is published; chunks keep their ids when published again.
+        amqpIntake.submit(request, delivery);
+      } else {
+        notificationService.processNotification(request, admissionControl.admit(request), delivery);
+      }
+    });
+  }
+}
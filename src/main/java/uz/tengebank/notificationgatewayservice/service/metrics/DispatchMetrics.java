@@ -0,0 +1,83 @@
+package uz.tengebank.notificationgatewayservice.service.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import uz.tengebank.notificationcontracts.dto.NotificationRequest;
+import uz.tengebank.notificationgatewayservice.dto.notification.Lane;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Counters and timers of the dispatch path. Meters with a fixed tag set are registered up front and meters
+ * tagged by error code are cached, so recording is a map lookup and an atomic add.
+ * <ul>
+ *   <li>{@code gateway.notifications.dispatched} - messages handed to the broker, by channel and lane</li>
+ *   <li>{@code gateway.notifications.attempt_failed} - failed delivery attempts, by error code</li>
+ *   <li>{@code gateway.requests.completed} - finished requests, by lane and outcome</li>
+ *   <li>{@code gateway.push_tokens.lookup} - bulk push token lookups</li>
+ * </ul>
+ */
+@Component
+public class DispatchMetrics {
+
+  private final MeterRegistry meterRegistry;
+  private final Map<NotificationRequest.Channel, Map<Lane, Counter>> dispatched = new EnumMap<>(NotificationRequest.Channel.class);
+  private final Map<Lane, Counter> completed = new EnumMap<>(Lane.class);
+  private final Map<Lane, Counter> failedRequests = new EnumMap<>(Lane.class);
+  private final Map<String, Counter> attemptFailures = new ConcurrentHashMap<>();
+  private final Timer tokenLookup;
+
+  public DispatchMetrics(MeterRegistry meterRegistry) {
+    this.meterRegistry = meterRegistry;
+
+    for (var channel : NotificationRequest.Channel.values()) {
+      var byLane = new EnumMap<Lane, Counter>(Lane.class);
+      for (var lane : Lane.values()) {
+        byLane.put(lane, Counter.builder("gateway.notifications.dispatched")
+            .description("Messages handed to the broker")
+            .tag("channel", channel.name())
+            .tag("lane", lane.name())
+            .register(meterRegistry));
+      }
+      dispatched.put(channel, byLane);
+    }
+    for (var lane : Lane.values()) {
+      completed.put(lane, requestCounter(lane, "success"));
+      failedRequests.put(lane, requestCounter(lane, "failed"));
+    }
+    this.tokenLookup = Timer.builder("gateway.push_tokens.lookup")
+        .description("Bulk push token lookups")
+        .register(meterRegistry);
+  }
+
+  public void dispatched(NotificationRequest.Channel channel, Lane lane, int messages) {
+    dispatched.get(channel).get(lane).increment(messages);
+  }
+
+  public void attemptFailed(String errorCode) {
+    attemptFailures.computeIfAbsent(errorCode, code -> Counter.builder("gateway.notifications.attempt_failed")
+        .description("Failed delivery attempts")
+        .tag("error_code", code)
+        .register(meterRegistry)).increment();
+  }
+
+  public void requestCompleted(Lane lane, boolean failed) {
+    (failed ? failedRequests : completed).get(lane).increment();
+  }
+
+  public Timer tokenLookup() {
+    return tokenLookup;
+  }
+
+  private Counter requestCounter(Lane lane, String outcome) {
+    return Counter.builder("gateway.requests.completed")
+        .description("Finished notification requests")
+        .tag("lane", lane.name())
+        .tag("outcome", outcome)
+        .register(meterRegistry);
+  }
+}
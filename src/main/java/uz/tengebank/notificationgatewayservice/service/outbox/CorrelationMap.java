@@ -0,0 +1,171 @@
+package uz.tengebank.notificationgatewayservice.service.outbox;
+
+import java.util.function.Consumer;
+
+/**
+ * Map from positive {@code long} keys to values, split into independently locked shards.
+ * <p>
+ * Each shard is an open-addressing table with linear probing over a {@code long[]} of keys and an
+ * {@code Object[]} of values, so an entry costs two array slots instead of a boxed key and a node. Removal
+ * shifts the following entries of the probe run back instead of leaving tombstones, which keeps lookups short
+ * when entries come and go at a high rate. Keys are spread over the shards by a mixing hash, so sequential
+ * keys land on different shards and concurrent callers rarely share a lock.
+ */
+final class CorrelationMap<V> {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final Shard<V>[] shards;
+    private final int shardMask;
+
+    @SuppressWarnings("unchecked")
+    CorrelationMap(int shardCount) {
+        int count = shardCount <= 1 ? 1 : Integer.highestOneBit(shardCount - 1) << 1;
+        this.shards = new Shard[count];
+        for (int i = 0; i < count; i++) {
+            shards[i] = new Shard<>();
+        }
+        this.shardMask = count - 1;
+    }
+
+    void put(long key, V value) {
+        if (key <= 0) {
+            throw new IllegalArgumentException("Key must be positive: " + key);
+        }
+        long hash = mix(key);
+        shards[(int) hash & shardMask].put(key, hash >>> 32, value);
+    }
+
+    V get(long key) {
+        long hash = mix(key);
+        return shards[(int) hash & shardMask].get(key, hash >>> 32);
+    }
+
+    V remove(long key) {
+        long hash = mix(key);
+        return shards[(int) hash & shardMask].remove(key, hash >>> 32);
+    }
+
+    int size() {
+        int size = 0;
+        for (Shard<V> shard : shards) {
+            size += shard.size;
+        }
+        return size;
+    }
+
+    /**
+     * Visits every value, one shard at a time. Entries added or removed meanwhile may or may not be seen.
+     */
+    void forEach(Consumer<? super V> action) {
+        for (Shard<V> shard : shards) {
+            shard.forEach(action);
+        }
+    }
+
+    /**
+     * The low bits pick the shard, the high 32 bits the home slot within it.
+     */
+    static long mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 29);
+    }
+
+    private static final class Shard<V> {
+        private long[] keys = new long[INITIAL_CAPACITY];
+        private Object[] values = new Object[INITIAL_CAPACITY];
+        private volatile int size;
+
+        private synchronized void put(long key, long hash, V value) {
+            if ((size + 1) * 4 > keys.length * 3) {
+                resize(keys.length << 1);
+            }
+            int mask = keys.length - 1;
+            int i = (int) hash & mask;
+            while (keys[i] != 0) {
+                if (keys[i] == key) {
+                    values[i] = value;
+                    return;
+                }
+                i = (i + 1) & mask;
+            }
+            keys[i] = key;
+            values[i] = value;
+            size++;
+        }
+
+        @SuppressWarnings("unchecked")
+        private synchronized V get(long key, long hash) {
+            int mask = keys.length - 1;
+            for (int i = (int) hash & mask; keys[i] != 0; i = (i + 1) & mask) {
+                if (keys[i] == key) {
+                    return (V) values[i];
+                }
+            }
+            return null;
+        }
+
+        @SuppressWarnings("unchecked")
+        private synchronized V remove(long key, long hash) {
+            int mask = keys.length - 1;
+            int i = (int) hash & mask;
+            while (keys[i] != key) {
+                if (keys[i] == 0) {
+                    return null;
+                }
+                i = (i + 1) & mask;
+            }
+            V removed = (V) values[i];
+
+            // Move later entries of the probe run into the gap unless that would put them before their home slot.
+            int gap = i;
+            for (int j = (gap + 1) & mask; keys[j] != 0; j = (j + 1) & mask) {
+                int home = (int) (mix(keys[j]) >>> 32) & mask;
+                if (((j - home) & mask) >= ((j - gap) & mask)) {
+                    keys[gap] = keys[j];
+                    values[gap] = values[j];
+                    gap = j;
+                }
+            }
+            keys[gap] = 0;
+            values[gap] = null;
+            size--;
+            return removed;
+        }
+
+        @SuppressWarnings("unchecked")
+        private void forEach(Consumer<? super V> action) {
+            Object[] snapshot;
+            synchronized (this) {
+                snapshot = new Object[size];
+                int n = 0;
+                for (int i = 0; i < keys.length; i++) {
+                    if (keys[i] != 0) {
+                        snapshot[n++] = values[i];
+                    }
+                }
+            }
+            for (Object value : snapshot) {
+                action.accept((V) value);
+            }
+        }
+
+        private void resize(int capacity) {
+            long[] oldKeys = keys;
+            Object[] oldValues = values;
+            keys = new long[capacity];
+            values = new Object[capacity];
+            int mask = capacity - 1;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != 0) {
+                    int j = (int) (mix(oldKeys[i]) >>> 32) & mask;
+                    while (keys[j] != 0) {
+                        j = (j + 1) & mask;
+                    }
+                    keys[j] = oldKeys[i];
+                    values[j] = oldValues[i];
+                }
+            }
+        }
+    }
+}
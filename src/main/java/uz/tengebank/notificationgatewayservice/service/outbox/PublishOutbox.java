@@ -0,0 +1,511 @@
+package uz.tengebank.notificationgatewayservice.service.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageDeliveryMode;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.core.ReturnedMessage;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.rabbit.support.PublisherCallbackChannel;
+import org.springframework.stereotype.Component;
+import uz.tengebank.notificationgatewayservice.config.props.ApplicationProperties;
+import uz.tengebank.notificationgatewayservice.dto.outbox.DeliveryOutcome;
+import uz.tengebank.notificationgatewayservice.dto.outbox.OutboxStats;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Keeps every published message until the broker confirms it.
+ * <p>
+ * Messages are keyed by the sequence number in their correlation id, in a sharded {@link CorrelationMap}. A nack,
+ * a return or a failed send schedules a retry with exponential backoff and jitter. After {@code spill-after-attempts}
+ * the message is appended to a spill file on disk, which {@link #drain()} re-sends once the broker is reachable again
+ * (also attempted every {@code drain-interval}).
+ * <p>
+ * The time from registering a message to its confirm is recorded in {@code gateway.amqp.confirm.latency},
+ * tagged with the outcome of the confirm.
+ * <p>
+ * A tracked message may carry a future that is completed with its {@link DeliveryOutcome}: once it is confirmed, or
+ * once it is spilled. Messages tracked with {@code failFast} are not retried; a nack, return or failed send completes
+ * their future right away so the caller can try another route.
+ * <p>
+ * A message with an {@code x-delay} keeps its release time: a retry or a re-send from the spill file is published
+ * with only the delay that is left. On shutdown the outbox waits up to {@code shutdown-confirm-timeout} for
+ * outstanding confirms before spilling what is still unconfirmed, so messages the broker already has are not sent
+ * again by the next drain.
+ */
+@Slf4j
+@Component
+public class PublishOutbox {
+
+    private static final String SPILL_FILE = "outbox.jsonl";
+    private static final String DRAINING_SUFFIX = ".draining";
+    private static final int NO_ROUTE = 312;
+
+    private final RabbitTemplate rabbitTemplate;
+    private final ObjectMapper objectMapper;
+    private final ApplicationProperties.Outbox props;
+    private final Path spillDirectory;
+
+    private final CorrelationMap<OutboxEntry> unconfirmed;
+    private final Map<String, OutboxEntry> awaitingRetry = new ConcurrentHashMap<>();
+    private final AtomicLong spilled = new AtomicLong();
+    private final ReentrantLock spillLock = new ReentrantLock();
+    private final ReentrantLock drainLock = new ReentrantLock();
+    private final ScheduledExecutorService scheduler;
+    private final Timer ackLatency;
+    private final Timer nackLatency;
+    private final Timer returnedLatency;
+
+    private final Set<String> delayedExchanges;
+
+    private final String correlationPrefix = UUID.randomUUID() + "-";
+    private final AtomicLong correlationSequence = new AtomicLong();
+
+    public PublishOutbox(
+            RabbitTemplate rabbitTemplate,
+            ObjectMapper objectMapper,
+            ApplicationProperties props,
+            MeterRegistry meterRegistry
+    ) throws IOException {
+        this.rabbitTemplate = rabbitTemplate;
+        this.objectMapper = objectMapper;
+        this.props = props.rabbitmq().outbox();
+        this.unconfirmed = new CorrelationMap<>(this.props.correlationShards());
+        this.delayedExchanges = Set.of(props.rabbitmq().exchanges().delayed(), props.rabbitmq().exchanges().audit());
+        this.spillDirectory = Path.of(this.props.spillDirectory());
+
+        Files.createDirectories(spillDirectory);
+        spilled.set(countSpilled());
+
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("outbox-scheduler").daemon().factory());
+        long drainMillis = this.props.drainInterval().toMillis();
+        scheduler.scheduleWithFixedDelay(this::drainIfSpilled, drainMillis, drainMillis, TimeUnit.MILLISECONDS);
+
+        Gauge.builder("gateway.outbox.unconfirmed", unconfirmed, CorrelationMap::size).register(meterRegistry);
+        Gauge.builder("gateway.outbox.awaiting_retry", awaitingRetry, Map::size).register(meterRegistry);
+        Gauge.builder("gateway.outbox.spilled", spilled, AtomicLong::get).register(meterRegistry);
+        this.ackLatency = confirmLatency("ack", meterRegistry);
+        this.nackLatency = confirmLatency("nack", meterRegistry);
+        this.returnedLatency = confirmLatency("returned", meterRegistry);
+    }
+
+    /**
+     * Registers a message that is about to be published and returns the correlation data to publish it with.
+     */
+    public CorrelationData track(String exchange, String routingKey, Message message) {
+        return track(exchange, routingKey, message, null, false);
+    }
+
+    /**
+     * Like {@link #track(String, String, Message)}, completing {@code outcome} once the message is confirmed or
+     * spilled. With {@code failFast} the message is not retried and {@code outcome} also completes on a nack,
+     * a return or a failed send.
+     */
+    public CorrelationData track(String exchange, String routingKey, Message message,
+                                 CompletableFuture<DeliveryOutcome> outcome, boolean failFast) {
+        return register(new OutboxEntry(correlationSequence.incrementAndGet(), exchange, routingKey, message, 0,
+                outcome, failFast));
+    }
+
+    /**
+     * Publishes a single message through the outbox.
+     */
+    public void send(String exchange, String routingKey, Message message) {
+        send(exchange, routingKey, message, null);
+    }
+
+    /**
+     * Like {@link #send(String, String, Message)}, completing {@code outcome} once the message is confirmed or
+     * spilled.
+     */
+    public void send(String exchange, String routingKey, Message message, CompletableFuture<DeliveryOutcome> outcome) {
+        publish(new OutboxEntry(correlationSequence.incrementAndGet(), exchange, routingKey, message, 0, outcome, false));
+    }
+
+    /**
+     * Reports a tracked message whose publish call failed before reaching the broker.
+     */
+    public void failed(String correlationId, String reason) {
+        long sequence = sequenceOf(correlationId);
+        OutboxEntry entry = sequence > 0 ? unconfirmed.remove(sequence) : null;
+        if (entry != null) {
+            retryOrFail(entry, DeliveryOutcome.NACKED, reason);
+        }
+    }
+
+    public void onConfirm(CorrelationData correlationData, boolean ack, String cause) {
+        if (correlationData == null) {
+            return;
+        }
+
+        long sequence = sequenceOf(correlationData.getId());
+        OutboxEntry entry = sequence > 0 ? unconfirmed.remove(sequence) : null;
+        if (entry == null) {
+            return;
+        }
+        Timer latency = !ack ? nackLatency : entry.returned ? returnedLatency : ackLatency;
+        latency.record(System.nanoTime() - entry.registeredAt, TimeUnit.NANOSECONDS);
+        if (ack && !entry.returned) {
+            entry.complete(DeliveryOutcome.CONFIRMED);
+            return;
+        }
+        if (ack) {
+            retryOrFail(entry, DeliveryOutcome.RETURNED, entry.returnReason);
+        } else {
+            retryOrFail(entry, DeliveryOutcome.NACKED, cause);
+        }
+    }
+
+    public void onReturned(ReturnedMessage returned) {
+        if (returned.getReplyCode() == NO_ROUTE && delayedExchanges.contains(returned.getExchange())) {
+            // The delayed-message plugin routes on release, so mandatory publishes to it always come back unrouted.
+            return;
+        }
+        String correlationId = returned.getMessage().getMessageProperties()
+                .getHeader(PublisherCallbackChannel.RETURNED_MESSAGE_CORRELATION_KEY);
+        long sequence = sequenceOf(correlationId);
+        OutboxEntry entry = sequence > 0 ? unconfirmed.get(sequence) : null;
+        if (entry != null) {
+            entry.returned = true;
+            entry.returnReason = "returned: " + returned.getReplyCode() + " " + returned.getReplyText();
+        }
+    }
+
+    /**
+     * Re-sends every spilled message. Returns the number of messages handed back to the broker.
+     */
+    public int drain() {
+        if (!drainLock.tryLock()) {
+            return 0;
+        }
+        try {
+            return isBrokerAvailable() ? drainSpillFiles() : 0;
+        } finally {
+            drainLock.unlock();
+        }
+    }
+
+    public OutboxStats stats() {
+        return new OutboxStats(unconfirmed.size(), awaitingRetry.size(), spilled.get());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        scheduler.shutdownNow();
+        awaitConfirms(props.shutdownConfirmTimeout());
+        List<OutboxEntry> remaining = new ArrayList<>(awaitingRetry.values());
+        unconfirmed.forEach(remaining::add);
+        remaining.forEach(entry -> spill(entry, "shutdown"));
+        if (!remaining.isEmpty()) {
+            log.warn("Outbox: spilled {} unconfirmed message(s) on shutdown.", remaining.size());
+        }
+    }
+
+    private void awaitConfirms(Duration timeout) {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (unconfirmed.size() > 0 && System.nanoTime() < deadline) {
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private int drainSpillFiles() {
+        List<Path> files;
+        spillLock.lock();
+        try {
+            Path active = spillDirectory.resolve(SPILL_FILE);
+            if (Files.exists(active)) {
+                Files.move(active, spillDirectory.resolve(SPILL_FILE + "." + System.currentTimeMillis() + DRAINING_SUFFIX),
+                        StandardCopyOption.ATOMIC_MOVE);
+            }
+            files = listSpillFiles(DRAINING_SUFFIX);
+        } catch (IOException e) {
+            log.error("Outbox: could not prepare spill files for draining", e);
+            return 0;
+        } finally {
+            spillLock.unlock();
+        }
+
+        int resent = 0;
+        for (Path file : files) {
+            try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    SpilledMessage spilledMessage = objectMapper.readValue(line, SpilledMessage.class);
+                    send(spilledMessage.exchange(), spilledMessage.routingKey(), spilledMessage.toMessage());
+                    spilled.decrementAndGet();
+                    resent++;
+                }
+                Files.delete(file);
+            } catch (IOException e) {
+                log.error("Outbox: failed to drain spill file '{}'", file, e);
+            }
+        }
+
+        if (resent > 0) {
+            log.info("Outbox: re-sent {} spilled message(s).", resent);
+        }
+        return resent;
+    }
+
+    private static Timer confirmLatency(String outcome, MeterRegistry meterRegistry) {
+        return Timer.builder("gateway.amqp.confirm.latency")
+                .description("Time from publishing a message to the broker's confirm")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private CorrelationData register(OutboxEntry entry) {
+        entry.registeredAt = System.nanoTime();
+        unconfirmed.put(entry.sequence, entry);
+        return new CorrelationData(entry.correlationId());
+    }
+
+    private void publish(OutboxEntry entry) {
+        if (entry.releaseAtMillis > 0) {
+            entry.message.getMessageProperties()
+                    .setDelayLong(Math.max(0, entry.releaseAtMillis - System.currentTimeMillis()));
+        }
+        CorrelationData correlationData = register(entry);
+        try {
+            rabbitTemplate.send(entry.exchange, entry.routingKey, entry.message, correlationData);
+        } catch (AmqpException e) {
+            failed(entry.correlationId(), e.getMessage());
+        }
+    }
+
+    private void retryOrFail(OutboxEntry entry, DeliveryOutcome outcome, String reason) {
+        if (entry.failFast) {
+            log.warn("Outbox: message {} to '{}' {}, not retried. Reason: {}",
+                    entry.correlationId(), entry.routingKey, outcome, reason);
+            entry.complete(outcome);
+            return;
+        }
+        scheduleRetry(entry, reason);
+    }
+
+    private void scheduleRetry(OutboxEntry entry, String reason) {
+        int attempt = entry.attempt + 1;
+        if (attempt >= props.spillAfterAttempts()) {
+            spill(entry, reason);
+            return;
+        }
+
+        long delay = backoffMillis(attempt);
+        log.warn("Outbox: retrying message {} to '{}' in {} ms (attempt {}). Reason: {}",
+                entry.correlationId(), entry.routingKey, delay, attempt, reason);
+
+        awaitingRetry.put(entry.correlationId(), entry);
+        scheduler.schedule(() -> {
+            if (awaitingRetry.remove(entry.correlationId()) != null) {
+                publish(new OutboxEntry(correlationSequence.incrementAndGet(), entry.exchange, entry.routingKey,
+                        entry.message, entry.releaseAtMillis, attempt, entry.outcome, false));
+            }
+        }, delay, TimeUnit.MILLISECONDS);
+    }
+
+    private long backoffMillis(int attempt) {
+        long initial = props.initialBackoff().toMillis();
+        long exponential = initial << Math.min(attempt - 1, 20);
+        long capped = Math.min(exponential, props.maxBackoff().toMillis());
+        // Equal jitter: keep half of the backoff, randomize the other half.
+        return capped / 2 + ThreadLocalRandom.current().nextLong(capped / 2 + 1);
+    }
+
+    private void spill(OutboxEntry entry, String reason) {
+        spillLock.lock();
+        try (BufferedWriter writer = Files.newBufferedWriter(spillDirectory.resolve(SPILL_FILE), StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            writer.write(objectMapper.writeValueAsString(
+                    SpilledMessage.of(entry.exchange, entry.routingKey, entry.message, entry.releaseAtMillis)));
+            writer.newLine();
+            spilled.incrementAndGet();
+            log.error("Outbox: spilled message {} to '{}' after {} attempt(s). Reason: {}",
+                    entry.correlationId(), entry.routingKey, entry.attempt + 1, reason);
+        } catch (IOException e) {
+            log.error("Outbox: could not spill message {} to '{}'; message is lost", entry.correlationId(), entry.routingKey, e);
+        } finally {
+            spillLock.unlock();
+        }
+        entry.complete(DeliveryOutcome.SPILLED);
+    }
+
+    private void drainIfSpilled() {
+        try {
+            if (spilled.get() > 0) {
+                drain();
+            }
+        } catch (RuntimeException e) {
+            log.error("Outbox: scheduled drain failed", e);
+        }
+    }
+
+    private boolean isBrokerAvailable() {
+        try {
+            return Boolean.TRUE.equals(rabbitTemplate.execute(channel -> channel.isOpen()));
+        } catch (AmqpException e) {
+            log.debug("Outbox: broker unavailable: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private long countSpilled() throws IOException {
+        long count = 0;
+        List<Path> files = new ArrayList<>(listSpillFiles(DRAINING_SUFFIX));
+        Path active = spillDirectory.resolve(SPILL_FILE);
+        if (Files.exists(active)) {
+            files.add(active);
+        }
+        for (Path file : files) {
+            try (Stream<String> lines = Files.lines(file, StandardCharsets.UTF_8)) {
+                count += lines.count();
+            }
+        }
+        return count;
+    }
+
+    private List<Path> listSpillFiles(String suffix) throws IOException {
+        try (Stream<Path> files = Files.list(spillDirectory)) {
+            return files.filter(p -> p.getFileName().toString().endsWith(suffix)).sorted().toList();
+        }
+    }
+
+    /**
+     * Returns the sequence number of one of this instance's correlation ids, or {@code -1} for any other id.
+     */
+    private long sequenceOf(String correlationId) {
+        if (correlationId == null || !correlationId.startsWith(correlationPrefix)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(correlationId, correlationPrefix.length(), correlationId.length(), 10);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private final class OutboxEntry {
+        private final long sequence;
+        private final String exchange;
+        private final String routingKey;
+        private final Message message;
+        // Epoch millis at which a delayed message is due, 0 if it is not delayed.
+        private final long releaseAtMillis;
+        private final int attempt;
+        private final CompletableFuture<DeliveryOutcome> outcome;
+        private final boolean failFast;
+        private volatile boolean returned;
+        private volatile String returnReason;
+        private volatile long registeredAt;
+
+        private OutboxEntry(long sequence, String exchange, String routingKey, Message message, int attempt,
+                            CompletableFuture<DeliveryOutcome> outcome, boolean failFast) {
+            this(sequence, exchange, routingKey, message, releaseAtMillis(message), attempt, outcome, failFast);
+        }
+
+        private OutboxEntry(long sequence, String exchange, String routingKey, Message message, long releaseAtMillis,
+                            int attempt, CompletableFuture<DeliveryOutcome> outcome, boolean failFast) {
+            this.sequence = sequence;
+            this.exchange = exchange;
+            this.routingKey = routingKey;
+            this.message = message;
+            this.releaseAtMillis = releaseAtMillis;
+            this.attempt = attempt;
+            this.outcome = outcome;
+            this.failFast = failFast;
+        }
+
+        private String correlationId() {
+            return correlationPrefix + sequence;
+        }
+
+        private void complete(DeliveryOutcome deliveryOutcome) {
+            if (outcome != null) {
+                outcome.complete(deliveryOutcome);
+            }
+        }
+    }
+
+    private static long releaseAtMillis(Message message) {
+        Long delay = message.getMessageProperties().getDelayLong();
+        return delay != null && delay > 0 ? System.currentTimeMillis() + delay : 0;
+    }
+
+    /**
+     * A spilled message as written to the spill file. {@code releaseAtMillis} is the epoch millis a delayed message
+     * is due at, {@code 0} if it is not delayed.
+     */
+    record SpilledMessage(
+            String exchange,
+            String routingKey,
+            String contentType,
+            String contentEncoding,
+            Map<String, Object> headers,
+            Integer priority,
+            MessageDeliveryMode deliveryMode,
+            String messageId,
+            String expiration,
+            long releaseAtMillis,
+            byte[] body
+    ) {
+
+        static SpilledMessage of(String exchange, String routingKey, Message message, long releaseAtMillis) {
+            MessageProperties properties = message.getMessageProperties();
+            return new SpilledMessage(exchange, routingKey, properties.getContentType(), properties.getContentEncoding(),
+                    properties.getHeaders(), properties.getPriority(), properties.getDeliveryMode(),
+                    properties.getMessageId(), properties.getExpiration(), releaseAtMillis, message.getBody());
+        }
+
+        Message toMessage() {
+            MessageProperties properties = new MessageProperties();
+            properties.setContentType(contentType);
+            properties.setContentEncoding(contentEncoding);
+            if (headers != null) {
+                headers.forEach(properties::setHeader);
+            }
+            properties.setPriority(priority);
+            properties.setDeliveryMode(deliveryMode);
+            properties.setMessageId(messageId);
+            properties.setExpiration(expiration);
+            if (releaseAtMillis > 0) {
+                properties.setDelayLong(Math.max(0, releaseAtMillis - System.currentTimeMillis()));
+            }
+            return new Message(body, properties);
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package uz.tengebank.notificationgatewayservice.service.pipeline;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import uz.tengebank.notificationgatewayservice.config.props.ApplicationProperties;
+import uz.tengebank.notificationgatewayservice.dto.notification.Lane;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * One step of the notification pipeline: a bounded queue per {@link Lane} drained by a fixed number of worker
+ * threads.
+ * <p>
+ * {@link #submit} blocks while the item's lane is full, so a saturated stage slows down the stage feeding it
+ * instead of buffering without bound. Workers pick the next lane by smooth weighted round-robin over the lanes that
+ * have work, so a backlog of bulk items delays transactional ones by at most a few batches. Workers take up to
+ * {@code max-batch} queued items of one lane at once and hand them to the handler together. The handler is
+ * expected to deal with failures of its own items; anything it throws is only logged.
+ * <p>
+ * Meters, tagged with the stage name: {@code gateway.pipeline.queue.depth} and {@code gateway.pipeline.queue.wait}
+ * (time an item spent queued), both also tagged with the lane, and {@code gateway.pipeline.stage.latency} (time
+ * the handler took per batch).
+ */
+@Slf4j
+public final class PipelineStage<T> implements AutoCloseable {
+
+    private final String name;
+    private final int maxBatch;
+    private final Function<T, Lane> laneOf;
+    private final Consumer<List<T>> handler;
+    private final Map<Lane, LaneQueue<T>> lanes = new EnumMap<>(Lane.class);
+    private final Semaphore available = new Semaphore(0);
+    private final List<Thread> workers = new ArrayList<>();
+    private final Timer latencyTimer;
+    private volatile boolean running = true;
+
+    public PipelineStage(
+            String name,
+            ApplicationProperties.Pipeline.Stage props,
+            Map<Lane, Integer> weights,
+            Function<T, Lane> laneOf,
+            Consumer<List<T>> handler,
+            MeterRegistry meterRegistry
+    ) {
+        this.name = name;
+        this.maxBatch = Math.max(1, props.maxBatch());
+        this.laneOf = laneOf;
+        this.handler = handler;
+
+        for (Lane lane : Lane.values()) {
+            var laneQueue = new LaneQueue<T>(
+                new ArrayBlockingQueue<>(props.queueCapacity()),
+                Math.max(1, weights.getOrDefault(lane, 1)),
+                Timer.builder("gateway.pipeline.queue.wait")
+                    .description("Time items spend queued before a pipeline stage picks them up")
+                    .tag("stage", name)
+                    .tag("lane", lane.name())
+                    .register(meterRegistry));
+            lanes.put(lane, laneQueue);
+            Gauge.builder("gateway.pipeline.queue.depth", laneQueue.queue, BlockingQueue::size)
+                .description("Items waiting in a pipeline stage")
+                .tag("stage", name)
+                .tag("lane", lane.name())
+                .register(meterRegistry);
+        }
+        this.latencyTimer = Timer.builder("gateway.pipeline.stage.latency")
+            .description("Time a pipeline stage spends on one batch")
+            .tag("stage", name)
+            .register(meterRegistry);
+
+        for (int i = 0; i < props.concurrency(); i++) {
+            workers.add(Thread.ofVirtual().name("pipeline-" + name + "-", i).start(this::runWorker));
+        }
+    }
+
+    public static <T> PipelineStage<T> perItem(
+            String name,
+            ApplicationProperties.Pipeline.Stage props,
+            Map<Lane, Integer> weights,
+            Function<T, Lane> laneOf,
+            Consumer<T> handler,
+            MeterRegistry meterRegistry
+    ) {
+        return new PipelineStage<>(name, props, weights, laneOf, items -> items.forEach(handler), meterRegistry);
+    }
+
+    /**
+     * Queues an item, blocking while its lane is full.
+     */
+    public void submit(T item) {
+        try {
+            lanes.get(laneOf.apply(item)).queue.put(new Queued<>(item, System.nanoTime()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for pipeline stage '" + name + "'", e);
+        }
+        available.release();
+    }
+
+    /**
+     * Stops the workers once everything already queued has been handled.
+     */
+    @Override
+    public void close() throws InterruptedException {
+        running = false;
+        for (Thread worker : workers) {
+            worker.join(TimeUnit.SECONDS.toMillis(10));
+        }
+    }
+
+    private void runWorker() {
+        while (running || available.availablePermits() > 0) {
+            try {
+                if (!available.tryAcquire(100, TimeUnit.MILLISECONDS)) {
+                    continue;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            List<T> items = takeBatch();
+            try {
+                latencyTimer.record(() -> handler.accept(items));
+            } catch (RuntimeException e) {
+                log.error("Pipeline stage '{}' failed on a batch of {} item(s)", name, items.size(), e);
+            }
+        }
+    }
+
+    /**
+     * Takes up to {@code max-batch} items of the next lane. The caller holds one permit, so at least one item is
+     * queued; every further item taken consumes another permit.
+     */
+    private synchronized List<T> takeBatch() {
+        LaneQueue<T> lane = nextLane();
+        long now = System.nanoTime();
+        List<T> items = new ArrayList<>(maxBatch);
+
+        Queued<T> queued = lane.queue.poll();
+        while (queued != null) {
+            lane.waitTimer.record(now - queued.enqueuedAt(), TimeUnit.NANOSECONDS);
+            items.add(queued.item());
+            if (items.size() == maxBatch || lane.queue.isEmpty() || !available.tryAcquire()) {
+                break;
+            }
+            queued = lane.queue.poll();
+        }
+        return items;
+    }
+
+    /**
+     * Smooth weighted round-robin over the lanes that have queued items.
+     */
+    private LaneQueue<T> nextLane() {
+        LaneQueue<T> selected = null;
+        int totalWeight = 0;
+        for (LaneQueue<T> lane : lanes.values()) {
+            if (lane.queue.isEmpty()) {
+                continue;
+            }
+            lane.currentWeight += lane.weight;
+            totalWeight += lane.weight;
+            if (selected == null || lane.currentWeight > selected.currentWeight) {
+                selected = lane;
+            }
+        }
+        selected.currentWeight -= totalWeight;
+        return selected;
+    }
+
+    private record Queued<T>(T item, long enqueuedAt) {}
+
+    private static final class LaneQueue<T> {
+        private final BlockingQueue<Queued<T>> queue;
+        private final int weight;
+        private final Timer waitTimer;
+        private int currentWeight;
+
+        private LaneQueue(BlockingQueue<Queued<T>> queue, int weight, Timer waitTimer) {
+            this.queue = queue;
+            this.weight = weight;
+            this.waitTimer = waitTimer;
+        }
+    }
+}
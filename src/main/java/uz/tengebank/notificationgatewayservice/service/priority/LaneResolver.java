@@ -0,0 +1,37 @@
+package uz.tengebank.notificationgatewayservice.service.priority;
+
+import org.springframework.stereotype.Component;
+import uz.tengebank.notificationcontracts.dto.NotificationRequest;
+import uz.tengebank.notificationgatewayservice.config.props.ApplicationProperties;
+import uz.tengebank.notificationgatewayservice.dto.notification.Lane;
+
+/**
+ * Derives a request's lane from its template: templates listed under {@code transactional-templates} or
+ * {@code bulk-templates} go to that lane, everything else to {@code default-lane}.
+ */
+@Component
+public class LaneResolver {
+
+  private final ApplicationProperties.Priority props;
+
+  public LaneResolver(ApplicationProperties props) {
+    this.props = props.priority();
+  }
+
+  public Lane resolve(NotificationRequest request) {
+    if (props.transactionalTemplates().contains(request.templateCode())) {
+      return Lane.TRANSACTIONAL;
+    }
+    if (props.bulkTemplates().contains(request.templateCode())) {
+      return Lane.BULK;
+    }
+    return props.defaultLane();
+  }
+
+  /**
+   * AMQP message priority for the lane, see {@code queue-max-priority}.
+   */
+  public int messagePriority(Lane lane) {
+    return props.messagePriorities().getOrDefault(lane, 0);
+  }
+}
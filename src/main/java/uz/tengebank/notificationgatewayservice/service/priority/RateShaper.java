@@ -0,0 +1,44 @@
+package uz.tengebank.notificationgatewayservice.service.priority;
+
+import org.springframework.stereotype.Component;
+import uz.tengebank.notificationcontracts.dto.NotificationRequest;
+import uz.tengebank.notificationgatewayservice.config.props.ApplicationProperties;
+import uz.tengebank.notificationgatewayservice.dto.notification.Lane;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Paces dispatch with token buckets: one per channel, shared by all lanes so provider throughput contracts hold,
+ * and one per configured template, applied to bulk traffic only so a campaign cannot slow down transactional
+ * messages of the same template. Channels and templates without a configured limit are not shaped.
+ */
+@Component
+public class RateShaper {
+
+  private final Map<NotificationRequest.Channel, TokenBucket> channelBuckets = new EnumMap<>(NotificationRequest.Channel.class);
+  private final Map<String, TokenBucket> templateBuckets = new ConcurrentHashMap<>();
+
+  public RateShaper(ApplicationProperties props) {
+    var limits = props.rateLimits();
+    limits.channels().forEach((channel, limit) -> channelBuckets.put(channel, new TokenBucket(limit.permitsPerSecond(), limit.burst())));
+    limits.templates().forEach((template, limit) -> templateBuckets.put(template, new TokenBucket(limit.permitsPerSecond(), limit.burst())));
+  }
+
+  /**
+   * Blocks until {@code messages} messages of the given channel and template may be dispatched.
+   */
+  public void acquire(Lane lane, NotificationRequest.Channel channel, String templateCode, int messages) {
+    if (lane == Lane.BULK) {
+      var templateBucket = templateBuckets.get(templateCode);
+      if (templateBucket != null) {
+        templateBucket.acquire(messages);
+      }
+    }
+    var channelBucket = channelBuckets.get(channel);
+    if (channelBucket != null) {
+      channelBucket.acquire(messages);
+    }
+  }
+}
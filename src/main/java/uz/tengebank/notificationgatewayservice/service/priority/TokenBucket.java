@@ -0,0 +1,54 @@
+package uz.tengebank.notificationgatewayservice.service.priority;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
+
+/**
+ * Token bucket that refills at {@code permitsPerSecond} up to {@code burst} tokens. Callers reserve tokens
+ * up front and sleep until the reservation is due, so waiting callers are served in reservation order.
+ */
+final class TokenBucket {
+
+  private final double nanosPerPermit;
+  private final long maxStoredNanos;
+  private final LongSupplier nanoClock;
+  private long nextFreeNanos;
+
+  TokenBucket(double permitsPerSecond, int burst) {
+    this(permitsPerSecond, burst, System::nanoTime);
+  }
+
+  TokenBucket(double permitsPerSecond, int burst, LongSupplier nanoClock) {
+    this.nanosPerPermit = TimeUnit.SECONDS.toNanos(1) / permitsPerSecond;
+    this.maxStoredNanos = (long) (burst * nanosPerPermit);
+    this.nanoClock = nanoClock;
+    this.nextFreeNanos = nanoClock.getAsLong() - maxStoredNanos;
+  }
+
+  /**
+   * Takes {@code permits} tokens, sleeping until they are available.
+   */
+  void acquire(int permits) {
+    long waitNanos = reserve(permits);
+    while (waitNanos > 0) {
+      long deadline = nanoClock.getAsLong() + waitNanos;
+      LockSupport.parkNanos(waitNanos);
+      if (Thread.currentThread().isInterrupted()) {
+        return;
+      }
+      waitNanos = deadline - nanoClock.getAsLong();
+    }
+  }
+
+  /**
+   * Reserves {@code permits} tokens and returns how long the caller has to wait for them, in nanoseconds.
+   */
+  synchronized long reserve(int permits) {
+    long now = nanoClock.getAsLong();
+    // Unused time beyond the burst does not accumulate.
+    nextFreeNanos = Math.max(nextFreeNanos, now - maxStoredNanos);
+    nextFreeNanos += (long) (permits * nanosPerPermit);
+    return Math.max(0, nextFreeNanos - now);
+  }
+}
@@ -0,0 +1,211 @@
+package uz.tengebank.notificationgatewayservice.service.progress;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import uz.tengebank.notificationcontracts.dto.NotificationRequest;
+import uz.tengebank.notificationgatewayservice.config.props.ApplicationProperties;
+import uz.tengebank.notificationgatewayservice.dto.progress.NotificationProgress;
+
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Live progress of the requests processed by this instance, counted per channel from the render, dispatch and
+ * confirm paths.
+ * <p>
+ * Counters are atomics in one flat array per request, so updates never lock; the registry is a Caffeine cache
+ * bounded by {@code max-requests} and {@code retention} since the last update. A request started with a parent
+ * id (an AMQP intake chunk or a bulk campaign chunk) is tracked under its own id and also adds up under the parent
+ * id, as far as its chunks run on this instance. A request is finished when nothing started under it is running;
+ * {@link #opened} keeps it running while chunks are still to come.
+ */
+@Component
+public class ProgressRegistry {
+
+  private static final NotificationRequest.Channel[] CHANNELS = NotificationRequest.Channel.values();
+
+  private final Cache<UUID, RequestProgress> requests;
+
+  public ProgressRegistry(ApplicationProperties props, MeterRegistry meterRegistry) {
+    var progress = props.progress();
+    this.requests = Caffeine.newBuilder()
+        .maximumSize(progress.maxRequests())
+        .expireAfterAccess(progress.retention())
+        .build();
+    Gauge.builder("gateway.progress.tracked", requests, Cache::estimatedSize).register(meterRegistry);
+  }
+
+  public void started(NotificationRequest request) {
+    started(request, null);
+  }
+
+  /**
+   * @param parentRequestId the request {@code request} is a chunk of, {@code null} for none
+   */
+  public void started(NotificationRequest request, UUID parentRequestId) {
+    int destinationCount = request.destinations().size();
+    requests.asMap()
+        .computeIfAbsent(request.requestId(), id -> new RequestProgress(parentRequestId))
+        .start(destinationCount);
+    if (parentRequestId != null) {
+      requests.asMap()
+          .computeIfAbsent(parentRequestId, id -> new RequestProgress(null))
+          .start(destinationCount);
+    }
+  }
+
+  /**
+   * Keeps {@code requestId} running until {@link #completed} is called for it, while its chunks are being submitted.
+   */
+  public void opened(UUID requestId) {
+    requests.asMap()
+        .computeIfAbsent(requestId, id -> new RequestProgress(null))
+        .start(0);
+  }
+
+  public void completed(UUID requestId, boolean failed) {
+    var progress = requests.getIfPresent(requestId);
+    if (progress != null) {
+      progress.complete(failed);
+      var parent = parent(progress);
+      if (parent != null) {
+        parent.complete(failed);
+      }
+    }
+  }
+
+  public void rendered(UUID requestId, NotificationRequest.Channel channel, int messages) {
+    add(requestId, channel, Stage.RENDERED, messages);
+  }
+
+  public void dispatched(UUID requestId, NotificationRequest.Channel channel, int messages) {
+    add(requestId, channel, Stage.DISPATCHED, messages);
+  }
+
+  public void confirmed(UUID requestId, NotificationRequest.Channel channel, int messages) {
+    add(requestId, channel, Stage.CONFIRMED, messages);
+  }
+
+  /**
+   * Counts a failed attempt on {@code channel}, or a destination that failed altogether if {@code channel} is
+   * {@code null}.
+   */
+  public void failed(UUID requestId, NotificationRequest.Channel channel) {
+    if (channel == null) {
+      var progress = requests.getIfPresent(requestId);
+      if (progress != null) {
+        progress.failDestination();
+        var parent = parent(progress);
+        if (parent != null) {
+          parent.failDestination();
+        }
+      }
+      return;
+    }
+    add(requestId, channel, Stage.FAILED, 1);
+  }
+
+  public Optional<NotificationProgress> get(UUID requestId) {
+    return Optional.ofNullable(requests.getIfPresent(requestId)).map(progress -> progress.snapshot(requestId));
+  }
+
+  /**
+   * Increases with every update of the request, so pollers can skip unchanged snapshots; {@code -1} if unknown.
+   */
+  public long version(UUID requestId) {
+    var progress = requests.getIfPresent(requestId);
+    return progress != null ? progress.version.get() : -1;
+  }
+
+  private void add(UUID requestId, NotificationRequest.Channel channel, Stage stage, int messages) {
+    var progress = requests.getIfPresent(requestId);
+    if (progress != null) {
+      int index = channel.ordinal() * Stage.COUNT + stage.ordinal();
+      progress.add(index, messages);
+      var parent = parent(progress);
+      if (parent != null) {
+        parent.add(index, messages);
+      }
+    }
+  }
+
+  private RequestProgress parent(RequestProgress progress) {
+    return progress.parentRequestId != null ? requests.getIfPresent(progress.parentRequestId) : null;
+  }
+
+  private enum Stage {
+    RENDERED, DISPATCHED, CONFIRMED, FAILED;
+
+    private static final int COUNT = values().length;
+  }
+
+  private static final class RequestProgress {
+    private final UUID parentRequestId;
+    private final AtomicLongArray counters = new AtomicLongArray(CHANNELS.length * Stage.COUNT);
+    private final AtomicLong destinations = new AtomicLong();
+    private final AtomicLong failedDestinations = new AtomicLong();
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicLong version = new AtomicLong();
+    private final Instant acceptedAt = Instant.now();
+    private volatile boolean failed;
+    private volatile Instant completedAt;
+
+    private RequestProgress(UUID parentRequestId) {
+      this.parentRequestId = parentRequestId;
+    }
+
+    private void add(int index, int messages) {
+      counters.addAndGet(index, messages);
+      version.incrementAndGet();
+    }
+
+    private void failDestination() {
+      failedDestinations.incrementAndGet();
+      version.incrementAndGet();
+    }
+
+    private void start(int destinationCount) {
+      destinations.addAndGet(destinationCount);
+      running.incrementAndGet();
+      completedAt = null;
+      version.incrementAndGet();
+    }
+
+    private void complete(boolean chunkFailed) {
+      if (chunkFailed) {
+        failed = true;
+      }
+      if (running.decrementAndGet() == 0) {
+        completedAt = Instant.now();
+      }
+      version.incrementAndGet();
+    }
+
+    private NotificationProgress snapshot(UUID requestId) {
+      var channels = new EnumMap<NotificationRequest.Channel, NotificationProgress.ChannelProgress>(NotificationRequest.Channel.class);
+      for (var channel : CHANNELS) {
+        int base = channel.ordinal() * Stage.COUNT;
+        channels.put(channel, new NotificationProgress.ChannelProgress(
+            counters.get(base + Stage.RENDERED.ordinal()),
+            counters.get(base + Stage.DISPATCHED.ordinal()),
+            counters.get(base + Stage.CONFIRMED.ordinal()),
+            counters.get(base + Stage.FAILED.ordinal())
+        ));
+      }
+
+      var completed = completedAt;
+      var status = completed == null
+          ? NotificationProgress.Status.PROCESSING
+          : failed ? NotificationProgress.Status.FAILED : NotificationProgress.Status.COMPLETED;
+      return new NotificationProgress(requestId, status, destinations.get(), failedDestinations.get(), channels, acceptedAt, completed);
+    }
+  }
+}
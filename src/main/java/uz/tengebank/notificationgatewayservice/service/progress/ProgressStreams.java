@@ -0,0 +1,151 @@
+package uz.tengebank.notificationgatewayservice.service.progress;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import uz.tengebank.notificationgatewayservice.config.props.ApplicationProperties;
+import uz.tengebank.notificationgatewayservice.constants.CommonErrorCode;
+import uz.tengebank.notificationgatewayservice.dto.progress.NotificationProgress;
+import uz.tengebank.notificationgatewayservice.exception.ApiException;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Server-sent event streams of request progress. One scheduler thread polls the registry every
+ * {@code stream-interval} and hands a {@code progress} event for each subscriber whose request changed to a
+ * virtual thread of its own, so a slow client only holds up its own stream. A subscriber whose previous event is
+ * still being written after {@code stream-send-timeout} is dropped. The stream ends after the event that reports
+ * the request finished.
+ */
+@Slf4j
+@Component
+public class ProgressStreams {
+
+  private static final String EVENT_NAME = "progress";
+
+  private final ProgressRegistry progressRegistry;
+  private final long timeoutMillis;
+  private final long sendTimeoutNanos;
+  private final Set<Subscription> subscriptions = ConcurrentHashMap.newKeySet();
+  private final ScheduledExecutorService scheduler;
+  private final ExecutorService senders = Executors.newThreadPerTaskExecutor(
+      Thread.ofVirtual().name("progress-stream-", 0).factory());
+
+  public ProgressStreams(ProgressRegistry progressRegistry, ApplicationProperties props) {
+    this.progressRegistry = progressRegistry;
+    this.timeoutMillis = props.progress().streamTimeout().toMillis();
+    this.sendTimeoutNanos = props.progress().streamSendTimeout().toNanos();
+    this.scheduler = Executors.newSingleThreadScheduledExecutor(
+        Thread.ofPlatform().name("progress-streams").daemon().factory());
+    long intervalMillis = Math.max(1, props.progress().streamInterval().toMillis());
+    scheduler.scheduleWithFixedDelay(this::push, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+  }
+
+  public SseEmitter subscribe(UUID requestId) {
+    return subscribe(requestId, new SseEmitter(timeoutMillis));
+  }
+
+  SseEmitter subscribe(UUID requestId, SseEmitter emitter) {
+    if (progressRegistry.get(requestId).isEmpty()) {
+      throw new ApiException(CommonErrorCode.REQUEST_NOT_FOUND, "Request " + requestId + " is not tracked by this instance.");
+    }
+    var subscription = new Subscription(requestId, emitter);
+    subscription.emitter.onCompletion(() -> subscriptions.remove(subscription));
+    subscription.emitter.onTimeout(() -> subscriptions.remove(subscription));
+    subscription.emitter.onError(e -> subscriptions.remove(subscription));
+    subscriptions.add(subscription);
+    return subscription.emitter;
+  }
+
+  int subscriberCount() {
+    return subscriptions.size();
+  }
+
+  @PreDestroy
+  void shutdown() {
+    scheduler.shutdownNow();
+    senders.shutdownNow();
+    subscriptions.forEach(subscription -> subscription.emitter.complete());
+  }
+
+  /**
+   * Runs on the scheduler thread and never blocks on a client.
+   */
+  void push() {
+    long now = System.nanoTime();
+    for (var subscription : subscriptions) {
+      Future<?> inFlight = subscription.inFlight;
+      if (inFlight != null && !inFlight.isDone()) {
+        if (now - subscription.sendStartedAt > sendTimeoutNanos) {
+          drop(subscription, inFlight);
+        }
+        continue;
+      }
+
+      long version = progressRegistry.version(subscription.requestId);
+      if (version == subscription.sentVersion) {
+        continue;
+      }
+      subscription.sendStartedAt = now;
+      subscription.inFlight = senders.submit(() -> send(subscription, version));
+    }
+  }
+
+  private void drop(Subscription subscription, Future<?> inFlight) {
+    subscriptions.remove(subscription);
+    inFlight.cancel(true);
+    log.debug("Progress stream for request {} dropped: event not accepted within {} ms",
+        subscription.requestId, TimeUnit.NANOSECONDS.toMillis(sendTimeoutNanos));
+    // Completing waits for the emitter's write lock, which the stuck send may still hold.
+    senders.execute(() -> subscription.emitter.completeWithError(new TimeoutException("Progress event not accepted in time")));
+  }
+
+  private void send(Subscription subscription, long version) {
+    try {
+      var progress = progressRegistry.get(subscription.requestId).orElse(null);
+      if (progress == null) {
+        // Evicted from the registry; nothing more will be reported.
+        subscriptions.remove(subscription);
+        subscription.emitter.complete();
+        return;
+      }
+
+      subscription.emitter.send(SseEmitter.event().name(EVENT_NAME).data(progress));
+      subscription.sentVersion = version;
+      if (progress.status() != NotificationProgress.Status.PROCESSING) {
+        subscriptions.remove(subscription);
+        subscription.emitter.complete();
+      }
+    } catch (IOException | RuntimeException e) {
+      // A subscriber dropped for being slow is completed by drop(); the interrupted send lands here as well.
+      if (subscriptions.remove(subscription)) {
+        log.debug("Progress stream for request {} failed: {}", subscription.requestId, e.getMessage());
+        subscription.emitter.completeWithError(e);
+      }
+    }
+  }
+
+  private static final class Subscription {
+    private final UUID requestId;
+    private final SseEmitter emitter;
+    private volatile long sentVersion = -1;
+    // Only touched by the scheduler thread.
+    private Future<?> inFlight;
+    private long sendStartedAt;
+
+    private Subscription(UUID requestId, SseEmitter emitter) {
+      this.requestId = requestId;
+      this.emitter = emitter;
+    }
+  }
+}
@@ -0,0 +1,134 @@
+package uz.tengebank.notificationgatewayservice.service.render;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import uz.tengebank.notificationcontracts.dto.NotificationRequest;
+import uz.tengebank.notificationgatewayservice.config.props.ApplicationProperties;
+import uz.tengebank.notificationgatewayservice.constants.CommonErrorCode;
+import uz.tengebank.notificationgatewayservice.dto.ApiResponse;
+import uz.tengebank.notificationgatewayservice.dto.template.TemplateType;
+import uz.tengebank.notificationgatewayservice.dto.template.batch.BatchRenderRequest;
+import uz.tengebank.notificationgatewayservice.dto.template.batch.RenderResult;
+import uz.tengebank.notificationgatewayservice.exception.ApiException;
+import uz.tengebank.notificationgatewayservice.service.TemplateServiceClient;
+import uz.tengebank.notificationgatewayservice.service.template.TemplateCache;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Renders a request's destinations in fixed-size chunks instead of one batch call for the whole request, so
+ * dispatching can start with the first chunk and only a bounded number of render results is held in memory.
+ * <p>
+ * In {@code LOCAL} mode tasks are first rendered by {@link LocalTemplateRenderer}; only the tasks it cannot
+ * handle are sent to the remote batch endpoint.
+ * <p>
+ * Results are returned as {@link RenderResults}; each task's recipient id is its slot number there.
+ */
+@Slf4j
+@Component
+public class ChunkedBatchRenderer {
+
+  private final TemplateServiceClient templateServiceClient;
+  private final TemplateCache templateCache;
+  private final LocalTemplateRenderer localTemplateRenderer;
+  private final ApplicationProperties.Render props;
+
+  public ChunkedBatchRenderer(
+      TemplateServiceClient templateServiceClient,
+      TemplateCache templateCache,
+      LocalTemplateRenderer localTemplateRenderer,
+      ApplicationProperties props
+  ) {
+    this.templateServiceClient = templateServiceClient;
+    this.templateCache = templateCache;
+    this.localTemplateRenderer = localTemplateRenderer;
+    this.props = props.render();
+  }
+
+  /**
+   * Splits the destinations into views of at most {@code chunk-size} destinations.
+   */
+  public List<List<NotificationRequest.Destination>> chunks(List<NotificationRequest.Destination> destinations) {
+    var chunks = new ArrayList<List<NotificationRequest.Destination>>((destinations.size() + props.chunkSize() - 1) / props.chunkSize());
+    for (int from = 0; from < destinations.size(); from += props.chunkSize()) {
+      chunks.add(destinations.subList(from, Math.min(from + props.chunkSize(), destinations.size())));
+    }
+    return chunks;
+  }
+
+  public RenderResults renderChunk(NotificationRequest request, List<NotificationRequest.Destination> chunk) {
+    var channels = request.channels();
+    var renderTasks = new ArrayList<BatchRenderRequest.RenderTask>(chunk.size() * channels.size());
+    for (int i = 0; i < chunk.size(); i++) {
+      var destination = chunk.get(i);
+      for (var channel : channels) {
+        renderTasks.add(new BatchRenderRequest.RenderTask(
+            Integer.toString(RenderResults.slot(i, channel)),
+            destination.lang(),
+            TemplateType.valueOf(channel.name()),
+            destination.variables()
+        ));
+      }
+    }
+
+    var results = new RenderResults(chunk.size());
+    var remoteTasks = renderLocally(request.templateCode(), renderTasks, results);
+
+    if (!remoteTasks.isEmpty()) {
+      BatchRenderRequest batchRequest = new BatchRenderRequest(request.templateCode(), remoteTasks);
+      ApiResponse<List<RenderResult>> renderApiResponse = templateServiceClient.renderBatch(batchRequest);
+
+      if (renderApiResponse.status() == ApiResponse.Status.ERROR) {
+        throw new ApiException(CommonErrorCode.TEMPLATE_SERVICE_EXCEPTION, renderApiResponse.error().message());
+      }
+      renderApiResponse.data().forEach(result -> putRemote(results, result));
+    }
+
+    log.debug("Rendered chunk of {} task(s) for request {} ({} remotely)",
+        renderTasks.size(), request.requestId(), remoteTasks.size());
+    return results;
+  }
+
+  private static void putRemote(RenderResults results, RenderResult result) {
+    int slot;
+    try {
+      slot = Integer.parseInt(result.recipientId());
+    } catch (NumberFormatException e) {
+      slot = -1;
+    }
+    if (!results.isSlot(slot)) {
+      log.warn("Ignoring render result for unknown recipient id '{}'", result.recipientId());
+      return;
+    }
+    results.put(slot, result);
+  }
+
+  /**
+   * Renders what the local engine supports into {@code results} and returns the tasks left for the remote renderer.
+   */
+  private List<BatchRenderRequest.RenderTask> renderLocally(
+      String templateCode,
+      List<BatchRenderRequest.RenderTask> renderTasks,
+      RenderResults results
+  ) {
+    if (props.mode() != ApplicationProperties.Render.Mode.LOCAL) {
+      return renderTasks;
+    }
+    var template = templateCache.get(templateCode).template();
+    if (template == null) {
+      return renderTasks;
+    }
+
+    var remoteTasks = new ArrayList<BatchRenderRequest.RenderTask>();
+    for (var task : renderTasks) {
+      var rendered = localTemplateRenderer.render(template, task);
+      if (rendered != null) {
+        results.put(Integer.parseInt(task.recipientId()), RenderResult.success(task.recipientId(), rendered));
+      } else {
+        remoteTasks.add(task);
+      }
+    }
+    return remoteTasks;
+  }
+}
@@ -0,0 +1,150 @@
+package uz.tengebank.notificationgatewayservice.service.render;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A template string parsed once into alternating literal and variable segments.
+ * <p>
+ * Only plain variable substitution is supported: {@code {{variable}}}, {@code {{{variable}}}} and
+ * {@code {{& variable}}}. Sections, partials, comments and dotted paths compile to {@link #UNSUPPORTED} so that
+ * such templates keep going to the remote renderer.
+ * <p>
+ * Escaping follows Mustache, but only for HTML parts: there {@code {{variable}}} escapes {@code & < > " '} and
+ * the triple-brace and {@code &} forms do not. Plain-text parts write every value as is.
+ */
+final class CompiledTemplate {
+
+  static final CompiledTemplate UNSUPPORTED = new CompiledTemplate(new String[0], new String[0], new boolean[0], 0);
+
+  private static final String OPEN = "{{";
+  private static final String CLOSE = "}}";
+  private static final String RAW_OPEN = "{{{";
+  private static final String RAW_CLOSE = "}}}";
+  private static final char RAW_MARKER = '&';
+  private static final int ESTIMATED_VARIABLE_LENGTH = 16;
+
+  // literals.length == variables.length + 1
+  private final String[] literals;
+  private final String[] variables;
+  private final boolean[] escaped;
+  private final int literalLength;
+
+  private CompiledTemplate(String[] literals, String[] variables, boolean[] escaped, int literalLength) {
+    this.literals = literals;
+    this.variables = variables;
+    this.escaped = escaped;
+    this.literalLength = literalLength;
+  }
+
+  /**
+   * Compiles {@code source}; {@code html} says whether the rendered part is HTML, so that {@code {{variable}}}
+   * values are escaped.
+   */
+  static CompiledTemplate compile(String source, boolean html) {
+    List<String> literals = new ArrayList<>();
+    List<String> variables = new ArrayList<>();
+    List<Boolean> escaped = new ArrayList<>();
+    int literalLength = 0;
+    int position = 0;
+
+    while (true) {
+      int open = source.indexOf(OPEN, position);
+      if (open < 0) {
+        literals.add(source.substring(position));
+        literalLength += source.length() - position;
+        break;
+      }
+      boolean tripleBrace = source.startsWith(RAW_OPEN, open);
+      String tagOpen = tripleBrace ? RAW_OPEN : OPEN;
+      String tagClose = tripleBrace ? RAW_CLOSE : CLOSE;
+      int close = source.indexOf(tagClose, open + tagOpen.length());
+      if (close < 0) {
+        return UNSUPPORTED;
+      }
+      String name = source.substring(open + tagOpen.length(), close).strip();
+      boolean raw = tripleBrace;
+      if (!tripleBrace && !name.isEmpty() && name.charAt(0) == RAW_MARKER) {
+        raw = true;
+        name = name.substring(1).strip();
+      }
+      if (!isPlainVariable(name)) {
+        return UNSUPPORTED;
+      }
+
+      literals.add(source.substring(position, open));
+      literalLength += open - position;
+      variables.add(name);
+      escaped.add(html && !raw);
+      position = close + tagClose.length();
+    }
+
+    boolean[] escapedFlags = new boolean[escaped.size()];
+    for (int i = 0; i < escapedFlags.length; i++) {
+      escapedFlags[i] = escaped.get(i);
+    }
+    return new CompiledTemplate(literals.toArray(String[]::new), variables.toArray(String[]::new), escapedFlags,
+        literalLength);
+  }
+
+  boolean isSupported() {
+    return this != UNSUPPORTED;
+  }
+
+  /**
+   * Returns the rendered text, or {@code null} when a referenced variable is missing.
+   */
+  String render(Map<String, Object> values) {
+    if (variables.length == 0) {
+      return literals[0];
+    }
+
+    StringBuilder out = new StringBuilder(literalLength + variables.length * ESTIMATED_VARIABLE_LENGTH);
+    for (int i = 0; i < variables.length; i++) {
+      Object value = values != null ? values.get(variables[i]) : null;
+      if (value == null) {
+        return null;
+      }
+      out.append(literals[i]);
+      if (escaped[i]) {
+        appendEscaped(out, value.toString());
+      } else {
+        out.append(value);
+      }
+    }
+    return out.append(literals[variables.length]).toString();
+  }
+
+  private static void appendEscaped(StringBuilder out, String value) {
+    int start = 0;
+    for (int i = 0; i < value.length(); i++) {
+      String replacement = switch (value.charAt(i)) {
+        case '&' -> "&amp;";
+        case '<' -> "&lt;";
+        case '>' -> "&gt;";
+        case '"' -> "&quot;";
+        case '\'' -> "&#39;";
+        default -> null;
+      };
+      if (replacement != null) {
+        out.append(value, start, i).append(replacement);
+        start = i + 1;
+      }
+    }
+    out.append(value, start, value.length());
+  }
+
+  private static boolean isPlainVariable(String name) {
+    if (name.isEmpty()) {
+      return false;
+    }
+    for (int i = 0; i < name.length(); i++) {
+      char c = name.charAt(i);
+      if (!Character.isLetterOrDigit(c) && c != '_' && c != '-') {
+        return false;
+      }
+    }
+    return true;
+  }
+}
@@ -0,0 +1,109 @@
+package uz.tengebank.notificationgatewayservice.service.render;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import uz.tengebank.notificationgatewayservice.config.props.ApplicationProperties;
+import uz.tengebank.notificationgatewayservice.dto.template.NotificationTemplateResponseDto;
+import uz.tengebank.notificationgatewayservice.dto.template.batch.BatchRenderRequest;
+import uz.tengebank.notificationgatewayservice.dto.template.batch.RenderResult;
+import uz.tengebank.notificationgatewayservice.service.template.TemplateVersionChangedEvent;
+
+import java.util.Map;
+
+/**
+ * Renders templates in-process from the cached {@link NotificationTemplateResponseDto}.
+ * <p>
+ * Each template part is compiled once per name, version and language. A task is rendered locally only when
+ * every part it needs is present and supported and all referenced variables are provided; otherwise
+ * {@link #render} returns {@code null} and the caller sends the task to the remote batch renderer.
+ * <p>
+ * SMS text and push title, body and image URL are plain text, so variable values are substituted unescaped.
+ */
+@Slf4j
+@Component
+public class LocalTemplateRenderer {
+
+  private final Cache<CompiledKey, CompiledTemplate> compiled;
+
+  public LocalTemplateRenderer(ApplicationProperties props) {
+    this.compiled = Caffeine.newBuilder()
+        .maximumSize(props.render().compiledCacheSize())
+        .build();
+  }
+
+  public RenderResult.RenderedTemplate render(NotificationTemplateResponseDto template, BatchRenderRequest.RenderTask task) {
+    return switch (task.type()) {
+      case SMS -> renderSms(template, task);
+      case PUSH -> renderPush(template, task);
+    };
+  }
+
+  @EventListener
+  public void onTemplateVersionChanged(TemplateVersionChangedEvent event) {
+    compiled.asMap().keySet().removeIf(key -> key.templateName().equals(event.templateName()));
+  }
+
+  private RenderResult.RenderedTemplate renderSms(NotificationTemplateResponseDto template, BatchRenderRequest.RenderTask task) {
+    if (template.smsTemplate() == null) {
+      return null;
+    }
+    String body = renderPart(template, Part.SMS_CONTENT, template.smsTemplate().content(), task);
+    return body != null ? new RenderResult.RenderedTemplate(null, body, null) : null;
+  }
+
+  private RenderResult.RenderedTemplate renderPush(NotificationTemplateResponseDto template, BatchRenderRequest.RenderTask task) {
+    var push = template.pushTemplate();
+    if (push == null) {
+      return null;
+    }
+
+    String body = renderPart(template, Part.PUSH_BODY, push.body(), task);
+    if (body == null) {
+      return null;
+    }
+    String title = null;
+    if (hasPart(push.title(), task.lang())) {
+      title = renderPart(template, Part.PUSH_TITLE, push.title(), task);
+      if (title == null) {
+        return null;
+      }
+    }
+
+    String imageUrl = null;
+    if (hasPart(push.imageUrl(), task.lang())) {
+      imageUrl = renderPart(template, Part.PUSH_IMAGE_URL, push.imageUrl(), task);
+      if (imageUrl == null) {
+        return null;
+      }
+    }
+
+    return new RenderResult.RenderedTemplate(title, body, imageUrl);
+  }
+
+  private static boolean hasPart(Map<String, String> byLang, String lang) {
+    return byLang != null && byLang.get(lang) != null;
+  }
+
+  private String renderPart(
+      NotificationTemplateResponseDto template, Part part, Map<String, String> byLang, BatchRenderRequest.RenderTask task
+  ) {
+    if (byLang == null) {
+      return null;
+    }
+    String source = byLang.get(task.lang());
+    if (source == null) {
+      return null;
+    }
+
+    var key = new CompiledKey(template.name(), template.version(), task.lang(), part);
+    CompiledTemplate compiledTemplate = compiled.get(key, k -> CompiledTemplate.compile(source, false));
+    return compiledTemplate.isSupported() ? compiledTemplate.render(task.variables()) : null;
+  }
+
+  private enum Part { SMS_CONTENT, PUSH_TITLE, PUSH_BODY, PUSH_IMAGE_URL }
+
+  private record CompiledKey(String templateName, Long version, String lang, Part part) {}
+}
@@ -0,0 +1,69 @@
+package uz.tengebank.notificationgatewayservice.service.render;
+
+import uz.tengebank.notificationcontracts.dto.NotificationRequest;
+import uz.tengebank.notificationgatewayservice.dto.template.batch.RenderResult;
+
+/**
+ * Render results of one chunk, addressed by the destination's position in the chunk and the channel:
+ * slot {@code destination * CHANNELS + channel.ordinal()}. The slot number doubles as the render task's
+ * recipient id, so remote results are placed by parsing it back and lookups allocate nothing.
+ * <p>
+ * Written by a single renderer thread before the chunk is handed on; read-only afterwards.
+ */
+public final class RenderResults {
+
+  static final int CHANNELS = NotificationRequest.Channel.values().length;
+
+  private final RenderResult[] slots;
+  private final int offset;
+
+  RenderResults(int destinations) {
+    this(new RenderResult[destinations * CHANNELS], 0);
+  }
+
+  private RenderResults(RenderResult[] slots, int offset) {
+    this.slots = slots;
+    this.offset = offset;
+  }
+
+  static int slot(int destination, NotificationRequest.Channel channel) {
+    return destination * CHANNELS + channel.ordinal();
+  }
+
+  /**
+   * Result for the destination at {@code destination} (relative to this view) on {@code channel}, or
+   * {@code null} if none was rendered.
+   */
+  public RenderResult get(int destination, NotificationRequest.Channel channel) {
+    return slots[slot(offset + destination, channel)];
+  }
+
+  /**
+   * View whose destination positions start at {@code fromDestination} of this one, for a partition of the chunk.
+   */
+  public RenderResults from(int fromDestination) {
+    return new RenderResults(slots, offset + fromDestination);
+  }
+
+  /**
+   * Number of destinations of this view rendered successfully on {@code channel}.
+   */
+  public int successes(NotificationRequest.Channel channel) {
+    int count = 0;
+    for (int slot = slot(offset, channel); slot < slots.length; slot += CHANNELS) {
+      var result = slots[slot];
+      if (result != null && Boolean.TRUE.equals(result.success())) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  void put(int slot, RenderResult result) {
+    slots[slot] = result;
+  }
+
+  boolean isSlot(int slot) {
+    return slot >= 0 && slot < slots.length;
+  }
+}
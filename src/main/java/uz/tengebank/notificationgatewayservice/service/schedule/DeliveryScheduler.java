@@ -0,0 +1,115 @@
+package uz.tengebank.notificationgatewayservice.service.schedule;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import uz.tengebank.notificationcontracts.dto.NotificationRequest;
+import uz.tengebank.notificationgatewayservice.config.props.ApplicationProperties;
+import uz.tengebank.notificationgatewayservice.constants.CommonErrorCode;
+import uz.tengebank.notificationgatewayservice.dto.notification.DeliveryOptions;
+import uz.tengebank.notificationgatewayservice.dto.notification.Lane;
+import uz.tengebank.notificationgatewayservice.exception.ApiException;
+
+import java.time.Clock;
+import java.time.DateTimeException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+
+/**
+ * Works out how long a destination's messages are held back. The messages are published right away through the
+ * delayed exchange with that delay, so scheduled work is held by the broker and costs the gateway nothing.
+ * <p>
+ * A message is held until {@code sendAt} and, in the bulk lane, until the quiet hours of the destination's time
+ * zone (variable {@code timezone}, else {@code default-zone}) are over. Held messages are spread over
+ * {@code release-spread} in {@code release-slots} steps picked by destination id, so releases at the top of the
+ * hour do not arrive at once.
+ */
+@Component
+public class DeliveryScheduler {
+
+  /**
+   * Largest {@code x-delay} the delayed-message plugin accepts.
+   */
+  public static final Duration MAX_DELAY = Duration.ofMillis(0xFFFFFFFFL);
+
+  private static final String TIMEZONE_VARIABLE = "timezone";
+
+  private final ApplicationProperties.Schedule props;
+  private final Clock clock;
+
+  @Autowired
+  public DeliveryScheduler(ApplicationProperties props) {
+    this(props, Clock.systemUTC());
+  }
+
+  DeliveryScheduler(ApplicationProperties props, Clock clock) {
+    this.props = props.schedule();
+    this.clock = clock;
+  }
+
+  /**
+   * Rejects a send-at time that the delayed exchange cannot hold.
+   */
+  public void validate(Instant sendAt) {
+    if (sendAt != null && Duration.between(clock.instant(), sendAt).compareTo(MAX_DELAY) > 0) {
+      throw new ApiException(CommonErrorCode.INVALID_SCHEDULE, "Send-at time " + sendAt + " is more than " + MAX_DELAY.toDays() + " days ahead.");
+    }
+  }
+
+  /**
+   * Delay in milliseconds to publish the destination's messages with, {@code 0} to send immediately.
+   */
+  public long delayMillis(DeliveryOptions options, NotificationRequest.Destination destination) {
+    Instant now = clock.instant();
+    Instant releaseAt = options.sendAt() != null && options.sendAt().isAfter(now) ? options.sendAt() : now;
+
+    if (options.lane() == Lane.BULK && props.quietHoursStart() != null && props.quietHoursEnd() != null) {
+      releaseAt = afterQuietHours(releaseAt, zoneOf(destination));
+    }
+    if (releaseAt == now) {
+      return 0;
+    }
+
+    releaseAt = releaseAt.plus(releaseOffset(destination));
+    long delay = Math.min(Duration.between(now, releaseAt).toMillis(), MAX_DELAY.toMillis());
+    return delay >= props.minDelay().toMillis() ? delay : 0;
+  }
+
+  private Instant afterQuietHours(Instant instant, ZoneId zone) {
+    ZonedDateTime local = instant.atZone(zone);
+    LocalTime time = local.toLocalTime();
+    LocalTime start = props.quietHoursStart();
+    LocalTime end = props.quietHoursEnd();
+
+    if (start.isBefore(end)) {
+      // Window within one day, e.g. 13:00-14:00.
+      return !time.isBefore(start) && time.isBefore(end) ? local.with(end).toInstant() : instant;
+    }
+    // Window across midnight, e.g. 22:00-08:00.
+    if (!time.isBefore(start)) {
+      return local.plusDays(1).with(end).toInstant();
+    }
+    return time.isBefore(end) ? local.with(end).toInstant() : instant;
+  }
+
+  private ZoneId zoneOf(NotificationRequest.Destination destination) {
+    var variables = destination.variables();
+    Object zone = variables != null ? variables.get(TIMEZONE_VARIABLE) : null;
+    if (zone != null) {
+      try {
+        return ZoneId.of(zone.toString());
+      } catch (DateTimeException e) {
+        // Unknown zone ids fall back to the default zone.
+      }
+    }
+    return props.defaultZone();
+  }
+
+  private Duration releaseOffset(NotificationRequest.Destination destination) {
+    int slots = Math.max(1, props.releaseSlots());
+    int slot = Math.floorMod(destination.id().hashCode(), slots);
+    return props.releaseSpread().dividedBy(slots).multipliedBy(slot);
+  }
+}
@@ -0,0 +1,83 @@
+package uz.tengebank.notificationgatewayservice.service.template;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Component;
+import uz.tengebank.notificationgatewayservice.config.props.ApplicationProperties;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Cuts tail latency of idempotent calls: when the first attempt has not answered within {@code hedge-delay},
+ * a second identical attempt is started and whichever succeeds first wins.
+ */
+@Component
+public class RequestHedger {
+
+  private static final int MAX_ATTEMPTS = 2;
+
+  private final Duration hedgeDelay;
+  private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+  public RequestHedger(ApplicationProperties props) {
+    this.hedgeDelay = props.services().notificationTemplateService().hedgeDelay();
+  }
+
+  public <T> T call(Supplier<T> call) {
+    if (hedgeDelay == null || hedgeDelay.isZero()) {
+      return call.get();
+    }
+
+    var result = new CompletableFuture<T>();
+    var failures = new AtomicInteger();
+    var primary = attempt(call, result, failures);
+
+    try {
+      return primary.get(hedgeDelay.toNanos(), TimeUnit.NANOSECONDS);
+    } catch (TimeoutException e) {
+      attempt(call, result, failures);
+    } catch (ExecutionException e) {
+      // The primary failed before the hedge delay; it is not retried here.
+      throw unwrap(e.getCause());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while waiting for a hedged call", e);
+    }
+
+    try {
+      return result.join();
+    } catch (CompletionException e) {
+      throw unwrap(e.getCause());
+    }
+  }
+
+  @PreDestroy
+  void shutdown() {
+    executor.shutdownNow();
+  }
+
+  private <T> CompletableFuture<T> attempt(Supplier<T> call, CompletableFuture<T> result, AtomicInteger failures) {
+    return CompletableFuture.supplyAsync(call, executor).whenComplete((value, ex) -> {
+      if (ex == null) {
+        result.complete(value);
+      } else if (failures.incrementAndGet() == MAX_ATTEMPTS) {
+        result.completeExceptionally(ex);
+      }
+    });
+  }
+
+  private static RuntimeException unwrap(Throwable cause) {
+    while (cause instanceof CompletionException && cause.getCause() != null) {
+      cause = cause.getCause();
+    }
+    return cause instanceof RuntimeException runtime ? runtime : new IllegalStateException(cause);
+  }
+}
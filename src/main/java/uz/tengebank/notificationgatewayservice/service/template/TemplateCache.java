@@ -0,0 +1,144 @@
+package uz.tengebank.notificationgatewayservice.service.template;
+
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.github.benmanes.caffeine.cache.Ticker;
+import feign.FeignException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cloud.client.circuitbreaker.NoFallbackAvailableException;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import uz.tengebank.notificationgatewayservice.config.props.ApplicationProperties;
+import uz.tengebank.notificationgatewayservice.dto.ApiResponse;
+import uz.tengebank.notificationgatewayservice.dto.template.NotificationTemplateResponseDto;
+import uz.tengebank.notificationgatewayservice.service.TemplateServiceClient;
+
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Bounded in-process cache of template lookups.
+ * <p>
+ * Concurrent misses for the same name share one remote call. Unknown templates are cached for the shorter
+ * {@code negative-ttl}. Entries older than {@code refresh-after} are served while being reloaded in the
+ * background; when the reload sees a new {@code version}, a {@link TemplateVersionChangedEvent} is published.
+ * A reload only replaces the cached lookup with a definite answer: an error response or a failed call keeps the
+ * previous lookup until it expires, and only a 404 evicts a known template.
+ * Hit, miss and eviction counts are exported as {@code cache.*} metrics named {@code templates}.
+ * Remote lookups are hedged through {@link RequestHedger}.
+ */
+@Slf4j
+@Component
+public class TemplateCache {
+
+  private final TemplateServiceClient templateServiceClient;
+  private final RequestHedger requestHedger;
+  private final ApplicationEventPublisher applicationEventPublisher;
+  private final LoadingCache<String, TemplateLookup> cache;
+
+  @Autowired
+  public TemplateCache(
+      TemplateServiceClient templateServiceClient,
+      RequestHedger requestHedger,
+      ApplicationEventPublisher applicationEventPublisher,
+      ApplicationProperties props,
+      MeterRegistry meterRegistry
+  ) {
+    this(templateServiceClient, requestHedger, applicationEventPublisher, props, meterRegistry,
+        Ticker.systemTicker(), ForkJoinPool.commonPool());
+  }
+
+  TemplateCache(
+      TemplateServiceClient templateServiceClient,
+      RequestHedger requestHedger,
+      ApplicationEventPublisher applicationEventPublisher,
+      ApplicationProperties props,
+      MeterRegistry meterRegistry,
+      Ticker ticker,
+      Executor refreshExecutor
+  ) {
+    this.templateServiceClient = templateServiceClient;
+    this.requestHedger = requestHedger;
+    this.applicationEventPublisher = applicationEventPublisher;
+
+    var cacheProps = props.templateCache();
+    this.cache = Caffeine.newBuilder()
+        .maximumSize(cacheProps.maxSize())
+        .expireAfter(Expiry.<String, TemplateLookup>writing((name, lookup) ->
+            lookup.isFound() ? cacheProps.ttl() : cacheProps.negativeTtl()))
+        .refreshAfterWrite(cacheProps.refreshAfter())
+        .ticker(ticker)
+        .executor(refreshExecutor)
+        .recordStats()
+        .build(new TemplateLoader());
+
+    CaffeineCacheMetrics.monitor(meterRegistry, cache, "templates");
+  }
+
+  public TemplateLookup get(String templateName) {
+    return cache.get(templateName);
+  }
+
+  public void invalidate(String templateName) {
+    cache.invalidate(templateName);
+  }
+
+  private TemplateLookup fetch(String templateName) {
+    var response = call(templateName);
+    if (response == null) {
+      return TemplateLookup.notFound("Template '" + templateName + "' not found.");
+    }
+    if (response.status() == ApiResponse.Status.ERROR) {
+      return TemplateLookup.notFound(response.error().message());
+    }
+    return TemplateLookup.found(response.data());
+  }
+
+  /**
+   * Returns the template service's response, or {@code null} if it answered 404.
+   */
+  private ApiResponse<NotificationTemplateResponseDto> call(String templateName) {
+    try {
+      return requestHedger.call(() -> templateServiceClient.getTemplateByName(templateName));
+    } catch (NoFallbackAvailableException e) {
+      // The circuit breaker wraps client errors; a 404 is an answer, not a failure.
+      if (e.getCause() instanceof FeignException.NotFound) {
+        return null;
+      }
+      throw e;
+    }
+  }
+
+  private final class TemplateLoader implements CacheLoader<String, TemplateLookup> {
+
+    @Override
+    public TemplateLookup load(String templateName) {
+      return fetch(templateName);
+    }
+
+    @Override
+    public TemplateLookup reload(String templateName, TemplateLookup previous) {
+      var response = call(templateName);
+      if (response != null && response.status() == ApiResponse.Status.ERROR) {
+        // Failing the reload keeps the previous lookup, which still expires on schedule.
+        throw new IllegalStateException("Refresh of template '" + templateName + "' failed: "
+            + (response.error() != null ? response.error().message() : "error response"));
+      }
+      TemplateLookup current = response == null
+          ? TemplateLookup.notFound("Template '" + templateName + "' not found.")
+          : TemplateLookup.found(response.data());
+      if (!Objects.equals(previous.version(), current.version())) {
+        log.info("Template '{}' changed: version {} -> {}", templateName, previous.version(), current.version());
+        applicationEventPublisher.publishEvent(
+            new TemplateVersionChangedEvent(templateName, previous.version(), current.version()));
+      }
+      return current;
+    }
+  }
+}
@@ -0,0 +1,28 @@
+package uz.tengebank.notificationgatewayservice.service.template;
+
+import uz.tengebank.notificationgatewayservice.dto.template.NotificationTemplateResponseDto;
+
+/**
+ * Cached outcome of a template lookup. A lookup without a template is a cached "unknown template" answer.
+ */
+public record TemplateLookup(
+        NotificationTemplateResponseDto template,
+        String errorMessage
+) {
+
+  public static TemplateLookup found(NotificationTemplateResponseDto template) {
+    return new TemplateLookup(template, null);
+  }
+
+  public static TemplateLookup notFound(String errorMessage) {
+    return new TemplateLookup(null, errorMessage);
+  }
+
+  public boolean isFound() {
+    return template != null;
+  }
+
+  public Long version() {
+    return template != null ? template.version() : null;
+  }
+}
@@ -0,0 +1,11 @@
+package uz.tengebank.notificationgatewayservice.service.template;
+
+/**
+ * Published when a refresh finds a template with a different version than the cached one.
+ */
+public record TemplateVersionChangedEvent(
+        String templateName,
+        Long previousVersion,
+        Long currentVersion
+) {
+}
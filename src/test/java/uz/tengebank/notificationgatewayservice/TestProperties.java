@@ -0,0 +1,50 @@
+package uz.tengebank.notificationgatewayservice;
+
+import uz.tengebank.notificationgatewayservice.config.props.ApplicationProperties;
+import uz.tengebank.notificationgatewayservice.dto.notification.Lane;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Properties for unit tests that wire gateway components by hand. Rate limits and quiet hours are off.
+ */
+public final class TestProperties {
+
+  private TestProperties() {
+  }
+
+  public static ApplicationProperties properties(int chunkSize) {
+    return properties(chunkSize, Duration.ofSeconds(30));
+  }
+
+  public static ApplicationProperties properties(int chunkSize, Duration confirmTimeout) {
+    return properties(chunkSize, confirmTimeout, new ApplicationProperties.FanOut(1, chunkSize));
+  }
+
+  public static ApplicationProperties properties(int chunkSize, Duration confirmTimeout, ApplicationProperties.FanOut fanOut) {
+    var stage = new ApplicationProperties.Pipeline.Stage(16, 1, 1);
+    return new ApplicationProperties(
+        null,
+        null,
+        null,
+        null,
+        new ApplicationProperties.Render(chunkSize, ApplicationProperties.Render.Mode.REMOTE, 0),
+        null,
+        null,
+        new ApplicationProperties.Push(500, 1000, true),
+        null,
+        new ApplicationProperties.Pipeline(stage, stage, stage, stage, stage),
+        fanOut,
+        null,
+        new ApplicationProperties.Priority(Lane.BULK, null, null, Map.of(Lane.TRANSACTIONAL, 4, Lane.BULK, 1),
+            Map.of(Lane.TRANSACTIONAL, 9, Lane.BULK, 1), false, 10),
+        new ApplicationProperties.RateLimits(null, null),
+        new ApplicationProperties.Schedule(null, null, null, Duration.ZERO, 1, Duration.ZERO),
+        new ApplicationProperties.Progress(1000, Duration.ofHours(1), Duration.ofSeconds(1), Duration.ofMinutes(1),
+            Duration.ofSeconds(5)),
+        new ApplicationProperties.Fallback(confirmTimeout),
+        new ApplicationProperties.Bulk(chunkSize)
+    );
+  }
+}
@@ -0,0 +1,48 @@
+package uz.tengebank.notificationgatewayservice;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import uz.tengebank.notificationcontracts.dto.NotificationRequest;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Builds notification requests for unit tests through Jackson, the same way the gateway receives them.
+ */
+public final class TestRequests {
+
+  public static final String TEMPLATE_CODE = "test-template";
+
+  private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+  private TestRequests() {
+  }
+
+  public static NotificationRequest request(UUID requestId, String strategy, List<String> channels, List<String> phones) {
+    var destinations = new ArrayList<Map<String, Object>>(phones.size());
+    for (int i = 0; i < phones.size(); i++) {
+      var destination = new HashMap<String, Object>();
+      destination.put("id", new UUID(requestId.getLeastSignificantBits(), i).toString());
+      destination.put("phone", phones.get(i));
+      destination.put("lang", "uz");
+      destination.put("variables", Map.of("name", "Client " + i));
+      destinations.add(destination);
+    }
+
+    var request = new LinkedHashMap<String, Object>();
+    request.put("requestId", requestId.toString());
+    request.put("templateCode", TEMPLATE_CODE);
+    request.put("destinations", destinations);
+    request.put("channels", channels);
+    request.put("deliveryStrategy", strategy);
+    return OBJECT_MAPPER.convertValue(request, NotificationRequest.class);
+  }
+
+  public static NotificationRequest smsRequest(UUID requestId) {
+    return request(requestId, "PARALLEL", List.of("SMS"), List.of("998901234567"));
+  }
+}
@@ -0,0 +1,70 @@
+package uz.tengebank.notificationgatewayservice.config;
+
+import feign.FeignException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.cloud.circuitbreaker.resilience4j.Resilience4JCircuitBreakerFactory;
+import org.springframework.cloud.circuitbreaker.resilience4j.Resilience4JConfigBuilder;
+import uz.tengebank.notificationgatewayservice.config.props.ApplicationProperties;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ResilienceConfigTest {
+
+  @Test
+  void clientErrorsDoNotOpenTheCircuit() {
+    var circuitBreaker = circuitBreaker();
+
+    for (int i = 0; i < 10; i++) {
+      circuitBreaker.onError(0, TimeUnit.MILLISECONDS, mock(FeignException.NotFound.class));
+    }
+
+    assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+  }
+
+  @Test
+  void serverErrorsOpenTheCircuit() {
+    var circuitBreaker = circuitBreaker();
+
+    for (int i = 0; i < 4; i++) {
+      circuitBreaker.onError(0, TimeUnit.MILLISECONDS, mock(FeignException.ServiceUnavailable.class));
+    }
+
+    assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+    assertThat(circuitBreaker.tryAcquirePermission()).isFalse();
+  }
+
+  @Test
+  void callsAreTimedOutAfterTheCallTimeout() {
+    assertThat(configuration().getTimeLimiterConfig().getTimeoutDuration()).isEqualTo(Duration.ofMillis(300));
+  }
+
+  private static CircuitBreaker circuitBreaker() {
+    return CircuitBreaker.of("templates", configuration().getCircuitBreakerConfig());
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Resilience4JConfigBuilder.Resilience4JCircuitBreakerConfiguration configuration() {
+    var props = mock(ApplicationProperties.class);
+    when(props.services()).thenReturn(new ApplicationProperties.Services(
+        new ApplicationProperties.NotificationTemplateService("http://templates", null, null,
+            new ApplicationProperties.NotificationTemplateService.CircuitBreaker(50, Duration.ofSeconds(1), 100, 4, 4,
+                Duration.ofMinutes(1), Duration.ofMillis(300)))));
+    var factory = mock(Resilience4JCircuitBreakerFactory.class);
+
+    new ResilienceConfig(props).templateServiceCircuitBreakerCustomizer().customize(factory);
+
+    ArgumentCaptor<Function<String, Resilience4JConfigBuilder.Resilience4JCircuitBreakerConfiguration>> defaults =
+        ArgumentCaptor.forClass(Function.class);
+    verify(factory).configureDefault(defaults.capture());
+    return defaults.getValue().apply("templates");
+  }
+}
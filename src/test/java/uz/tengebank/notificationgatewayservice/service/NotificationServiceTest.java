@@ -0,0 +1,240 @@
+package uz.tengebank.notificationgatewayservice.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import uz.tengebank.notificationcontracts.dto.NotificationRequest;
+import uz.tengebank.notificationgatewayservice.TestProperties;
+import uz.tengebank.notificationgatewayservice.config.props.ApplicationProperties;
+import uz.tengebank.notificationgatewayservice.dto.ApiResponse;
+import uz.tengebank.notificationgatewayservice.dto.notification.DeliveryOptions;
+import uz.tengebank.notificationgatewayservice.dto.notification.Lane;
+import uz.tengebank.notificationgatewayservice.dto.notification.PushPayload;
+import uz.tengebank.notificationgatewayservice.dto.notification.PushProvider;
+import uz.tengebank.notificationgatewayservice.dto.notification.PushToken;
+import uz.tengebank.notificationgatewayservice.dto.outbox.DeliveryOutcome;
+import uz.tengebank.notificationgatewayservice.dto.template.NotificationTemplateResponseDto;
+import uz.tengebank.notificationgatewayservice.dto.template.batch.BatchRenderRequest;
+import uz.tengebank.notificationgatewayservice.dto.template.batch.RenderResult;
+import uz.tengebank.notificationgatewayservice.repository.PushTokenRepository;
+import uz.tengebank.notificationgatewayservice.service.admission.Admission;
+import uz.tengebank.notificationgatewayservice.service.audit.EventPublisher;
+import uz.tengebank.notificationgatewayservice.service.dispatch.NotificationDispatcher;
+import uz.tengebank.notificationgatewayservice.service.intake.IntakeJournal;
+import uz.tengebank.notificationgatewayservice.service.metrics.DispatchMetrics;
+import uz.tengebank.notificationgatewayservice.service.priority.RateShaper;
+import uz.tengebank.notificationgatewayservice.service.progress.ProgressRegistry;
+import uz.tengebank.notificationgatewayservice.service.render.ChunkedBatchRenderer;
+import uz.tengebank.notificationgatewayservice.service.schedule.DeliveryScheduler;
+import uz.tengebank.notificationgatewayservice.service.template.TemplateCache;
+import uz.tengebank.notificationgatewayservice.service.template.TemplateLookup;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static uz.tengebank.notificationgatewayservice.TestRequests.TEMPLATE_CODE;
+import static uz.tengebank.notificationgatewayservice.TestRequests.request;
+
+class NotificationServiceTest {
+
+  private static final String PHONE = "998901111111";
+  private static final PushToken TOKEN = new PushToken("fcm-token", PushProvider.FCM, "ANDROID", "uz.tengebank.mobile");
+  private static final Duration CONFIRM_TIMEOUT = Duration.ofMillis(200);
+
+  private final PushTokenRepository pushTokenRepository = mock(PushTokenRepository.class);
+  private final TemplateCache templateCache = mock(TemplateCache.class);
+  private final NotificationDispatcher notificationDispatcher = mock(NotificationDispatcher.class);
+  private final EventPublisher eventPublisher = mock(EventPublisher.class);
+  private final IntakeJournal intakeJournal = mock(IntakeJournal.class);
+
+  private NotificationService notificationService;
+
+  @BeforeEach
+  void setUp() {
+    when(templateCache.get(TEMPLATE_CODE)).thenReturn(TemplateLookup.found(mock(NotificationTemplateResponseDto.class)));
+    when(notificationDispatcher.dispatchPush(any(), any(), anyLong(), anyBoolean()))
+        .thenReturn(CompletableFuture.completedFuture(DeliveryOutcome.CONFIRMED));
+    when(notificationDispatcher.dispatchSms(any(), any(), anyLong(), anyBoolean()))
+        .thenReturn(CompletableFuture.completedFuture(DeliveryOutcome.CONFIRMED));
+    notificationService = notificationService(TestProperties.properties(100, CONFIRM_TIMEOUT));
+  }
+
+  private NotificationService notificationService(ApplicationProperties props) {
+    var meterRegistry = new SimpleMeterRegistry();
+    return new NotificationService(
+        pushTokenRepository,
+        templateCache,
+        notificationDispatcher,
+        eventPublisher,
+        intakeJournal,
+        new ChunkedBatchRenderer(new RenderingEverything(), null, null, props),
+        props,
+        new RateShaper(props),
+        new DeliveryScheduler(props),
+        new DispatchMetrics(meterRegistry),
+        ObservationRegistry.NOOP,
+        new ProgressRegistry(props, meterRegistry),
+        meterRegistry
+    );
+  }
+
+  @AfterEach
+  void tearDown() throws InterruptedException {
+    notificationService.shutdown();
+  }
+
+  @Test
+  void pushDestinationWithoutPhoneIsSkippedInTokenLookup() throws InterruptedException {
+    var request = request(UUID.randomUUID(), "PARALLEL", List.of("PUSH"), Arrays.asList(PHONE, null));
+    when(pushTokenRepository.findTokensByPhones(any())).thenReturn(Map.of(PHONE, List.of(TOKEN)));
+
+    process(request);
+
+    @SuppressWarnings("unchecked")
+    ArgumentCaptor<Collection<String>> phones = ArgumentCaptor.forClass(Collection.class);
+    verify(pushTokenRepository).findTokensByPhones(phones.capture());
+    assertThat(phones.getValue()).containsExactly(PHONE);
+
+    var pushes = ArgumentCaptor.forClass(PushPayload.class);
+    verify(notificationDispatcher).dispatchPush(pushes.capture(), eq(Lane.BULK), eq(0L), eq(false));
+    assertThat(pushes.getValue().targets()).extracting(PushPayload.Target::token).containsExactly(TOKEN.token());
+    verify(eventPublisher, never()).publishRequestFailedEvent(any(), any(), any());
+    verify(intakeJournal).markCompleted(request.requestId());
+  }
+
+  @Test
+  void rejectedFallbackChannelIsFailedOverBeforeTheRequestCompletes() throws InterruptedException {
+    var request = request(UUID.randomUUID(), "FALLBACK", List.of("SMS", "PUSH"), List.of(PHONE));
+    when(pushTokenRepository.findTokensByPhones(any())).thenReturn(Map.of(PHONE, List.of(TOKEN)));
+    when(notificationDispatcher.dispatchSms(any(), any(), anyLong(), eq(true)))
+        .thenReturn(CompletableFuture.completedFuture(DeliveryOutcome.NACKED));
+
+    process(request);
+
+    var destinationId = request.destinations().getFirst().id();
+    var inOrder = inOrder(eventPublisher, notificationDispatcher);
+    inOrder.verify(eventPublisher).publishNotificationAttemptFailedEvent(eq(request), eq(destinationId), eq("BROKER_NACKED"), any());
+    inOrder.verify(notificationDispatcher).dispatchPush(any(), eq(Lane.BULK), eq(0L), eq(false));
+    inOrder.verify(eventPublisher).publishAttemptFailureSummary(request);
+    verify(eventPublisher, never()).publishNotificationAttemptFailedEvent(any(), any(), eq("CONFIRM_TIMEOUT"), any());
+  }
+
+  @Test
+  void fallbackDestinationStillUnconfirmedAfterTheTimeoutIsFailedBeforeTheRequestCompletes() throws InterruptedException {
+    var request = request(UUID.randomUUID(), "FALLBACK", List.of("SMS", "PUSH"), List.of(PHONE));
+    var smsOutcome = new CompletableFuture<DeliveryOutcome>();
+    when(pushTokenRepository.findTokensByPhones(any())).thenReturn(Map.of(PHONE, List.of(TOKEN)));
+    when(notificationDispatcher.dispatchSms(any(), any(), anyLong(), eq(true))).thenReturn(smsOutcome);
+
+    process(request);
+
+    var destinationId = request.destinations().getFirst().id();
+    var inOrder = inOrder(eventPublisher);
+    inOrder.verify(eventPublisher).publishNotificationAttemptFailedEvent(eq(request), eq(destinationId), eq("CONFIRM_TIMEOUT"), any());
+    inOrder.verify(eventPublisher).publishAttemptFailureSummary(request);
+
+    // A rejection arriving after the request completed is not failed over or reported any more.
+    smsOutcome.complete(DeliveryOutcome.NACKED);
+    TimeUnit.MILLISECONDS.sleep(100);
+    verify(eventPublisher, never()).publishNotificationAttemptFailedEvent(any(), any(), eq("BROKER_NACKED"), any());
+    verify(notificationDispatcher, never()).dispatchPush(any(), any(), anyLong(), anyBoolean());
+  }
+
+  @Test
+  void chunkIsDispatchedInConcurrentPartitions() throws InterruptedException {
+    useFanOut(new ApplicationProperties.FanOut(4, 2));
+    var request = request(UUID.randomUUID(), "PARALLEL", List.of("SMS"), phones(8));
+    var partitionsRunning = new CountDownLatch(4);
+    when(notificationDispatcher.dispatchSms(any(), any(), anyLong(), anyBoolean())).thenAnswer(invocation -> {
+      partitionsRunning.countDown();
+      // Only returns early if the first destination of every partition is being dispatched at the same time.
+      partitionsRunning.await(5, TimeUnit.SECONDS);
+      return CompletableFuture.completedFuture(DeliveryOutcome.CONFIRMED);
+    });
+
+    process(request);
+
+    assertThat(partitionsRunning.getCount()).isZero();
+    verify(notificationDispatcher, times(8)).dispatchSms(any(), any(), anyLong(), anyBoolean());
+    verify(intakeJournal).markCompleted(request.requestId());
+  }
+
+  @Test
+  void partitionsOfARequestRunAtMostMaxParallelismAtOnce() throws InterruptedException {
+    useFanOut(new ApplicationProperties.FanOut(2, 1));
+    var request = request(UUID.randomUUID(), "PARALLEL", List.of("SMS"), phones(8));
+    var running = new AtomicInteger();
+    var maxRunning = new AtomicInteger();
+    when(notificationDispatcher.dispatchSms(any(), any(), anyLong(), anyBoolean())).thenAnswer(invocation -> {
+      maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+      TimeUnit.MILLISECONDS.sleep(20);
+      running.decrementAndGet();
+      return CompletableFuture.completedFuture(DeliveryOutcome.CONFIRMED);
+    });
+
+    process(request);
+
+    assertThat(maxRunning.get()).isEqualTo(2);
+    verify(notificationDispatcher, times(8)).dispatchSms(any(), any(), anyLong(), anyBoolean());
+  }
+
+  private void useFanOut(ApplicationProperties.FanOut fanOut) throws InterruptedException {
+    notificationService.shutdown();
+    notificationService = notificationService(TestProperties.properties(100, CONFIRM_TIMEOUT, fanOut));
+  }
+
+  private static List<String> phones(int count) {
+    var phones = new ArrayList<String>(count);
+    for (int i = 0; i < count; i++) {
+      phones.add("99890" + String.format("%07d", i));
+    }
+    return phones;
+  }
+
+  private void process(NotificationRequest request) throws InterruptedException {
+    var completed = new CountDownLatch(1);
+    notificationService.processNotification(request, mock(Admission.class), new DeliveryOptions(Lane.BULK, null), completed::countDown);
+    assertThat(completed.await(10, TimeUnit.SECONDS)).isTrue();
+  }
+
+  /**
+   * Template service that renders every task successfully.
+   */
+  private static final class RenderingEverything implements TemplateServiceClient {
+
+    @Override
+    public ApiResponse<NotificationTemplateResponseDto> getTemplateByName(String templateName) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public ApiResponse<List<RenderResult>> renderBatch(BatchRenderRequest request) {
+      return ApiResponse.success(request.tasks().stream()
+          .map(task -> RenderResult.success(task.recipientId(), new RenderResult.RenderedTemplate("Title", "Body", null)))
+          .toList());
+    }
+  }
+}
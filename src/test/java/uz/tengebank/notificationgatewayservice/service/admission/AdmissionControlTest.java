@@ -0,0 +1,118 @@
+package uz.tengebank.notificationgatewayservice.service.admission;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import uz.tengebank.notificationgatewayservice.config.props.ApplicationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static uz.tengebank.notificationgatewayservice.TestRequests.request;
+import static uz.tengebank.notificationgatewayservice.TestRequests.smsRequest;
+
+class AdmissionControlTest {
+
+  private static final Duration RETRY_AFTER = Duration.ofSeconds(3);
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  @Test
+  void rejectsOnceTooManyRequestsAreInFlight() {
+    var admissionControl = admissionControl(2, 1_000, 10);
+    admissionControl.tryAdmit(smsRequest(UUID.randomUUID()));
+    var second = admissionControl.tryAdmit(smsRequest(UUID.randomUUID()));
+
+    assertThatThrownBy(() -> admissionControl.tryAdmit(smsRequest(UUID.randomUUID())))
+        .isInstanceOfSatisfying(AdmissionRejectedException.class,
+            e -> assertThat(e.getRetryAfter()).isEqualTo(RETRY_AFTER));
+    assertThat(meterRegistry.get("gateway.admission.rejected").counter().count()).isEqualTo(1);
+
+    second.close();
+    admissionControl.tryAdmit(smsRequest(UUID.randomUUID()));
+  }
+
+  @Test
+  void rejectsOnceTooManyDestinationsArePending() {
+    var admissionControl = admissionControl(10, 3, 10);
+    admissionControl.tryAdmit(request(UUID.randomUUID(), "PARALLEL", List.of("SMS"), phones(2)));
+
+    assertThatThrownBy(() -> admissionControl.tryAdmit(request(UUID.randomUUID(), "PARALLEL", List.of("SMS"), phones(2))))
+        .isInstanceOf(AdmissionRejectedException.class);
+    assertThat(gauge("gateway.admission.in_flight")).isEqualTo(1);
+    assertThat(gauge("gateway.admission.pending_destinations")).isEqualTo(2);
+  }
+
+  @Test
+  void oversizedRequestIsAdmittedWhenNothingElseIsPending() {
+    var admissionControl = admissionControl(10, 3, 10);
+
+    admissionControl.tryAdmit(request(UUID.randomUUID(), "PARALLEL", List.of("SMS"), phones(5)));
+
+    assertThat(gauge("gateway.admission.pending_destinations")).isEqualTo(5);
+  }
+
+  @Test
+  void rejectsOnceATemplateHasTooManyConcurrentRequests() {
+    var admissionControl = admissionControl(10, 1_000, 1);
+    var first = admissionControl.tryAdmit(smsRequest(UUID.randomUUID()));
+
+    assertThatThrownBy(() -> admissionControl.tryAdmit(smsRequest(UUID.randomUUID())))
+        .isInstanceOf(AdmissionRejectedException.class);
+    assertThat(gauge("gateway.admission.in_flight")).isEqualTo(1);
+
+    first.close();
+    admissionControl.tryAdmit(smsRequest(UUID.randomUUID()));
+  }
+
+  @Test
+  void closingReleasesEverythingOnce() {
+    var admissionControl = admissionControl(10, 1_000, 10);
+    var admission = admissionControl.tryAdmit(request(UUID.randomUUID(), "PARALLEL", List.of("SMS"), phones(3)));
+    admission.started();
+    assertThat(gauge("gateway.admission.queued")).isZero();
+
+    admission.close();
+    admission.close();
+
+    assertThat(gauge("gateway.admission.in_flight")).isZero();
+    assertThat(gauge("gateway.admission.pending_destinations")).isZero();
+    assertThat(gauge("gateway.admission.queued")).isZero();
+  }
+
+  @Test
+  void admitBypassesTheLimitsButStillCounts() {
+    var admissionControl = admissionControl(1, 1_000, 10);
+    admissionControl.tryAdmit(smsRequest(UUID.randomUUID()));
+
+    var replayed = admissionControl.admit(smsRequest(UUID.randomUUID()));
+
+    assertThat(gauge("gateway.admission.in_flight")).isEqualTo(2);
+    replayed.close();
+    assertThat(gauge("gateway.admission.in_flight")).isEqualTo(1);
+  }
+
+  private AdmissionControl admissionControl(int maxInFlightRequests, long maxPendingDestinations, int maxConcurrentPerTemplate) {
+    var props = mock(ApplicationProperties.class);
+    when(props.admission()).thenReturn(new ApplicationProperties.Admission(maxInFlightRequests, maxPendingDestinations,
+        maxConcurrentPerTemplate, RETRY_AFTER));
+    return new AdmissionControl(props, meterRegistry);
+  }
+
+  private double gauge(String name) {
+    return meterRegistry.get(name).gauge().value();
+  }
+
+  private static List<String> phones(int count) {
+    var phones = new ArrayList<String>(count);
+    for (int i = 0; i < count; i++) {
+      phones.add("99890" + String.format("%07d", i));
+    }
+    return phones;
+  }
+}
@@ -0,0 +1,114 @@
+package uz.tengebank.notificationgatewayservice.service.audit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.support.converter.MessageConverter;
+import uz.tengebank.notificationcontracts.dto.enums.IndividualNotificationStatus;
+import uz.tengebank.notificationcontracts.events.EventEnvelope;
+import uz.tengebank.notificationcontracts.events.EventFactory;
+import uz.tengebank.notificationcontracts.events.EventType;
+import uz.tengebank.notificationcontracts.payload.NotificationDestinationPayload;
+import uz.tengebank.notificationgatewayservice.config.props.ApplicationProperties;
+import uz.tengebank.notificationgatewayservice.service.outbox.PublishOutbox;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AuditBatcherTest {
+
+  // Long enough that the periodic flush never fires during a test.
+  private static final Duration FLUSH_INTERVAL = Duration.ofHours(1);
+
+  private final RabbitTemplate rabbitTemplate = mock(RabbitTemplate.class);
+  private final PublishOutbox publishOutbox = mock(PublishOutbox.class);
+
+  @Test
+  void arrayBatchesSendsAFlushAsOneMessage() throws InterruptedException {
+    var batcher = batcher(100, 10, true);
+
+    add(batcher, 3);
+    batcher.shutdown();
+
+    var messages = sent(1);
+    assertThat(messages.getFirst().getMessageProperties().<Integer>getHeader(AuditBatcher.BATCH_SIZE_HEADER)).isEqualTo(3);
+  }
+
+  @Test
+  void everyEnvelopeIsItsOwnMessageByDefault() throws InterruptedException {
+    var batcher = batcher(100, 10, false);
+
+    add(batcher, 3);
+    batcher.shutdown();
+
+    assertThat(sent(3)).allSatisfy(message ->
+        assertThat(message.getMessageProperties().getHeaders()).doesNotContainKey(AuditBatcher.BATCH_SIZE_HEADER));
+  }
+
+  @Test
+  void fullBatchIsFlushedWithoutWaitingForTheInterval() throws InterruptedException {
+    var batcher = batcher(100, 2, true);
+
+    add(batcher, 2);
+
+    verify(publishOutbox, timeout(5000)).send(eq("audit"), eq("notification.event"), any(Message.class));
+    batcher.shutdown();
+  }
+
+  @Test
+  void callerFlushesInlineWhenTheRingIsFull() throws InterruptedException {
+    var batcher = batcher(2, 10, true);
+
+    add(batcher, 3);
+
+    var messages = sent(1);
+    assertThat(messages.getFirst().getMessageProperties().<Integer>getHeader(AuditBatcher.BATCH_SIZE_HEADER)).isEqualTo(2);
+    batcher.shutdown();
+    sent(2);
+  }
+
+  private AuditBatcher batcher(int bufferCapacity, int batchSize, boolean arrayBatches) {
+    var converter = mock(MessageConverter.class);
+    when(converter.toMessage(any(), any(MessageProperties.class)))
+        .thenAnswer(invocation -> new Message(new byte[0], invocation.<MessageProperties>getArgument(1)));
+    when(rabbitTemplate.getMessageConverter()).thenReturn(converter);
+
+    var props = mock(ApplicationProperties.class);
+    when(props.rabbitmq()).thenReturn(new ApplicationProperties.RabbitMQ(
+        new ApplicationProperties.Exchanges("internal", "delayed", "audit"), null, null, null, null));
+    when(props.audit()).thenReturn(new ApplicationProperties.Audit(bufferCapacity, batchSize, FLUSH_INTERVAL, false,
+        100, arrayBatches));
+    return new AuditBatcher(rabbitTemplate, publishOutbox, props, new SimpleMeterRegistry());
+  }
+
+  private List<Message> sent(int count) {
+    var messages = ArgumentCaptor.forClass(Message.class);
+    verify(publishOutbox, times(count)).send(eq("audit"), eq("notification.event"), messages.capture());
+    return messages.getAllValues();
+  }
+
+  private static void add(AuditBatcher batcher, int count) {
+    for (int i = 0; i < count; i++) {
+      batcher.add(envelope());
+    }
+  }
+
+  private static EventEnvelope envelope() {
+    var payload = new NotificationDestinationPayload(UUID.randomUUID(), UUID.randomUUID(),
+        IndividualNotificationStatus.INTERNAL_FAILURE, "Rendering failed", "RENDER_RESULT_FAILED");
+    return EventFactory.create(payload, EventType.INDIVIDUAL_NOTIFICATION_INTERNAL_FAILURE_V1, "notification-gateway-service");
+  }
+}
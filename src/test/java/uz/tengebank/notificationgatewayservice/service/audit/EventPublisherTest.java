@@ -0,0 +1,97 @@
+package uz.tengebank.notificationgatewayservice.service.audit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.MockedStatic;
+import uz.tengebank.notificationcontracts.events.EventFactory;
+import uz.tengebank.notificationcontracts.events.EventType;
+import uz.tengebank.notificationcontracts.payload.NotificationDestinationPayload;
+import uz.tengebank.notificationcontracts.payload.Payload;
+import uz.tengebank.notificationgatewayservice.config.props.ApplicationProperties;
+import uz.tengebank.notificationgatewayservice.dto.audit.AttemptFailureSummaryPayload;
+import uz.tengebank.notificationgatewayservice.service.metrics.DispatchMetrics;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.when;
+import static uz.tengebank.notificationgatewayservice.TestRequests.request;
+
+class EventPublisherTest {
+
+  private final AuditBatcher auditBatcher = mock(AuditBatcher.class);
+  // Envelopes are built by the contracts library; the tests look at the payloads handed to it.
+  private final MockedStatic<EventFactory> eventFactory = mockStatic(EventFactory.class);
+
+  @AfterEach
+  void closeEventFactory() {
+    eventFactory.close();
+  }
+
+  @Test
+  void attemptFailuresArePublishedOneByOneByDefault() {
+    var publisher = publisher(false, 100);
+    var request = request(UUID.randomUUID(), "PARALLEL", List.of("SMS"), List.of("998901234567"));
+
+    publisher.publishNotificationAttemptFailedEvent(request, UUID.randomUUID(), "RENDER_RESULT_FAILED", "Rendering failed");
+
+    assertThat(published(EventType.INDIVIDUAL_NOTIFICATION_INTERNAL_FAILURE_V1))
+        .singleElement().isInstanceOf(NotificationDestinationPayload.class);
+  }
+
+  @Test
+  void summaryCountsEveryFailureButListsOnlyTheFirstDestinationIds() {
+    var publisher = publisher(true, 2);
+    var request = request(UUID.randomUUID(), "PARALLEL", List.of("SMS"),
+        List.of("998901234561", "998901234562", "998901234563", "998901234564"));
+    var destinations = request.destinations().stream().map(destination -> destination.id()).toList();
+
+    publisher.publishNotificationAttemptFailedEvent(request, destinations.get(0), "RENDER_RESULT_FAILED", "Rendering failed");
+    publisher.publishNotificationAttemptFailedEvent(request, destinations.get(1), "RENDER_RESULT_FAILED", "Missing variable");
+    publisher.publishNotificationAttemptFailedEvent(request, destinations.get(1), "PUBLISH_FAILED", "Nacked");
+    publisher.publishNotificationAttemptFailedEvent(request, destinations.get(2), "PUBLISH_FAILED", "Nacked");
+    eventFactory.verify(() -> EventFactory.create(any(), anyString(), anyString()), never());
+
+    publisher.publishAttemptFailureSummary(request);
+
+    var summary = (AttemptFailureSummaryPayload) published(EventPublisher.ATTEMPT_FAILURE_SUMMARY_V1).getFirst();
+    assertThat(summary.totalDestinations()).isEqualTo(4);
+    assertThat(summary.destinationsWithFailures()).isEqualTo(3);
+    assertThat(summary.destinationIds()).hasSize(2).isSubsetOf(destinations.subList(0, 3));
+    assertThat(summary.failuresByErrorCode()).containsOnlyKeys("RENDER_RESULT_FAILED", "PUBLISH_FAILED");
+    assertThat(summary.failuresByErrorCode().get("RENDER_RESULT_FAILED"))
+        .isEqualTo(new AttemptFailureSummaryPayload.ErrorCodeFailures(2, "Rendering failed"));
+    assertThat(summary.failuresByErrorCode().get("PUBLISH_FAILED").count()).isEqualTo(2);
+  }
+
+  @Test
+  void requestWithoutFailuresHasNoSummary() {
+    var publisher = publisher(true, 100);
+
+    publisher.publishAttemptFailureSummary(request(UUID.randomUUID(), "PARALLEL", List.of("SMS"), List.of("998901234567")));
+
+    eventFactory.verify(() -> EventFactory.create(any(), anyString(), anyString()), never());
+  }
+
+  private EventPublisher publisher(boolean summarizeAttemptFailures, int summaryMaxDestinationIds) {
+    var props = mock(ApplicationProperties.class);
+    when(props.audit()).thenReturn(new ApplicationProperties.Audit(100, 10, Duration.ofMillis(50),
+        summarizeAttemptFailures, summaryMaxDestinationIds, false));
+    return new EventPublisher(props, "notification-gateway-service", auditBatcher, mock(DispatchMetrics.class));
+  }
+
+  private List<Payload> published(String eventType) {
+    var payloads = ArgumentCaptor.forClass(Payload.class);
+    eventFactory.verify(() -> EventFactory.create(payloads.capture(), eq(eventType), eq("notification-gateway-service")));
+    return payloads.getAllValues();
+  }
+}
@@ -0,0 +1,175 @@
+package uz.tengebank.notificationgatewayservice.service.bulk;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import uz.tengebank.notificationcontracts.dto.NotificationRequest;
+import uz.tengebank.notificationgatewayservice.config.props.ApplicationProperties;
+import uz.tengebank.notificationgatewayservice.dto.bulk.BulkIngestionResult;
+import uz.tengebank.notificationgatewayservice.dto.notification.DeliveryOptions;
+import uz.tengebank.notificationgatewayservice.dto.notification.Lane;
+import uz.tengebank.notificationgatewayservice.exception.ApiException;
+import uz.tengebank.notificationgatewayservice.service.NotificationService;
+import uz.tengebank.notificationgatewayservice.service.admission.Admission;
+import uz.tengebank.notificationgatewayservice.service.admission.AdmissionControl;
+import uz.tengebank.notificationgatewayservice.service.idempotency.IdempotencyStore;
+import uz.tengebank.notificationgatewayservice.service.intake.IntakeJournal;
+import uz.tengebank.notificationgatewayservice.service.progress.ProgressRegistry;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static uz.tengebank.notificationgatewayservice.TestRequests.TEMPLATE_CODE;
+
+class BulkIngestionServiceTest {
+
+  private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper().findAndRegisterModules();
+
+  private final NotificationService notificationService = mock(NotificationService.class);
+  private final IntakeJournal intakeJournal = mock(IntakeJournal.class);
+  private final UUID campaignId = UUID.randomUUID();
+  private final BulkIngestionService service = service(2);
+
+  @Test
+  void ndjsonDestinationsAreSubmittedInChunksUnderTheCampaign() throws IOException {
+    var result = service.ingest(header(), BulkIngestionService.Format.NDJSON, ndjson(5), null);
+
+    assertThat(result).isEqualTo(new BulkIngestionResult(campaignId, BulkIngestionResult.Status.ACCEPTED, 3, 5, null));
+    var submitted = submitted(3);
+    assertThat(submitted.requests()).extracting(NotificationRequest::requestId).containsExactly(
+        BulkIngestionService.chunkRequestId(campaignId, 0),
+        BulkIngestionService.chunkRequestId(campaignId, 1),
+        BulkIngestionService.chunkRequestId(campaignId, 2));
+    assertThat(submitted.requests()).extracting(request -> request.destinations().size()).containsExactly(2, 2, 1);
+    assertThat(submitted.deliveries()).containsOnly(new DeliveryOptions(Lane.BULK, null, campaignId));
+  }
+
+  @Test
+  void gzippedCsvMapsDestinationColumnsAndKeepsTheRestAsVariables() throws IOException {
+    var csv = """
+        phone,lang,timezone,name,amount
+        998901234561,uz,Asia/Tashkent,Aziz,100
+        998901234562,ru,,Olga,
+        """;
+
+    var result = service.ingest(header(), BulkIngestionService.Format.CSV, gzip(csv), null);
+
+    assertThat(result.status()).isEqualTo(BulkIngestionResult.Status.ACCEPTED);
+    var destinations = submitted(1).requests().getFirst().destinations();
+    assertThat(destinations).extracting(NotificationRequest.Destination::phone).containsExactly("998901234561", "998901234562");
+    assertThat(destinations).extracting(NotificationRequest.Destination::lang).containsExactly("uz", "ru");
+    assertThat(destinations.get(0).variables()).isEqualTo(Map.of("timezone", "Asia/Tashkent", "name", "Aziz", "amount", "100"));
+    assertThat(destinations.get(1).variables()).isEqualTo(Map.of("name", "Olga"));
+    assertThat(destinations).extracting(NotificationRequest.Destination::id).doesNotContainNull().doesNotHaveDuplicates();
+  }
+
+  @Test
+  void malformedRowAfterAcceptedChunksIsAPartialAcceptance() throws IOException {
+    var upload = ndjsonLines(destination(1), destination(2), destination(3), "{\"phone\": ");
+
+    var result = service.ingest(header(), BulkIngestionService.Format.NDJSON, upload, null);
+
+    assertThat(result.status()).isEqualTo(BulkIngestionResult.Status.PARTIALLY_ACCEPTED);
+    assertThat(result.chunks()).isEqualTo(1);
+    assertThat(result.destinations()).isEqualTo(2);
+    assertThat(result.error()).isNotBlank();
+    submitted(1);
+  }
+
+  @Test
+  void malformedUploadWithoutAcceptedChunksIsRejected() {
+    var upload = ndjsonLines(destination(1), "not json");
+
+    assertThatThrownBy(() -> service.ingest(header(), BulkIngestionService.Format.NDJSON, upload, null))
+        .isInstanceOf(ApiException.class);
+    verify(notificationService, never()).processNotification(any(), any(), any());
+  }
+
+  @Test
+  void unknownTimeZoneStopsTheUpload() {
+    var csv = """
+        phone,lang,timezone
+        998901234561,uz,Mars/Olympus
+        """;
+
+    assertThatThrownBy(() -> service.ingest(header(), BulkIngestionService.Format.CSV, stream(csv), null))
+        .isInstanceOf(ApiException.class)
+        .hasMessageContaining("Mars/Olympus");
+  }
+
+  private BulkIngestionService service(int chunkSize) {
+    var admissionControl = mock(AdmissionControl.class);
+    when(admissionControl.admit(any())).thenReturn(mock(Admission.class));
+    var idempotencyStore = mock(IdempotencyStore.class);
+    when(idempotencyStore.claim(any())).thenReturn(Optional.empty());
+    var props = mock(ApplicationProperties.class);
+    when(props.bulk()).thenReturn(new ApplicationProperties.Bulk(chunkSize));
+    var validator = Validation.buildDefaultValidatorFactory().getValidator();
+    return new BulkIngestionService(OBJECT_MAPPER, validator, notificationService, intakeJournal, admissionControl,
+        idempotencyStore, mock(ProgressRegistry.class), props);
+  }
+
+  private Submitted submitted(int chunks) {
+    var requests = ArgumentCaptor.forClass(NotificationRequest.class);
+    var deliveries = ArgumentCaptor.forClass(DeliveryOptions.class);
+    verify(notificationService, times(chunks)).processNotification(requests.capture(), any(), deliveries.capture());
+    return new Submitted(requests.getAllValues(), deliveries.getAllValues());
+  }
+
+  private ObjectNode header() {
+    var header = OBJECT_MAPPER.createObjectNode();
+    header.put("requestId", campaignId.toString());
+    header.put("templateCode", TEMPLATE_CODE);
+    header.putArray("channels").add("SMS");
+    header.put("deliveryStrategy", "PARALLEL");
+    return header;
+  }
+
+  private static InputStream ndjson(int destinations) {
+    var lines = new String[destinations];
+    for (int i = 0; i < destinations; i++) {
+      lines[i] = destination(i);
+    }
+    return ndjsonLines(lines);
+  }
+
+  private static InputStream ndjsonLines(String... lines) {
+    return stream(String.join("\n", lines));
+  }
+
+  private static String destination(int index) {
+    return "{\"phone\": \"99890123456" + index + "\", \"lang\": \"uz\", \"variables\": {\"name\": \"Client " + index + "\"}}";
+  }
+
+  private static InputStream stream(String content) {
+    return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static InputStream gzip(String content) throws IOException {
+    var bytes = new ByteArrayOutputStream();
+    try (var gzip = new GZIPOutputStream(bytes)) {
+      gzip.write(content.getBytes(StandardCharsets.UTF_8));
+    }
+    return new ByteArrayInputStream(bytes.toByteArray());
+  }
+
+  private record Submitted(List<NotificationRequest> requests, List<DeliveryOptions> deliveries) {}
+}
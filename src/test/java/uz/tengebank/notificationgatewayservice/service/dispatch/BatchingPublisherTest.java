@@ -0,0 +1,155 @@
+package uz.tengebank.notificationgatewayservice.service.dispatch;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.tracing.Tracer;
+import io.micrometer.tracing.propagation.Propagator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitOperations;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import uz.tengebank.notificationgatewayservice.config.props.ApplicationProperties;
+import uz.tengebank.notificationgatewayservice.service.outbox.PublishOutbox;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BatchingPublisherTest {
+
+  private final RabbitTemplate rabbitTemplate = mock(RabbitTemplate.class);
+  private final RabbitOperations operations = mock(RabbitOperations.class);
+  private final PublishOutbox publishOutbox = mock(PublishOutbox.class);
+  private final List<String> sent = new CopyOnWriteArrayList<>();
+  private final AtomicInteger invocations = new AtomicInteger();
+  private BatchingPublisher publisher;
+
+  @AfterEach
+  void shutdown() throws InterruptedException {
+    if (publisher != null) {
+      publisher.shutdown();
+    }
+  }
+
+  @Test
+  void fullBatchIsSentInOneInvoke() {
+    publisher = publisher(3, Duration.ofHours(1), 1);
+
+    for (int i = 0; i < 3; i++) {
+      publisher.publish("notification.sms", "m" + i, 0, 0, Map.of(), false);
+    }
+
+    verify(operations, timeout(5_000).times(3)).send(anyString(), anyString(), any(Message.class), any(CorrelationData.class));
+    assertThat(invocations).hasValue(1);
+    assertThat(sent).containsExactly("internal:notification.sms", "internal:notification.sms", "internal:notification.sms");
+  }
+
+  @Test
+  void partialBatchIsSentOnceTheLingerElapses() {
+    publisher = publisher(100, Duration.ofMillis(20), 1);
+
+    publisher.publish("notification.sms", "m", 0, 0, Map.of(), false);
+
+    verify(operations, timeout(5_000)).send(anyString(), anyString(), any(Message.class), any(CorrelationData.class));
+  }
+
+  @Test
+  void delayedMessageGoesToTheDelayedExchange() {
+    publisher = publisher(1, Duration.ofHours(1), 1);
+
+    publisher.publish("notification.sms", "m", 0, 60_000, Map.of(), false);
+
+    verify(operations, timeout(5_000)).send(anyString(), anyString(), any(Message.class), any(CorrelationData.class));
+    assertThat(sent).containsExactly("delayed:notification.sms");
+  }
+
+  @Test
+  void higherPriorityBatchesAreTakenFirst() throws InterruptedException {
+    var blocking = new CountDownLatch(1);
+    var release = new CountDownLatch(1);
+    publisher = publisher(1, Duration.ofHours(1), 1);
+    doAnswer(invocation -> {
+      String routingKey = invocation.getArgument(1);
+      sent.add(routingKey);
+      if (routingKey.equals("blocker")) {
+        blocking.countDown();
+        release.await();
+      }
+      return null;
+    }).when(operations).send(anyString(), anyString(), any(Message.class), any(CorrelationData.class));
+
+    publisher.publish("blocker", "m", 0, 0, Map.of(), false);
+    assertThat(blocking.await(5, TimeUnit.SECONDS)).isTrue();
+    publisher.publish("bulk", "m", 1, 0, Map.of(), false);
+    publisher.publish("transactional", "m", 9, 0, Map.of(), false);
+    release.countDown();
+
+    verify(operations, timeout(5_000).times(3)).send(anyString(), anyString(), any(Message.class), any(CorrelationData.class));
+    assertThat(sent).containsExactly("blocker", "transactional", "bulk");
+  }
+
+  @Test
+  void messagesNotSentWhenTheChannelFailsAreReportedToTheOutbox() {
+    publisher = publisher(3, Duration.ofHours(1), 1);
+    var sends = new AtomicInteger();
+    doAnswer(invocation -> {
+      if (sends.incrementAndGet() == 2) {
+        throw new AmqpException("channel closed");
+      }
+      return null;
+    }).when(operations).send(anyString(), anyString(), any(Message.class), any(CorrelationData.class));
+
+    for (int i = 0; i < 3; i++) {
+      publisher.publish("notification.sms", "m" + i, 0, 0, Map.of(), false);
+    }
+
+    verify(publishOutbox, timeout(5_000)).failed("2", "channel closed");
+    verify(publishOutbox, timeout(5_000)).failed("3", "channel closed");
+  }
+
+  private BatchingPublisher publisher(int batchSize, Duration linger, int threads) {
+    var correlationIds = new AtomicInteger();
+    when(publishOutbox.track(anyString(), anyString(), any(Message.class), any(), anyBoolean()))
+        .thenAnswer(invocation -> new CorrelationData(String.valueOf(correlationIds.incrementAndGet())));
+    when(rabbitTemplate.invoke(any())).thenAnswer(invocation -> {
+      invocations.incrementAndGet();
+      RabbitOperations.OperationsCallback<?> callback = invocation.getArgument(0);
+      return callback.doInRabbit(operations);
+    });
+    doAnswer(invocation -> {
+      sent.add(invocation.getArgument(0) + ":" + invocation.getArgument(1));
+      return null;
+    }).when(operations).send(anyString(), anyString(), any(Message.class), any(CorrelationData.class));
+
+    var encoder = mock(WireFormatEncoder.class);
+    when(encoder.toMessage(anyString(), any(), any(MessageProperties.class)))
+        .thenAnswer(invocation -> new Message(new byte[0], invocation.getArgument(2)));
+
+    var props = mock(ApplicationProperties.class);
+    when(props.rabbitmq()).thenReturn(new ApplicationProperties.RabbitMQ(
+        new ApplicationProperties.Exchanges("internal", "delayed", "audit"), null,
+        new ApplicationProperties.Publisher(batchSize, linger, 16, threads), null, null));
+    var beanFactory = new StaticListableBeanFactory();
+    return new BatchingPublisher(rabbitTemplate, publishOutbox, encoder, props,
+        beanFactory.getBeanProvider(Tracer.class), beanFactory.getBeanProvider(Propagator.class),
+        new SimpleMeterRegistry());
+  }
+}
@@ -0,0 +1,131 @@
+package uz.tengebank.notificationgatewayservice.service.dispatch;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import uz.tengebank.notificationgatewayservice.config.props.ApplicationProperties;
+import uz.tengebank.notificationgatewayservice.dto.notification.Lane;
+import uz.tengebank.notificationgatewayservice.dto.notification.PushPayload;
+import uz.tengebank.notificationgatewayservice.dto.notification.PushProvider;
+import uz.tengebank.notificationgatewayservice.dto.notification.PushToken;
+import uz.tengebank.notificationgatewayservice.dto.outbox.DeliveryOutcome;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PushMulticastBatcherTest {
+
+  private static final UUID REQUEST_ID = UUID.randomUUID();
+  private static final PushPayload.PushContent CONTENT = new PushPayload.PushContent("Title", "Body", null, Map.of());
+  private static final PushPayload.PushContent OTHER_CONTENT = new PushPayload.PushContent("Title", "Other", null, Map.of());
+
+  private final NotificationDispatcher notificationDispatcher = mock(NotificationDispatcher.class);
+
+  @Test
+  void targetsWithTheSameProviderAndContentShareOneMessage() {
+    var batcher = batcher(new ApplicationProperties.Push(500, 1000, true));
+    completeDispatches();
+
+    var first = batcher.add(UUID.randomUUID(), token("a", PushProvider.FCM), CONTENT, Map.of(), 0, false);
+    var second = batcher.add(UUID.randomUUID(), token("b", PushProvider.FCM), CONTENT, Map.of(), 0, false);
+    batcher.add(UUID.randomUUID(), token("c", PushProvider.HCM), CONTENT, Map.of(), 0, false);
+    batcher.add(UUID.randomUUID(), token("d", PushProvider.FCM), OTHER_CONTENT, Map.of(), 0, false);
+    verify(notificationDispatcher, never()).dispatchPush(any(), any(), anyLong(), anyBoolean());
+
+    batcher.flush();
+
+    var messages = dispatched(3);
+    assertThat(messages).extracting(PushPayload::provider)
+        .containsExactly(PushProvider.FCM, PushProvider.HCM, PushProvider.FCM);
+    assertThat(tokens(messages.get(0))).containsExactly("a", "b");
+    assertThat(tokens(messages.get(1))).containsExactly("c");
+    assertThat(tokens(messages.get(2))).containsExactly("d");
+    assertThat(first).isCompletedWithValue(DeliveryOutcome.CONFIRMED);
+    assertThat(second).isSameAs(first);
+  }
+
+  @Test
+  void groupIsSentAsSoonAsItReachesTheProviderLimit() {
+    var batcher = batcher(new ApplicationProperties.Push(2, 3, true));
+    completeDispatches();
+
+    batcher.add(UUID.randomUUID(), token("a", PushProvider.FCM), CONTENT, Map.of(), 0, false);
+    var full = batcher.add(UUID.randomUUID(), token("b", PushProvider.FCM), CONTENT, Map.of(), 0, false);
+    batcher.add(UUID.randomUUID(), token("c", PushProvider.HCM), CONTENT, Map.of(), 0, false);
+    batcher.add(UUID.randomUUID(), token("d", PushProvider.HCM), CONTENT, Map.of(), 0, false);
+
+    assertThat(tokens(dispatched(1).getFirst())).containsExactly("a", "b");
+    assertThat(full).isCompletedWithValue(DeliveryOutcome.CONFIRMED);
+
+    var pending = batcher.add(UUID.randomUUID(), token("e", PushProvider.FCM), CONTENT, Map.of(), 0, false);
+    assertThat(pending).isNotDone();
+    batcher.flush();
+
+    var messages = dispatched(3);
+    assertThat(tokens(messages.get(1))).containsExactly("c", "d");
+    assertThat(tokens(messages.get(2))).containsExactly("e");
+    assertThat(pending).isCompletedWithValue(DeliveryOutcome.CONFIRMED);
+  }
+
+  @Test
+  void delayAndFailFastKeepTargetsApart() {
+    var batcher = batcher(new ApplicationProperties.Push(500, 1000, true));
+    completeDispatches();
+
+    batcher.add(UUID.randomUUID(), token("a", PushProvider.FCM), CONTENT, Map.of(), 0, false);
+    batcher.add(UUID.randomUUID(), token("b", PushProvider.FCM), CONTENT, Map.of(), 60_000, false);
+    batcher.add(UUID.randomUUID(), token("c", PushProvider.FCM), CONTENT, Map.of(), 0, true);
+    batcher.flush();
+
+    assertThat(dispatched(3)).allSatisfy(message -> assertThat(message.targets()).hasSize(1));
+    verify(notificationDispatcher).dispatchPush(any(), eq(Lane.BULK), eq(0L), eq(false));
+    verify(notificationDispatcher).dispatchPush(any(), eq(Lane.BULK), eq(60_000L), eq(false));
+    verify(notificationDispatcher).dispatchPush(any(), eq(Lane.BULK), eq(0L), eq(true));
+  }
+
+  @Test
+  void everyTargetIsSentOnItsOwnWhenMulticastIsOff() {
+    var batcher = batcher(new ApplicationProperties.Push(500, 1000, false));
+    completeDispatches();
+
+    batcher.add(UUID.randomUUID(), token("a", PushProvider.FCM), CONTENT, Map.of(), 0, false);
+    batcher.add(UUID.randomUUID(), token("b", PushProvider.FCM), CONTENT, Map.of(), 0, false);
+
+    assertThat(dispatched(2)).allSatisfy(message -> assertThat(message.targets()).hasSize(1));
+  }
+
+  private PushMulticastBatcher batcher(ApplicationProperties.Push props) {
+    return new PushMulticastBatcher(REQUEST_ID, Lane.BULK, props, notificationDispatcher);
+  }
+
+  private void completeDispatches() {
+    when(notificationDispatcher.dispatchPush(any(), any(), anyLong(), anyBoolean()))
+        .thenReturn(CompletableFuture.completedFuture(DeliveryOutcome.CONFIRMED));
+  }
+
+  private List<PushPayload> dispatched(int count) {
+    var messages = ArgumentCaptor.forClass(PushPayload.class);
+    verify(notificationDispatcher, times(count)).dispatchPush(messages.capture(), any(), anyLong(), anyBoolean());
+    return messages.getAllValues();
+  }
+
+  private static List<String> tokens(PushPayload message) {
+    return message.targets().stream().map(PushPayload.Target::token).toList();
+  }
+
+  private static PushToken token(String token, PushProvider provider) {
+    return new PushToken(token, provider, "ANDROID", "uz.tengebank.mobile");
+  }
+}
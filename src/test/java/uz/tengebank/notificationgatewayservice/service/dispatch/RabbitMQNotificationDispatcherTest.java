@@ -0,0 +1,84 @@
+package uz.tengebank.notificationgatewayservice.service.dispatch;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import uz.tengebank.notificationgatewayservice.config.props.ApplicationProperties;
+import uz.tengebank.notificationgatewayservice.dto.notification.Lane;
+import uz.tengebank.notificationgatewayservice.dto.notification.PushPayload;
+import uz.tengebank.notificationgatewayservice.dto.notification.PushProvider;
+import uz.tengebank.notificationgatewayservice.dto.notification.UnicastPushPayload;
+import uz.tengebank.notificationgatewayservice.service.priority.LaneResolver;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RabbitMQNotificationDispatcherTest {
+
+  private static final UUID REQUEST_ID = UUID.randomUUID();
+  private static final PushPayload.PushContent CONTENT = new PushPayload.PushContent("Title", "Body", null, Map.of());
+
+  private final BatchingPublisher batchingPublisher = mock(BatchingPublisher.class);
+
+  @Test
+  void pushIsRoutedByProvider() {
+    var dispatcher = dispatcher(true);
+
+    dispatcher.dispatchPush(push(PushProvider.FCM, target("a"), target("b")), Lane.BULK, 0, false);
+    dispatcher.dispatchPush(push(PushProvider.HCM, target("c")), Lane.BULK, 0, false);
+
+    verify(batchingPublisher).publish(eq("notification.fcm"), any(PushPayload.class), anyInt(), anyLong(),
+        eq(Map.of(DispatchHeaders.REQUEST_ID, REQUEST_ID.toString(), DispatchHeaders.CHANNEL, "PUSH",
+            DispatchHeaders.MESSAGE_COUNT, 2)), anyBoolean());
+    verify(batchingPublisher).publish(eq("notification.hcm"), any(PushPayload.class), anyInt(), anyLong(), anyMap(),
+        anyBoolean());
+  }
+
+  @Test
+  void pushIsSentInTheOneTokenShapeWhenMulticastIsOff() {
+    var dispatcher = dispatcher(false);
+    var target = target("a");
+
+    dispatcher.dispatchPush(push(PushProvider.HCM, target), Lane.BULK, 0, false);
+
+    var payload = ArgumentCaptor.forClass(Object.class);
+    verify(batchingPublisher).publish(eq("notification.hcm"), payload.capture(), anyInt(), anyLong(), anyMap(),
+        anyBoolean());
+    assertThat(payload.getValue())
+        .isEqualTo(new UnicastPushPayload(REQUEST_ID, target.destinationId(), "a", CONTENT, Map.of()));
+  }
+
+  @Test
+  void multicastMessageIsRejectedWhenMulticastIsOff() {
+    var dispatcher = dispatcher(false);
+
+    assertThatThrownBy(() -> dispatcher.dispatchPush(push(PushProvider.FCM, target("a"), target("b")), Lane.BULK, 0, false))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  private RabbitMQNotificationDispatcher dispatcher(boolean multicast) {
+    var props = mock(ApplicationProperties.class);
+    when(props.push()).thenReturn(new ApplicationProperties.Push(500, 1000, multicast));
+    return new RabbitMQNotificationDispatcher(batchingPublisher, mock(LaneResolver.class), props);
+  }
+
+  private static PushPayload push(PushProvider provider, PushPayload.Target... targets) {
+    return new PushPayload(REQUEST_ID, provider, List.of(targets), CONTENT, Map.of());
+  }
+
+  private static PushPayload.Target target(String token) {
+    return new PushPayload.Target(UUID.randomUUID(), token, "uz.tengebank.mobile");
+  }
+}
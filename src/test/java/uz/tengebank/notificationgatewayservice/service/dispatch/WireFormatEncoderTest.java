@@ -0,0 +1,65 @@
+package uz.tengebank.notificationgatewayservice.service.dispatch;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.util.unit.DataSize;
+import uz.tengebank.notificationgatewayservice.config.amqp.WireFormat;
+import uz.tengebank.notificationgatewayservice.config.props.ApplicationProperties;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class WireFormatEncoderTest {
+
+  private static final Map<String, String> LARGE_PAYLOAD = Map.of("body", "x".repeat(4096));
+
+  private final WireFormatEncoder encoder = encoder(Map.of(
+      "notification.sms", new ApplicationProperties.WireFormats.Route(WireFormat.JSON, true),
+      "notification.fcm", new ApplicationProperties.WireFormats.Route(WireFormat.SMILE, false)));
+
+  @Test
+  void routingKeysWithoutConfigurationAreSentAsUncompressedJson() {
+    var message = encoder.toMessage("notification.hcm", LARGE_PAYLOAD, new MessageProperties());
+
+    assertThat(message.getMessageProperties().getContentType()).isEqualTo(WireFormat.JSON.contentType());
+    assertThat(gzipped(message)).isFalse();
+    assertThat(message.getBody().length).isGreaterThan(4096);
+  }
+
+  @Test
+  void compressesLargeBodiesOnlyForRoutingKeysThatOptIn() {
+    var compressed = encoder.toMessage("notification.sms", LARGE_PAYLOAD, new MessageProperties());
+    var plain = encoder.toMessage("notification.fcm", LARGE_PAYLOAD, new MessageProperties());
+
+    assertThat(gzipped(compressed)).isTrue();
+    assertThat(compressed.getBody().length).isLessThan(1024);
+    assertThat(plain.getMessageProperties().getContentType()).isEqualTo(WireFormat.SMILE.contentType());
+    assertThat(gzipped(plain)).isFalse();
+  }
+
+  @Test
+  void smallBodiesAreNotCompressed() {
+    var message = encoder.toMessage("notification.sms", Map.of("body", "short"), new MessageProperties());
+
+    assertThat(gzipped(message)).isFalse();
+  }
+
+  private static boolean gzipped(Message message) {
+    var encoding = message.getMessageProperties().getContentEncoding();
+    return encoding != null && encoding.startsWith("gzip");
+  }
+
+  private static WireFormatEncoder encoder(Map<String, ApplicationProperties.WireFormats.Route> routes) {
+    var props = mock(ApplicationProperties.class);
+    when(props.rabbitmq()).thenReturn(new ApplicationProperties.RabbitMQ(null, null, null, null,
+        new ApplicationProperties.WireFormats(routes, DataSize.ofKilobytes(1))));
+    var objectMapper = new ObjectMapper();
+    return new WireFormatEncoder(new Jackson2JsonMessageConverter(objectMapper), objectMapper, props);
+  }
+}
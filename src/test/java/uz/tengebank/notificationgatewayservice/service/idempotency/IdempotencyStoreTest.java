@@ -0,0 +1,151 @@
+package uz.tengebank.notificationgatewayservice.service.idempotency;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import uz.tengebank.notificationgatewayservice.config.props.ApplicationProperties;
+import uz.tengebank.notificationgatewayservice.dto.notification.NotificationAcceptance;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class IdempotencyStoreTest {
+
+  private static final Duration WINDOW = Duration.ofHours(1);
+
+  @TempDir
+  Path directory;
+
+  private final List<IdempotencyStore> stores = new ArrayList<>();
+
+  @AfterEach
+  void closeStores() throws IOException {
+    for (var store : stores) {
+      store.close();
+    }
+  }
+
+  @Test
+  void duplicateClaimReturnsTheOriginalAcceptance() throws IOException {
+    var store = open(false);
+    var requestId = UUID.randomUUID();
+    var first = new NotificationAcceptance(requestId, Instant.now());
+
+    assertThat(store.claim(first)).isEmpty();
+    assertThat(store.claim(new NotificationAcceptance(requestId, Instant.now().plusSeconds(1)))).contains(first);
+  }
+
+  @Test
+  void releasedClaimCanBeClaimedAgain() throws IOException {
+    var store = open(false);
+    var requestId = UUID.randomUUID();
+    store.claim(new NotificationAcceptance(requestId, Instant.now()));
+
+    store.release(requestId);
+
+    assertThat(store.claim(new NotificationAcceptance(requestId, Instant.now()))).isEmpty();
+  }
+
+  @Test
+  void claimOutsideTheWindowHasExpired() throws IOException {
+    var store = open(false);
+    var requestId = UUID.randomUUID();
+    store.claim(new NotificationAcceptance(requestId, Instant.now().minus(WINDOW).minusSeconds(1)));
+
+    assertThat(store.claim(new NotificationAcceptance(requestId, Instant.now()))).isEmpty();
+  }
+
+  @Test
+  void disabledStoreNeverReportsDuplicates() throws IOException {
+    var store = open(new ApplicationProperties.Idempotency(false, 1000, WINDOW, false, directory.toString()));
+    var acceptance = new NotificationAcceptance(UUID.randomUUID(), Instant.now());
+
+    assertThat(store.claim(acceptance)).isEmpty();
+    assertThat(store.claim(acceptance)).isEmpty();
+  }
+
+  @Test
+  void confirmedClaimsAreReloadedAfterRestart() throws IOException {
+    var store = open(true);
+    var confirmed = new NotificationAcceptance(UUID.randomUUID(), Instant.now());
+    var unconfirmed = new NotificationAcceptance(UUID.randomUUID(), Instant.now());
+    store.claim(confirmed);
+    store.confirm(confirmed);
+    store.claim(unconfirmed);
+    store.close();
+
+    var reopened = open(true);
+
+    assertThat(reopened.claim(new NotificationAcceptance(confirmed.requestId(), Instant.now()))).contains(confirmed);
+    assertThat(reopened.claim(new NotificationAcceptance(unconfirmed.requestId(), Instant.now()))).isEmpty();
+  }
+
+  @Test
+  void reloadSkipsExpiredEntriesAndTornLines() throws IOException {
+    var now = Instant.now();
+    var recent = new NotificationAcceptance(UUID.randomUUID(), now.minusSeconds(60));
+    var expired = new NotificationAcceptance(UUID.randomUUID(), now.minus(WINDOW).minusSeconds(60));
+    var generation = directory.resolve("idempotency-" + now.minus(WINDOW).minusSeconds(120).toEpochMilli() + ".log");
+    Files.writeString(generation, line(expired) + line(recent) + UUID.randomUUID().toString().substring(0, 20),
+        StandardCharsets.UTF_8);
+
+    var store = open(true);
+
+    assertThat(store.claim(new NotificationAcceptance(recent.requestId(), now))).contains(recent);
+    assertThat(store.claim(new NotificationAcceptance(expired.requestId(), now))).isEmpty();
+    assertThat(generations()).hasSize(2).contains(generation);
+  }
+
+  @Test
+  void deletesGenerationsWhoseEntriesAreAllOutsideTheWindow() throws IOException {
+    var now = Instant.now();
+    var stale = directory.resolve("idempotency-" + now.minus(WINDOW.multipliedBy(3)).toEpochMilli() + ".log");
+    Files.writeString(stale, line(new NotificationAcceptance(UUID.randomUUID(), now.minus(WINDOW.multipliedBy(3)))),
+        StandardCharsets.UTF_8);
+
+    var store = open(true);
+    assertThat(generations()).hasSize(1).doesNotContain(stale);
+
+    // An acceptance one window after the current generation started rolls over to a new generation.
+    var later = new NotificationAcceptance(UUID.randomUUID(), now.plus(WINDOW).plusSeconds(1));
+    store.claim(later);
+    store.confirm(later);
+    assertThat(generations()).hasSize(2);
+  }
+
+  private IdempotencyStore open(boolean persistent) throws IOException {
+    return open(new ApplicationProperties.Idempotency(true, 1000, WINDOW, persistent, directory.toString()));
+  }
+
+  private IdempotencyStore open(ApplicationProperties.Idempotency idempotency) throws IOException {
+    var props = mock(ApplicationProperties.class);
+    when(props.idempotency()).thenReturn(idempotency);
+    var store = new IdempotencyStore(props, new SimpleMeterRegistry());
+    store.open();
+    stores.add(store);
+    return store;
+  }
+
+  private List<Path> generations() throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      return files.sorted().toList();
+    }
+  }
+
+  private static String line(NotificationAcceptance acceptance) {
+    return acceptance.requestId() + "," + acceptance.acceptedAt().toEpochMilli() + System.lineSeparator();
+  }
+}
@@ -0,0 +1,161 @@
+package uz.tengebank.notificationgatewayservice.service.intake;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rabbitmq.client.Channel;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.amqp.core.Message;
+import uz.tengebank.notificationgatewayservice.config.props.ApplicationProperties;
+import uz.tengebank.notificationgatewayservice.dto.intake.IntakeChunk;
+import uz.tengebank.notificationgatewayservice.dto.notification.DeliveryOptions;
+import uz.tengebank.notificationgatewayservice.dto.notification.Lane;
+import uz.tengebank.notificationgatewayservice.dto.outbox.DeliveryOutcome;
+import uz.tengebank.notificationgatewayservice.service.NotificationService;
+import uz.tengebank.notificationgatewayservice.service.admission.AdmissionControl;
+import uz.tengebank.notificationgatewayservice.service.outbox.PublishOutbox;
+import uz.tengebank.notificationgatewayservice.service.priority.LaneResolver;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static uz.tengebank.notificationgatewayservice.TestRequests.request;
+
+class AmqpIntakeTest {
+
+  private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper().findAndRegisterModules();
+
+  private final NotificationService notificationService = mock(NotificationService.class);
+  private final AdmissionControl admissionControl = mock(AdmissionControl.class);
+  private final PublishOutbox publishOutbox = mock(PublishOutbox.class);
+  private final IntakeJournal intakeJournal = mock(IntakeJournal.class);
+  private final AmqpIntake amqpIntake = amqpIntake();
+
+  @Test
+  void chunksGetIdsOfTheirOwnAndKeepTheParentId() throws IOException {
+    var requestId = UUID.randomUUID();
+    var request = request(requestId, "PARALLEL", List.of("SMS"), phones(5));
+
+    amqpIntake.submit(request, new DeliveryOptions(Lane.BULK, null));
+
+    var chunks = publishedChunks(3);
+    assertThat(chunks).extracting(chunk -> chunk.request().requestId()).containsExactly(
+        AmqpIntake.chunkRequestId(requestId, 0),
+        AmqpIntake.chunkRequestId(requestId, 1),
+        AmqpIntake.chunkRequestId(requestId, 2));
+    assertThat(chunks).extracting(IntakeChunk::parentRequestId).containsOnly(requestId);
+    assertThat(chunks).extracting(chunk -> chunk.request().destinations().size()).containsExactly(2, 2, 1);
+    assertThat(chunks).extracting(IntakeChunk::lane).containsOnly(Lane.BULK);
+  }
+
+  @Test
+  void requestIsCompletedInTheJournalOnceEveryChunkIsConfirmedOrSpilled() {
+    var requestId = UUID.randomUUID();
+
+    amqpIntake.submit(request(requestId, "PARALLEL", List.of("SMS"), phones(5)), new DeliveryOptions(Lane.BULK, null));
+
+    var outcomes = outcomes(3);
+    outcomes.get(0).complete(DeliveryOutcome.CONFIRMED);
+    outcomes.get(2).complete(DeliveryOutcome.SPILLED);
+    verify(intakeJournal, never()).markCompleted(any());
+
+    outcomes.get(1).complete(DeliveryOutcome.CONFIRMED);
+    verify(intakeJournal).markCompleted(requestId);
+  }
+
+  @Test
+  void requestStaysInTheJournalWhenALaterChunkCannotBePublished() {
+    var requestId = UUID.randomUUID();
+    doNothing().doThrow(new IllegalStateException("outbox closed"))
+        .when(publishOutbox).send(any(), any(), any(), any());
+
+    var handedOff = amqpIntake.submit(request(requestId, "PARALLEL", List.of("SMS"), phones(5)),
+        new DeliveryOptions(Lane.BULK, null));
+
+    var outcomes = outcomes(2);
+    outcomes.get(0).complete(DeliveryOutcome.CONFIRMED);
+    assertThat(handedOff).isDone();
+    verify(intakeJournal, never()).markCompleted(any());
+  }
+
+  @Test
+  void failureToPublishTheFirstChunkIsThrown() {
+    doThrow(new IllegalStateException("outbox closed")).when(publishOutbox).send(any(), any(), any(), any());
+
+    assertThatThrownBy(() -> amqpIntake.submit(request(UUID.randomUUID(), "PARALLEL", List.of("SMS"), phones(5)),
+        new DeliveryOptions(Lane.BULK, null)))
+        .isInstanceOf(IllegalStateException.class);
+  }
+
+  @Test
+  void consumedChunkIsProcessedUnderTheParentRequestId() throws IOException {
+    var requestId = UUID.randomUUID();
+    amqpIntake.submit(request(requestId, "PARALLEL", List.of("SMS"), phones(2)), new DeliveryOptions(Lane.BULK, null));
+    var messages = ArgumentCaptor.forClass(Message.class);
+    verify(publishOutbox).send(any(), any(), messages.capture(), any());
+
+    amqpIntake.onMessage(messages.getValue(), mock(Channel.class));
+
+    var delivery = ArgumentCaptor.forClass(DeliveryOptions.class);
+    verify(notificationService).processNotification(any(), any(), delivery.capture(), any());
+    assertThat(delivery.getValue().parentRequestId()).isEqualTo(requestId);
+    assertThat(delivery.getValue().lane()).isEqualTo(Lane.BULK);
+  }
+
+  @Test
+  void chunkIdsAreStableAcrossReplays() {
+    var requestId = UUID.randomUUID();
+
+    assertThat(AmqpIntake.chunkRequestId(requestId, 1)).isEqualTo(AmqpIntake.chunkRequestId(requestId, 1))
+        .isNotEqualTo(AmqpIntake.chunkRequestId(requestId, 0))
+        .isNotEqualTo(requestId);
+  }
+
+  private List<IntakeChunk> publishedChunks(int count) throws IOException {
+    var messages = ArgumentCaptor.forClass(Message.class);
+    verify(publishOutbox, times(count)).send(eq("internal"), eq("gateway.intake"), messages.capture(), any());
+    var chunks = new ArrayList<IntakeChunk>();
+    for (var message : messages.getAllValues()) {
+      chunks.add(OBJECT_MAPPER.readValue(message.getBody(), IntakeChunk.class));
+    }
+    return chunks;
+  }
+
+  @SuppressWarnings("unchecked")
+  private List<CompletableFuture<DeliveryOutcome>> outcomes(int count) {
+    ArgumentCaptor<CompletableFuture<DeliveryOutcome>> outcomes = ArgumentCaptor.forClass(CompletableFuture.class);
+    verify(publishOutbox, times(count)).send(any(), any(), any(), outcomes.capture());
+    return outcomes.getAllValues();
+  }
+
+  private AmqpIntake amqpIntake() {
+    var props = mock(ApplicationProperties.class);
+    when(props.intake()).thenReturn(new ApplicationProperties.Intake(null,
+        new ApplicationProperties.Intake.Amqp(true, "gateway.intake.queue", "gateway.intake", 4, 2, 1, 1, 1)));
+    when(props.rabbitmq()).thenReturn(new ApplicationProperties.RabbitMQ(
+        new ApplicationProperties.Exchanges("internal", "delayed", "audit"), null, null, null, null));
+    return new AmqpIntake(notificationService, admissionControl, publishOutbox, intakeJournal,
+        mock(LaneResolver.class), OBJECT_MAPPER, props);
+  }
+
+  private static List<String> phones(int count) {
+    var phones = new ArrayList<String>(count);
+    for (int i = 0; i < count; i++) {
+      phones.add("99890" + String.format("%07d", i));
+    }
+    return phones;
+  }
+}
@@ -0,0 +1,192 @@
+package uz.tengebank.notificationgatewayservice.service.intake;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+import uz.tengebank.notificationcontracts.dto.NotificationRequest;
+import uz.tengebank.notificationgatewayservice.config.props.ApplicationProperties;
+import uz.tengebank.notificationgatewayservice.dto.intake.JournaledRequest;
+import uz.tengebank.notificationgatewayservice.dto.notification.DeliveryOptions;
+import uz.tengebank.notificationgatewayservice.dto.notification.Lane;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static uz.tengebank.notificationgatewayservice.TestRequests.smsRequest;
+
+class IntakeJournalTest {
+
+  private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper().findAndRegisterModules();
+  private static final DeliveryOptions DELIVERY = new DeliveryOptions(Lane.TRANSACTIONAL, null);
+  private static final int HEADER_SIZE = Integer.BYTES + Byte.BYTES + 2 * Long.BYTES + Integer.BYTES;
+
+  @TempDir
+  Path directory;
+
+  private final List<IntakeJournal> journals = new ArrayList<>();
+
+  @AfterEach
+  void closeJournals() throws InterruptedException {
+    for (var journal : journals) {
+      journal.close();
+    }
+  }
+
+  @Test
+  void replaysAcceptedRequestsAfterRestart() throws Exception {
+    var first = UUID.randomUUID();
+    var second = UUID.randomUUID();
+    var journal = open(DataSize.ofMegabytes(1));
+    journal.append(smsRequest(first), DELIVERY);
+    journal.append(smsRequest(second), DELIVERY);
+    journal.close();
+
+    var reopened = open(DataSize.ofMegabytes(1));
+
+    assertThat(requestIds(reopened.drainRecovered())).containsExactly(first, second);
+    assertThat(reopened.drainRecovered()).isEmpty();
+  }
+
+  @Test
+  void replaysRequestsWithTheirDeliveryOptions() throws Exception {
+    var scheduled = UUID.randomUUID();
+    var immediate = UUID.randomUUID();
+    var sendAt = Instant.parse("2026-03-10T12:00:00Z");
+    var journal = open(DataSize.ofMegabytes(1));
+    journal.append(smsRequest(scheduled), new DeliveryOptions(Lane.BULK, sendAt));
+    journal.append(smsRequest(immediate), new DeliveryOptions(Lane.TRANSACTIONAL, null));
+    journal.close();
+
+    var recovered = open(DataSize.ofMegabytes(1)).drainRecovered();
+
+    assertThat(recovered).extracting(JournaledRequest::delivery).containsExactly(
+        new DeliveryOptions(Lane.BULK, sendAt),
+        new DeliveryOptions(Lane.TRANSACTIONAL, null));
+  }
+
+  @Test
+  void completedRequestIsNotReplayed() throws Exception {
+    var completed = UUID.randomUUID();
+    var unfinished = UUID.randomUUID();
+    var journal = open(DataSize.ofMegabytes(1));
+    journal.append(smsRequest(completed), DELIVERY);
+    journal.append(smsRequest(unfinished), DELIVERY);
+    journal.markCompleted(completed);
+    journal.close();
+
+    var reopened = open(DataSize.ofMegabytes(1));
+
+    assertThat(requestIds(reopened.drainRecovered())).containsExactly(unfinished);
+  }
+
+  @Test
+  void ignoresTornTrailingRecord() throws Exception {
+    var intact = UUID.randomUUID();
+    var torn = UUID.randomUUID();
+    var journal = open(DataSize.ofMegabytes(1));
+    journal.append(smsRequest(intact), DELIVERY);
+    journal.append(smsRequest(torn), DELIVERY);
+    journal.close();
+
+    try (var channel = FileChannel.open(singleSegment(), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+      var length = ByteBuffer.allocate(Integer.BYTES);
+      channel.read(length, 0);
+      int secondRecord = length.flip().getInt();
+      // Flip one byte of the second record's body so its CRC no longer matches.
+      var body = ByteBuffer.allocate(1);
+      long offset = secondRecord + HEADER_SIZE + 2;
+      channel.read(body, offset);
+      channel.write(ByteBuffer.wrap(new byte[] {(byte) (body.get(0) ^ 0x5a)}), offset);
+    }
+
+    var reopened = open(DataSize.ofMegabytes(1));
+
+    assertThat(requestIds(reopened.drainRecovered())).containsExactly(intact);
+  }
+
+  @Test
+  void releasesSegmentsOnceAllTheirRequestsComplete() throws Exception {
+    var journal = open(DataSize.ofBytes(512));
+    var requestIds = new ArrayList<UUID>();
+    for (int i = 0; i < 8; i++) {
+      var requestId = UUID.randomUUID();
+      journal.append(smsRequest(requestId), DELIVERY);
+      requestIds.add(requestId);
+    }
+    assertThat(segments()).hasSizeGreaterThan(2);
+
+    // Segments are released oldest first, so the pending request in the first segment holds back all of them.
+    requestIds.subList(1, 8).forEach(journal::markCompleted);
+    assertThat(segments()).hasSizeGreaterThan(2);
+
+    journal.markCompleted(requestIds.getFirst());
+    assertThat(segments()).hasSize(1);
+  }
+
+  @Test
+  void compactsUnfinishedRequestsIntoOneSegmentOnStartup() throws Exception {
+    var journal = open(DataSize.ofBytes(512));
+    var unfinished = new ArrayList<UUID>();
+    for (int i = 0; i < 8; i++) {
+      var requestId = UUID.randomUUID();
+      journal.append(smsRequest(requestId), DELIVERY);
+      if (i % 2 == 0) {
+        journal.markCompleted(requestId);
+      } else {
+        unfinished.add(requestId);
+      }
+    }
+    journal.close();
+    var before = segments();
+
+    var reopened = open(DataSize.ofMegabytes(1));
+
+    assertThat(segments()).hasSize(1).doesNotContainAnyElementsOf(before);
+    assertThat(requestIds(reopened.drainRecovered())).containsExactlyElementsOf(unfinished);
+
+    // Replayed but not completed: still recovered after the next restart.
+    reopened.close();
+    assertThat(requestIds(open(DataSize.ofMegabytes(1)).drainRecovered())).containsExactlyElementsOf(unfinished);
+  }
+
+  private IntakeJournal open(DataSize segmentSize) throws IOException {
+    var props = mock(ApplicationProperties.class);
+    when(props.intake()).thenReturn(new ApplicationProperties.Intake(
+        new ApplicationProperties.Intake.Journal(true, directory.toString(), segmentSize, Duration.ZERO), null));
+    var journal = new IntakeJournal(OBJECT_MAPPER, props);
+    journal.open();
+    journals.add(journal);
+    return journal;
+  }
+
+  private List<Path> segments() throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      return files.sorted().toList();
+    }
+  }
+
+  private Path singleSegment() throws IOException {
+    var segments = segments();
+    assertThat(segments).hasSize(1);
+    return segments.getFirst();
+  }
+
+  private static List<UUID> requestIds(List<JournaledRequest> requests) {
+    return requests.stream().map(JournaledRequest::request).map(NotificationRequest::requestId).toList();
+  }
+}
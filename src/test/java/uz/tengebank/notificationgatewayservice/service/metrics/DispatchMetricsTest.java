@@ -0,0 +1,69 @@
+package uz.tengebank.notificationgatewayservice.service.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import uz.tengebank.notificationcontracts.dto.NotificationRequest;
+import uz.tengebank.notificationgatewayservice.dto.notification.Lane;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DispatchMetricsTest {
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final DispatchMetrics dispatchMetrics = new DispatchMetrics(meterRegistry);
+
+  @Test
+  void dispatchedMessagesAreCountedByChannelAndLane() {
+    dispatchMetrics.dispatched(NotificationRequest.Channel.PUSH, Lane.BULK, 3);
+    dispatchMetrics.dispatched(NotificationRequest.Channel.PUSH, Lane.BULK, 2);
+    dispatchMetrics.dispatched(NotificationRequest.Channel.SMS, Lane.TRANSACTIONAL, 1);
+
+    assertThat(dispatched(NotificationRequest.Channel.PUSH, Lane.BULK)).isEqualTo(5);
+    assertThat(dispatched(NotificationRequest.Channel.SMS, Lane.TRANSACTIONAL)).isEqualTo(1);
+    assertThat(dispatched(NotificationRequest.Channel.SMS, Lane.BULK)).isZero();
+  }
+
+  @Test
+  void attemptFailuresAreCountedPerErrorCode() {
+    dispatchMetrics.attemptFailed("BROKER_NACKED");
+    dispatchMetrics.attemptFailed("BROKER_NACKED");
+    dispatchMetrics.attemptFailed("CONFIRM_TIMEOUT");
+
+    assertThat(meterRegistry.get("gateway.notifications.attempt_failed").tag("error_code", "BROKER_NACKED").counter().count())
+        .isEqualTo(2);
+    assertThat(meterRegistry.get("gateway.notifications.attempt_failed").tag("error_code", "CONFIRM_TIMEOUT").counter().count())
+        .isEqualTo(1);
+  }
+
+  @Test
+  void completedRequestsAreCountedByLaneAndOutcome() {
+    dispatchMetrics.requestCompleted(Lane.BULK, false);
+    dispatchMetrics.requestCompleted(Lane.BULK, true);
+    dispatchMetrics.requestCompleted(Lane.BULK, true);
+
+    assertThat(completed(Lane.BULK, "success")).isEqualTo(1);
+    assertThat(completed(Lane.BULK, "failed")).isEqualTo(2);
+    assertThat(completed(Lane.TRANSACTIONAL, "success")).isZero();
+  }
+
+  @Test
+  void tokenLookupsAreTimed() {
+    dispatchMetrics.tokenLookup().record(() -> { });
+
+    assertThat(meterRegistry.get("gateway.push_tokens.lookup").timer().count()).isEqualTo(1);
+  }
+
+  private double dispatched(NotificationRequest.Channel channel, Lane lane) {
+    return meterRegistry.get("gateway.notifications.dispatched")
+        .tag("channel", channel.name())
+        .tag("lane", lane.name())
+        .counter().count();
+  }
+
+  private double completed(Lane lane, String outcome) {
+    return meterRegistry.get("gateway.requests.completed")
+        .tag("lane", lane.name())
+        .tag("outcome", outcome)
+        .counter().count();
+  }
+}
@@ -0,0 +1,143 @@
+package uz.tengebank.notificationgatewayservice.service.outbox;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CorrelationMapTest {
+
+  // A new shard has 64 slots.
+  private static final int SLOT_MASK = 63;
+
+  private final CorrelationMap<String> map = new CorrelationMap<>(1);
+
+  @Test
+  void keysWithTheSameHomeSlotAreKeptApart() {
+    var keys = keysWithHomeSlot(10, 4);
+    keys.forEach(key -> map.put(key, "v" + key));
+
+    assertThat(map.size()).isEqualTo(4);
+    keys.forEach(key -> assertThat(map.get(key)).isEqualTo("v" + key));
+
+    map.put(keys.get(2), "replaced");
+    assertThat(map.size()).isEqualTo(4);
+    assertThat(map.get(keys.get(2))).isEqualTo("replaced");
+  }
+
+  @Test
+  void removingFromTheMiddleOfAProbeRunKeepsTheRestReachable() {
+    var keys = keysWithHomeSlot(10, 4);
+    keys.forEach(key -> map.put(key, "v" + key));
+
+    assertThat(map.remove(keys.get(1))).isEqualTo("v" + keys.get(1));
+    assertThat(map.remove(keys.get(1))).isNull();
+    assertThat(map.get(keys.get(1))).isNull();
+    assertThat(map.get(keys.get(0))).isEqualTo("v" + keys.get(0));
+    assertThat(map.get(keys.get(2))).isEqualTo("v" + keys.get(2));
+    assertThat(map.get(keys.get(3))).isEqualTo("v" + keys.get(3));
+
+    assertThat(map.remove(keys.get(0))).isEqualTo("v" + keys.get(0));
+    assertThat(map.get(keys.get(2))).isEqualTo("v" + keys.get(2));
+    assertThat(map.get(keys.get(3))).isEqualTo("v" + keys.get(3));
+    assertThat(map.size()).isEqualTo(2);
+  }
+
+  @Test
+  void removingFromAProbeRunThatWrapsAroundKeepsTheRestReachable() {
+    // Slots 63, 0, 1 and 2: two keys homed at the last slot wrap to the front, ahead of a key homed at slot 0.
+    var lastSlot = keysWithHomeSlot(SLOT_MASK, 3);
+    var firstSlot = keysWithHomeSlot(0, 1).getFirst();
+    map.put(lastSlot.get(0), "a");
+    map.put(lastSlot.get(1), "b");
+    map.put(firstSlot, "c");
+    map.put(lastSlot.get(2), "d");
+
+    assertThat(map.remove(lastSlot.get(0))).isEqualTo("a");
+
+    assertThat(map.get(lastSlot.get(1))).isEqualTo("b");
+    assertThat(map.get(firstSlot)).isEqualTo("c");
+    assertThat(map.get(lastSlot.get(2))).isEqualTo("d");
+
+    assertThat(map.remove(firstSlot)).isEqualTo("c");
+    assertThat(map.get(lastSlot.get(1))).isEqualTo("b");
+    assertThat(map.get(lastSlot.get(2))).isEqualTo("d");
+    assertThat(map.size()).isEqualTo(2);
+  }
+
+  @Test
+  void keepsUpWithAReferenceMapThroughResizes() {
+    var reference = new HashMap<Long, String>();
+    var random = new Random(42);
+    for (int i = 0; i < 50_000; i++) {
+      long key = 1 + random.nextInt(5_000);
+      if (random.nextInt(3) == 0) {
+        assertThat(map.remove(key)).isEqualTo(reference.remove(key));
+      } else {
+        map.put(key, "v" + i);
+        reference.put(key, "v" + i);
+      }
+    }
+
+    assertThat(map.size()).isEqualTo(reference.size());
+    for (long key = 1; key <= 5_000; key++) {
+      assertThat(map.get(key)).isEqualTo(reference.get(key));
+    }
+  }
+
+  @Test
+  void concurrentWritersGrowTheShardsWithoutLosingEntries() {
+    var shared = new CorrelationMap<Long>(4);
+    int writers = 8;
+    int perWriter = 20_000;
+
+    var futures = IntStream.range(0, writers)
+        .mapToObj(writer -> CompletableFuture.runAsync(() -> {
+          long first = (long) writer * perWriter + 1;
+          for (long key = first; key < first + perWriter; key++) {
+            shared.put(key, key);
+          }
+          // Drop every other entry again, so removals run alongside the other writers' resizes.
+          for (long key = first; key < first + perWriter; key += 2) {
+            shared.remove(key);
+          }
+        }))
+        .toArray(CompletableFuture[]::new);
+    CompletableFuture.allOf(futures).join();
+
+    assertThat(shared.size()).isEqualTo(writers * perWriter / 2);
+    for (long key = 1; key <= (long) writers * perWriter; key++) {
+      assertThat(shared.get(key)).isEqualTo(key % 2 == 0 ? key : null);
+    }
+    var visited = ConcurrentHashMap.<Long>newKeySet();
+    shared.forEach(visited::add);
+    assertThat(visited).hasSize(writers * perWriter / 2);
+  }
+
+  @Test
+  void rejectsKeysThatAreNotPositive() {
+    assertThatThrownBy(() -> map.put(0, "zero")).isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> map.put(-1, "negative")).isInstanceOf(IllegalArgumentException.class);
+  }
+
+  /**
+   * The first {@code count} keys whose home is {@code slot} in a new single-shard map.
+   */
+  private static List<Long> keysWithHomeSlot(int slot, int count) {
+    var keys = new ArrayList<Long>(count);
+    for (long key = 1; keys.size() < count; key++) {
+      if (((int) (CorrelationMap.mix(key) >>> 32) & SLOT_MASK) == slot) {
+        keys.add(key);
+      }
+    }
+    return keys;
+  }
+}
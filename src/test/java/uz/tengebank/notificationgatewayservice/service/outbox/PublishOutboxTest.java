@@ -0,0 +1,154 @@
+package uz.tengebank.notificationgatewayservice.service.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageDeliveryMode;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import uz.tengebank.notificationgatewayservice.config.props.ApplicationProperties;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PublishOutboxTest {
+
+  private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+  @TempDir
+  Path spillDirectory;
+
+  private final RabbitTemplate rabbitTemplate = mock(RabbitTemplate.class);
+
+  @Test
+  void spilledMessageKeepsItsDeliveryProperties() throws Exception {
+    var properties = new MessageProperties();
+    properties.setContentType("application/json");
+    properties.setContentEncoding("gzip");
+    properties.setHeader("x-request-id", "42");
+    properties.setPriority(9);
+    properties.setDeliveryMode(MessageDeliveryMode.PERSISTENT);
+    properties.setMessageId("message-1");
+    properties.setExpiration("60000");
+    var message = new Message("{}".getBytes(StandardCharsets.UTF_8), properties);
+
+    var line = OBJECT_MAPPER.writeValueAsString(PublishOutbox.SpilledMessage.of("internal", "notification.sms", message, 0));
+    var restored = OBJECT_MAPPER.readValue(line, PublishOutbox.SpilledMessage.class).toMessage();
+
+    var restoredProperties = restored.getMessageProperties();
+    assertThat(restoredProperties.getContentType()).isEqualTo("application/json");
+    assertThat(restoredProperties.getContentEncoding()).isEqualTo("gzip");
+    assertThat(restoredProperties.<String>getHeader("x-request-id")).isEqualTo("42");
+    assertThat(restoredProperties.getPriority()).isEqualTo(9);
+    assertThat(restoredProperties.getDeliveryMode()).isEqualTo(MessageDeliveryMode.PERSISTENT);
+    assertThat(restoredProperties.getMessageId()).isEqualTo("message-1");
+    assertThat(restoredProperties.getExpiration()).isEqualTo("60000");
+    assertThat(restored.getBody()).isEqualTo(message.getBody());
+  }
+
+  @Test
+  void spilledDelayedMessageIsReleasedAtItsOriginalTime() throws Exception {
+    long releaseAt = System.currentTimeMillis() + 60_000;
+    var line = OBJECT_MAPPER.writeValueAsString(
+        PublishOutbox.SpilledMessage.of("delayed", "notification.sms", message(), releaseAt));
+    var overdue = PublishOutbox.SpilledMessage.of("delayed", "notification.sms", message(), System.currentTimeMillis() - 1);
+
+    var restored = OBJECT_MAPPER.readValue(line, PublishOutbox.SpilledMessage.class).toMessage();
+
+    assertThat(restored.getMessageProperties().getDelayLong()).isBetween(50_000L, 60_000L);
+    assertThat(overdue.toMessage().getMessageProperties().getDelayLong()).isZero();
+  }
+
+  @Test
+  void retriedDelayedMessageIsPublishedWithTheDelayThatIsLeft() throws Exception {
+    List<Long> delays = new CopyOnWriteArrayList<>();
+    var published = new CountDownLatch(2);
+    doAnswer(invocation -> {
+      Message message = invocation.getArgument(2);
+      delays.add(message.getMessageProperties().getDelayLong());
+      published.countDown();
+      if (delays.size() == 1) {
+        throw new AmqpException("connection lost");
+      }
+      return null;
+    }).when(rabbitTemplate).send(anyString(), anyString(), any(Message.class), any(CorrelationData.class));
+    var message = message();
+    message.getMessageProperties().setDelayLong(60_000L);
+
+    outbox(Duration.ZERO).send("delayed", "notification.sms", message);
+
+    assertThat(published.await(5, TimeUnit.SECONDS)).isTrue();
+    assertThat(delays.get(1)).isLessThan(delays.get(0)).isGreaterThan(50_000L);
+  }
+
+  @Test
+  void shutdownWaitsForOutstandingConfirmsBeforeSpilling() throws IOException {
+    var outbox = outbox(Duration.ofSeconds(5));
+    var correlationData = outbox.track("internal", "notification.sms", message());
+    var confirm = CompletableFuture.runAsync(() -> {
+      sleep(100);
+      outbox.onConfirm(correlationData, true, null);
+    });
+
+    outbox.shutdown();
+
+    confirm.join();
+    assertThat(spilledLines()).isEmpty();
+  }
+
+  @Test
+  void shutdownSpillsMessagesStillUnconfirmedAfterTheTimeout() throws IOException {
+    var outbox = outbox(Duration.ofMillis(50));
+    outbox.track("internal", "notification.sms", message());
+
+    outbox.shutdown();
+
+    assertThat(spilledLines()).hasSize(1);
+  }
+
+  private PublishOutbox outbox(Duration shutdownConfirmTimeout) throws IOException {
+    var props = mock(ApplicationProperties.class);
+    when(props.rabbitmq()).thenReturn(new ApplicationProperties.RabbitMQ(
+        new ApplicationProperties.Exchanges("internal", "delayed", "audit"), null, null,
+        new ApplicationProperties.Outbox(Duration.ofMillis(100), Duration.ofMillis(100), 8, spillDirectory.toString(),
+            Duration.ofHours(1), 4, shutdownConfirmTimeout),
+        null));
+    return new PublishOutbox(rabbitTemplate, OBJECT_MAPPER, props, new SimpleMeterRegistry());
+  }
+
+  private List<String> spilledLines() throws IOException {
+    var spillFile = spillDirectory.resolve("outbox.jsonl");
+    return Files.exists(spillFile) ? Files.readAllLines(spillFile) : List.of();
+  }
+
+  private static Message message() {
+    return new Message("{}".getBytes(StandardCharsets.UTF_8), new MessageProperties());
+  }
+
+  private static void sleep(long millis) {
+    try {
+      TimeUnit.MILLISECONDS.sleep(millis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
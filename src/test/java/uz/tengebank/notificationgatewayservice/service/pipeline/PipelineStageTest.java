@@ -0,0 +1,158 @@
+package uz.tengebank.notificationgatewayservice.service.pipeline;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import uz.tengebank.notificationgatewayservice.config.props.ApplicationProperties;
+import uz.tengebank.notificationgatewayservice.dto.notification.Lane;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PipelineStageTest {
+
+  private static final Map<Lane, Integer> WEIGHTS = Map.of(Lane.TRANSACTIONAL, 4, Lane.BULK, 1);
+  private static final Item GATE = new Item(Lane.BULK, -1);
+
+  private final CountDownLatch gateTaken = new CountDownLatch(1);
+  private final CountDownLatch gateOpen = new CountDownLatch(1);
+  private final List<List<Item>> batches = new CopyOnWriteArrayList<>();
+
+  private PipelineStage<Item> stage;
+
+  @AfterEach
+  void closeStage() throws InterruptedException {
+    gateOpen.countDown();
+    stage.close();
+  }
+
+  @Test
+  void lanesShareTheStageByWeightWhileBothHaveWork() throws InterruptedException {
+    stage = stage(new ApplicationProperties.Pipeline.Stage(100, 1, 1));
+    holdWorker();
+    for (int i = 0; i < 40; i++) {
+      stage.submit(new Item(Lane.BULK, i));
+      stage.submit(new Item(Lane.TRANSACTIONAL, i));
+    }
+
+    gateOpen.countDown();
+    stage.close();
+
+    var lanes = batches.stream().skip(1).map(batch -> batch.getFirst().lane()).toList();
+    assertThat(lanes).hasSize(80);
+    // Smooth weighted round-robin with weights 4:1 interleaves the lanes as T T B T T until transactional runs out.
+    assertThat(lanes.subList(0, 50)).containsExactlyElementsOf(
+        repeat(List.of(Lane.TRANSACTIONAL, Lane.TRANSACTIONAL, Lane.BULK, Lane.TRANSACTIONAL, Lane.TRANSACTIONAL), 10));
+    assertThat(lanes.subList(50, 80)).containsOnly(Lane.BULK);
+  }
+
+  @Test
+  void itemsOfOneLaneKeepTheirOrder() throws InterruptedException {
+    stage = stage(new ApplicationProperties.Pipeline.Stage(100, 1, 1));
+    holdWorker();
+    for (int i = 0; i < 20; i++) {
+      stage.submit(new Item(i % 2 == 0 ? Lane.BULK : Lane.TRANSACTIONAL, i));
+    }
+
+    gateOpen.countDown();
+    stage.close();
+
+    var items = batches.stream().skip(1).flatMap(List::stream).toList();
+    assertThat(items.stream().filter(item -> item.lane() == Lane.BULK).map(Item::sequence))
+        .containsExactly(0, 2, 4, 6, 8, 10, 12, 14, 16, 18);
+    assertThat(items.stream().filter(item -> item.lane() == Lane.TRANSACTIONAL).map(Item::sequence))
+        .containsExactly(1, 3, 5, 7, 9, 11, 13, 15, 17, 19);
+  }
+
+  @Test
+  void handsQueuedItemsOfOneLaneOverAsOneBatch() throws InterruptedException {
+    stage = stage(new ApplicationProperties.Pipeline.Stage(100, 1, 4));
+    holdWorker();
+    for (int i = 0; i < 10; i++) {
+      stage.submit(new Item(Lane.BULK, i));
+    }
+
+    gateOpen.countDown();
+    stage.close();
+
+    assertThat(batches.stream().skip(1).map(List::size)).containsExactly(4, 4, 2);
+  }
+
+  @Test
+  void fullLaneBlocksOnlyItsOwnSubmitters() throws Exception {
+    stage = stage(new ApplicationProperties.Pipeline.Stage(2, 1, 1));
+    holdWorker();
+    stage.submit(new Item(Lane.BULK, 0));
+    stage.submit(new Item(Lane.BULK, 1));
+
+    var blocked = CompletableFuture.runAsync(() -> stage.submit(new Item(Lane.BULK, 2)));
+    stage.submit(new Item(Lane.TRANSACTIONAL, 0));
+    stage.submit(new Item(Lane.TRANSACTIONAL, 1));
+    assertThatThrownBy(() -> blocked.get(200, TimeUnit.MILLISECONDS)).isInstanceOf(TimeoutException.class);
+
+    gateOpen.countDown();
+    blocked.get(5, TimeUnit.SECONDS);
+    stage.close();
+    assertThat(batches.stream().skip(1).flatMap(List::stream)).hasSize(5);
+  }
+
+  @Test
+  void failingBatchDoesNotStopTheWorker() throws InterruptedException {
+    stage = new PipelineStage<>("test", new ApplicationProperties.Pipeline.Stage(100, 1, 1), WEIGHTS, Item::lane,
+        items -> {
+          batches.add(items);
+          if (items.getFirst().sequence() == 0) {
+            throw new IllegalStateException("boom");
+          }
+        }, new SimpleMeterRegistry());
+
+    stage.submit(new Item(Lane.BULK, 0));
+    stage.submit(new Item(Lane.BULK, 1));
+    stage.close();
+
+    assertThat(batches).hasSize(2);
+  }
+
+  private PipelineStage<Item> stage(ApplicationProperties.Pipeline.Stage props) {
+    Consumer<List<Item>> handler = items -> {
+      if (items.getFirst() == GATE) {
+        gateTaken.countDown();
+        awaitQuietly(gateOpen);
+      }
+      batches.add(items);
+    };
+    return new PipelineStage<>("test", props, WEIGHTS, Item::lane, handler, new SimpleMeterRegistry());
+  }
+
+  /**
+   * Occupies the only worker until {@link #gateOpen} is released, so the items submitted meanwhile queue up.
+   */
+  private void holdWorker() throws InterruptedException {
+    stage.submit(GATE);
+    assertThat(gateTaken.await(5, TimeUnit.SECONDS)).isTrue();
+  }
+
+  private static void awaitQuietly(CountDownLatch latch) {
+    try {
+      latch.await(10, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static <T> List<T> repeat(List<T> pattern, int times) {
+    return Stream.generate(() -> pattern).limit(times).flatMap(List::stream).toList();
+  }
+
+  private record Item(Lane lane, int sequence) {}
+}
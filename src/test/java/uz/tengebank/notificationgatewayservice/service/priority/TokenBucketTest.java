@@ -0,0 +1,63 @@
+package uz.tengebank.notificationgatewayservice.service.priority;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenBucketTest {
+
+  private static final long MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+  private final AtomicLong clock = new AtomicLong(TimeUnit.HOURS.toNanos(1));
+
+  @Test
+  void burstIsAvailableImmediately() {
+    var bucket = new TokenBucket(1000, 10, clock::get);
+
+    assertThat(bucket.reserve(10)).isZero();
+    assertThat(bucket.reserve(1)).isEqualTo(MILLI);
+  }
+
+  @Test
+  void reservationsQueueBehindEachOther() {
+    var bucket = new TokenBucket(1000, 1, clock::get);
+
+    assertThat(bucket.reserve(1)).isZero();
+    assertThat(bucket.reserve(1)).isEqualTo(MILLI);
+    assertThat(bucket.reserve(5)).isEqualTo(6 * MILLI);
+  }
+
+  @Test
+  void refillsAtTheConfiguredRate() {
+    var bucket = new TokenBucket(1000, 10, clock::get);
+    bucket.reserve(10);
+
+    clock.addAndGet(4 * MILLI);
+
+    assertThat(bucket.reserve(4)).isZero();
+    assertThat(bucket.reserve(1)).isEqualTo(MILLI);
+  }
+
+  @Test
+  void idleTimeAccumulatesOnlyUpToTheBurst() {
+    var bucket = new TokenBucket(1000, 10, clock::get);
+    bucket.reserve(10);
+
+    clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+
+    assertThat(bucket.reserve(10)).isZero();
+    assertThat(bucket.reserve(1)).isEqualTo(MILLI);
+  }
+
+  @Test
+  void acquireWithinTheBurstDoesNotWait() {
+    var bucket = new TokenBucket(1000, 10, clock::get);
+
+    bucket.acquire(10);
+
+    assertThat(bucket.reserve(1)).isEqualTo(MILLI);
+  }
+}
@@ -0,0 +1,87 @@
+package uz.tengebank.notificationgatewayservice.service.progress;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import uz.tengebank.notificationcontracts.dto.NotificationRequest;
+import uz.tengebank.notificationgatewayservice.config.props.ApplicationProperties;
+import uz.tengebank.notificationgatewayservice.dto.progress.NotificationProgress;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static uz.tengebank.notificationgatewayservice.TestRequests.request;
+
+class ProgressRegistryTest {
+
+  private final ProgressRegistry progressRegistry = new ProgressRegistry(properties(), new SimpleMeterRegistry());
+  private final UUID parentId = UUID.randomUUID();
+
+  @Test
+  void chunksAddUpUnderTheParentId() {
+    var first = UUID.randomUUID();
+    var second = UUID.randomUUID();
+    progressRegistry.started(request(first, "PARALLEL", List.of("SMS"), List.of("998901234567", "998901234568")), parentId);
+    progressRegistry.started(request(second, "PARALLEL", List.of("SMS"), List.of("998901234569")), parentId);
+
+    progressRegistry.dispatched(first, NotificationRequest.Channel.SMS, 2);
+    progressRegistry.dispatched(second, NotificationRequest.Channel.SMS, 1);
+    progressRegistry.failed(second, null);
+
+    var parent = progressRegistry.get(parentId).orElseThrow();
+    assertThat(parent.destinations()).isEqualTo(3);
+    assertThat(parent.failedDestinations()).isEqualTo(1);
+    assertThat(parent.channels().get(NotificationRequest.Channel.SMS).dispatched()).isEqualTo(3);
+    assertThat(progressRegistry.get(first).orElseThrow().channels().get(NotificationRequest.Channel.SMS).dispatched())
+        .isEqualTo(2);
+  }
+
+  @Test
+  void parentFinishesWithItsLastChunk() {
+    var first = UUID.randomUUID();
+    var second = UUID.randomUUID();
+    progressRegistry.started(request(first, "PARALLEL", List.of("SMS"), List.of("998901234567")), parentId);
+    progressRegistry.started(request(second, "PARALLEL", List.of("SMS"), List.of("998901234568")), parentId);
+
+    progressRegistry.completed(first, false);
+    assertThat(progressRegistry.get(parentId).orElseThrow().status()).isEqualTo(NotificationProgress.Status.PROCESSING);
+    assertThat(progressRegistry.get(first).orElseThrow().status()).isEqualTo(NotificationProgress.Status.COMPLETED);
+
+    progressRegistry.completed(second, true);
+    assertThat(progressRegistry.get(parentId).orElseThrow().status()).isEqualTo(NotificationProgress.Status.FAILED);
+  }
+
+  @Test
+  void openedParentKeepsRunningBetweenChunks() {
+    var chunk = UUID.randomUUID();
+    progressRegistry.opened(parentId);
+    progressRegistry.started(request(chunk, "PARALLEL", List.of("SMS"), List.of("998901234567")), parentId);
+
+    progressRegistry.completed(chunk, false);
+    assertThat(progressRegistry.get(parentId).orElseThrow().status()).isEqualTo(NotificationProgress.Status.PROCESSING);
+
+    progressRegistry.completed(parentId, false);
+    assertThat(progressRegistry.get(parentId).orElseThrow().status()).isEqualTo(NotificationProgress.Status.COMPLETED);
+  }
+
+  @Test
+  void chunkUpdatesMoveTheParentVersion() {
+    var chunk = UUID.randomUUID();
+    progressRegistry.started(request(chunk, "PARALLEL", List.of("SMS"), List.of("998901234567")), parentId);
+    long version = progressRegistry.version(parentId);
+
+    progressRegistry.confirmed(chunk, NotificationRequest.Channel.SMS, 1);
+
+    assertThat(progressRegistry.version(parentId)).isGreaterThan(version);
+  }
+
+  private static ApplicationProperties properties() {
+    var props = mock(ApplicationProperties.class);
+    when(props.progress()).thenReturn(new ApplicationProperties.Progress(1000, Duration.ofHours(1),
+        Duration.ofHours(1), Duration.ofMinutes(1), Duration.ofMillis(100)));
+    return props;
+  }
+}
@@ -0,0 +1,155 @@
+package uz.tengebank.notificationgatewayservice.service.progress;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import uz.tengebank.notificationgatewayservice.config.props.ApplicationProperties;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static uz.tengebank.notificationgatewayservice.TestRequests.request;
+
+class ProgressStreamsTest {
+
+  private static final Duration SEND_TIMEOUT = Duration.ofMillis(100);
+
+  private final ApplicationProperties props = properties();
+  private final ProgressRegistry progressRegistry = new ProgressRegistry(props, new SimpleMeterRegistry());
+  private final ProgressStreams progressStreams = new ProgressStreams(progressRegistry, props);
+  private final UUID requestId = UUID.randomUUID();
+
+  @AfterEach
+  void shutdown() {
+    progressStreams.shutdown();
+  }
+
+  @Test
+  void slowSubscriberDoesNotHoldUpOthers() throws InterruptedException {
+    started();
+    var slow = (StubEmitter) progressStreams.subscribe(requestId, new StubEmitter(true));
+    var fast = (StubEmitter) progressStreams.subscribe(requestId, new StubEmitter(false));
+
+    progressStreams.push();
+
+    assertThat(slow.entered.await(5, TimeUnit.SECONDS)).isTrue();
+    assertThat(fast.sent.await(5, TimeUnit.SECONDS)).isTrue();
+    assertThat(slow.sent.getCount()).isEqualTo(1);
+  }
+
+  @Test
+  void subscriberIsDroppedWhenAnEventIsNotAcceptedInTime() throws InterruptedException {
+    started();
+    var slow = (StubEmitter) progressStreams.subscribe(requestId, new StubEmitter(true));
+    progressStreams.push();
+    assertThat(slow.entered.await(5, TimeUnit.SECONDS)).isTrue();
+
+    progressStreams.push();
+    assertThat(progressStreams.subscriberCount()).isEqualTo(1);
+
+    TimeUnit.MILLISECONDS.sleep(SEND_TIMEOUT.toMillis() * 2);
+    progressStreams.push();
+
+    assertThat(progressStreams.subscriberCount()).isZero();
+    assertThat(slow.failed.await(5, TimeUnit.SECONDS)).isTrue();
+    assertThat(slow.failure.get()).isInstanceOf(TimeoutException.class);
+  }
+
+  @Test
+  void unchangedProgressIsNotSentAgain() throws InterruptedException {
+    started();
+    var emitter = (StubEmitter) progressStreams.subscribe(requestId, new StubEmitter(false));
+
+    progressStreams.push();
+    assertThat(emitter.sent.await(5, TimeUnit.SECONDS)).isTrue();
+    awaitIdle();
+    progressStreams.push();
+    awaitIdle();
+
+    assertThat(emitter.sends.get()).isEqualTo(1);
+  }
+
+  @Test
+  void streamEndsAfterTheRequestFinishes() throws InterruptedException {
+    started();
+    progressRegistry.completed(requestId, false);
+    var emitter = (StubEmitter) progressStreams.subscribe(requestId, new StubEmitter(false));
+
+    progressStreams.push();
+
+    assertThat(emitter.completed.await(5, TimeUnit.SECONDS)).isTrue();
+    assertThat(emitter.sends.get()).isEqualTo(1);
+    assertThat(progressStreams.subscriberCount()).isZero();
+  }
+
+  private void started() {
+    progressRegistry.started(request(requestId, "PARALLEL", List.of("SMS"), List.of("998901234567")));
+  }
+
+  private static void awaitIdle() throws InterruptedException {
+    // Sends run on virtual threads; give the one just submitted time to record its version.
+    TimeUnit.MILLISECONDS.sleep(50);
+  }
+
+  private static ApplicationProperties properties() {
+    var props = mock(ApplicationProperties.class);
+    // The scheduled push never fires during a test; the tests call push() themselves.
+    when(props.progress()).thenReturn(new ApplicationProperties.Progress(1000, Duration.ofHours(1),
+        Duration.ofHours(1), Duration.ofMinutes(1), SEND_TIMEOUT));
+    return props;
+  }
+
+  /**
+   * Records what the stream does with it instead of writing to a response; a blocking one never accepts an event.
+   */
+  private static final class StubEmitter extends SseEmitter {
+    private final boolean blocking;
+    private final AtomicInteger sends = new AtomicInteger();
+    private final CountDownLatch entered = new CountDownLatch(1);
+    private final CountDownLatch sent = new CountDownLatch(1);
+    private final CountDownLatch completed = new CountDownLatch(1);
+    private final CountDownLatch failed = new CountDownLatch(1);
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+    private StubEmitter(boolean blocking) {
+      this.blocking = blocking;
+    }
+
+    @Override
+    public void send(SseEventBuilder builder) throws IOException {
+      sends.incrementAndGet();
+      entered.countDown();
+      if (blocking) {
+        try {
+          new CountDownLatch(1).await();
+        } catch (InterruptedException e) {
+          throw new InterruptedIOException("send interrupted");
+        }
+      }
+      sent.countDown();
+    }
+
+    @Override
+    public void complete() {
+      completed.countDown();
+    }
+
+    @Override
+    public void completeWithError(Throwable ex) {
+      failure.compareAndSet(null, ex);
+      failed.countDown();
+    }
+  }
+}
@@ -0,0 +1,131 @@
+package uz.tengebank.notificationgatewayservice.service.render;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import uz.tengebank.notificationcontracts.dto.NotificationRequest;
+import uz.tengebank.notificationgatewayservice.config.props.ApplicationProperties;
+import uz.tengebank.notificationgatewayservice.constants.CommonErrorCode;
+import uz.tengebank.notificationgatewayservice.dto.ApiResponse;
+import uz.tengebank.notificationgatewayservice.dto.template.NotificationTemplateResponseDto;
+import uz.tengebank.notificationgatewayservice.dto.template.TemplateType;
+import uz.tengebank.notificationgatewayservice.dto.template.batch.BatchRenderRequest;
+import uz.tengebank.notificationgatewayservice.dto.template.batch.RenderResult;
+import uz.tengebank.notificationgatewayservice.exception.ApiException;
+import uz.tengebank.notificationgatewayservice.service.TemplateServiceClient;
+import uz.tengebank.notificationgatewayservice.service.template.TemplateCache;
+import uz.tengebank.notificationgatewayservice.service.template.TemplateLookup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static uz.tengebank.notificationgatewayservice.TestRequests.TEMPLATE_CODE;
+import static uz.tengebank.notificationgatewayservice.TestRequests.request;
+
+class ChunkedBatchRendererTest {
+
+  private static final RenderResult.RenderedTemplate RENDERED = new RenderResult.RenderedTemplate(null, "text", null);
+
+  private final TemplateServiceClient templateServiceClient = mock(TemplateServiceClient.class);
+  private final TemplateCache templateCache = mock(TemplateCache.class);
+  private final LocalTemplateRenderer localTemplateRenderer = mock(LocalTemplateRenderer.class);
+
+  @Test
+  void destinationsAreSplitIntoViewsOfChunkSize() {
+    var request = request(UUID.randomUUID(), "PARALLEL", List.of("SMS"), phones(5));
+
+    var chunks = renderer(2, ApplicationProperties.Render.Mode.REMOTE).chunks(request.destinations());
+
+    assertThat(chunks).extracting(List::size).containsExactly(2, 2, 1);
+    assertThat(chunks.get(2).getFirst()).isSameAs(request.destinations().get(4));
+  }
+
+  @Test
+  void remoteResultsArePlacedByTheirSlot() {
+    var request = request(UUID.randomUUID(), "PARALLEL", List.of("SMS", "PUSH"), phones(2));
+    when(templateServiceClient.renderBatch(any())).thenAnswer(invocation -> {
+      BatchRenderRequest batch = invocation.getArgument(0);
+      var results = new ArrayList<RenderResult>();
+      // Answered out of order, with one result the gateway never asked for.
+      for (var task : batch.tasks().reversed()) {
+        results.add(RenderResult.success(task.recipientId(), new RenderResult.RenderedTemplate(null, task.recipientId(), null)));
+      }
+      results.add(RenderResult.success("unknown", RENDERED));
+      return ApiResponse.success(results);
+    });
+
+    var results = renderer(10, ApplicationProperties.Render.Mode.REMOTE).renderChunk(request, request.destinations());
+
+    assertThat(results.get(1, NotificationRequest.Channel.PUSH).data().body())
+        .isEqualTo(Integer.toString(RenderResults.slot(1, NotificationRequest.Channel.PUSH)));
+    assertThat(results.get(0, NotificationRequest.Channel.SMS).data().body())
+        .isEqualTo(Integer.toString(RenderResults.slot(0, NotificationRequest.Channel.SMS)));
+    assertThat(results.successes(NotificationRequest.Channel.SMS)).isEqualTo(2);
+  }
+
+  @Test
+  void onlyTasksTheLocalEngineCannotRenderGoRemote() {
+    var request = request(UUID.randomUUID(), "PARALLEL", List.of("SMS", "PUSH"), phones(2));
+    var template = new NotificationTemplateResponseDto(1L, TEMPLATE_CODE, null, null, null, null, null, null, 1L);
+    when(templateCache.get(TEMPLATE_CODE)).thenReturn(TemplateLookup.found(template));
+    when(localTemplateRenderer.render(any(), any()))
+        .thenAnswer(invocation -> invocation.<BatchRenderRequest.RenderTask>getArgument(1).type() == TemplateType.SMS ? RENDERED : null);
+    when(templateServiceClient.renderBatch(any())).thenAnswer(invocation -> {
+      BatchRenderRequest batch = invocation.getArgument(0);
+      return ApiResponse.success(batch.tasks().stream().map(task -> RenderResult.success(task.recipientId(), RENDERED)).toList());
+    });
+
+    var results = renderer(10, ApplicationProperties.Render.Mode.LOCAL).renderChunk(request, request.destinations());
+
+    var batch = ArgumentCaptor.forClass(BatchRenderRequest.class);
+    verify(templateServiceClient).renderBatch(batch.capture());
+    assertThat(batch.getValue().tasks()).extracting(BatchRenderRequest.RenderTask::type).containsOnly(TemplateType.PUSH);
+    assertThat(results.successes(NotificationRequest.Channel.SMS)).isEqualTo(2);
+    assertThat(results.successes(NotificationRequest.Channel.PUSH)).isEqualTo(2);
+  }
+
+  @Test
+  void chunkRenderedLocallyMakesNoRemoteCall() {
+    var request = request(UUID.randomUUID(), "PARALLEL", List.of("SMS"), phones(3));
+    var template = new NotificationTemplateResponseDto(1L, TEMPLATE_CODE, null, null, null, null, null, null, 1L);
+    when(templateCache.get(TEMPLATE_CODE)).thenReturn(TemplateLookup.found(template));
+    when(localTemplateRenderer.render(any(), any())).thenReturn(RENDERED);
+
+    var results = renderer(10, ApplicationProperties.Render.Mode.LOCAL).renderChunk(request, request.destinations());
+
+    verify(templateServiceClient, never()).renderBatch(any());
+    assertThat(results.successes(NotificationRequest.Channel.SMS)).isEqualTo(3);
+  }
+
+  @Test
+  void errorResponseFailsTheChunk() {
+    var request = request(UUID.randomUUID(), "PARALLEL", List.of("SMS"), phones(1));
+    when(templateServiceClient.renderBatch(any()))
+        .thenReturn(ApiResponse.error(CommonErrorCode.TEMPLATE_SERVICE_EXCEPTION, "render failed", null));
+
+    assertThatThrownBy(() -> renderer(10, ApplicationProperties.Render.Mode.REMOTE).renderChunk(request, request.destinations()))
+        .isInstanceOf(ApiException.class)
+        .hasMessageContaining("render failed");
+  }
+
+  private ChunkedBatchRenderer renderer(int chunkSize, ApplicationProperties.Render.Mode mode) {
+    var props = mock(ApplicationProperties.class);
+    when(props.render()).thenReturn(new ApplicationProperties.Render(chunkSize, mode, 100));
+    return new ChunkedBatchRenderer(templateServiceClient, templateCache, localTemplateRenderer, props);
+  }
+
+  private static List<String> phones(int count) {
+    var phones = new ArrayList<String>(count);
+    for (int i = 0; i < count; i++) {
+      phones.add("99890" + String.format("%07d", i));
+    }
+    return phones;
+  }
+}
@@ -0,0 +1,88 @@
+package uz.tengebank.notificationgatewayservice.service.render;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CompiledTemplateTest {
+
+  @Test
+  void substitutesVariables() {
+    var template = CompiledTemplate.compile("Hello, {{ name }}! Your code is {{code}}.", false);
+
+    assertThat(template.isSupported()).isTrue();
+    assertThat(template.render(Map.of("name", "Aziz", "code", 1234))).isEqualTo("Hello, Aziz! Your code is 1234.");
+  }
+
+  @Test
+  void returnsLiteralWithoutVariables() {
+    var template = CompiledTemplate.compile("Your card was blocked.", false);
+
+    assertThat(template.render(null)).isEqualTo("Your card was blocked.");
+  }
+
+  @Test
+  void missingVariableFallsBackToRemote() {
+    var template = CompiledTemplate.compile("Hello, {{name}}, balance {{balance}}", false);
+
+    assertThat(template.render(Map.of("name", "Aziz"))).isNull();
+    assertThat(template.render(null)).isNull();
+  }
+
+  @Test
+  void rendersAdjacentPlaceholders() {
+    var template = CompiledTemplate.compile("{{first}}{{second}}{{first}}", false);
+
+    assertThat(template.render(Map.of("first", "a", "second", "b"))).isEqualTo("aba");
+  }
+
+  @Test
+  void unterminatedPlaceholderIsUnsupported() {
+    assertThat(CompiledTemplate.compile("Hello, {{name", false).isSupported()).isFalse();
+    assertThat(CompiledTemplate.compile("Hello, {{name}} and {{", false).isSupported()).isFalse();
+  }
+
+  @Test
+  void mustacheFeaturesAreUnsupported() {
+    assertThat(CompiledTemplate.compile("{{#items}}x{{/items}}", false).isSupported()).isFalse();
+    assertThat(CompiledTemplate.compile("{{> footer}}", false).isSupported()).isFalse();
+    assertThat(CompiledTemplate.compile("{{! comment }}", false).isSupported()).isFalse();
+    assertThat(CompiledTemplate.compile("{{{raw}}", false).isSupported()).isFalse();
+    assertThat(CompiledTemplate.compile("{{&}}", false).isSupported()).isFalse();
+    assertThat(CompiledTemplate.compile("{{client.name}}", false).isSupported()).isFalse();
+    assertThat(CompiledTemplate.compile("{{}}", false).isSupported()).isFalse();
+  }
+
+  @Test
+  void escapesValuesInHtmlParts() {
+    var template = CompiledTemplate.compile("<b>{{name}}</b>", true);
+
+    assertThat(template.render(Map.of("name", "Tom & \"Jerry\" <O'Neil>")))
+        .isEqualTo("<b>Tom &amp; &quot;Jerry&quot; &lt;O&#39;Neil&gt;</b>");
+  }
+
+  @Test
+  void leavesPlainValuesUntouched() {
+    var template = CompiledTemplate.compile("Summa: {{amount}} so'm", false);
+
+    assertThat(template.render(Map.of("amount", "1 000,50"))).isEqualTo("Summa: 1 000,50 so'm");
+  }
+
+  @Test
+  void unescapedFormsAreNotEscapedInHtmlParts() {
+    var template = CompiledTemplate.compile("{{{first}}} {{& second}} {{third}}", true);
+
+    assertThat(template.render(Map.of("first", "<i>", "second", "a&b", "third", "<i>")))
+        .isEqualTo("<i> a&b &lt;i&gt;");
+  }
+
+  @Test
+  void plainTextPartsAreNeverEscaped() {
+    var template = CompiledTemplate.compile("{{name}} & {{{name}}}: {{amount}}", false);
+
+    assertThat(template.render(Map.of("name", "Tom & \"Jerry\" <O'Neil>", "amount", "<100>")))
+        .isEqualTo("Tom & \"Jerry\" <O'Neil> & Tom & \"Jerry\" <O'Neil>: <100>");
+  }
+}
@@ -0,0 +1,56 @@
+package uz.tengebank.notificationgatewayservice.service.render;
+
+import org.junit.jupiter.api.Test;
+import uz.tengebank.notificationgatewayservice.config.props.ApplicationProperties;
+import uz.tengebank.notificationgatewayservice.dto.template.NotificationTemplateResponseDto;
+import uz.tengebank.notificationgatewayservice.dto.template.TemplateType;
+import uz.tengebank.notificationgatewayservice.dto.template.batch.BatchRenderRequest;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class LocalTemplateRendererTest {
+
+  private final LocalTemplateRenderer renderer = new LocalTemplateRenderer(properties());
+
+  @Test
+  void smsTextIsRenderedWithoutHtmlEscaping() {
+    var template = template(new NotificationTemplateResponseDto.SmsTemplateDto(
+        Map.of("uz", "{{merchant}}: {{amount}} so'm <{{card}}>")), null);
+
+    var rendered = renderer.render(template, task(TemplateType.SMS,
+        Map.of("merchant", "Tom & Jerry's", "amount", "1 000", "card", "*1234")));
+
+    assertThat(rendered.body()).isEqualTo("Tom & Jerry's: 1 000 so'm <*1234>");
+  }
+
+  @Test
+  void pushPartsAreRenderedWithoutHtmlEscaping() {
+    var template = template(null, new NotificationTemplateResponseDto.PushTemplateDto(
+        Map.of("uz", "\"{{merchant}}\""), Map.of("uz", "{{amount}} < limit"), null));
+
+    var rendered = renderer.render(template, task(TemplateType.PUSH, Map.of("merchant", "A&B", "amount", "5")));
+
+    assertThat(rendered.title()).isEqualTo("\"A&B\"");
+    assertThat(rendered.body()).isEqualTo("5 < limit");
+  }
+
+  private static BatchRenderRequest.RenderTask task(TemplateType type, Map<String, Object> variables) {
+    return new BatchRenderRequest.RenderTask("r-1", "uz", type, variables);
+  }
+
+  private static NotificationTemplateResponseDto template(
+      NotificationTemplateResponseDto.SmsTemplateDto sms, NotificationTemplateResponseDto.PushTemplateDto push
+  ) {
+    return new NotificationTemplateResponseDto(1L, "payment", sms, push, null, null, null, null, 1L);
+  }
+
+  private static ApplicationProperties properties() {
+    var props = mock(ApplicationProperties.class);
+    when(props.render()).thenReturn(new ApplicationProperties.Render(100, ApplicationProperties.Render.Mode.LOCAL, 100));
+    return props;
+  }
+}
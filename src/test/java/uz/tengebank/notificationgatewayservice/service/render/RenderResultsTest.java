@@ -0,0 +1,76 @@
+package uz.tengebank.notificationgatewayservice.service.render;
+
+import org.junit.jupiter.api.Test;
+import uz.tengebank.notificationcontracts.dto.NotificationRequest;
+import uz.tengebank.notificationgatewayservice.dto.ApiError;
+import uz.tengebank.notificationgatewayservice.dto.template.batch.RenderResult;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RenderResultsTest {
+
+  @Test
+  void slotsOfDifferentDestinationsAndChannelsDoNotCollide() {
+    var results = new RenderResults(3);
+    for (int destination = 0; destination < 3; destination++) {
+      for (var channel : NotificationRequest.Channel.values()) {
+        results.put(RenderResults.slot(destination, channel), success(destination + channel.name()));
+      }
+    }
+
+    for (int destination = 0; destination < 3; destination++) {
+      for (var channel : NotificationRequest.Channel.values()) {
+        assertThat(results.get(destination, channel).data().body()).isEqualTo(destination + channel.name());
+      }
+    }
+  }
+
+  @Test
+  void missingResultIsNull() {
+    var results = new RenderResults(2);
+    results.put(RenderResults.slot(0, NotificationRequest.Channel.SMS), success("a"));
+
+    assertThat(results.get(1, NotificationRequest.Channel.SMS)).isNull();
+    assertThat(results.get(0, NotificationRequest.Channel.PUSH)).isNull();
+  }
+
+  @Test
+  void viewAddressesDestinationsFromItsOffset() {
+    var results = new RenderResults(4);
+    results.put(RenderResults.slot(2, NotificationRequest.Channel.SMS), success("third"));
+    results.put(RenderResults.slot(3, NotificationRequest.Channel.SMS), success("fourth"));
+
+    var view = results.from(2);
+
+    assertThat(view.get(0, NotificationRequest.Channel.SMS).data().body()).isEqualTo("third");
+    assertThat(view.from(1).get(0, NotificationRequest.Channel.SMS).data().body()).isEqualTo("fourth");
+  }
+
+  @Test
+  void successesCountOnlySuccessfulResultsOfTheChannelFromTheViewOn() {
+    var results = new RenderResults(4);
+    results.put(RenderResults.slot(0, NotificationRequest.Channel.SMS), success("a"));
+    results.put(RenderResults.slot(1, NotificationRequest.Channel.SMS),
+        RenderResult.error(Integer.toString(RenderResults.slot(1, NotificationRequest.Channel.SMS)), new ApiError("E", "failed")));
+    results.put(RenderResults.slot(2, NotificationRequest.Channel.SMS), success("c"));
+    results.put(RenderResults.slot(3, NotificationRequest.Channel.PUSH), success("d"));
+
+    assertThat(results.successes(NotificationRequest.Channel.SMS)).isEqualTo(2);
+    assertThat(results.successes(NotificationRequest.Channel.PUSH)).isEqualTo(1);
+    assertThat(results.from(1).successes(NotificationRequest.Channel.SMS)).isEqualTo(1);
+  }
+
+  @Test
+  void onlySlotsOfTheChunkAreAccepted() {
+    var results = new RenderResults(2);
+
+    assertThat(results.isSlot(0)).isTrue();
+    assertThat(results.isSlot(2 * RenderResults.CHANNELS - 1)).isTrue();
+    assertThat(results.isSlot(2 * RenderResults.CHANNELS)).isFalse();
+    assertThat(results.isSlot(-1)).isFalse();
+  }
+
+  private static RenderResult success(String body) {
+    return RenderResult.success("r", new RenderResult.RenderedTemplate(null, body, null));
+  }
+}
@@ -0,0 +1,191 @@
+package uz.tengebank.notificationgatewayservice.service.schedule;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import uz.tengebank.notificationcontracts.dto.NotificationRequest;
+import uz.tengebank.notificationgatewayservice.config.props.ApplicationProperties;
+import uz.tengebank.notificationgatewayservice.constants.CommonErrorCode;
+import uz.tengebank.notificationgatewayservice.dto.notification.DeliveryOptions;
+import uz.tengebank.notificationgatewayservice.dto.notification.Lane;
+import uz.tengebank.notificationgatewayservice.exception.ApiException;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class DeliverySchedulerTest {
+
+  private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+  private static final LocalTime NIGHT_START = LocalTime.of(22, 0);
+  private static final LocalTime NIGHT_END = LocalTime.of(8, 0);
+
+  @Test
+  void bulkMessageInTheEveningIsHeldUntilTheMorning() {
+    var scheduler = scheduler(at("2026-03-10T23:00:00Z"), NIGHT_START, NIGHT_END);
+
+    assertThat(scheduler.delayMillis(bulk(), destination())).isEqualTo(Duration.ofHours(9).toMillis());
+  }
+
+  @Test
+  void bulkMessageAfterMidnightIsHeldUntilTheMorning() {
+    var scheduler = scheduler(at("2026-03-10T03:00:00Z"), NIGHT_START, NIGHT_END);
+
+    assertThat(scheduler.delayMillis(bulk(), destination())).isEqualTo(Duration.ofHours(5).toMillis());
+  }
+
+  @Test
+  void bulkMessageOutsideQuietHoursIsSentImmediately() {
+    assertThat(scheduler(at("2026-03-10T12:00:00Z"), NIGHT_START, NIGHT_END).delayMillis(bulk(), destination())).isZero();
+    assertThat(scheduler(at("2026-03-10T08:00:00Z"), NIGHT_START, NIGHT_END).delayMillis(bulk(), destination())).isZero();
+    assertThat(scheduler(at("2026-03-10T21:59:59Z"), NIGHT_START, NIGHT_END).delayMillis(bulk(), destination())).isZero();
+  }
+
+  @Test
+  void quietHoursWithinOneDay() {
+    var start = LocalTime.of(13, 0);
+    var end = LocalTime.of(14, 0);
+
+    assertThat(scheduler(at("2026-03-10T13:30:00Z"), start, end).delayMillis(bulk(), destination()))
+        .isEqualTo(Duration.ofMinutes(30).toMillis());
+    assertThat(scheduler(at("2026-03-10T14:00:00Z"), start, end).delayMillis(bulk(), destination())).isZero();
+    assertThat(scheduler(at("2026-03-10T23:00:00Z"), start, end).delayMillis(bulk(), destination())).isZero();
+  }
+
+  @Test
+  void transactionalMessagesIgnoreQuietHours() {
+    var scheduler = scheduler(at("2026-03-10T23:00:00Z"), NIGHT_START, NIGHT_END);
+
+    assertThat(scheduler.delayMillis(new DeliveryOptions(Lane.TRANSACTIONAL, null), destination())).isZero();
+  }
+
+  @Test
+  void quietHoursFollowTheDestinationTimeZone() {
+    // 18:00 UTC is 23:00 in Tashkent (UTC+5), where the night ends at 03:00 UTC.
+    var scheduler = scheduler(at("2026-03-10T18:00:00Z"), NIGHT_START, NIGHT_END);
+
+    assertThat(scheduler.delayMillis(bulk(), destination(UUID.randomUUID(), "Asia/Tashkent")))
+        .isEqualTo(Duration.ofHours(9).toMillis());
+    assertThat(scheduler.delayMillis(bulk(), destination(UUID.randomUUID(), "Not/AZone"))).isZero();
+  }
+
+  @Test
+  void sendAtDelaysTheMessage() {
+    var now = at("2026-03-10T12:00:00Z");
+    var scheduler = scheduler(now, null, null);
+
+    var later = new DeliveryOptions(Lane.TRANSACTIONAL, now.plus(Duration.ofHours(2)));
+    var past = new DeliveryOptions(Lane.TRANSACTIONAL, now.minus(Duration.ofHours(2)));
+    assertThat(scheduler.delayMillis(later, destination())).isEqualTo(Duration.ofHours(2).toMillis());
+    assertThat(scheduler.delayMillis(past, destination())).isZero();
+  }
+
+  @Test
+  void sendAtAfterQuietHoursStartIsMovedPastThem() {
+    var now = at("2026-03-10T12:00:00Z");
+    var scheduler = scheduler(now, NIGHT_START, NIGHT_END);
+
+    var options = new DeliveryOptions(Lane.BULK, at("2026-03-10T23:30:00Z"));
+    assertThat(scheduler.delayMillis(options, destination())).isEqualTo(Duration.ofHours(20).toMillis());
+  }
+
+  @Test
+  void heldMessagesAreSpreadByDestinationId() {
+    var now = at("2026-03-10T12:00:00Z");
+    var scheduler = new DeliveryScheduler(properties(null, null, Duration.ofMinutes(1), 60, Duration.ZERO), fixed(now));
+    var options = new DeliveryOptions(Lane.TRANSACTIONAL, now.plus(Duration.ofHours(1)));
+
+    // new UUID(0, n).hashCode() is n, so each destination lands in slot n of one-second slots.
+    assertThat(scheduler.delayMillis(options, destination(new UUID(0, 0), null))).isEqualTo(Duration.ofHours(1).toMillis());
+    assertThat(scheduler.delayMillis(options, destination(new UUID(0, 7), null)))
+        .isEqualTo(Duration.ofHours(1).plusSeconds(7).toMillis());
+    assertThat(scheduler.delayMillis(options, destination(new UUID(0, 67), null)))
+        .isEqualTo(Duration.ofHours(1).plusSeconds(7).toMillis());
+  }
+
+  @Test
+  void immediateMessagesAreNotSpread() {
+    var scheduler = new DeliveryScheduler(properties(null, null, Duration.ofMinutes(1), 60, Duration.ZERO),
+        fixed(at("2026-03-10T12:00:00Z")));
+
+    assertThat(scheduler.delayMillis(new DeliveryOptions(Lane.BULK, null), destination(new UUID(0, 7), null))).isZero();
+  }
+
+  @Test
+  void delaysBelowTheMinimumAreSentImmediately() {
+    var now = at("2026-03-10T12:00:00Z");
+    var scheduler = new DeliveryScheduler(properties(null, null, Duration.ZERO, 1, Duration.ofSeconds(1)), fixed(now));
+
+    var soon = new DeliveryOptions(Lane.TRANSACTIONAL, now.plusMillis(500));
+    assertThat(scheduler.delayMillis(soon, destination())).isZero();
+  }
+
+  @Test
+  void sendAtBeyondTheMaximumDelayIsRejected() {
+    var now = at("2026-03-10T12:00:00Z");
+    var scheduler = scheduler(now, null, null);
+
+    assertThatCode(() -> scheduler.validate(null)).doesNotThrowAnyException();
+    assertThatCode(() -> scheduler.validate(now.plus(DeliveryScheduler.MAX_DELAY))).doesNotThrowAnyException();
+    assertThatThrownBy(() -> scheduler.validate(now.plus(DeliveryScheduler.MAX_DELAY).plusMillis(1)))
+        .isInstanceOfSatisfying(ApiException.class,
+            e -> assertThat(e.getErrorCode()).isEqualTo(CommonErrorCode.INVALID_SCHEDULE));
+  }
+
+  @Test
+  void delayIsCappedAtTheMaximum() {
+    var now = at("2026-03-10T12:00:00Z");
+    var scheduler = scheduler(now, null, null);
+
+    var farAway = new DeliveryOptions(Lane.TRANSACTIONAL, now.plus(DeliveryScheduler.MAX_DELAY).plus(Duration.ofDays(1)));
+    assertThat(scheduler.delayMillis(farAway, destination())).isEqualTo(DeliveryScheduler.MAX_DELAY.toMillis());
+  }
+
+  private static DeliveryScheduler scheduler(Instant now, LocalTime quietHoursStart, LocalTime quietHoursEnd) {
+    return new DeliveryScheduler(properties(quietHoursStart, quietHoursEnd, Duration.ZERO, 1, Duration.ZERO), fixed(now));
+  }
+
+  private static ApplicationProperties properties(LocalTime quietHoursStart, LocalTime quietHoursEnd,
+                                                  Duration releaseSpread, int releaseSlots, Duration minDelay) {
+    var props = mock(ApplicationProperties.class);
+    when(props.schedule()).thenReturn(new ApplicationProperties.Schedule(
+        quietHoursStart, quietHoursEnd, ZoneOffset.UTC, releaseSpread, releaseSlots, minDelay));
+    return props;
+  }
+
+  private static Clock fixed(Instant now) {
+    return Clock.fixed(now, ZoneId.of("UTC"));
+  }
+
+  private static Instant at(String instant) {
+    return Instant.parse(instant);
+  }
+
+  private static DeliveryOptions bulk() {
+    return new DeliveryOptions(Lane.BULK, null);
+  }
+
+  private static NotificationRequest.Destination destination() {
+    return destination(UUID.randomUUID(), null);
+  }
+
+  private static NotificationRequest.Destination destination(UUID id, String timezone) {
+    var destination = new HashMap<String, Object>();
+    destination.put("id", id.toString());
+    destination.put("phone", "998901234567");
+    destination.put("lang", "uz");
+    destination.put("variables", timezone != null ? Map.of("timezone", timezone) : Map.of());
+    return OBJECT_MAPPER.convertValue(destination, NotificationRequest.Destination.class);
+  }
+}
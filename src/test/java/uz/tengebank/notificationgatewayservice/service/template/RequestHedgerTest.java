@@ -0,0 +1,125 @@
+package uz.tengebank.notificationgatewayservice.service.template;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import uz.tengebank.notificationgatewayservice.config.props.ApplicationProperties;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RequestHedgerTest {
+
+  private static final Duration HEDGE_DELAY = Duration.ofMillis(50);
+
+  private final AtomicInteger calls = new AtomicInteger();
+  private final CountDownLatch release = new CountDownLatch(1);
+  private RequestHedger hedger = hedger(HEDGE_DELAY);
+
+  @AfterEach
+  void shutdown() {
+    release.countDown();
+    hedger.shutdown();
+  }
+
+  @Test
+  void fastCallIsNotHedged() throws InterruptedException {
+    var result = hedger.call(() -> {
+      calls.incrementAndGet();
+      return "primary";
+    });
+
+    TimeUnit.MILLISECONDS.sleep(HEDGE_DELAY.toMillis() * 2);
+    assertThat(result).isEqualTo("primary");
+    assertThat(calls).hasValue(1);
+  }
+
+  @Test
+  void slowCallIsHedgedAndTheFirstAnswerWins() {
+    var result = hedger.call(() -> {
+      if (calls.incrementAndGet() == 1) {
+        await(release);
+        return "primary";
+      }
+      return "hedge";
+    });
+
+    assertThat(result).isEqualTo("hedge");
+    assertThat(calls).hasValue(2);
+  }
+
+  @Test
+  void slowCallStillAnswersWhenTheHedgeFails() {
+    var result = hedger.call(() -> {
+      if (calls.incrementAndGet() == 1) {
+        sleep(HEDGE_DELAY.toMillis() * 3);
+        return "primary";
+      }
+      throw new IllegalStateException("hedge failed");
+    });
+
+    assertThat(result).isEqualTo("primary");
+  }
+
+  @Test
+  void callFailingBeforeTheHedgeDelayIsNotRetried() {
+    assertThatThrownBy(() -> hedger.call(() -> {
+      calls.incrementAndGet();
+      throw new IllegalArgumentException("bad request");
+    })).isInstanceOf(IllegalArgumentException.class).hasMessage("bad request");
+
+    assertThat(calls).hasValue(1);
+  }
+
+  @Test
+  void callFailsOnceBothAttemptsHaveFailed() {
+    assertThatThrownBy(() -> hedger.call(() -> {
+      if (calls.incrementAndGet() == 1) {
+        sleep(HEDGE_DELAY.toMillis() * 2);
+      }
+      throw new IllegalStateException("unavailable");
+    })).isInstanceOf(IllegalStateException.class).hasMessage("unavailable");
+
+    assertThat(calls).hasValue(2);
+  }
+
+  @Test
+  void withoutAHedgeDelayTheCallRunsOnTheCallersThread() {
+    hedger.shutdown();
+    hedger = hedger(null);
+    var caller = Thread.currentThread();
+
+    var result = hedger.call(() -> Thread.currentThread() == caller);
+
+    assertThat(result).isTrue();
+  }
+
+  private static RequestHedger hedger(Duration hedgeDelay) {
+    var props = mock(ApplicationProperties.class);
+    when(props.services()).thenReturn(new ApplicationProperties.Services(
+        new ApplicationProperties.NotificationTemplateService("http://templates", null, hedgeDelay, null)));
+    return new RequestHedger(props);
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static void sleep(long millis) {
+    try {
+      TimeUnit.MILLISECONDS.sleep(millis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
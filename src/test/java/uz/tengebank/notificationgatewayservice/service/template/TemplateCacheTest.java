@@ -0,0 +1,111 @@
+package uz.tengebank.notificationgatewayservice.service.template;
+
+import feign.FeignException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.circuitbreaker.NoFallbackAvailableException;
+import org.springframework.context.ApplicationEventPublisher;
+import uz.tengebank.notificationgatewayservice.config.props.ApplicationProperties;
+import uz.tengebank.notificationgatewayservice.dto.ApiError;
+import uz.tengebank.notificationgatewayservice.dto.ApiResponse;
+import uz.tengebank.notificationgatewayservice.dto.template.NotificationTemplateResponseDto;
+import uz.tengebank.notificationgatewayservice.service.TemplateServiceClient;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TemplateCacheTest {
+
+  private static final String NAME = "otp";
+  private static final Duration REFRESH_AFTER = Duration.ofMinutes(1);
+
+  private final TemplateServiceClient templateServiceClient = mock(TemplateServiceClient.class);
+  private final ApplicationEventPublisher applicationEventPublisher = mock(ApplicationEventPublisher.class);
+  private final AtomicLong nanos = new AtomicLong();
+  private TemplateCache templateCache;
+
+  @BeforeEach
+  void setUp() {
+    var requestHedger = mock(RequestHedger.class);
+    when(requestHedger.call(any())).thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(0).get());
+    var props = mock(ApplicationProperties.class);
+    when(props.templateCache()).thenReturn(new ApplicationProperties.TemplateCache(100, Duration.ofHours(1),
+        Duration.ofSeconds(30), REFRESH_AFTER));
+    // Refreshes run on the calling thread, so they are done when get() returns.
+    templateCache = new TemplateCache(templateServiceClient, requestHedger, applicationEventPublisher, props,
+        new SimpleMeterRegistry(), nanos::get, Runnable::run);
+  }
+
+  @Test
+  void foundTemplateIsLoadedOnce() {
+    when(templateServiceClient.getTemplateByName(NAME)).thenReturn(ApiResponse.success(template(1L)));
+
+    assertThat(templateCache.get(NAME).version()).isEqualTo(1L);
+    assertThat(templateCache.get(NAME).version()).isEqualTo(1L);
+
+    verify(templateServiceClient).getTemplateByName(NAME);
+  }
+
+  @Test
+  void errorResponseOnRefreshKeepsTheCachedTemplate() {
+    when(templateServiceClient.getTemplateByName(NAME))
+        .thenReturn(ApiResponse.success(template(1L)))
+        .thenReturn(new ApiResponse<>(500, ApiResponse.Status.ERROR, null,
+            new ApiError("INTERNAL", "Template service is unavailable", null)));
+    templateCache.get(NAME);
+
+    refreshDue();
+
+    assertThat(templateCache.get(NAME).isFound()).isTrue();
+    assertThat(templateCache.get(NAME).version()).isEqualTo(1L);
+    verify(applicationEventPublisher, never()).publishEvent(any(Object.class));
+  }
+
+  @Test
+  void notFoundOnRefreshEvictsTheCachedTemplate() {
+    when(templateServiceClient.getTemplateByName(NAME))
+        .thenReturn(ApiResponse.success(template(1L)))
+        .thenThrow(new NoFallbackAvailableException("No fallback available.", mock(FeignException.NotFound.class)));
+    templateCache.get(NAME);
+
+    refreshDue();
+    templateCache.get(NAME);
+
+    assertThat(templateCache.get(NAME).isFound()).isFalse();
+    verify(applicationEventPublisher).publishEvent(new TemplateVersionChangedEvent(NAME, 1L, null));
+  }
+
+  @Test
+  void newVersionOnRefreshIsPublished() {
+    when(templateServiceClient.getTemplateByName(NAME))
+        .thenReturn(ApiResponse.success(template(1L)))
+        .thenReturn(ApiResponse.success(template(2L)));
+    templateCache.get(NAME);
+
+    refreshDue();
+    templateCache.get(NAME);
+
+    assertThat(templateCache.get(NAME).version()).isEqualTo(2L);
+    verify(applicationEventPublisher).publishEvent(new TemplateVersionChangedEvent(NAME, 1L, 2L));
+  }
+
+  private void refreshDue() {
+    nanos.addAndGet(REFRESH_AFTER.plusSeconds(1).toNanos());
+  }
+
+  private static NotificationTemplateResponseDto template(Long version) {
+    return new NotificationTemplateResponseDto(1L, NAME,
+        new NotificationTemplateResponseDto.SmsTemplateDto(Map.of("uz", "Kod: {{code}}")), null,
+        null, null, null, null, version);
+  }
+}